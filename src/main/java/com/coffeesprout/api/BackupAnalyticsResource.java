@@ -9,6 +9,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 import com.coffeesprout.api.dto.*;
+import com.coffeesprout.model.BackupDailyStat;
 import com.coffeesprout.service.BackupAnalyticsService;
 import com.coffeesprout.service.SafeMode;
 import io.smallrye.common.annotation.RunOnVirtualThread;
@@ -107,7 +108,7 @@ public class BackupAnalyticsResource {
     @Path("/trends")
     @SafeMode(false)  // Read operation
     @Operation(summary = "Get storage growth trends",
-               description = "Analyze backup storage growth over time")
+               description = "Analyze backup storage growth over time, for the whole cluster or for one storage, client or VM")
     @APIResponses({
         @APIResponse(responseCode = "200", description = "Storage trends calculated successfully",
             content = @Content(schema = @Schema(implementation = StorageTrend.class))),
@@ -121,7 +122,13 @@ public class BackupAnalyticsResource {
                       required = false,
                       example = "daily",
                       schema = @Schema(enumeration = {"daily", "weekly", "monthly"}))
-            @QueryParam("period") @DefaultValue("daily") String period) {
+            @QueryParam("period") @DefaultValue("daily") String period,
+            @Parameter(description = "Only backups on this storage", example = "pbs")
+            @QueryParam("storage") String storage,
+            @Parameter(description = "Only backups of VMs with this client tag", example = "client-acme")
+            @QueryParam("client") String client,
+            @Parameter(description = "Only backups of this VM", example = "100")
+            @QueryParam("vmId") Integer vmId) {
         try {
             // Validate period
             if (!period.matches("daily|weekly|monthly")) {
@@ -130,7 +137,23 @@ public class BackupAnalyticsResource {
                         .build();
             }
 
-            StorageTrend trends = analyticsService.getStorageTrends(period, null);
+            int filters = (storage != null ? 1 : 0) + (client != null ? 1 : 0) + (vmId != null ? 1 : 0);
+            if (filters > 1) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Only one of storage, client and vmId can be given"))
+                        .build();
+            }
+
+            StorageTrend trends;
+            if (storage != null) {
+                trends = analyticsService.getStorageTrends(period, BackupDailyStat.SCOPE_STORAGE, storage, null);
+            } else if (client != null) {
+                trends = analyticsService.getStorageTrends(period, BackupDailyStat.SCOPE_CLIENT, client, null);
+            } else if (vmId != null) {
+                trends = analyticsService.getStorageTrends(period, BackupDailyStat.SCOPE_VM, vmId.toString(), null);
+            } else {
+                trends = analyticsService.getStorageTrends(period, null);
+            }
             return Response.ok(trends).build();
         } catch (Exception e) {
             LOG.error("Failed to calculate storage trends", e);
@@ -139,4 +162,46 @@ public class BackupAnalyticsResource {
                     .build();
         }
     }
+
+    @GET
+    @Path("/growth")
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "Get backup storage growth",
+               description = "Growth of backup storage per storage, client or VM over the last days, from the recorded backup history")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Backup growth calculated successfully",
+            content = @Content(schema = @Schema(implementation = BackupGrowth.class))),
+        @APIResponse(responseCode = "400", description = "Invalid scope or days parameter",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @APIResponse(responseCode = "500", description = "Failed to calculate growth",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Response getStorageGrowth(
+            @Parameter(description = "What to group growth by",
+                      example = "storage",
+                      schema = @Schema(enumeration = {"cluster", "storage", "client", "vm"}))
+            @QueryParam("scope") @DefaultValue("storage") String scope,
+            @Parameter(description = "Number of days to look back, including today", example = "30")
+            @QueryParam("days") @DefaultValue("30") int days) {
+        try {
+            if (!scope.matches("cluster|storage|client|vm")) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid scope. Must be one of: cluster, storage, client, vm"))
+                        .build();
+            }
+            if (days < 1 || days > 3650) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid days. Must be between 1 and 3650"))
+                        .build();
+            }
+
+            List<BackupGrowth> growth = analyticsService.getStorageGrowth(scope, days);
+            return Response.ok(growth).build();
+        } catch (Exception e) {
+            LOG.error("Failed to calculate backup growth", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse("Failed to calculate backup growth: " + e.getMessage()))
+                    .build();
+        }
+    }
 }
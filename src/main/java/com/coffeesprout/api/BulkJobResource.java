@@ -0,0 +1,124 @@
+package com.coffeesprout.api;
+
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import com.coffeesprout.api.dto.BulkJobItemResponse;
+import com.coffeesprout.api.dto.BulkJobResponse;
+import com.coffeesprout.api.dto.ErrorResponse;
+import com.coffeesprout.service.BulkOperationEngine;
+import com.coffeesprout.service.SafeMode;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Path("/api/v1/bulk/jobs")
+@Produces(MediaType.APPLICATION_JSON)
+@ApplicationScoped
+@RunOnVirtualThread
+@Tag(name = "Bulk Jobs", description = "Status, results and cancellation of asynchronous bulk operations")
+public class BulkJobResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkJobResource.class);
+
+    @Inject
+    BulkOperationEngine bulkEngine;
+
+    @GET
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "List bulk jobs", description = "Most recent bulk jobs first")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Jobs retrieved successfully",
+            content = @Content(schema = @Schema(implementation = BulkJobResponse.class)))
+    })
+    public List<BulkJobResponse> listJobs(
+            @Parameter(description = "Maximum number of jobs to return", example = "20")
+            @QueryParam("limit") @DefaultValue("20") int limit) {
+        return bulkEngine.listJobs(Math.max(1, Math.min(limit, 500)));
+    }
+
+    @GET
+    @Path("/{jobId}")
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "Get bulk job", description = "Status and progress of a bulk job; includes the full response once finished")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Job retrieved successfully",
+            content = @Content(schema = @Schema(implementation = BulkJobResponse.class))),
+        @APIResponse(responseCode = "404", description = "Job not found",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Response getJob(
+            @Parameter(description = "Bulk job ID", required = true, example = "1")
+            @PathParam("jobId") long jobId) {
+        return bulkEngine.getJob(jobId)
+            .map(job -> Response.ok(job).build())
+            .orElseGet(() -> notFound(jobId));
+    }
+
+    @GET
+    @Path("/{jobId}/items")
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "Get bulk job results", description = "Recorded outcome of each VM processed by the job so far")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Results retrieved successfully",
+            content = @Content(schema = @Schema(implementation = BulkJobItemResponse.class))),
+        @APIResponse(responseCode = "404", description = "Job not found",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Response getJobItems(
+            @Parameter(description = "Bulk job ID", required = true, example = "1")
+            @PathParam("jobId") long jobId,
+            @Parameter(description = "Filter by outcome",
+                      schema = @Schema(enumeration = {"success", "error", "skipped", "cancelled"}))
+            @QueryParam("status") String status) {
+        if (bulkEngine.getJob(jobId).isEmpty()) {
+            return notFound(jobId);
+        }
+        return Response.ok(bulkEngine.listItems(jobId, status)).build();
+    }
+
+    @DELETE
+    @Path("/{jobId}")
+    @SafeMode(false)  // Only prevents pending VMs from starting
+    @Operation(summary = "Cancel bulk job",
+               description = "VMs not yet started are recorded as cancelled; operations already sent to Proxmox complete normally")
+    @APIResponses({
+        @APIResponse(responseCode = "202", description = "Cancellation requested"),
+        @APIResponse(responseCode = "404", description = "Job not found",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @APIResponse(responseCode = "409", description = "Job is not running on this instance",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Response cancelJob(
+            @Parameter(description = "Bulk job ID", required = true, example = "1")
+            @PathParam("jobId") long jobId) {
+        if (bulkEngine.cancel(jobId)) {
+            LOG.info("Cancellation requested for bulk job {}", jobId);
+            return Response.accepted().build();
+        }
+        if (bulkEngine.getJob(jobId).isEmpty()) {
+            return notFound(jobId);
+        }
+        return Response.status(Response.Status.CONFLICT)
+                .entity(new ErrorResponse("Bulk job " + jobId + " is not running on this instance"))
+                .build();
+    }
+
+    private Response notFound(long jobId) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ErrorResponse("Bulk job not found: " + jobId))
+                .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.coffeesprout.api;
 
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -9,13 +12,17 @@ import jakarta.ws.rs.core.Response;
 
 import com.coffeesprout.api.dto.BulkPowerRequest;
 import com.coffeesprout.api.dto.BulkPowerResponse;
+import com.coffeesprout.api.dto.BulkJobResponse;
 import com.coffeesprout.api.dto.ErrorResponse;
 import com.coffeesprout.service.PowerService;
+import com.coffeesprout.service.BulkJobHandle;
+import com.coffeesprout.service.BulkOperationEngine;
 import com.coffeesprout.service.SafeMode;
 import io.smallrye.common.annotation.RunOnVirtualThread;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
@@ -36,6 +43,9 @@ public class BulkPowerResource {
     @Inject
     PowerService powerService;
 
+    @Inject
+    BulkOperationEngine bulkEngine;
+
     @POST
     @Path("/bulk")
     @SafeMode(operation = SafeMode.Operation.WRITE)
@@ -46,6 +56,8 @@ public class BulkPowerResource {
     @APIResponses({
         @APIResponse(responseCode = "200", description = "Bulk power operation completed",
             content = @Content(schema = @Schema(implementation = BulkPowerResponse.class))),
+        @APIResponse(responseCode = "202", description = "Bulk job started (async=true) or still running after timeoutSeconds",
+            content = @Content(schema = @Schema(implementation = BulkJobResponse.class))),
         @APIResponse(responseCode = "400", description = "Invalid request parameters",
             content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @APIResponse(responseCode = "403", description = "Forbidden - Safe mode violation",
@@ -56,7 +68,11 @@ public class BulkPowerResource {
     public Response bulkPowerOperation(
             @RequestBody(description = "Bulk power operation request", required = true,
                 content = @Content(schema = @Schema(implementation = BulkPowerRequest.class)))
-            @Valid BulkPowerRequest request) {
+            @Valid BulkPowerRequest request,
+            @Parameter(description = "Client-chosen ID for following per-VM progress at /api/v1/operations/{operationId}/events")
+            @QueryParam("operationId") String operationId,
+            @Parameter(description = "Return 202 with a bulk job handle instead of waiting for all VMs")
+            @QueryParam("async") @DefaultValue("false") boolean async) {
         try {
             LOG.info("Starting bulk {} operation with selectors: {}",
                     request.operation(), request.vmSelectors());
@@ -69,9 +85,21 @@ public class BulkPowerResource {
             }
 
             // Perform bulk power operation
-            BulkPowerResponse response = powerService.bulkPowerOperation(request, null);
-
-            return Response.ok(response).build();
+            BulkJobHandle<BulkPowerResponse> handle = powerService.startBulkPowerOperation(request, operationId, null);
+            if (handle.jobId() == null) {
+                // Dry run or nothing matched - the response is already complete
+                return Response.ok(handle.await()).build();
+            }
+            if (!async) {
+                try {
+                    return Response.ok(handle.await(Duration.ofSeconds(request.timeoutSeconds()))).build();
+                } catch (TimeoutException e) {
+                    // The job continues in the background; hand out the job instead of the response
+                    LOG.warn("Bulk power job {} still running after {}s, returning job handle",
+                            handle.jobId(), request.timeoutSeconds());
+                }
+            }
+            return Response.accepted(bulkEngine.getJob(handle.jobId()).orElseThrow()).build();
         } catch (IllegalArgumentException e) {
             LOG.error("Invalid request for bulk power operation", e);
             return Response.status(Response.Status.BAD_REQUEST)
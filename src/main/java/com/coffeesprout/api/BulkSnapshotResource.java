@@ -1,5 +1,7 @@
 package com.coffeesprout.api;
 
+import java.util.concurrent.TimeoutException;
+
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -9,14 +11,18 @@ import jakarta.ws.rs.core.Response;
 
 import com.coffeesprout.api.dto.BulkSnapshotRequest;
 import com.coffeesprout.api.dto.BulkSnapshotResponse;
+import com.coffeesprout.api.dto.BulkJobResponse;
 import com.coffeesprout.api.dto.ErrorResponse;
 import com.coffeesprout.constants.VMConstants;
+import com.coffeesprout.service.BulkJobHandle;
+import com.coffeesprout.service.BulkOperationEngine;
 import com.coffeesprout.service.SafeMode;
 import com.coffeesprout.service.SnapshotService;
 import io.smallrye.common.annotation.RunOnVirtualThread;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
@@ -37,6 +43,9 @@ public class BulkSnapshotResource {
     @Inject
     SnapshotService snapshotService;
 
+    @Inject
+    BulkOperationEngine bulkEngine;
+
     @POST
     @Path("/bulk")
     @SafeMode(operation = SafeMode.Operation.WRITE)
@@ -47,6 +56,8 @@ public class BulkSnapshotResource {
     @APIResponses({
         @APIResponse(responseCode = "200", description = "Bulk snapshot operation completed",
             content = @Content(schema = @Schema(implementation = BulkSnapshotResponse.class))),
+        @APIResponse(responseCode = "202", description = "Bulk job started (async=true) or still running after 5 minutes",
+            content = @Content(schema = @Schema(implementation = BulkJobResponse.class))),
         @APIResponse(responseCode = "400", description = "Invalid request parameters",
             content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @APIResponse(responseCode = "403", description = "Forbidden - Safe mode violation",
@@ -57,7 +68,11 @@ public class BulkSnapshotResource {
     public Response createBulkSnapshots(
             @RequestBody(description = "Bulk snapshot creation request", required = true,
                 content = @Content(schema = @Schema(implementation = BulkSnapshotRequest.class)))
-            @Valid BulkSnapshotRequest request) {
+            @Valid BulkSnapshotRequest request,
+            @Parameter(description = "Client-chosen ID for following per-VM progress at /api/v1/operations/{operationId}/events")
+            @QueryParam("operationId") String operationId,
+            @Parameter(description = "Return 202 with a bulk job handle instead of waiting for all VMs")
+            @QueryParam("async") @DefaultValue("false") boolean async) {
         try {
             LOG.info("Starting bulk snapshot creation with selectors: {}", request.vmSelectors());
 
@@ -69,9 +84,21 @@ public class BulkSnapshotResource {
             }
 
             // Perform bulk snapshot creation
-            BulkSnapshotResponse response = snapshotService.bulkCreateSnapshots(request, null);
-
-            return Response.ok(response).build();
+            BulkJobHandle<BulkSnapshotResponse> handle = snapshotService.startBulkCreateSnapshots(request, operationId, null);
+            if (handle.jobId() == null) {
+                // Dry run or nothing matched - the response is already complete
+                return Response.ok(handle.await()).build();
+            }
+            if (!async) {
+                try {
+                    return Response.ok(handle.await(BulkOperationEngine.SYNC_WAIT)).build();
+                } catch (TimeoutException e) {
+                    // The job continues in the background; hand out the job instead of the response
+                    LOG.warn("Bulk snapshot job {} still running after {}, returning job handle",
+                            handle.jobId(), BulkOperationEngine.SYNC_WAIT);
+                }
+            }
+            return Response.accepted(bulkEngine.getJob(handle.jobId()).orElseThrow()).build();
         } catch (IllegalArgumentException e) {
             LOG.error("Invalid request for bulk snapshot creation", e);
             return Response.status(Response.Status.BAD_REQUEST)
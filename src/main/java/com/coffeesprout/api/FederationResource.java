@@ -75,7 +75,7 @@ public class FederationResource {
     public Response getCapacity() {
         try {
             ClusterResources resources = cacheService.get(
-                "federation-capacity",
+                "federation:capacity",
                 () -> {
                     try {
                         return resourceProvider.getClusterResources().get();
@@ -156,7 +156,7 @@ public class FederationResource {
     public Response getUtilization() {
         try {
             ClusterResources resources = cacheService.get(
-                "federation-utilization",
+                "federation:utilization",
                 () -> {
                     try {
                         return resourceProvider.getClusterResources().get();
@@ -7,6 +7,7 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
+import com.coffeesprout.api.dto.DrainPlanResponse;
 import com.coffeesprout.api.dto.NodeDrainRequest;
 import com.coffeesprout.api.dto.NodeDrainResponse;
 import com.coffeesprout.api.dto.NodeMaintenanceResponse;
@@ -71,6 +72,31 @@ public class NodeMaintenanceResource {
         }
     }
 
+    @POST
+    @Path("/{node}/drain/plan")
+    @Operation(
+        summary = "Plan a node drain",
+        description = "Estimate the data each migration of a drain moves, the bandwidth limit applied to each " +
+                     "and the predicted total duration, without migrating anything."
+    )
+    @APIResponses({
+        @APIResponse(
+            responseCode = "200",
+            description = "Drain plan",
+            content = @Content(schema = @Schema(implementation = DrainPlanResponse.class))
+        ),
+        @APIResponse(responseCode = "404", description = "Node not found")
+    })
+    public Response planDrain(
+        @Parameter(description = "Node name to drain", example = "hv7")
+        @PathParam("node") String node,
+
+        @Valid NodeDrainRequest request
+    ) {
+        NodeDrainRequest drainRequest = request != null ? request : NodeDrainRequest.withDefaults();
+        return Response.ok(nodeMaintenanceService.planDrain(node, drainRequest, null)).build();
+    }
+
     @POST
     @Path("/{node}/maintenance")
     @Operation(
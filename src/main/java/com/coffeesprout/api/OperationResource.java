@@ -0,0 +1,104 @@
+package com.coffeesprout.api;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import com.coffeesprout.service.OperationProgressService;
+import com.coffeesprout.service.SafeMode;
+import com.coffeesprout.service.TaskWatcherService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Path("/api/v1/operations")
+@ApplicationScoped
+@RunOnVirtualThread
+@Tag(name = "Operations", description = "Progress of bulk operations")
+public class OperationResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OperationResource.class);
+
+    @Inject
+    OperationProgressService operationProgress;
+
+    @GET
+    @Path("/{operationId}/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "Stream bulk operation progress",
+               description = "Server-Sent Events stream of a bulk operation started with ?operationId=. " +
+                            "Emits one \"result\" event per VM as it finishes and a final \"completed\" (or \"failed\") " +
+                            "event with the full response, then closes. Events already published are replayed, " +
+                            "so the stream may be opened before or after the bulk request is sent. A stream for an operation " +
+                            "that does not start within 10 minutes receives a \"failed\" event and closes.")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Event stream opened")
+    })
+    public void streamOperationEvents(
+            @Parameter(description = "Operation ID passed to the bulk request", required = true, example = "nightly-snapshots-42")
+            @PathParam("operationId") String operationId,
+            @Context SseEventSink sink,
+            @Context Sse sse) {
+        OperationEventStream stream = new OperationEventStream(sink, sse);
+        stream.subscription = operationProgress.subscribe(operationId, stream);
+        if (sink.isClosed()) {
+            stream.subscription.close();
+        }
+    }
+
+    /**
+     * Forwards the progress of one operation to one SSE client
+     */
+    private static final class OperationEventStream implements OperationProgressService.ProgressListener {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private volatile TaskWatcherService.Subscription subscription;
+
+        OperationEventStream(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        @Override
+        public void onEvent(OperationProgressService.ProgressEvent event) {
+            if (sink.isClosed()) {
+                close();
+                return;
+            }
+            boolean last = !OperationProgressService.ProgressEvent.RESULT.equals(event.type());
+            sink.send(sse.newEventBuilder()
+                    .name(event.type())
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(event)
+                    .build())
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        LOG.debug("Operation event stream closed: {}", e.getMessage());
+                    }
+                    if (e != null || last) {
+                        close();
+                    }
+                });
+        }
+
+        private void close() {
+            TaskWatcherService.Subscription current = subscription;
+            if (current != null) {
+                current.close();
+            }
+            if (!sink.isClosed()) {
+                sink.close();
+            }
+        }
+    }
+}
@@ -70,7 +70,7 @@ public class ResourceEndpoint {
             @QueryParam("useCache") @DefaultValue("true") boolean useCache) {
 
         try {
-            String cacheKey = "cluster-resources-" + includeNodes + "-" + includeVMs;
+            String cacheKey = "cluster-resources:" + includeNodes + "-" + includeVMs;
 
             FederationClusterResourcesResponse response = useCache
                 ? cacheService.get(cacheKey, () -> buildFederationClusterResourcesResponse(includeNodes, includeVMs))
@@ -158,7 +158,7 @@ public class ResourceEndpoint {
 
         try {
             NodeResources resources = cacheService.get(
-                "node-resources-" + nodeId,
+                "node-resources:" + nodeId,
                 () -> {
                     try {
                         return resourceProvider.getNodeResources(nodeId).get();
@@ -338,7 +338,7 @@ public class ResourceEndpoint {
     public Response invalidateCache(
             @Parameter(description = "Specific cache key to invalidate")
             @QueryParam("key") String key,
-            @Parameter(description = "Pattern to match keys for invalidation")
+            @Parameter(description = "Pattern to match keys for invalidation, e.g. node-resources:*")
             @QueryParam("pattern") String pattern) {
 
         try {
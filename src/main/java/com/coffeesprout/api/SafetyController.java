@@ -110,16 +110,7 @@ public class SafetyController {
 
             // Convert to response DTOs
             List<AuditEntryResponse> auditResponses = entries.stream()
-                .map(entry -> new AuditEntryResponse(
-                    entry.timestamp().toString(),
-                    entry.operation(),
-                    entry.decision(),
-                    entry.reason(),
-                    entry.vmId(),
-                    null, // VM name not currently tracked
-                    entry.user(),
-                    entry.clientIp()
-                ))
+                .map(SafetyController::toResponse)
                 .toList();
 
             AuditLogResponse response = new AuditLogResponse(auditResponses);
@@ -133,6 +124,66 @@ public class SafetyController {
         }
     }
 
+    @GET
+    @Path("/audit/history")
+    @Operation(summary = "Query audit history",
+               description = "Page through the persisted safety audit log, newest first, filtered by time, user, VM and decision")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Audit history retrieved successfully",
+            content = @Content(schema = @Schema(implementation = AuditHistoryResponse.class))),
+        @APIResponse(responseCode = "400", description = "Invalid request parameters",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @APIResponse(responseCode = "500", description = "Failed to retrieve audit history",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Response getAuditHistory(
+            @Parameter(description = "Earliest entry time, inclusive (ISO-8601 format)", required = false)
+            @QueryParam("from") String fromStr,
+            @Parameter(description = "Latest entry time, exclusive (ISO-8601 format)", required = false)
+            @QueryParam("to") String toStr,
+            @Parameter(description = "Only entries of this user", required = false)
+            @QueryParam("user") String user,
+            @Parameter(description = "Only entries for this VM", required = false)
+            @QueryParam("vmId") Integer vmId,
+            @Parameter(description = "Only entries with this decision: ALLOWED or BLOCKED", required = false)
+            @QueryParam("decision") String decision,
+            @Parameter(description = "nextCursor of the previous page", required = false)
+            @QueryParam("cursor") String cursor,
+            @Parameter(description = "Maximum number of entries to return", required = false)
+            @DefaultValue("100") @QueryParam("limit") int limit) {
+        Instant from;
+        Instant to;
+        try {
+            from = fromStr != null && !fromStr.isEmpty() ? Instant.parse(fromStr) : Instant.EPOCH;
+            to = toStr != null && !toStr.isEmpty() ? Instant.parse(toStr) : null;
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid from or to format. Use ISO-8601 format (e.g., 2024-01-15T00:00:00Z)"))
+                    .build();
+        }
+        if (decision != null && !decision.equals("ALLOWED") && !decision.equals("BLOCKED")) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid decision: " + decision + ". Use ALLOWED or BLOCKED"))
+                    .build();
+        }
+
+        try {
+            AuditService.AuditPage page = auditService.queryAuditEntries(from, to, user, vmId, decision, cursor, limit);
+            return Response.ok(new AuditHistoryResponse(page.entries().stream()
+                .map(SafetyController::toResponse)
+                .toList(), page.nextCursor())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Failed to get audit history", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse("Failed to get audit history: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     @GET
     @Path("/config")
     @Operation(summary = "Get safety configuration", description = "Get the current safe mode configuration")
@@ -150,7 +201,8 @@ public class SafetyController {
                 safetyConfig.tagName(),
                 safetyConfig.allowUntaggedRead(),
                 safetyConfig.allowManualOverride(),
-                safetyConfig.auditLog()
+                safetyConfig.auditLog(),
+                safetyConfig.verifyDestructive()
             );
 
             return Response.ok(response).build();
@@ -162,6 +214,19 @@ public class SafetyController {
         }
     }
 
+    private static AuditEntryResponse toResponse(AuditService.AuditEntry entry) {
+        return new AuditEntryResponse(
+            entry.timestamp().toString(),
+            entry.operation(),
+            entry.decision(),
+            entry.reason(),
+            entry.vmId(),
+            null, // VM name not currently tracked
+            entry.user(),
+            entry.clientIp()
+        );
+    }
+
     // Response DTOs
     public record SafetyStatusResponse(
         boolean enabled,
@@ -180,6 +245,11 @@ public class SafetyController {
         List<AuditEntryResponse> entries
     ) {}
 
+    public record AuditHistoryResponse(
+        List<AuditEntryResponse> entries,
+        String nextCursor
+    ) {}
+
     public record AuditEntryResponse(
         String timestamp,
         String operation,
@@ -197,6 +267,7 @@ public class SafetyController {
         String tagName,
         boolean allowUntaggedRead,
         boolean allowManualOverride,
-        boolean auditLog
+        boolean auditLog,
+        boolean verifyDestructive
     ) {}
 }
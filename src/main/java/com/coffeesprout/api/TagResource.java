@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -18,6 +19,7 @@ import jakarta.ws.rs.core.Response;
 
 import com.coffeesprout.api.dto.ErrorResponse;
 import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.service.OperationProgressService;
 import com.coffeesprout.service.SafeMode;
 import com.coffeesprout.service.TagService;
 import com.coffeesprout.service.VMService;
@@ -50,6 +52,9 @@ public class TagResource {
     @Inject
     VMService vmService;
 
+    @Inject
+    OperationProgressService operationProgress;
+
     @GET
     @SafeMode(false)  // Read operation
     @Operation(summary = "Get all unique tags", description = "Get all unique tags in use across all VMs")
@@ -130,6 +135,8 @@ public class TagResource {
             @QueryParam("vmIds") String vmIds,
             @Parameter(description = "VM name pattern (e.g., nixz-*, *-prod*)")
             @QueryParam("namePattern") String namePattern,
+            @Parameter(description = "Client-chosen ID for following per-VM progress at /api/v1/operations/{operationId}/events")
+            @QueryParam("operationId") String operationId,
             @RequestBody(description = "Bulk tag operation request", required = true,
                 content = @Content(schema = @Schema(implementation = BulkTagRequest.class)))
             @Valid BulkTagRequest request) {
@@ -156,6 +163,8 @@ public class TagResource {
                 }
             }
 
+            operationProgress.start(operationId);
+
             // Determine which VMs to update
             List<Integer> targetVmIds = new ArrayList<>();
 
@@ -174,19 +183,21 @@ public class TagResource {
                 // Find VMs by name pattern
                 targetVmIds = tagService.findVMsByNamePattern(namePattern, null);
                 if (targetVmIds.isEmpty()) {
-                    return Response.ok(new BulkTagResponse(Map.of(),
-                        "No VMs found matching pattern: " + namePattern)).build();
+                    BulkTagResponse empty = new BulkTagResponse(Map.of(), "No VMs found matching pattern: " + namePattern);
+                    operationProgress.complete(operationId, empty);
+                    return Response.ok(empty).build();
                 }
             }
 
             // Perform the operation
             Map<Integer, String> results;
             Set<String> tagSet = new HashSet<>(request.tags());
+            BiConsumer<Integer, String> onResult = (vmId, result) -> operationProgress.publishResult(operationId, vmId, result);
 
             if (request.action() == BulkTagRequest.Action.ADD) {
-                results = tagService.bulkAddTags(targetVmIds, tagSet, null);
+                results = tagService.bulkAddTags(targetVmIds, tagSet, onResult, null);
             } else {
-                results = tagService.bulkRemoveTags(targetVmIds, tagSet, null);
+                results = tagService.bulkRemoveTags(targetVmIds, tagSet, onResult, null);
             }
 
             // Count successes
@@ -202,9 +213,12 @@ public class TagResource {
                 targetVmIds.size()
             );
 
-            return Response.ok(new BulkTagResponse(results, message)).build();
+            BulkTagResponse response = new BulkTagResponse(results, message);
+            operationProgress.complete(operationId, response);
+            return Response.ok(response).build();
         } catch (Exception e) {
             LOG.error("Failed to perform bulk tag operation", e);
+            operationProgress.fail(operationId, e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(new ErrorResponse("Failed to perform bulk operation: " + e.getMessage()))
                     .build();
@@ -1,17 +1,24 @@
 package com.coffeesprout.api;
 
+import java.util.List;
+
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 import com.coffeesprout.api.dto.ErrorResponse;
+import com.coffeesprout.api.dto.TaskEvent;
 import com.coffeesprout.api.dto.TaskListResponse;
 import com.coffeesprout.api.dto.TaskLogResponse;
 import com.coffeesprout.api.dto.TaskStatusDetailResponse;
 import com.coffeesprout.service.SafeMode;
 import com.coffeesprout.service.TaskService;
+import com.coffeesprout.service.TaskWatcherService;
 import io.smallrye.common.annotation.RunOnVirtualThread;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -35,6 +42,9 @@ public class TaskResource {
     @Inject
     TaskService taskService;
 
+    @Inject
+    TaskWatcherService taskWatcherService;
+
     @GET
     @SafeMode(false)  // Read operation
     @Operation(summary = "List tasks",
@@ -59,13 +69,15 @@ public class TaskResource {
             @QueryParam("user") String userFilter,
             @Parameter(description = "Filter by VM ID", example = "100")
             @QueryParam("vmid") Integer vmid,
+            @Parameter(description = "listingId of an earlier page; continues that listing instead of re-reading all nodes")
+            @QueryParam("listingId") String listingId,
             @Parameter(description = "Start index for pagination", example = "0")
             @QueryParam("start") @DefaultValue("0") Integer start,
             @Parameter(description = "Number of results to return", example = "50")
             @QueryParam("limit") @DefaultValue("50") Integer limit) {
         try {
             TaskListResponse tasks = taskService.listTasks(
-                node, typeFilter, statusFilter, userFilter, vmid, start, limit, null
+                node, typeFilter, statusFilter, userFilter, vmid, listingId, start, limit, null
             );
             return Response.ok(tasks).build();
         } catch (Exception e) {
@@ -166,6 +178,30 @@ public class TaskResource {
         }
     }
 
+    @GET
+    @Path("/{taskId}/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @SafeMode(false)  // Read operation
+    @Operation(summary = "Stream task events",
+               description = "Server-Sent Events stream of a task's state changes (\"state\"), new log lines (\"log\") " +
+                            "and final status (\"completed\"). The stream closes when the task finishes. " +
+                            "All clients following a task share one upstream poll and log tail.")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Event stream opened")
+    })
+    public void streamTaskEvents(
+            @Parameter(description = "Task UPID", required = true,
+                      example = "UPID:pve1:00001234:12345678:5F3E8B7C:qmstart:100:root@pam:")
+            @PathParam("taskId") String taskId,
+            @Context SseEventSink sink,
+            @Context Sse sse) {
+        TaskEventStream stream = new TaskEventStream(sink, sse);
+        stream.subscription = taskWatcherService.follow(taskId, stream);
+        if (sink.isClosed()) {
+            stream.subscription.close();
+        }
+    }
+
     @DELETE
     @Path("/{taskId}")
     @SafeMode(true)  // Write operation - stopping a task
@@ -223,4 +259,68 @@ public class TaskResource {
                     .build();
         }
     }
+
+    /**
+     * Forwards the watcher's callbacks for one task to one SSE client
+     */
+    private static final class TaskEventStream implements TaskWatcherService.TaskListener {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private volatile TaskWatcherService.Subscription subscription;
+
+        TaskEventStream(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        @Override
+        public void onStateChanged(String upid, String state) {
+            send("state", TaskEvent.state(upid, state), false);
+        }
+
+        @Override
+        public void onLogLines(String upid, List<TaskLogResponse.TaskLogEntry> lines) {
+            send("log", TaskEvent.log(upid, lines), false);
+        }
+
+        @Override
+        public void onCompleted(TaskStatusDetailResponse status) {
+            send("completed", status, true);
+        }
+
+        @Override
+        public void onFailed(String upid, Throwable error) {
+            send("error", new ErrorResponse("Failed to follow task: " + error.getMessage()), true);
+        }
+
+        private void send(String name, Object data, boolean last) {
+            if (sink.isClosed()) {
+                close();
+                return;
+            }
+            sink.send(sse.newEventBuilder()
+                    .name(name)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(data)
+                    .build())
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        LOG.debug("Task event stream closed: {}", e.getMessage());
+                    }
+                    if (e != null || last) {
+                        close();
+                    }
+                });
+        }
+
+        private void close() {
+            TaskWatcherService.Subscription current = subscription;
+            if (current != null) {
+                current.close();
+            }
+            if (!sink.isClosed()) {
+                sink.close();
+            }
+        }
+    }
 }
@@ -132,7 +132,9 @@ public class VMResource {
             @Parameter(description = "Number of results (default: 100)")
             @DefaultValue("100") @QueryParam("limit") int limit,
             @Parameter(description = "Pagination offset")
-            @DefaultValue("0") @QueryParam("offset") int offset) {
+            @DefaultValue("0") @QueryParam("offset") int offset,
+            @Parameter(description = "Bypass the shared inventory snapshot and read the current state from Proxmox")
+            @QueryParam("fresh") boolean fresh) {
         // Parse tag filter
         List<String> tagFilter = null;
         if (tags != null && !tags.isEmpty()) {
@@ -140,7 +142,7 @@ public class VMResource {
         }
 
         // Get filtered VMs from service
-        List<VMResponse> vms = vmService.listVMsWithFilters(tagFilter, client, node, status, null);
+        List<VMResponse> vms = vmService.listVMsWithFilters(tagFilter, client, node, status, fresh, null);
 
         // Apply additional filters for vmIds
         if (vmIds != null && !vmIds.isEmpty()) {
@@ -379,8 +381,16 @@ public class VMResource {
                 }
             }
 
-            // Create the VM
-            CreateVMResponse response = vmService.createVM(request.node(), clientRequest, null);
+            // Create the VM, giving a generated ID back if Proxmox rejects it
+            CreateVMResponse response;
+            try {
+                response = vmService.createVM(request.node(), clientRequest, null);
+            } catch (RuntimeException e) {
+                if (request.vmId() == null) {
+                    vmIdService.releaseVmId(vmId);
+                }
+                throw e;
+            }
 
             // Set the actual VM ID and status in the response
             // Proxmox returns a task UPID, not the VM details, so we need to set these
@@ -1286,24 +1296,32 @@ public class VMResource {
             @PathParam("vmId") int templateId,
             @RequestBody(description = "Clone configuration", required = true)
             @Valid com.coffeesprout.api.dto.TemplateCloneRequest request) {
+        VMResponse templateVm = findVmById(templateId);
+
         // Use VMIdService for auto-generation if needed
         int newVmId = request.newVmId() != null ? request.newVmId() : vmIdService.getNextAvailableVmId(null);
 
-        VMResponse templateVm = findVmById(templateId);
-
-        TaskStatusResponse task = vmService.cloneVM(
-            templateVm.node(),
-            templateId,
-            newVmId,
-            request.name(),
-            request.description(),
-            request.fullClone() != null ? request.fullClone() : false,
-            request.pool(),
-            null, // snapname
-            request.targetStorage(),
-            request.targetNode(),
-            null
-        );
+        TaskStatusResponse task;
+        try {
+            task = vmService.cloneVM(
+                templateVm.node(),
+                templateId,
+                newVmId,
+                request.name(),
+                request.description(),
+                request.fullClone() != null ? request.fullClone() : false,
+                request.pool(),
+                null, // snapname
+                request.targetStorage(),
+                request.targetNode(),
+                null
+            );
+        } catch (RuntimeException e) {
+            if (request.newVmId() == null) {
+                vmIdService.releaseVmId(newVmId);
+            }
+            throw e;
+        }
 
         TaskResponse response = new TaskResponse(
             task.getData(),
@@ -0,0 +1,18 @@
+package com.coffeesprout.api.dto;
+
+import java.time.LocalDate;
+
+public record BackupGrowth(
+    String scope,         // "cluster", "storage", "client", "vm"
+    String key,           // storage ID, client tag or VM ID
+    LocalDate from,
+    LocalDate to,
+    long startSize,       // size at the end of the day before from
+    long endSize,
+    long growth,
+    String growthHuman,
+    int addedCount,
+    long sizeAdded,
+    int removedCount,
+    long sizeRemoved
+) {}
@@ -0,0 +1,34 @@
+package com.coffeesprout.api.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import com.coffeesprout.model.BulkJobItem;
+
+/**
+ * Response DTO for the outcome of one VM in a bulk operation job
+ */
+public record BulkJobItemResponse(
+    int vmId,
+    String vmName,
+    String node,
+    String status,
+    Map<String, Object> result,
+    Instant startedAt,
+    Instant completedAt
+) {
+    /**
+     * Create from entity
+     */
+    public static BulkJobItemResponse fromEntity(BulkJobItem entity) {
+        return new BulkJobItemResponse(
+            entity.vmId,
+            entity.vmName,
+            entity.nodeName,
+            entity.status,
+            entity.result,
+            entity.startedAt,
+            entity.completedAt
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package com.coffeesprout.api.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import com.coffeesprout.model.BulkJob;
+
+/**
+ * Response DTO for a bulk operation job
+ */
+public record BulkJobResponse(
+    Long id,
+    String operation,
+    String operationId,
+    String status,
+    int total,
+    long processed,
+    int succeeded,
+    int failed,
+    int skipped,
+    int cancelled,
+    String summary,
+    Instant createdAt,
+    Instant completedAt,
+    Map<String, Object> response
+) {
+    /**
+     * Create from entity
+     * @param processed Number of VMs with a recorded outcome
+     */
+    public static BulkJobResponse fromEntity(BulkJob entity, long processed) {
+        return new BulkJobResponse(
+            entity.id,
+            entity.operation,
+            entity.operationId,
+            entity.status,
+            entity.total,
+            processed,
+            entity.succeeded,
+            entity.failed,
+            entity.skipped,
+            entity.cancelled,
+            entity.summary,
+            entity.createdAt,
+            entity.completedAt,
+            entity.response
+        );
+    }
+}
@@ -24,7 +24,8 @@ public record BulkPowerRequest(
     @Schema(description = "Force operation (for stop/reboot)", defaultValue = "false")
     Boolean force,
 
-    @Schema(description = "Timeout in seconds for graceful operations",
+    @Schema(description = "Seconds a synchronous request waits for the bulk job; after that the job keeps running " +
+            "and 202 with the job is returned",
             defaultValue = "300", example = "300")
     @Min(value = 30, message = "Timeout must be at least 30 seconds")
     @Max(value = 3600, message = "Timeout must not exceed 3600 seconds (1 hour)")
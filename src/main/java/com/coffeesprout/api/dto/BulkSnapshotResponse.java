@@ -56,6 +56,10 @@ public record BulkSnapshotResponse(
             return new SnapshotResult("error", null, null, error, vmName);
         }
 
+        public static SnapshotResult skipped(String reason, String vmName) {
+            return new SnapshotResult("skipped", null, null, reason, vmName);
+        }
+
         public static SnapshotResult dryRun(String snapshotName, String vmName) {
             return new SnapshotResult("dry-run", null, snapshotName, null, vmName);
         }
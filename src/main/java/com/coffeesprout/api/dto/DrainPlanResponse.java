@@ -0,0 +1,36 @@
+package com.coffeesprout.api.dto;
+
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Predicted cost and schedule of draining a node.
+ */
+@RegisterForReflection
+public record DrainPlanResponse(
+    String sourceNode,
+    Integer concurrency,                 // Migrations running at once on the source link
+    Long linkBytesPerSecond,             // Configured migration link bandwidth
+    Long observedBytesPerSecond,         // Median throughput of recent migrations from the node, null without history
+    Integer bwlimit,                     // KiB/s applied to each migration, null when not limited
+    Long totalBytes,                     // Predicted bytes sent, including resent memory pages
+    Long predictedMakespanSeconds,
+    List<PlannedVM> migrations
+) {
+    /**
+     * Predicted cost of one VM's migration, in the order the scheduler starts them.
+     */
+    @RegisterForReflection
+    public record PlannedVM(
+        Integer vmid,
+        String name,
+        Boolean online,
+        Long memoryBytes,
+        Long diskBytes,
+        Long transferBytes,
+        Long predictedStartSeconds,
+        Long predictedSeconds
+    ) {
+    }
+}
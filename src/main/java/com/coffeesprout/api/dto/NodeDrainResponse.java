@@ -21,8 +21,16 @@ public record NodeDrainResponse(
     List<VMMigrationStatus> vmStatus,
     LocalDateTime startedAt,
     LocalDateTime completedAt,
-    String message
+    String message,
+    DrainProgress progress
 ) {
+    public NodeDrainResponse(String drainId, String node, String operation, String status, Integer totalVMs,
+                             Integer completedVMs, Integer failedVMs, List<VMMigrationStatus> vmStatus,
+                             LocalDateTime startedAt, LocalDateTime completedAt, String message) {
+        this(drainId, node, operation, status, totalVMs, completedVMs, failedVMs, vmStatus,
+             startedAt, completedAt, message, null);
+    }
+
     /**
      * Status of individual VM migration during drain.
      */
@@ -35,6 +43,22 @@ public record NodeDrainResponse(
         String error
     ) {}
 
+    /**
+     * Scheduler view of a drain: running and queued migrations, throughput and estimated time to finish.
+     * Byte counts are estimates (memory plus local disks).
+     */
+    @RegisterForReflection
+    public record DrainProgress(
+        int completed,
+        int failed,
+        int running,
+        int queued,
+        long bytesMigrated,
+        long bytesTotal,
+        long throughputBytesPerSecond,
+        Long etaSeconds
+    ) {}
+
     /**
      * Calculate progress percentage.
      */
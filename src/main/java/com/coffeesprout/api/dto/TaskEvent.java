@@ -0,0 +1,31 @@
+package com.coffeesprout.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Payload of a "state" or "log" event on the task event stream
+ */
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskEvent(
+    @JsonProperty("upid")
+    String upid,
+
+    @JsonProperty("state")
+    String state,
+
+    @JsonProperty("lines")
+    List<TaskLogResponse.TaskLogEntry> lines
+) {
+    public static TaskEvent state(String upid, String state) {
+        return new TaskEvent(upid, state, null);
+    }
+
+    public static TaskEvent log(String upid, List<TaskLogResponse.TaskLogEntry> lines) {
+        return new TaskEvent(upid, null, lines);
+    }
+}
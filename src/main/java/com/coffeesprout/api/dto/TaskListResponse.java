@@ -15,7 +15,10 @@ public record TaskListResponse(
     Integer total,
 
     @JsonProperty("filtered")
-    Integer filtered
+    Integer filtered,
+
+    @JsonProperty("listingId")
+    String listingId
 ) {
     @RegisterForReflection
     public record TaskSummary(
@@ -0,0 +1,18 @@
+package com.coffeesprout.client;
+
+import java.lang.annotation.*;
+
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Interceptor binding for request coalescing.
+ * Concurrent identical calls to a method annotated with this share one upstream request and its result.
+ * Joined callers get a copy of the result made through Jackson, so only use on read-only calls whose
+ * return type serializes and deserializes back to the same content.
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesce {
+}
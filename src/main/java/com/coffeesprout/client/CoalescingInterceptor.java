@@ -0,0 +1,31 @@
+package com.coffeesprout.client;
+
+import java.util.Arrays;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Interceptor that lets concurrent identical {@link Coalesce} calls share a single upstream request.
+ * Calls are identical when they target the same method with equal arguments (path, query and ticket).
+ */
+@Dependent
+@Interceptor
+@Coalesce
+@Priority(Interceptor.Priority.PLATFORM_AFTER)
+public class CoalescingInterceptor {
+
+    @Inject
+    ProxmoxRequestCoalescer coalescer;
+
+    @AroundInvoke
+    public Object coalesce(InvocationContext context) throws Exception {
+        ProxmoxRequestCoalescer.Key key = new ProxmoxRequestCoalescer.Key(
+            context.getMethod(), Arrays.asList(context.getParameters()));
+        return coalescer.execute(key, context::proceed);
+    }
+}
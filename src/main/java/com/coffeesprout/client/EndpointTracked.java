@@ -0,0 +1,16 @@
+package com.coffeesprout.client;
+
+import java.lang.annotation.*;
+
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Interceptor binding that reports transport failures of Proxmox API calls to {@link ProxmoxEndpoints}.
+ * A failed connection marks the endpoint down and releases the request's in-flight entry right away.
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EndpointTracked {
+}
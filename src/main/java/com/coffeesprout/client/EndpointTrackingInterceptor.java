@@ -0,0 +1,36 @@
+package com.coffeesprout.client;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.ProcessingException;
+
+/**
+ * Interceptor that hands transport failures of {@link EndpointTracked} calls to {@link ProxmoxEndpoints}.
+ * Runs inside {@link CoalescingInterceptor}, so only the call that actually went out reports.
+ */
+@Dependent
+@Interceptor
+@EndpointTracked
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 10)
+public class EndpointTrackingInterceptor {
+
+    @Inject
+    ProxmoxEndpoints endpoints;
+
+    @AroundInvoke
+    public Object track(InvocationContext context) throws Exception {
+        endpoints.beforeCall();
+        try {
+            return context.proceed();
+        } catch (ProcessingException e) {
+            endpoints.transportFailed(e);
+            throw e;
+        } finally {
+            endpoints.afterCall();
+        }
+    }
+}
@@ -10,7 +10,9 @@ import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 @RegisterRestClient(configKey = "proxmox-api")
+@RegisterProvider(ProxmoxEndpointFilter.class)
 @RegisterProvider(ProxmoxClientLoggingFilter.class)
+@EndpointTracked
 @Path("/")
 public interface ProxmoxClient {
 
@@ -25,31 +27,45 @@ public interface ProxmoxClient {
     @Produces(MediaType.APPLICATION_JSON)
     StatusResponse getStatus();
 
+    /**
+     * Health probe pinned to one endpoint, see {@link ProxmoxEndpoints}
+     */
+    @GET
+    @Path("/version")
+    @Produces(MediaType.APPLICATION_JSON)
+    StatusResponse probeEndpoint(@HeaderParam(ProxmoxEndpoints.TARGET_HEADER) String endpoint);
+
+    @Coalesce
     @GET
     @Path("/nodes")
     @Produces(MediaType.APPLICATION_JSON)
     NodesResponse getNodes(@CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/storage")
     @Produces(MediaType.APPLICATION_JSON)
     StorageResponse getStorage(@CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/nodes/{node}/status")
     @Produces(MediaType.APPLICATION_JSON)
     NodeStatusResponse getNodeStatus(@PathParam("node") String node, @CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/nodes/{node}/storage")
     @Produces(MediaType.APPLICATION_JSON)
     StorageResponse getNodeStorage(@PathParam("node") String node, @CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/cluster/resources")
     @Produces(MediaType.APPLICATION_JSON)
     VMsResponse getVMs(@CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/nodes/{node}/qemu")
     @Produces(MediaType.APPLICATION_JSON)
@@ -198,6 +214,7 @@ public interface ProxmoxClient {
                             @HeaderParam("CSRFPreventionToken") String csrfToken);
 
     // Get specific VM configuration/status
+    @Coalesce
     @GET
     @Path("/nodes/{node}/qemu/{vmid}/config")
     @Produces(MediaType.APPLICATION_JSON)
@@ -249,6 +266,7 @@ public interface ProxmoxClient {
                               @HeaderParam("CSRFPreventionToken") String csrfToken);
 
     // Get detailed VM status
+    @Coalesce
     @GET
     @Path("/nodes/{node}/qemu/{vmid}/status/current")
     @Produces(MediaType.APPLICATION_JSON)
@@ -257,6 +275,7 @@ public interface ProxmoxClient {
                                  @CookieParam("PVEAuthCookie") String ticket);
 
     // Get VM configuration with CSRF token
+    @Coalesce
     @GET
     @Path("/nodes/{node}/qemu/{vmid}/config")
     @Produces(MediaType.APPLICATION_JSON)
@@ -277,6 +296,7 @@ public interface ProxmoxClient {
                                                            String formData);
 
     // Get cluster resources with type filter
+    @Coalesce
     @GET
     @Path("/cluster/resources")
     @Produces(MediaType.APPLICATION_JSON)
@@ -285,11 +305,13 @@ public interface ProxmoxClient {
                                                                 @QueryParam("type") String type);
 
     // Pool API Methods
+    @Coalesce
     @GET
     @Path("/pools")
     @Produces(MediaType.APPLICATION_JSON)
     PoolsResponse listPools(@CookieParam("PVEAuthCookie") String ticket);
 
+    @Coalesce
     @GET
     @Path("/pools/{poolid}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -348,6 +370,7 @@ public interface ProxmoxClient {
     // Snapshot Management
 
     // List all snapshots for a VM
+    @Coalesce
     @GET
     @Path("/nodes/{node}/qemu/{vmid}/snapshot")
     @Produces(MediaType.APPLICATION_JSON)
@@ -417,6 +440,7 @@ public interface ProxmoxClient {
                                     @HeaderParam("CSRFPreventionToken") String csrfToken);
 
     // List storage content (including backups)
+    @Coalesce
     @GET
     @Path("/nodes/{node}/storage/{storage}/content")
     @Produces(MediaType.APPLICATION_JSON)
@@ -483,6 +507,7 @@ public interface ProxmoxClient {
                                             @HeaderParam("CSRFPreventionToken") String csrfToken);
 
     // Get storage status
+    @Coalesce
     @GET
     @Path("/nodes/{node}/storage/{storage}/status")
     @Produces(MediaType.APPLICATION_JSON)
@@ -523,6 +548,16 @@ public interface ProxmoxClient {
                               @QueryParam("vmid") Integer vmid,
                               @CookieParam("PVEAuthCookie") String ticket);
 
+    // List active and archived tasks on a node started since a UNIX timestamp
+    @GET
+    @Path("/nodes/{node}/tasks")
+    @Produces(MediaType.APPLICATION_JSON)
+    TaskListData getNodeTasksSince(@PathParam("node") String node,
+                                   @QueryParam("since") Long since,
+                                   @QueryParam("source") String source,
+                                   @QueryParam("limit") Integer limit,
+                                   @CookieParam("PVEAuthCookie") String ticket);
+
     // Stop a task
     @DELETE
     @Path("/nodes/{node}/tasks/{upid}")
@@ -574,6 +609,7 @@ public interface ProxmoxClient {
     // Backup Job Management
 
     // List all backup jobs
+    @Coalesce
     @GET
     @Path("/cluster/backup")
     @Produces(MediaType.APPLICATION_JSON)
@@ -22,22 +22,31 @@ public class ProxmoxClientLoggingFilter implements ClientRequestFilter, ClientRe
 
     @Override
     public void filter(ClientRequestContext requestContext) throws IOException {
-        LOG.info("=== Proxmox API Request ===");
-        LOG.info("Method: {} {}", requestContext.getMethod(), requestContext.getUri());
-        LOG.info("Headers: {}", requestContext.getHeaders());
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+        LOG.debug("=== Proxmox API Request ===");
+        LOG.debug("Method: {} {}", requestContext.getMethod(), requestContext.getUri());
+        LOG.debug("Headers: {}", requestContext.getHeaders());
 
         // Log request body if present
         if (requestContext.hasEntity()) {
             Object entity = requestContext.getEntity();
-            LOG.info("Request Body: {}", entity);
+            LOG.debug("Request Body: {}", entity);
         }
     }
 
     @Override
     public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
-        LOG.info("=== Proxmox API Response ===");
-        LOG.info("Status: {} {}", responseContext.getStatus(), responseContext.getStatusInfo());
-        LOG.info("Headers: {}", responseContext.getHeaders());
+        boolean error = responseContext.getStatus() >= 400;
+        // Only error bodies are buffered unless debug logging is on
+        if (!error && !LOG.isDebugEnabled()) {
+            return;
+        }
+
+        LOG.debug("=== Proxmox API Response ===");
+        LOG.debug("Status: {} {}", responseContext.getStatus(), responseContext.getStatusInfo());
+        LOG.debug("Headers: {}", responseContext.getHeaders());
 
         // Log response body
         if (responseContext.hasEntity()) {
@@ -55,10 +64,11 @@ public class ProxmoxClientLoggingFilter implements ClientRequestFilter, ClientRe
 
             // Log the response body
             String responseBody = new String(responseBytes, StandardCharsets.UTF_8);
-            if (responseContext.getStatus() >= 400) {
-                LOG.error("Response Body (Error): {}", responseBody);
+            if (error) {
+                LOG.error("Response Body (Error) for {} {}: {}", requestContext.getMethod(),
+                    requestContext.getUri().getPath(), responseBody);
             } else {
-                LOG.info("Response Body: {}", responseBody);
+                LOG.debug("Response Body: {}", responseBody);
             }
 
             // Reset the stream so the client can still read it
@@ -0,0 +1,27 @@
+package com.coffeesprout.client;
+
+import jakarta.inject.Singleton;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Publishes the configured Proxmox client pool size next to the HTTP client metrics,
+ * so pool saturation (active connections / pool size) can be graphed and compared
+ * against the maxParallel used by bulk operations.
+ */
+@Singleton
+public class ProxmoxClientPoolMetrics implements MeterBinder {
+
+    @ConfigProperty(name = "quarkus.rest-client.proxmox-api.connection-pool-size", defaultValue = "32")
+    int connectionPoolSize;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("moxxie.proxmox.client.pool.size", () -> connectionPoolSize)
+            .description("Maximum pooled connections per Proxmox host")
+            .register(registry);
+    }
+}
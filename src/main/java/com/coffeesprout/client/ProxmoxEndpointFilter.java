@@ -0,0 +1,41 @@
+package com.coffeesprout.client;
+
+import java.io.IOException;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Routes each Proxmox API request to an endpoint chosen by {@link ProxmoxEndpoints}
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public class ProxmoxEndpointFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    private volatile ProxmoxEndpoints endpoints;
+
+    @Override
+    public void filter(ClientRequestContext requestContext) throws IOException {
+        endpoints().beforeRequest(requestContext);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        endpoints().afterResponse(requestContext);
+    }
+
+    private ProxmoxEndpoints endpoints() {
+        ProxmoxEndpoints current = endpoints;
+        if (current == null) {
+            current = CDI.current().select(ProxmoxEndpoints.class).get();
+            endpoints = current;
+        }
+        return current;
+    }
+}
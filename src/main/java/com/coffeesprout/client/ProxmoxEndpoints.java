@@ -0,0 +1,385 @@
+package com.coffeesprout.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.client.ClientRequestContext;
+
+import com.coffeesprout.config.MoxxieConfig;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Proxmox API endpoints of the cluster and the routing between them.
+ *
+ * moxxie.proxmox.url is the primary endpoint the REST client is built against; moxxie.proxmox.endpoints
+ * adds further cluster members. {@link ProxmoxEndpointFilter} rewrites each request to a chosen endpoint:
+ * requests under /nodes/{node}/ go to that node's own endpoint when it is healthy, everything else to the
+ * healthy endpoint with the fewest requests in flight. Endpoints are health checked in the background and
+ * skipped while down. Authentication tickets are cluster-wide, so any endpoint can serve any request.
+ */
+@ApplicationScoped
+public class ProxmoxEndpoints {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProxmoxEndpoints.class);
+
+    /**
+     * Request header that pins a request to a named endpoint (stripped before sending)
+     */
+    public static final String TARGET_HEADER = "X-Moxxie-Endpoint";
+
+    static final String IN_FLIGHT_PROPERTY = "moxxie.proxmox.in-flight";
+
+    private static final Pattern NODE_PATH = Pattern.compile("^/nodes/([^/?]+)");
+
+    // Request sent by the current thread's Proxmox call that has not seen a response yet
+    private static final ThreadLocal<InFlight> PENDING = new ThreadLocal<>();
+
+    @Inject
+    MoxxieConfig config;
+
+    @Inject
+    @RestClient
+    ProxmoxClient proxmoxClient;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    @ConfigProperty(name = "quarkus.rest-client.proxmox-api.read-timeout", defaultValue = "600000")
+    long readTimeoutMillis;
+
+    private final AtomicLong requestIds = new AtomicLong();
+    private volatile List<Endpoint> endpoints = List.of();
+    private volatile int quorum = 1;
+
+    @PostConstruct
+    void init() {
+        configure(config.proxmox().url(),
+                  config.proxmox().endpoints().orElse(List.of()),
+                  config.proxmox().minHealthyEndpoints().orElse(null));
+        if (endpoints.size() > 1) {
+            LOG.info("Routing Proxmox API requests across {} endpoints (quorum {})", endpoints.size(), quorum);
+        }
+    }
+
+    /**
+     * Set up the endpoint list. The primary URL is always first; entries for the same URL are merged.
+     */
+    void configure(String primaryUrl, List<String> additional, Integer minHealthy) {
+        List<Endpoint> parsed = new ArrayList<>();
+        parsed.add(parse(primaryUrl));
+        for (String entry : additional) {
+            if (entry == null || entry.isBlank()) {
+                continue;
+            }
+            Endpoint endpoint = parse(entry.trim());
+            int existing = indexOfUrl(parsed, endpoint.baseUrl);
+            if (existing < 0) {
+                parsed.add(endpoint);
+            } else if (endpoint.node != null) {
+                // Label the primary (or a duplicate) with its node name
+                parsed.set(existing, endpoint);
+            }
+        }
+        this.endpoints = List.copyOf(parsed);
+        this.quorum = minHealthy != null
+            ? Math.max(1, Math.min(minHealthy, parsed.size()))
+            : parsed.size() / 2 + 1;
+    }
+
+    /**
+     * Route a request: pick an endpoint, rewrite the URI if it is not the primary and start tracking it
+     */
+    void beforeRequest(ClientRequestContext context) {
+        List<Endpoint> current = endpoints;
+        Endpoint primary = current.get(0);
+        String uri = context.getUri().toString();
+        if (!uri.startsWith(primary.baseUrl)) {
+            return;
+        }
+        String relative = uri.substring(primary.baseUrl.length());
+
+        Object pinned = context.getHeaders().getFirst(TARGET_HEADER);
+        Endpoint target;
+        if (pinned != null) {
+            context.getHeaders().remove(TARGET_HEADER);
+            target = byName(current, pinned.toString());
+        } else {
+            target = select(relative);
+        }
+
+        long id = requestIds.incrementAndGet();
+        target.inFlight.put(id, System.nanoTime());
+        InFlight inFlight = new InFlight(target, id);
+        context.setProperty(IN_FLIGHT_PROPERTY, inFlight);
+        PENDING.set(inFlight);
+
+        if (target != primary) {
+            context.setUri(URI.create(target.baseUrl + relative));
+        }
+    }
+
+    /**
+     * Stop tracking a completed request
+     */
+    void afterResponse(ClientRequestContext context) {
+        if (context.getProperty(IN_FLIGHT_PROPERTY) instanceof InFlight inFlight) {
+            inFlight.endpoint.inFlight.remove(inFlight.id);
+            if (PENDING.get() == inFlight) {
+                PENDING.remove();
+            }
+        }
+    }
+
+    /**
+     * A Proxmox call is about to be made on this thread, see {@link EndpointTrackingInterceptor}
+     */
+    void beforeCall() {
+        PENDING.remove();
+    }
+
+    /**
+     * A Proxmox call on this thread failed without a response.
+     * Its request stops counting as load, and a connection or I/O failure marks the endpoint down until the
+     * next successful health check.
+     */
+    void transportFailed(Throwable error) {
+        InFlight inFlight = PENDING.get();
+        PENDING.remove();
+        if (inFlight == null) {
+            // The response arrived; the failure happened while reading it
+            return;
+        }
+        inFlight.endpoint.inFlight.remove(inFlight.id);
+        if (isConnectionFailure(error)) {
+            markDown(inFlight.endpoint, error.getMessage());
+        }
+    }
+
+    /**
+     * The Proxmox call on this thread has returned or thrown
+     */
+    void afterCall() {
+        PENDING.remove();
+    }
+
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Choose the endpoint for a path relative to the API root (e.g. /nodes/pve1/qemu)
+     */
+    Endpoint select(String relativePath) {
+        List<Endpoint> current = endpoints;
+        if (current.size() == 1) {
+            return current.get(0);
+        }
+
+        Matcher matcher = NODE_PATH.matcher(relativePath);
+        if (matcher.find()) {
+            String node = matcher.group(1);
+            for (Endpoint endpoint : current) {
+                if (node.equals(endpoint.node) && endpoint.healthy) {
+                    return endpoint;
+                }
+            }
+        }
+
+        Endpoint best = null;
+        for (Endpoint endpoint : current) {
+            if (endpoint.healthy && (best == null || endpoint.inFlight.size() < best.inFlight.size())) {
+                best = endpoint;
+            }
+        }
+        // Nothing healthy: let the primary produce the error
+        return best != null ? best : current.get(0);
+    }
+
+    @Scheduled(every = "${moxxie.proxmox.endpoint-check-interval:10s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void checkInBackground() {
+        checkAll();
+    }
+
+    /**
+     * Probe every endpoint in parallel and update its health
+     * @return Number of healthy endpoints
+     */
+    public int checkAll() {
+        List<Endpoint> current = endpoints;
+        List<Future<?>> probes = new ArrayList<>(current.size());
+        for (Endpoint endpoint : current) {
+            probes.add(executorService.submit(() -> check(endpoint)));
+        }
+        for (Future<?> probe : probes) {
+            try {
+                probe.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOG.error("Proxmox endpoint probe failed", e.getCause());
+            }
+        }
+        return healthyCount();
+    }
+
+    private void check(Endpoint endpoint) {
+        pruneAbandoned(endpoint);
+        try {
+            proxmoxClient.probeEndpoint(endpoint.name);
+            markHealthy(endpoint);
+        } catch (WebApplicationException e) {
+            // Any HTTP answer below 500 (e.g. 401) means pveproxy is up
+            if (e.getResponse() != null && e.getResponse().getStatus() < 500) {
+                markHealthy(endpoint);
+            } else {
+                markDown(endpoint, e.getMessage());
+            }
+        } catch (Exception e) {
+            markDown(endpoint, e.getMessage());
+        }
+    }
+
+    private void markHealthy(Endpoint endpoint) {
+        if (!endpoint.healthy) {
+            LOG.info("Proxmox endpoint {} is back up", endpoint.name);
+        }
+        endpoint.healthy = true;
+        endpoint.lastError = null;
+        endpoint.lastChecked = Instant.now();
+    }
+
+    private void markDown(Endpoint endpoint, String error) {
+        if (endpoint.healthy) {
+            LOG.warn("Proxmox endpoint {} is down: {}", endpoint.name, error);
+        }
+        endpoint.healthy = false;
+        endpoint.lastError = error;
+        endpoint.lastChecked = Instant.now();
+    }
+
+    /**
+     * Requests whose failure was not reported (e.g. calls made outside the REST client bean) never reach
+     * the response filter; drop them once they are older than the read timeout so they stop counting as load.
+     */
+    private void pruneAbandoned(Endpoint endpoint) {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        endpoint.inFlight.values().removeIf(started -> started - cutoff < 0);
+    }
+
+    /**
+     * Whether at least one endpoint has been health checked
+     */
+    public boolean isChecked() {
+        return endpoints.stream().anyMatch(endpoint -> endpoint.lastChecked != null);
+    }
+
+    public int healthyCount() {
+        return (int) endpoints.stream().filter(endpoint -> endpoint.healthy).count();
+    }
+
+    /**
+     * Healthy endpoints required for readiness
+     */
+    public int quorum() {
+        return quorum;
+    }
+
+    public boolean hasQuorum() {
+        return healthyCount() >= quorum;
+    }
+
+    public List<EndpointStatus> status() {
+        return endpoints.stream()
+            .map(endpoint -> new EndpointStatus(endpoint.name, endpoint.node, endpoint.baseUrl,
+                endpoint.healthy, endpoint.inFlight.size(), endpoint.lastChecked, endpoint.lastError))
+            .toList();
+    }
+
+    private static Endpoint byName(List<Endpoint> endpoints, String name) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.name.equals(name)) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(0);
+    }
+
+    private static int indexOfUrl(List<Endpoint> endpoints, String baseUrl) {
+        for (int i = 0; i < endpoints.size(); i++) {
+            if (endpoints.get(i).baseUrl.equals(baseUrl)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Endpoint parse(String entry) {
+        String node = null;
+        String url = entry;
+        int separator = entry.indexOf('=');
+        if (separator > 0 && !entry.substring(0, separator).contains("/")) {
+            node = entry.substring(0, separator).trim();
+            url = entry.substring(separator + 1).trim();
+        }
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        URI uri = URI.create(url);
+        String name = node != null ? node : uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        return new Endpoint(name, node, url);
+    }
+
+    /**
+     * Health and load of one endpoint
+     */
+    public record EndpointStatus(String name, String node, String url, boolean healthy, int inFlight,
+                                 Instant lastChecked, String lastError) {}
+
+    static final class Endpoint {
+        final String name;
+        final String node;
+        final String baseUrl;
+        final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+        volatile boolean healthy = true;
+        volatile Instant lastChecked;
+        volatile String lastError;
+
+        Endpoint(String name, String node, String baseUrl) {
+            this.name = name;
+            this.node = node;
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    private record InFlight(Endpoint endpoint, long id) {}
+}
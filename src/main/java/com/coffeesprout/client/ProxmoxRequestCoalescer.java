@@ -0,0 +1,139 @@
+package com.coffeesprout.client;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight registry for Proxmox reads.
+ *
+ * The first caller for a key performs the request; callers arriving while it is in flight wait for
+ * its result (or exception). Client responses are mutable, so the first caller keeps the object it
+ * read and every joined caller gets its own copy of it. Nothing is cached: once the request completes
+ * the key is released, so the next call goes upstream again and staleness is unchanged.
+ */
+@ApplicationScoped
+public class ProxmoxRequestCoalescer {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder upstream = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("moxxie.proxmox.coalescing", upstream, LongAdder::doubleValue)
+            .description("Coalescable Proxmox reads by outcome")
+            .tag("result", "upstream")
+            .register(registry);
+        FunctionCounter.builder("moxxie.proxmox.coalescing", coalesced, LongAdder::doubleValue)
+            .description("Coalescable Proxmox reads by outcome")
+            .tag("result", "coalesced")
+            .register(registry);
+        Gauge.builder("moxxie.proxmox.coalescing.in-flight", inFlight, ConcurrentMap::size)
+            .description("Distinct coalescable Proxmox reads currently in flight")
+            .register(registry);
+    }
+
+    /**
+     * Run a call, or join an identical call already in flight
+     */
+    Object execute(Key key, Callable<Object> call) throws Exception {
+        Flight mine = new Flight();
+        Flight flight = inFlight.compute(key, (k, current) -> {
+            if (current == null) {
+                return mine;
+            }
+            current.joined.incrementAndGet();
+            return current;
+        });
+        if (flight != mine) {
+            coalesced.increment();
+            byte[] snapshot = await(flight.snapshot);
+            return objectMapper.readValue(snapshot, objectMapper.constructType(key.method().getGenericReturnType()));
+        }
+
+        upstream.increment();
+        Object result;
+        try {
+            result = call.call();
+        } catch (Exception | Error e) {
+            inFlight.remove(key, mine);
+            mine.snapshot.completeExceptionally(e);
+            throw e;
+        }
+        // Nobody can join once the key is released, so the joined count is final
+        inFlight.remove(key, mine);
+        if (mine.joined.get() > 0) {
+            try {
+                mine.snapshot.complete(objectMapper.writeValueAsBytes(result));
+            } catch (Exception | Error e) {
+                mine.snapshot.completeExceptionally(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls that went upstream
+     */
+    public long upstreamCount() {
+        return upstream.sum();
+    }
+
+    /**
+     * Calls that shared another call's result
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Identity of a call: the client method and its arguments
+     */
+    record Key(Method method, List<Object> arguments) {}
+
+    /**
+     * One upstream call and the callers that joined it
+     */
+    private static final class Flight {
+        // Serialized result, only produced when callers joined
+        final CompletableFuture<byte[]> snapshot = new CompletableFuture<>();
+        final AtomicInteger joined = new AtomicInteger();
+    }
+}
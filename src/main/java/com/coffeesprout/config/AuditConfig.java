@@ -0,0 +1,48 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Buffering, persistence and retention of the safety audit log
+ */
+@ConfigMapping(prefix = "moxxie.audit")
+public interface AuditConfig {
+
+    /**
+     * Number of entries the in-memory ring buffer holds until they are written; when writes fall this
+     * far behind, the oldest unwritten entries are dropped
+     */
+    @WithDefault("8192")
+    int bufferSize();
+
+    /**
+     * Number of buffered entries that triggers a write before the next flush interval
+     */
+    @WithDefault("200")
+    int flushSize();
+
+    /**
+     * How often buffered entries are written, or "off"
+     */
+    @WithDefault("2s")
+    String flushInterval();
+
+    /**
+     * Maximum number of entries returned by one audit query
+     */
+    @WithDefault("1000")
+    int maxPageSize();
+
+    /**
+     * Number of days audit entries are kept
+     */
+    @WithDefault("90")
+    int retentionDays();
+
+    /**
+     * How often entries older than the retention are deleted, or "off"
+     */
+    @WithDefault("1h")
+    String cleanupInterval();
+}
@@ -0,0 +1,48 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for the in-memory backup catalog
+ */
+@ConfigMapping(prefix = "moxxie.backup-catalog")
+public interface BackupCatalogConfig {
+
+    /**
+     * Serve backup listings and analytics from the catalog.
+     * When disabled every read scans all backup storages.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Maximum age of the catalog in seconds before a read forces a rescan
+     */
+    @WithDefault("300")
+    int maxStalenessSeconds();
+
+    /**
+     * Background refresh interval (e.g. 2m). Use "off" to disable the background refresher.
+     */
+    @WithDefault("2m")
+    String refreshInterval();
+
+    /**
+     * Maximum number of storages listed at once during a scan
+     */
+    @WithDefault("8")
+    int scanConcurrency();
+
+    /**
+     * Record catalog changes and daily aggregates in the database for trend and growth queries
+     */
+    @WithDefault("true")
+    boolean historyEnabled();
+
+    /**
+     * How often catalog changes are recorded (e.g. 15m), or "off"
+     */
+    @WithDefault("15m")
+    String historyInterval();
+}
@@ -0,0 +1,53 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Concurrency limits and retention for the bulk operation engine
+ */
+@ConfigMapping(prefix = "moxxie.bulk")
+public interface BulkConfig {
+
+    /**
+     * Maximum number of VM operations running at once across all bulk jobs
+     */
+    @WithDefault("32")
+    int maxConcurrency();
+
+    /**
+     * Maximum number of VM operations running at once against one node
+     */
+    @WithDefault("4")
+    int perNodeConcurrency();
+
+    /**
+     * Maximum number of VM operations running at once against one storage
+     */
+    @WithDefault("2")
+    int perStorageConcurrency();
+
+    /**
+     * Time in seconds without a heartbeat after which another instance marks a running job as interrupted
+     */
+    @WithDefault("120")
+    int leaseSeconds();
+
+    /**
+     * How often each instance renews the lease on the jobs it runs and looks for abandoned ones, or "off"
+     */
+    @WithDefault("30s")
+    String heartbeatInterval();
+
+    /**
+     * Days to keep finished bulk jobs and their per-VM outcomes
+     */
+    @WithDefault("7")
+    int jobRetentionDays();
+
+    /**
+     * How often finished jobs past their retention are deleted (e.g. 1h), or "off"
+     */
+    @WithDefault("1h")
+    String cleanupInterval();
+}
@@ -0,0 +1,64 @@
+package com.coffeesprout.config;
+
+import java.util.Map;
+import java.util.Optional;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for the resource cache.
+ * Keys are namespaced as namespace:rest; namespaces can override the TTLs.
+ */
+@ConfigMapping(prefix = "moxxie.cache.resources")
+public interface CacheConfig {
+
+    /**
+     * Enable caching. When disabled every read goes to the loader.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Time in seconds after which an entry expires and reads block on a reload
+     */
+    @WithDefault("300")
+    int ttlSeconds();
+
+    /**
+     * Age in seconds after which a read still returns the entry but reloads it in the background.
+     * Values at or above ttl-seconds disable refresh-ahead.
+     */
+    @WithDefault("240")
+    int refreshIntervalSeconds();
+
+    /**
+     * Maximum number of entries
+     */
+    @WithDefault("1000")
+    int maxSize();
+
+    /**
+     * Maximum total weight, where an entry weighs one plus the number of elements of a collection or map value
+     */
+    @WithDefault("200000")
+    long maxWeight();
+
+    /**
+     * Interval of the sweep that purges expired entries (e.g. 60s)
+     */
+    @WithDefault("60s")
+    String cleanupInterval();
+
+    /**
+     * Per-namespace overrides, e.g. moxxie.cache.resources.namespaces.node-resources.ttl-seconds=30
+     */
+    Map<String, Namespace> namespaces();
+
+    interface Namespace {
+
+        Optional<Integer> ttlSeconds();
+
+        Optional<Integer> refreshIntervalSeconds();
+    }
+}
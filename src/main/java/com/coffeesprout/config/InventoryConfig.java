@@ -0,0 +1,30 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for the shared VM inventory snapshot
+ */
+@ConfigMapping(prefix = "moxxie.inventory")
+public interface InventoryConfig {
+
+    /**
+     * Enable the shared inventory snapshot.
+     * When disabled every inventory read goes straight to Proxmox.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Maximum age of the snapshot in seconds before a read forces a synchronous refresh
+     */
+    @WithDefault("30")
+    int maxStalenessSeconds();
+
+    /**
+     * Background refresh interval (e.g. 15s, 1m). Use "off" to disable the background refresher.
+     */
+    @WithDefault("15s")
+    String refreshInterval();
+}
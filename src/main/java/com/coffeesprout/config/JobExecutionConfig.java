@@ -0,0 +1,23 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for recording scheduled job executions
+ */
+@ConfigMapping(prefix = "moxxie.scheduler.execution")
+public interface JobExecutionConfig {
+
+    /**
+     * Number of buffered per-VM results that triggers a write
+     */
+    @WithDefault("50")
+    int flushSize();
+
+    /**
+     * Time in milliseconds after which buffered per-VM results are written even if fewer than flush-size
+     */
+    @WithDefault("5000")
+    int flushIntervalMs();
+}
@@ -0,0 +1,41 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for splitting large scheduled job runs into shards that any scheduler instance can claim
+ */
+@ConfigMapping(prefix = "moxxie.scheduler.shards")
+public interface JobShardConfig {
+
+    /**
+     * Maximum number of VMs per shard; runs with at most this many VMs are not sharded, 0 disables sharding
+     */
+    @WithDefault("100")
+    int shardSize();
+
+    /**
+     * Time in seconds without a heartbeat after which a running shard is claimed again by another instance
+     */
+    @WithDefault("120")
+    int leaseSeconds();
+
+    /**
+     * Time in milliseconds a run waits between checks for shards claimed by other instances
+     */
+    @WithDefault("2000")
+    int waitIntervalMs();
+
+    /**
+     * How often each instance looks for shards to claim, or "off"
+     */
+    @WithDefault("10s")
+    String pollInterval();
+
+    /**
+     * How often each instance renews the lease on the shards it runs, or "off"
+     */
+    @WithDefault("30s")
+    String heartbeatInterval();
+}
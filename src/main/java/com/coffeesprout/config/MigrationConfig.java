@@ -1,6 +1,7 @@
 package com.coffeesprout.config;
 
 import java.util.List;
+import java.util.Optional;
 
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
@@ -52,4 +53,80 @@ public interface MigrationConfig {
      */
     @WithDefault("5000")
     int storageQueryTimeoutMs();
+
+    /**
+     * Admission limits for drain migrations
+     */
+    Scheduler scheduler();
+
+    /**
+     * Cost model used to plan drain migrations
+     */
+    Planner planner();
+
+    interface Scheduler {
+
+        /**
+         * Concurrent migrations leaving one node
+         */
+        @WithDefault("2")
+        int perSourceNode();
+
+        /**
+         * Concurrent migrations arriving at one node
+         */
+        @WithDefault("2")
+        int perTargetNode();
+
+        /**
+         * Concurrent migrations copying disks from one local storage
+         */
+        @WithDefault("2")
+        int perStorage();
+
+        /**
+         * Concurrent migrations on the migration network
+         */
+        @WithDefault("4")
+        int perNetwork();
+
+        /**
+         * Migration network (CIDR) passed to Proxmox; the cluster default is used when unset
+         */
+        Optional<String> network();
+
+        /**
+         * Seconds between re-reads of target node free memory during a drain
+         */
+        @WithDefault("30")
+        int targetRefreshSeconds();
+    }
+
+    interface Planner {
+
+        /**
+         * Bandwidth of a node's migration link in Mbit/s, shared by its concurrent outgoing migrations
+         */
+        @WithDefault("1000")
+        int linkBandwidthMbps();
+
+        /**
+         * Assumed rate at which a running guest dirties memory in Mbit/s; each pre-copy round resends it
+         */
+        @WithDefault("200")
+        int memoryDirtyRateMbps();
+
+        /**
+         * Number of recent completed migrations from a node used to measure its throughput
+         */
+        @WithDefault("20")
+        int historySize();
+
+        /**
+         * Give each drain migration an equal share of the link as its bwlimit. Only enable this with
+         * link-bandwidth-mbps set to the real migration link, otherwise the default caps every drain.
+         */
+        @WithDefault("false")
+        boolean autoBwlimit();
+    }
 }
@@ -1,5 +1,6 @@
 package com.coffeesprout.config;
 
+import java.util.List;
 import java.util.Optional;
 
 import io.smallrye.config.ConfigMapping;
@@ -63,6 +64,24 @@ public interface MoxxieConfig {
         @WithDefault("https://localhost:8006/api2/json")
         String url();
 
+        /**
+         * Additional Proxmox API endpoints in the same cluster, as node=url or plain url.
+         * Requests for /nodes/{node}/... go to that node's endpoint, others to the least-loaded healthy one.
+         * Can be set via MOXXIE_PROXMOX_ENDPOINTS
+         */
+        Optional<List<String>> endpoints();
+
+        /**
+         * Number of healthy endpoints required for readiness (defaults to a majority)
+         */
+        Optional<Integer> minHealthyEndpoints();
+
+        /**
+         * Endpoint health check interval (e.g. 10s). Use "off" to disable background checks.
+         */
+        @WithDefault("10s")
+        String endpointCheckInterval();
+
         /**
          * Proxmox username
          * Can be set via MOXXIE_PROXMOX_USERNAME
@@ -0,0 +1,23 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for tag operations
+ */
+@ConfigMapping(prefix = "moxxie.tags")
+public interface TagConfig {
+
+    /**
+     * Maximum concurrent tag updates sent to a single node during bulk tag operations
+     */
+    @WithDefault("4")
+    int bulkNodeConcurrency();
+
+    /**
+     * Maximum concurrent tag updates across the cluster during bulk tag operations
+     */
+    @WithDefault("16")
+    int bulkMaxConcurrency();
+}
@@ -0,0 +1,35 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for listing tasks across the cluster
+ */
+@ConfigMapping(prefix = "moxxie.tasks.list")
+public interface TaskListConfig {
+
+    /**
+     * Maximum number of tasks fetched from each node
+     */
+    @WithDefault("500")
+    int perNodeLimit();
+
+    /**
+     * Time in milliseconds to wait for all nodes; nodes that have not answered by then are left out
+     */
+    @WithDefault("5000")
+    int nodeTimeoutMs();
+
+    /**
+     * How long in seconds a listing is kept so further pages continue it instead of refetching
+     */
+    @WithDefault("30")
+    int cursorTtlSeconds();
+
+    /**
+     * Maximum number of listings kept at once; the oldest is dropped to make room for a new one
+     */
+    @WithDefault("100")
+    int maxListings();
+}
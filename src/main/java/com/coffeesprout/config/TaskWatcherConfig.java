@@ -0,0 +1,36 @@
+package com.coffeesprout.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Configuration for the central Proxmox task watcher
+ */
+@ConfigMapping(prefix = "moxxie.tasks.watcher")
+public interface TaskWatcherConfig {
+
+    /**
+     * How often the watcher looks for nodes that are due a poll (e.g. 1s). With "off" the node polls are
+     * disabled and every watched task is checked on its own instead.
+     */
+    @WithDefault("1s")
+    String tick();
+
+    /**
+     * Poll interval in seconds for newly registered tasks
+     */
+    @WithDefault("2")
+    int minPollIntervalSeconds();
+
+    /**
+     * Upper bound in seconds for the poll interval of long-running tasks
+     */
+    @WithDefault("30")
+    int maxPollIntervalSeconds();
+
+    /**
+     * Maximum number of node task list entries fetched per poll
+     */
+    @WithDefault("1000")
+    int taskListLimit();
+}
@@ -0,0 +1,58 @@
+package com.coffeesprout.federation.providers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import com.coffeesprout.client.NodeStatus;
+import com.coffeesprout.client.StoragePool;
+import com.coffeesprout.client.VM;
+
+/**
+ * Status, storage and VMs of every node, collected once per refresh cycle and shared by the
+ * provider's cluster, node, storage and placement views.
+ *
+ * Collection is partial by design: a part that failed or timed out is null, and the rest of the
+ * node is still used.
+ */
+final class ProxmoxNodeSnapshot {
+
+    private final List<NodeData> nodes;
+    private final Instant collectedAt;
+
+    ProxmoxNodeSnapshot(List<NodeData> nodes, Instant collectedAt) {
+        this.nodes = List.copyOf(nodes);
+        this.collectedAt = collectedAt;
+    }
+
+    List<NodeData> nodes() {
+        return nodes;
+    }
+
+    Optional<NodeData> node(String name) {
+        return nodes.stream().filter(node -> node.name().equals(name)).findFirst();
+    }
+
+    Instant collectedAt() {
+        return collectedAt;
+    }
+
+    boolean isOlderThan(Duration maxAge) {
+        return collectedAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    /**
+     * What could be collected about one node
+     *
+     * @param status Node status, or null if it could not be read in time
+     * @param storage Storage pools, or null if they could not be read in time
+     * @param vms VMs, or null if they could not be read in time
+     */
+    record NodeData(String name, NodeStatus status, List<StoragePool> storage, List<VM> vms) {
+
+        boolean isComplete() {
+            return status != null && storage != null && vms != null;
+        }
+    }
+}
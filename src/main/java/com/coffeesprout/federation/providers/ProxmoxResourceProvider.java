@@ -1,9 +1,15 @@
 package com.coffeesprout.federation.providers;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -13,11 +19,13 @@ import com.coffeesprout.api.dto.VMResponse;
 import com.coffeesprout.api.exception.ProxmoxException;
 import com.coffeesprout.client.*;
 import com.coffeesprout.federation.*;
+import com.coffeesprout.federation.providers.ProxmoxNodeSnapshot.NodeData;
 import com.coffeesprout.service.NodeService;
 import com.coffeesprout.service.ResourceCalculationService;
 import com.coffeesprout.service.TicketManager;
 import com.coffeesprout.service.VMService;
 import com.coffeesprout.util.UnitConverter;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
@@ -56,10 +64,20 @@ public class ProxmoxResourceProvider implements ResourceProvider {
     @ConfigProperty(name = "moxxie.provider.proxmox.location", defaultValue = "default")
     String location;
 
-    // Cache for performance
-    private final Map<String, Object> cache = new ConcurrentHashMap<>();
-    private volatile long lastRefreshTime = 0;
-    private static final long CACHE_TTL_MS = 60_000; // 1 minute
+    @ConfigProperty(name = "moxxie.provider.proxmox.call-timeout-ms", defaultValue = "5000")
+    long callTimeoutMs;
+
+    @ConfigProperty(name = "moxxie.provider.proxmox.snapshot-ttl-seconds", defaultValue = "60")
+    long snapshotTtlSeconds;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    // Node status, storage and VMs shared within one refresh cycle
+    private volatile ProxmoxNodeSnapshot nodeSnapshot;
+    // Serializes collection; a lock rather than synchronized so waiting virtual threads do not pin their carrier
+    private final Lock snapshotLock = new ReentrantLock();
 
     @Override
     public String getProviderId() {
@@ -91,15 +109,14 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to check Proxmox availability", e);
                 return false;
             }
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<ClusterResources> getClusterResources() {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get all nodes
-                List<Node> nodes = nodeService.listNodes(null);
+                List<NodeData> nodes = nodeSnapshot().nodes();
 
                 ClusterResources resources = new ClusterResources();
                 resources.setClusterId(providerId);
@@ -119,8 +136,8 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 long usedMemory = 0;
                 long usedStorage = 0;
 
-                for (Node node : nodes) {
-                    NodeStatus nodeStatus = nodeService.getNodeStatus(node.getName(), null);
+                for (NodeData node : nodes) {
+                    NodeStatus nodeStatus = node.status();
                     if (nodeStatus != null) {
                         // CPU
                         if (nodeStatus.getCpuInfo() != null) {
@@ -135,10 +152,11 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                     }
 
                     // Storage
-                    List<com.coffeesprout.client.StoragePool> pools = nodeService.getNodeStorage(node.getName(), null);
-                    for (com.coffeesprout.client.StoragePool pool : pools) {
-                        totalStorage += pool.getTotal();
-                        usedStorage += pool.getUsed();
+                    if (node.storage() != null) {
+                        for (com.coffeesprout.client.StoragePool pool : node.storage()) {
+                            totalStorage += pool.getTotal();
+                            usedStorage += pool.getUsed();
+                        }
                     }
                 }
 
@@ -176,7 +194,7 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 // Set node and VM counts
                 resources.setTotalNodes(nodes.size());
                 resources.setActiveNodes((int) nodes.stream()
-                    .filter(n -> true) // Assume all nodes returned by API are active
+                    .filter(n -> n.status() != null) // Nodes that answered within the call timeout
                     .count());
                 resources.setTotalVMs(vmResources.size());
                 resources.setRunningVMs((int) vmResources.stream()
@@ -192,164 +210,63 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to get cluster resources", e);
                 throw ProxmoxException.internalError("get cluster resources", e);
             }
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<NodeResources> getNodeResources(String nodeId) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                NodeStatus status = nodeService.getNodeStatus(nodeId, null);
-                List<VM> nodeVMs = nodeService.getNodeVMs(nodeId, null);
-                List<com.coffeesprout.client.StoragePool> storagePools = nodeService.getNodeStorage(nodeId, null);
-
-                NodeResources resources = new NodeResources();
-                resources.setNodeId(nodeId);
-                resources.setNodeName(nodeId);
-                resources.setStatus("online"); // Assume online if we can query it
-                resources.setTimestamp(Instant.now());
-
-                // Set CPU resources
-                if (status.getCpuInfo() != null) {
-                    NodeResources.NodeCpuResources cpu = new NodeResources.NodeCpuResources();
-                    cpu.setPhysicalCores(status.getCpuInfo().getCpus());
-                    cpu.setLogicalCores(status.getCpuInfo().getCpus());
-
-                    // Calculate allocated cores
-                    int allocatedCores = nodeVMs.stream()
-                        .mapToInt(VM::getCpus)
-                        .sum();
-                    cpu.setAllocatedCores(allocatedCores);
-
-                    resources.setCpu(cpu);
-                }
-
-                // Set memory resources
-                if (status.getMemory() != null) {
-                    NodeResources.NodeMemoryResources memory = new NodeResources.NodeMemoryResources();
-                    memory.setTotalBytes(status.getMemory().getTotal());
-                    memory.setUsedBytes(status.getMemory().getUsed());
-                    memory.setFreeBytes(status.getMemory().getFree());
-
-                    // Calculate allocated memory
-                    long allocatedMemory = nodeVMs.stream()
-                        .mapToLong(VM::getMaxmem)
-                        .sum();
-                    memory.setAllocatedBytes(allocatedMemory);
-
-                    memory.setUsagePercent((double) status.getMemory().getUsed() /
-                        status.getMemory().getTotal() * UnitConverter.Percentage.PERCENT_MULTIPLIER);
-
-                    resources.setMemory(memory);
+                NodeData node = nodeSnapshot().node(nodeId).orElseGet(() -> collectNode(nodeId));
+                if (node.status() == null) {
+                    throw new IllegalStateException("status of node " + nodeId + " could not be read");
                 }
-
-                // Set storage resources
-                NodeResources.NodeStorageResources storage = new NodeResources.NodeStorageResources();
-                List<NodeResources.NodeStoragePool> pools = new ArrayList<>();
-
-                long totalStorage = 0;
-                long usedStorage = 0;
-
-                for (com.coffeesprout.client.StoragePool pool : storagePools) {
-                    NodeResources.NodeStoragePool nodePool = new NodeResources.NodeStoragePool();
-                    nodePool.setPoolId(pool.getStorage());
-                    nodePool.setPoolName(pool.getStorage());
-                    nodePool.setType(pool.getType());
-                    nodePool.setTotalBytes(pool.getTotal());
-                    nodePool.setUsedBytes(pool.getUsed());
-                    nodePool.setAvailableBytes(pool.getAvail());
-                    nodePool.setActive(pool.getActive() == 1);
-                    nodePool.setShared(isSharedStorage(pool.getType()));
-
-                    pools.add(nodePool);
-                    totalStorage += pool.getTotal();
-                    usedStorage += pool.getUsed();
-                }
-
-                storage.setPools(pools);
-                storage.setTotalBytes(totalStorage);
-                storage.setUsedBytes(usedStorage);
-                storage.setAvailableBytes(totalStorage - usedStorage);
-                resources.setStorage(storage);
-
-                // Set VM information
-                resources.setVmCount(nodeVMs.size());
-                resources.setRunningVMs((int) nodeVMs.stream()
-                    .filter(vm -> "running".equals(vm.getStatus()))
-                    .count());
-                resources.setVmIds(nodeVMs.stream()
-                    .map(vm -> String.valueOf(vm.getVmid()))
-                    .collect(Collectors.toList()));
-
-                // Calculate resource pressure
-                if (resources.getCpu() != null) {
-                    resources.setCpuPressure(calculationService.calculateCpuPressure(
-                        resources.getCpu().getAllocatedCores(),
-                        resources.getCpu().getPhysicalCores()
-                    ));
-                }
-
-                if (resources.getMemory() != null) {
-                    resources.setMemoryPressure(calculationService.calculateMemoryPressure(
-                        resources.getMemory().getUsedBytes(),
-                        resources.getMemory().getTotalBytes()
-                    ));
-                }
-
-                if (resources.getStorage() != null) {
-                    resources.setStoragePressure(calculationService.calculateStoragePressure(
-                        resources.getStorage().getUsedBytes(),
-                        resources.getStorage().getTotalBytes()
-                    ));
-                }
-
-                return resources;
+                return toNodeResources(node);
 
             } catch (Exception e) {
                 LOG.error("Failed to get node resources for: " + nodeId, e);
                 throw ProxmoxException.internalError("get node resources for node " + nodeId, e);
             }
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<List<NodeInfo>> getNodes() {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                List<Node> nodes = nodeService.listNodes(null);
                 List<NodeInfo> nodeInfos = new ArrayList<>();
 
-                for (Node node : nodes) {
+                for (NodeData node : nodeSnapshot().nodes()) {
                     NodeInfo info = new NodeInfo();
-                    info.setNodeId(node.getName());
-                    info.setNodeName(node.getName());
+                    info.setNodeId(node.name());
+                    info.setNodeName(node.name());
                     info.setStatus("online"); // Assume nodes returned by API are online
 
-                    // Get detailed node status
-                    try {
-                        NodeStatus status = nodeService.getNodeStatus(node.getName(), null);
-                        if (status != null) {
-                            if (status.getCpuInfo() != null) {
-                                info.setCpuCores(status.getCpuInfo().getCpus());
-                            }
-                            if (status.getMemory() != null) {
-                                info.setMemoryBytes(status.getMemory().getTotal());
-                                info.setMemoryUsagePercent(
-                                    (double) status.getMemory().getUsed() /
-                                    status.getMemory().getTotal() * 100
-                                );
-                            }
+                    NodeStatus status = node.status();
+                    if (status != null) {
+                        if (status.getCpuInfo() != null) {
+                            info.setCpuCores(status.getCpuInfo().getCpus());
                         }
+                        if (status.getMemory() != null) {
+                            info.setMemoryBytes(status.getMemory().getTotal());
+                            info.setMemoryUsagePercent(
+                                (double) status.getMemory().getUsed() /
+                                status.getMemory().getTotal() * 100
+                            );
+                        }
+                    }
 
-                        // Get VM count
-                        List<VM> vms = nodeService.getNodeVMs(node.getName(), null);
+                    // Get VM count
+                    List<VM> vms = node.vms();
+                    if (vms != null) {
                         info.setTotalVMs(vms.size());
                         info.setRunningVMs((int) vms.stream()
                             .filter(vm -> "running".equals(vm.getStatus()))
                             .count());
+                    }
 
-                    } catch (Exception e) {
-                        LOG.warn("Failed to get detailed info for node: " + node.getName(), e);
+                    if (!node.isComplete()) {
+                        LOG.warn("Incomplete info for node: {}", node.name());
                     }
 
                     nodeInfos.add(info);
@@ -361,24 +278,23 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to get nodes", e);
                 throw ProxmoxException.internalError("get nodes", e);
             }
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<List<VMResources>> getVMResources() {
-        return CompletableFuture.supplyAsync(() -> getVMResourcesList());
+        return CompletableFuture.supplyAsync(() -> getVMResourcesList(), executorService);
     }
 
     @Override
     public CompletableFuture<List<com.coffeesprout.federation.StoragePool>> getStoragePools() {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                List<Node> nodes = nodeService.listNodes(null);
                 Map<String, com.coffeesprout.federation.StoragePool> poolMap = new HashMap<>();
 
-                for (Node node : nodes) {
+                for (NodeData node : nodeSnapshot().nodes()) {
                     List<com.coffeesprout.client.StoragePool> nodePools =
-                        nodeService.getNodeStorage(node.getName(), null);
+                        node.storage() != null ? node.storage() : List.of();
 
                     for (com.coffeesprout.client.StoragePool pool : nodePools) {
                         String poolId = pool.getStorage();
@@ -389,7 +305,7 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                             existing.setTotalBytes(pool.getTotal());
                             existing.setUsedBytes(pool.getUsed());
                             existing.setAvailableBytes(pool.getAvail());
-                            existing.getAccessibleNodes().add(node.getName());
+                            existing.getAccessibleNodes().add(node.name());
                         } else {
                             // Create new pool entry
                             com.coffeesprout.federation.StoragePool sp = new com.coffeesprout.federation.StoragePool();
@@ -403,7 +319,7 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                             sp.setShared(isSharedStorage(pool.getType()));
 
                             Set<String> accessibleNodes = new HashSet<>();
-                            accessibleNodes.add(node.getName());
+                            accessibleNodes.add(node.name());
                             sp.setAccessibleNodes(accessibleNodes);
 
                             // Set storage class based on type
@@ -420,20 +336,14 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to get storage pools", e);
                 throw ProxmoxException.internalError("get storage pools", e);
             }
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<VMCapacity> calculateLargestPossibleVM(ResourceRequirements requirements) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                List<NodeResources> nodeResources = new ArrayList<>();
-                List<Node> nodes = nodeService.listNodes(null);
-
-                for (Node node : nodes) {
-                    NodeResources nr = getNodeResources(node.getName()).get();
-                    nodeResources.add(nr);
-                }
+                List<NodeResources> nodeResources = placeableNodes();
 
                 return calculationService.calculateLargestPossibleVM(nodeResources, requirements);
 
@@ -441,7 +351,7 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to calculate largest possible VM", e);
                 throw ProxmoxException.internalError("calculate largest possible VM", e);
             }
-        });
+        }, executorService);
     }
 
     @Override
@@ -449,12 +359,10 @@ public class ProxmoxResourceProvider implements ResourceProvider {
             ResourceRequirements requirements) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                List<Node> nodes = nodeService.listNodes(null);
                 PlacementRecommendation best = null;
                 List<PlacementRecommendation.AlternativePlacement> alternatives = new ArrayList<>();
 
-                for (Node node : nodes) {
-                    NodeResources resources = getNodeResources(node.getName()).get();
+                for (NodeResources resources : placeableNodes()) {
                     PlacementRecommendation recommendation = evaluateNodeForPlacement(
                         resources, requirements);
 
@@ -494,7 +402,7 @@ public class ProxmoxResourceProvider implements ResourceProvider {
                 LOG.error("Failed to find optimal placement", e);
                 return Optional.empty();
             }
-        });
+        }, executorService);
     }
 
     @Override
@@ -527,20 +435,223 @@ public class ProxmoxResourceProvider implements ResourceProvider {
             }
 
             return metrics;
-        });
+        }, executorService);
     }
 
     @Override
     public CompletableFuture<Void> refresh() {
         return CompletableFuture.runAsync(() -> {
-            cache.clear();
-            lastRefreshTime = System.currentTimeMillis();
+            nodeSnapshot = null;
+            nodeSnapshot();
             LOG.info("Refreshed Proxmox resource provider cache");
-        });
+        }, executorService);
     }
 
     // Helper methods
 
+    /**
+     * Node status, storage and VMs of the current refresh cycle, collecting them if the last
+     * collection is older than the snapshot TTL
+     */
+    private ProxmoxNodeSnapshot nodeSnapshot() {
+        Duration ttl = Duration.ofSeconds(snapshotTtlSeconds);
+        ProxmoxNodeSnapshot current = nodeSnapshot;
+        if (current != null && !current.isOlderThan(ttl)) {
+            return current;
+        }
+        snapshotLock.lock();
+        try {
+            // Another caller may have collected while we were waiting
+            current = nodeSnapshot;
+            if (current != null && !current.isOlderThan(ttl)) {
+                return current;
+            }
+            ProxmoxNodeSnapshot collected = collectNodes();
+            nodeSnapshot = collected;
+            return collected;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Read status, storage and VMs of all nodes concurrently, each call bounded by the call timeout
+     */
+    private ProxmoxNodeSnapshot collectNodes() {
+        List<Node> nodes = nodeService.listNodes(null);
+        List<CompletableFuture<NodeData>> collections = nodes.stream()
+            .map(node -> collectNodeAsync(node.getName()))
+            .toList();
+        List<NodeData> collected = collections.stream()
+            .map(CompletableFuture::join)
+            .toList();
+
+        long incomplete = collected.stream().filter(node -> !node.isComplete()).count();
+        if (incomplete > 0) {
+            LOG.warn("Collected resources of {} nodes, {} of them incomplete", collected.size(), incomplete);
+        }
+        return new ProxmoxNodeSnapshot(collected, Instant.now());
+    }
+
+    private NodeData collectNode(String nodeName) {
+        return collectNodeAsync(nodeName).join();
+    }
+
+    private CompletableFuture<NodeData> collectNodeAsync(String nodeName) {
+        CompletableFuture<NodeStatus> status = call("status", nodeName,
+            () -> nodeService.getNodeStatus(nodeName, null));
+        CompletableFuture<List<com.coffeesprout.client.StoragePool>> storage = call("storage", nodeName,
+            () -> nodeService.getNodeStorage(nodeName, null));
+        CompletableFuture<List<VM>> vms = call("VMs", nodeName,
+            () -> nodeService.getNodeVMs(nodeName, null));
+        return CompletableFuture.allOf(status, storage, vms)
+            .thenApply(done -> new NodeData(nodeName, status.join(), storage.join(), vms.join()));
+    }
+
+    /**
+     * One Proxmox call on a virtual thread; completes with null if it fails or exceeds the call timeout.
+     * A call that times out is interrupted so it does not keep a connection busy after its result is dropped.
+     */
+    private <T> CompletableFuture<T> call(String what, String nodeName, Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executorService.submit(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result
+            .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((value, e) -> {
+                if (e != null) {
+                    running.cancel(true);
+                }
+            })
+            .exceptionally(e -> {
+                LOG.warn("Failed to get {} of node {}: {}", what, nodeName, e.getMessage());
+                return null;
+            });
+    }
+
+    /**
+     * Resources of every node whose status could be read, for capacity and placement decisions
+     */
+    private List<NodeResources> placeableNodes() {
+        return nodeSnapshot().nodes().stream()
+            .filter(node -> node.status() != null)
+            .map(this::toNodeResources)
+            .toList();
+    }
+
+    private NodeResources toNodeResources(NodeData node) {
+        NodeStatus status = node.status();
+        List<VM> nodeVMs = node.vms() != null ? node.vms() : List.of();
+        List<com.coffeesprout.client.StoragePool> storagePools = node.storage() != null ? node.storage() : List.of();
+
+        NodeResources resources = new NodeResources();
+        resources.setNodeId(node.name());
+        resources.setNodeName(node.name());
+        resources.setStatus("online"); // Assume online if we can query it
+        resources.setTimestamp(Instant.now());
+
+        // Set CPU resources
+        if (status.getCpuInfo() != null) {
+            NodeResources.NodeCpuResources cpu = new NodeResources.NodeCpuResources();
+            cpu.setPhysicalCores(status.getCpuInfo().getCpus());
+            cpu.setLogicalCores(status.getCpuInfo().getCpus());
+
+            // Calculate allocated cores
+            int allocatedCores = nodeVMs.stream()
+                .mapToInt(VM::getCpus)
+                .sum();
+            cpu.setAllocatedCores(allocatedCores);
+
+            resources.setCpu(cpu);
+        }
+
+        // Set memory resources
+        if (status.getMemory() != null) {
+            NodeResources.NodeMemoryResources memory = new NodeResources.NodeMemoryResources();
+            memory.setTotalBytes(status.getMemory().getTotal());
+            memory.setUsedBytes(status.getMemory().getUsed());
+            memory.setFreeBytes(status.getMemory().getFree());
+
+            // Calculate allocated memory
+            long allocatedMemory = nodeVMs.stream()
+                .mapToLong(VM::getMaxmem)
+                .sum();
+            memory.setAllocatedBytes(allocatedMemory);
+
+            memory.setUsagePercent((double) status.getMemory().getUsed() /
+                status.getMemory().getTotal() * UnitConverter.Percentage.PERCENT_MULTIPLIER);
+
+            resources.setMemory(memory);
+        }
+
+        // Set storage resources
+        NodeResources.NodeStorageResources storage = new NodeResources.NodeStorageResources();
+        List<NodeResources.NodeStoragePool> pools = new ArrayList<>();
+
+        long totalStorage = 0;
+        long usedStorage = 0;
+
+        for (com.coffeesprout.client.StoragePool pool : storagePools) {
+            NodeResources.NodeStoragePool nodePool = new NodeResources.NodeStoragePool();
+            nodePool.setPoolId(pool.getStorage());
+            nodePool.setPoolName(pool.getStorage());
+            nodePool.setType(pool.getType());
+            nodePool.setTotalBytes(pool.getTotal());
+            nodePool.setUsedBytes(pool.getUsed());
+            nodePool.setAvailableBytes(pool.getAvail());
+            nodePool.setActive(pool.getActive() == 1);
+            nodePool.setShared(isSharedStorage(pool.getType()));
+
+            pools.add(nodePool);
+            totalStorage += pool.getTotal();
+            usedStorage += pool.getUsed();
+        }
+
+        storage.setPools(pools);
+        storage.setTotalBytes(totalStorage);
+        storage.setUsedBytes(usedStorage);
+        storage.setAvailableBytes(totalStorage - usedStorage);
+        resources.setStorage(storage);
+
+        // Set VM information
+        resources.setVmCount(nodeVMs.size());
+        resources.setRunningVMs((int) nodeVMs.stream()
+            .filter(vm -> "running".equals(vm.getStatus()))
+            .count());
+        resources.setVmIds(nodeVMs.stream()
+            .map(vm -> String.valueOf(vm.getVmid()))
+            .collect(Collectors.toList()));
+
+        // Calculate resource pressure
+        if (resources.getCpu() != null) {
+            resources.setCpuPressure(calculationService.calculateCpuPressure(
+                resources.getCpu().getAllocatedCores(),
+                resources.getCpu().getPhysicalCores()
+            ));
+        }
+
+        if (resources.getMemory() != null) {
+            resources.setMemoryPressure(calculationService.calculateMemoryPressure(
+                resources.getMemory().getUsedBytes(),
+                resources.getMemory().getTotalBytes()
+            ));
+        }
+
+        if (resources.getStorage() != null) {
+            resources.setStoragePressure(calculationService.calculateStoragePressure(
+                resources.getStorage().getUsedBytes(),
+                resources.getStorage().getTotalBytes()
+            ));
+        }
+
+        return resources;
+    }
+
     private List<VMResources> getVMResourcesList() {
         try {
             List<VMResponse> vms = vmService.listVMs(null);
@@ -3,27 +3,36 @@ package com.coffeesprout.health;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.ProxmoxEndpoints;
 import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
 import org.eclipse.microprofile.health.Readiness;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
+/**
+ * Ready while a quorum of the configured Proxmox API endpoints is healthy
+ */
 @Readiness
 @ApplicationScoped
 public class ProxmoxHealthCheck implements HealthCheck {
 
     @Inject
-    @RestClient
-    ProxmoxClient proxmoxClient;
+    ProxmoxEndpoints endpoints;
 
     @Override
     public HealthCheckResponse call() {
-        try {
-            proxmoxClient.getStatus();
-            return HealthCheckResponse.up("Proxmox API connection");
-        } catch (Exception e) {
-            return HealthCheckResponse.down("Proxmox API connection");
+        // Background checks may be disabled or not have run yet
+        if (!endpoints.isChecked()) {
+            endpoints.checkAll();
         }
+
+        HealthCheckResponseBuilder response = HealthCheckResponse.named("Proxmox API connection")
+            .status(endpoints.hasQuorum())
+            .withData("healthy", endpoints.healthyCount())
+            .withData("quorum", endpoints.quorum());
+        for (ProxmoxEndpoints.EndpointStatus endpoint : endpoints.status()) {
+            response.withData(endpoint.name(), endpoint.healthy() ? "UP" : "DOWN: " + endpoint.lastError());
+        }
+        return response.build();
     }
 }
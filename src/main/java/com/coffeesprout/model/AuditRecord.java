@@ -0,0 +1,38 @@
+package com.coffeesprout.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+@Entity
+@Table(name = "audit_log")
+public class AuditRecord extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_log_SEQ", allocationSize = 50)
+    public Long id;
+
+    @Column(name = "recorded_at", nullable = false)
+    public Instant recordedAt;
+
+    @Column(name = "operation", nullable = false)
+    public String operation;
+
+    @Column(name = "decision", nullable = false, length = 20)
+    public String decision; // 'ALLOWED', 'BLOCKED'
+
+    @Column(name = "reason", columnDefinition = "TEXT")
+    public String reason;
+
+    @Column(name = "vm_id")
+    public Integer vmId;
+
+    @Column(name = "username")
+    public String username;
+
+    @Column(name = "client_ip", length = 64)
+    public String clientIp;
+}
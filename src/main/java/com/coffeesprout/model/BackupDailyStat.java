@@ -0,0 +1,95 @@
+package com.coffeesprout.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+/**
+ * Backups of one scope (the cluster, a storage, a client or a VM) on one day.
+ * Rows are written by set-based upserts from backup_records, never through the entity.
+ */
+@Entity
+@Table(name = "backup_daily_stats")
+@IdClass(BackupDailyStat.Key.class)
+public class BackupDailyStat extends PanacheEntityBase {
+
+    public static final String SCOPE_CLUSTER = "cluster";
+    public static final String SCOPE_STORAGE = "storage";
+    public static final String SCOPE_CLIENT = "client";
+    public static final String SCOPE_VM = "vm";
+    public static final String CLUSTER_KEY = "*";
+
+    @Id
+    @Column(name = "scope", length = 20)
+    public String scope;
+
+    @Id
+    @Column(name = "scope_key")
+    public String scopeKey;
+
+    @Id
+    @Column(name = "day")
+    public LocalDate day;
+
+    @Column(name = "backup_count", nullable = false)
+    public int backupCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    public long totalBytes;
+
+    @Column(name = "added_count", nullable = false)
+    public int addedCount;
+
+    @Column(name = "added_bytes", nullable = false)
+    public long addedBytes;
+
+    @Column(name = "removed_count", nullable = false)
+    public int removedCount;
+
+    @Column(name = "removed_bytes", nullable = false)
+    public long removedBytes;
+
+    // Helper methods
+    public static List<BackupDailyStat> findRange(String scope, String scopeKey, LocalDate from, LocalDate to) {
+        return list("scope = ?1 AND scopeKey = ?2 AND day >= ?3 AND day <= ?4 ORDER BY day", scope, scopeKey, from, to);
+    }
+
+    public static List<BackupDailyStat> findRange(String scope, LocalDate from, LocalDate to) {
+        return list("scope = ?1 AND day >= ?2 AND day <= ?3 ORDER BY scopeKey, day", scope, from, to);
+    }
+
+    /**
+     * Latest row strictly before a day, carrying a scope's totals into a range
+     */
+    public static BackupDailyStat findLatestBefore(String scope, String scopeKey, LocalDate day) {
+        return find("scope = ?1 AND scopeKey = ?2 AND day < ?3 ORDER BY day DESC", scope, scopeKey, day).firstResult();
+    }
+
+    public static class Key implements Serializable {
+        public String scope;
+        public String scopeKey;
+        public LocalDate day;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(scope, other.scope) && Objects.equals(scopeKey, other.scopeKey)
+                && Objects.equals(day, other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, scopeKey, day);
+        }
+    }
+}
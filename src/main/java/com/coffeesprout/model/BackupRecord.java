@@ -0,0 +1,54 @@
+package com.coffeesprout.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+@Entity
+@Table(name = "backup_records")
+public class BackupRecord extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "backup_records_seq")
+    @SequenceGenerator(name = "backup_records_seq", sequenceName = "backup_records_SEQ", allocationSize = 50)
+    public Long id;
+
+    @Column(name = "volid", nullable = false, unique = true, length = 512)
+    public String volid;
+
+    @Column(name = "vm_id")
+    public Integer vmId;
+
+    @Column(name = "storage", nullable = false, length = 100)
+    public String storage;
+
+    @Column(name = "node", length = 100)
+    public String node;
+
+    @Column(name = "client", nullable = false)
+    public String client; // client tag of the VM when first seen, or 'no-client'
+
+    @Column(name = "size_bytes", nullable = false)
+    public long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    @Column(name = "first_seen_at", nullable = false)
+    public Instant firstSeenAt;
+
+    @Column(name = "deleted_at")
+    public Instant deletedAt;
+
+    // Helper methods
+    public static List<BackupRecord> findPresent() {
+        return list("deletedAt IS NULL");
+    }
+
+    public static BackupRecord findByVolid(String volid) {
+        return find("volid", volid).firstResult();
+    }
+}
@@ -0,0 +1,85 @@
+package com.coffeesprout.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@Table(name = "bulk_jobs")
+public class BulkJob extends PanacheEntityBase {
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_CANCELLED = "cancelled";
+    public static final String STATUS_INTERRUPTED = "interrupted";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_jobs_seq")
+    @SequenceGenerator(name = "bulk_jobs_seq", sequenceName = "bulk_jobs_SEQ", allocationSize = 50)
+    public Long id;
+
+    @Column(name = "operation", nullable = false, length = 100)
+    public String operation;
+
+    @Column(name = "operation_id", nullable = false)
+    public String operationId;
+
+    @Column(name = "status", nullable = false, length = 50)
+    public String status; // 'running', 'completed', 'cancelled', 'interrupted'
+
+    @Column(name = "total", nullable = false)
+    public int total;
+
+    @Column(name = "succeeded", nullable = false)
+    public int succeeded;
+
+    @Column(name = "failed", nullable = false)
+    public int failed;
+
+    @Column(name = "skipped", nullable = false)
+    public int skipped;
+
+    @Column(name = "cancelled", nullable = false)
+    public int cancelled; // VMs not started because the job was cancelled
+
+    @Column(name = "summary", columnDefinition = "TEXT")
+    public String summary;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "response", columnDefinition = "jsonb")
+    public Map<String, Object> response; // Final bulk response as returned by the synchronous endpoint
+
+    @Column(name = "owner", length = 200)
+    public String owner; // Instance running the job
+
+    @Column(name = "heartbeat_at")
+    public Instant heartbeatAt;
+
+    @Column(name = "created_at", nullable = false)
+    public Instant createdAt;
+
+    @Column(name = "completed_at")
+    public Instant completedAt;
+
+    // Helper methods
+    public static List<BulkJob> findRecent(int limit) {
+        return find("ORDER BY createdAt DESC").page(0, limit).list();
+    }
+
+    public boolean isRunning() {
+        return STATUS_RUNNING.equals(status);
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
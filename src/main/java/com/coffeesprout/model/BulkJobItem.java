@@ -0,0 +1,64 @@
+package com.coffeesprout.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@Table(name = "bulk_job_items")
+public class BulkJobItem extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_job_items_seq")
+    @SequenceGenerator(name = "bulk_job_items_seq", sequenceName = "bulk_job_items_SEQ", allocationSize = 50)
+    public Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "job_id")
+    public BulkJob job;
+
+    @Column(name = "vm_id", nullable = false)
+    public int vmId;
+
+    @Column(name = "vm_name")
+    public String vmName;
+
+    @Column(name = "node_name", length = 100)
+    public String nodeName;
+
+    @Column(name = "status", nullable = false, length = 50)
+    public String status; // 'success', 'error', 'skipped', 'cancelled'
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "result", columnDefinition = "jsonb")
+    public Map<String, Object> result;
+
+    @Column(name = "started_at")
+    public Instant startedAt;
+
+    @Column(name = "completed_at", nullable = false)
+    public Instant completedAt;
+
+    // Helper methods
+    public static List<BulkJobItem> findByJob(Long jobId) {
+        return list("job.id = ?1 ORDER BY vmId", jobId);
+    }
+
+    public static List<BulkJobItem> findByJobAndStatus(Long jobId, String status) {
+        return list("job.id = ?1 AND status = ?2 ORDER BY vmId", jobId, status);
+    }
+
+    public static long countByJobAndStatus(Long jobId, String status) {
+        return count("job.id = ?1 AND status = ?2", jobId, status);
+    }
+
+    public static long countByJob(Long jobId) {
+        return count("job.id = ?1", jobId);
+    }
+}
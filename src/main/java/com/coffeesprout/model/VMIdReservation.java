@@ -0,0 +1,22 @@
+package com.coffeesprout.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+@Entity
+@Table(name = "vm_id_reservations")
+public class VMIdReservation extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "vm_id")
+    public Integer vmId;
+
+    @Column(name = "owner", nullable = false, length = 200)
+    public String owner; // Instance that reserved the ID
+
+    @Column(name = "reserved_at", nullable = false)
+    public Instant reservedAt;
+}
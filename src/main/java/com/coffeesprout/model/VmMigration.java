@@ -82,6 +82,11 @@ public class VmMigration extends PanacheEntityBase {
         return list("targetNode = ?1 ORDER BY startedAt DESC", node);
     }
 
+    public static List<VmMigration> findRecentCompletedFrom(String node, int limit) {
+        return find("sourceNode = ?1 AND status = 'completed' AND durationSeconds > 0 ORDER BY completedAt DESC", node)
+            .page(0, limit).list();
+    }
+
     public void markCompleted(String postState) {
         this.completedAt = Instant.now();
         this.status = "completed";
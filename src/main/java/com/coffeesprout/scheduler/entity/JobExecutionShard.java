@@ -0,0 +1,97 @@
+package com.coffeesprout.scheduler.entity;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.*;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+@Entity
+@Table(name = "job_execution_shards")
+public class JobExecutionShard extends PanacheEntity {
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "execution_id")
+    public JobExecution execution;
+
+    @Column(name = "shard_index", nullable = false)
+    public int shardIndex;
+
+    @Column(name = "vm_ids", nullable = false, columnDefinition = "TEXT")
+    public String vmIds; // Comma-separated, in selection order
+
+    @Column(nullable = false, length = 50)
+    public String status; // 'pending', 'running', 'completed'
+
+    @Column(length = 200)
+    public String owner; // Scheduler instance that claimed the shard last
+
+    @Column(nullable = false)
+    public int attempts = 0;
+
+    @Column(name = "claimed_at")
+    public Instant claimedAt;
+
+    @Column(name = "heartbeat_at")
+    public Instant heartbeatAt;
+
+    @Column(name = "completed_at")
+    public Instant completedAt;
+
+    @Column(name = "processed_vms", nullable = false)
+    public int processedVMs = 0;
+
+    @Column(name = "successful_vms", nullable = false)
+    public int successfulVMs = 0;
+
+    @Column(name = "failed_vms", nullable = false)
+    public int failedVMs = 0;
+
+    @Column(columnDefinition = "JSONB")
+    @org.hibernate.annotations.JdbcTypeCode(org.hibernate.type.SqlTypes.JSON)
+    public List<String> errors;
+
+    public enum Status {
+        PENDING("pending"),
+        RUNNING("running"),
+        COMPLETED("completed");
+
+        private final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public List<Integer> getVmIdList() {
+        return Arrays.stream(vmIds.split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    }
+
+    public void setVmIdList(List<Integer> ids) {
+        this.vmIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public void claim(String owner) {
+        Instant now = Instant.now();
+        this.status = Status.RUNNING.getValue();
+        this.owner = owner;
+        this.attempts++;
+        this.claimedAt = now;
+        this.heartbeatAt = now;
+    }
+
+    public static List<JobExecutionShard> findByExecution(Long executionId) {
+        return list("execution.id = ?1 ORDER BY shardIndex", executionId);
+    }
+}
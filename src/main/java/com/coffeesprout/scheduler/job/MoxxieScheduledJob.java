@@ -7,7 +7,6 @@ import java.util.UUID;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
-import jakarta.transaction.Transactional;
 
 import com.coffeesprout.api.exception.ProxmoxException;
 import com.coffeesprout.scheduler.entity.JobExecution;
@@ -16,6 +15,7 @@ import com.coffeesprout.scheduler.task.ScheduledTask;
 import com.coffeesprout.scheduler.task.TaskContext;
 import com.coffeesprout.scheduler.task.TaskResult;
 import io.quarkus.arc.Arc;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
@@ -53,7 +53,10 @@ public class MoxxieScheduledJob implements Job {
     }
 
     /**
-     * Helper class to handle transactional job execution
+     * Helper class to handle job execution.
+     *
+     * The execution record is created and completed in short transactions of their own; the task runs
+     * outside any transaction, so no connection or row lock is held across its remote calls.
      */
     @ApplicationScoped
     @io.quarkus.arc.Unremovable
@@ -61,31 +64,15 @@ public class MoxxieScheduledJob implements Job {
 
         private static final Logger LOG = LoggerFactory.getLogger(JobExecutor.class);
 
-        @Transactional
         public void executeJob(Long jobId, String executionId, boolean isManualTrigger) {
-            // Note: Transaction timeout would need to be configured at the datasource level
-            // or use programmatic transaction management for timeout control
-            JobExecution execution = null;
+            TaskContext taskContext = null;
 
             try {
-                // Load job from database
-                ScheduledJob job = ScheduledJob.findById(jobId);
-                if (job == null) {
-                    LOG.error("Job not found with ID: {}", jobId);
+                taskContext = start(jobId, executionId, isManualTrigger);
+                if (taskContext == null) {
                     return;
                 }
-
-                // Create execution record
-                execution = new JobExecution();
-                execution.job = job;
-                execution.executionId = executionId;
-                execution.status = JobExecution.Status.RUNNING.getValue();
-                execution.startedAt = Instant.now();
-                execution.executionDetails = new HashMap<>();
-                execution.executionDetails.put("manualTrigger", isManualTrigger);
-                execution.persist();
-
-                LOG.info("Created execution record {} for job {}", executionId, job.name);
+                ScheduledJob job = taskContext.getJob();
 
                 // Load task implementation
                 Class<?> taskClass = Class.forName(job.taskType.taskClass);
@@ -97,56 +84,106 @@ public class MoxxieScheduledJob implements Job {
 
                 ScheduledTask task = (ScheduledTask) taskInstance.get();
 
-                // Create task context
-                TaskContext taskContext = new TaskContext();
-                taskContext.setJob(job);
-                taskContext.setExecution(execution);
-                taskContext.setManualTrigger(isManualTrigger);
-
-                // Add job parameters to context
-                for (var param : job.parameters) {
-                    taskContext.addParameter(param.paramKey, param.paramValue);
-                }
-
                 // Execute the task
                 LOG.info("Executing task {} for job {}", job.taskType.name, job.name);
                 TaskResult result = task.execute(taskContext);
 
                 // Update execution record with results
+                recordResult(taskContext.getExecution().id, result);
+
+                if (result.isSuccess()) {
+                    LOG.info("Job {} completed successfully. Processed: {}, Success: {}, Failed: {}",
+                            job.name, result.getProcessedCount(), result.getSuccessCount(), result.getFailedCount());
+                } else {
+                    LOG.error("Job {} failed: {}", job.name, result.getErrorMessage());
+                }
+
+            } catch (Exception e) {
+                LOG.error("Job execution failed with exception: {}", e.getMessage(), e);
+
+                if (taskContext != null) {
+                    Long id = taskContext.getExecution().id;
+                    try {
+                        QuarkusTransaction.requiringNew().run(() -> {
+                            JobExecution execution = JobExecution.findById(id);
+                            execution.fail("Execution failed: " + e.getMessage());
+                        });
+                    } catch (Exception ex) {
+                        LOG.error("Failed to mark execution {} as failed: {}", executionId, ex.getMessage());
+                    }
+                }
+
+                throw ProxmoxException.internalError("execute scheduled job", e);
+            }
+        }
+
+        /**
+         * Complete an execution record with the result of its task
+         */
+        public void recordResult(Long executionId, TaskResult result) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                JobExecution execution = JobExecution.findById(executionId);
                 execution.processedVMs = result.getProcessedCount();
                 execution.successfulVMs = result.getSuccessCount();
                 execution.failedVMs = result.getFailedCount();
 
                 if (result.isSuccess()) {
                     execution.complete();
-                    LOG.info("Job {} completed successfully. Processed: {}, Success: {}, Failed: {}",
-                            job.name, result.getProcessedCount(), result.getSuccessCount(), result.getFailedCount());
                 } else {
                     execution.fail(result.getErrorMessage());
-                    LOG.error("Job {} failed: {}", job.name, result.getErrorMessage());
                 }
 
                 // Store additional details
-                Map<String, Object> details = execution.executionDetails;
+                Map<String, Object> details = execution.executionDetails != null
+                        ? new HashMap<>(execution.executionDetails) : new HashMap<>();
                 details.put("processedVMs", result.getProcessedCount());
                 details.put("successfulVMs", result.getSuccessCount());
                 details.put("failedVMs", result.getFailedCount());
                 if (result.getDetails() != null) {
                     details.putAll(result.getDetails());
                 }
+                execution.executionDetails = details;
+            });
+        }
 
+        /**
+         * Create the execution record and the task context, or return null if the job does not exist
+         */
+        private TaskContext start(Long jobId, String executionId, boolean isManualTrigger) {
+            return QuarkusTransaction.requiringNew().call(() -> {
+                // Load job from database
+                ScheduledJob job = ScheduledJob.findById(jobId);
+                if (job == null) {
+                    LOG.error("Job not found with ID: {}", jobId);
+                    return null;
+                }
+                // Tasks read the selectors after this transaction has ended
+                job.vmSelectors.size();
+
+                // Create execution record
+                JobExecution execution = new JobExecution();
+                execution.job = job;
+                execution.executionId = executionId;
+                execution.status = JobExecution.Status.RUNNING.getValue();
+                execution.startedAt = Instant.now();
+                execution.executionDetails = new HashMap<>();
+                execution.executionDetails.put("manualTrigger", isManualTrigger);
                 execution.persist();
 
-            } catch (Exception e) {
-                LOG.error("Job execution failed with exception: {}", e.getMessage(), e);
+                LOG.info("Created execution record {} for job {}", executionId, job.name);
 
-                if (execution != null) {
-                    execution.fail("Execution failed: " + e.getMessage());
-                    execution.persist();
-                }
+                // Create task context
+                TaskContext taskContext = new TaskContext();
+                taskContext.setJob(job);
+                taskContext.setExecution(execution);
+                taskContext.setManualTrigger(isManualTrigger);
 
-                throw ProxmoxException.internalError("execute scheduled job", e);
-            }
+                // Add job parameters to context
+                for (var param : job.parameters) {
+                    taskContext.addParameter(param.paramKey, param.paramValue);
+                }
+                return taskContext;
+            });
         }
     }
 }
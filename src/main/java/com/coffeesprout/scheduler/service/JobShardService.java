@@ -0,0 +1,415 @@
+package com.coffeesprout.scheduler.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.persistence.Query;
+
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.JobShardConfig;
+import com.coffeesprout.scheduler.entity.JobExecution;
+import com.coffeesprout.scheduler.entity.JobExecutionShard;
+import com.coffeesprout.scheduler.entity.JobVMExecution;
+import com.coffeesprout.scheduler.entity.ScheduledJob;
+import com.coffeesprout.scheduler.job.MoxxieScheduledJob;
+import com.coffeesprout.scheduler.task.AbstractVMTask;
+import com.coffeesprout.scheduler.task.TaskContext;
+import com.coffeesprout.scheduler.task.TaskResult;
+import com.coffeesprout.service.LocationService;
+import io.quarkus.arc.Arc;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distributes large scheduled job runs over all scheduler instances.
+ *
+ * The instance Quartz fires a job on splits the selected VMs into shards stored with the execution.
+ * Every instance, including that one, claims pending shards through the database with
+ * SELECT ... FOR UPDATE SKIP LOCKED and keeps its running shards alive with heartbeats; a shard
+ * whose owner stops sending them is claimed again, and only its VMs without a JobVMExecution record
+ * run again. An instance stops starting and recording VMs of a shard as soon as its own lease has
+ * run out or a heartbeat finds the shard claimed by another instance. The firing instance waits for
+ * all shards and completes the JobExecution from the shard results; if it died, the instance that
+ * notices the finished shards completes it instead.
+ */
+@ApplicationScoped
+public class JobShardService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobShardService.class);
+
+    private static final String CLAIM_SQL = """
+        SELECT id FROM job_execution_shards
+        WHERE (status = :pending OR (status = :running AND heartbeat_at < :stale))
+        %s
+        ORDER BY execution_id, shard_index
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    @Inject
+    JobShardConfig config;
+
+    @Inject
+    LocationService locationService;
+
+    @Inject
+    MoxxieScheduledJob.JobExecutor jobExecutor;
+
+    // Distinguishes processes that share a configured instance ID
+    private final String processId = UUID.randomUUID().toString().substring(0, 8);
+
+    // Shards this instance is running
+    private final ConcurrentMap<Long, ShardLease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a run over this many VMs is split into shards
+     */
+    public boolean shouldShard(int vmCount) {
+        return config.shardSize() > 0 && vmCount > config.shardSize();
+    }
+
+    /**
+     * Split a run into shards, work on them together with the other instances and return the combined result
+     */
+    public TaskResult runSharded(TaskContext context, AbstractVMTask task, List<VMResponse> vms) {
+        Long executionId = context.getExecution().id;
+        int shardCount = createShards(executionId, vms);
+        LOG.info("Split execution {} of job {} into {} shards of up to {} VMs",
+                 executionId, context.getJob().name, shardCount, config.shardSize());
+
+        while (true) {
+            Optional<Long> shardId = claim(executionId);
+            if (shardId.isPresent()) {
+                runShard(context, task, shardId.get());
+                continue;
+            }
+            if (isFinished(executionId)) {
+                return aggregate(executionId);
+            }
+            // The remaining shards run on other instances
+            try {
+                Thread.sleep(config.waitIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return TaskResult.failure("Interrupted while waiting for shards of execution " + executionId);
+            }
+        }
+    }
+
+    /**
+     * Claim and run shards of any execution until none are left, then complete executions whose
+     * firing instance is gone
+     */
+    @Scheduled(every = "${moxxie.scheduler.shards.poll-interval:10s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void claimShards() {
+        if (config.shardSize() <= 0) {
+            return;
+        }
+        try {
+            Optional<Long> shardId;
+            while ((shardId = claim(null)).isPresent()) {
+                runClaimedShard(shardId.get());
+            }
+            completeOrphanedExecutions();
+        } catch (Exception e) {
+            LOG.warn("Failed to claim job execution shards: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tell the other instances this instance is still working on its shards
+     */
+    @Scheduled(every = "${moxxie.scheduler.shards.heartbeat-interval:30s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void heartbeat() {
+        if (config.shardSize() <= 0) {
+            return;
+        }
+        String owner = owner();
+        for (Map.Entry<Long, ShardLease> entry : leases.entrySet()) {
+            ShardLease lease = entry.getValue();
+            if (!lease.isHeld()) {
+                // Run out before it could be renewed; another instance may own the shard already
+                lease.lose();
+                continue;
+            }
+            Instant now = Instant.now();
+            try {
+                int renewed = QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.update(
+                    "heartbeatAt = ?1 WHERE id = ?2 AND owner = ?3 AND status = ?4",
+                    now, entry.getKey(), owner, JobExecutionShard.Status.RUNNING.getValue()));
+                if (renewed > 0) {
+                    lease.renew(now);
+                } else {
+                    LOG.warn("Shard {} was claimed by another instance, stopping work on it", entry.getKey());
+                    lease.lose();
+                }
+            } catch (Exception e) {
+                LOG.warn("Failed to send heartbeat for shard {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    int createShards(Long executionId, List<VMResponse> vms) {
+        int shardSize = config.shardSize();
+        return QuarkusTransaction.requiringNew().call(() -> {
+            JobExecution execution = JobExecution.getEntityManager().getReference(JobExecution.class, executionId);
+            List<JobExecutionShard> shards = new ArrayList<>();
+            for (int start = 0; start < vms.size(); start += shardSize) {
+                JobExecutionShard shard = new JobExecutionShard();
+                shard.execution = execution;
+                shard.shardIndex = shards.size();
+                shard.setVmIdList(vms.subList(start, Math.min(start + shardSize, vms.size())).stream()
+                    .map(VMResponse::vmid)
+                    .toList());
+                shard.status = JobExecutionShard.Status.PENDING.getValue();
+                shards.add(shard);
+            }
+            JobExecutionShard.persist(shards);
+            return shards.size();
+        });
+    }
+
+    /**
+     * Claim the next pending or abandoned shard, of one execution or of any if executionId is null
+     */
+    Optional<Long> claim(Long executionId) {
+        String owner = owner();
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Query query = JobExecutionShard.getEntityManager().createNativeQuery(
+                CLAIM_SQL.formatted(executionId != null ? "AND execution_id = :executionId" : ""));
+            query.setParameter("pending", JobExecutionShard.Status.PENDING.getValue());
+            query.setParameter("running", JobExecutionShard.Status.RUNNING.getValue());
+            query.setParameter("stale", Instant.now().minusSeconds(config.leaseSeconds()));
+            if (executionId != null) {
+                query.setParameter("executionId", executionId);
+            }
+            List<?> ids = query.getResultList();
+            if (ids.isEmpty()) {
+                return Optional.empty();
+            }
+
+            JobExecutionShard shard = JobExecutionShard.findById(((Number) ids.get(0)).longValue());
+            if (shard.attempts > 0) {
+                LOG.warn("Claiming shard {} of execution {} again, last owner {} stopped sending heartbeats",
+                         shard.shardIndex, shard.execution.id, shard.owner);
+            }
+            shard.claim(owner);
+            return Optional.of(shard.id);
+        });
+    }
+
+    /**
+     * Run a shard claimed by the poller, with the job's parameters and task
+     */
+    private void runClaimedShard(Long shardId) {
+        TaskContext context = QuarkusTransaction.requiringNew().call(() -> {
+            JobExecutionShard shard = JobExecutionShard.findById(shardId);
+            JobExecution execution = shard.execution;
+            ScheduledJob job = execution.job;
+
+            TaskContext taskContext = new TaskContext();
+            taskContext.setJob(job);
+            taskContext.setExecution(execution);
+            for (var param : job.parameters) {
+                taskContext.addParameter(param.paramKey, param.paramValue);
+            }
+            return taskContext;
+        });
+
+        String taskClass = context.getJob().taskType.taskClass;
+        try {
+            Instance<?> taskInstance = Arc.container().select(Class.forName(taskClass));
+            if (!taskInstance.isResolvable() || !(taskInstance.get() instanceof AbstractVMTask task)) {
+                throw new IllegalStateException("Task implementation cannot run shards: " + taskClass);
+            }
+            runShard(context, task, shardId);
+        } catch (Exception e) {
+            LOG.error("Failed to run shard {} of execution {}: {}", shardId, context.getExecution().id, e.getMessage());
+            completeShard(shardId, TaskResult.failure(e.getMessage()), List.of("Shard failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Run the VMs of a claimed shard that have no execution record yet and record the shard's result
+     */
+    void runShard(TaskContext context, AbstractVMTask task, Long shardId) {
+        JobExecutionShard shard = QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.findById(shardId));
+        ShardLease lease = new ShardLease(shard.heartbeatAt, Duration.ofSeconds(config.leaseSeconds()));
+        leases.put(shardId, lease);
+        try {
+            runShard(context, task, shard, lease);
+        } finally {
+            leases.remove(shardId);
+        }
+    }
+
+    private void runShard(TaskContext context, AbstractVMTask task, JobExecutionShard shard, ShardLease lease) {
+        Long executionId = context.getExecution().id;
+        Long shardId = shard.id;
+        List<Integer> vmIds = shard.getVmIdList();
+
+        // VMs recorded by an earlier owner of the shard finished already and are not run again
+        List<JobVMExecution> earlier = shard.attempts > 1
+            ? QuarkusTransaction.requiringNew().call(() -> JobVMExecution.<JobVMExecution>list(
+                "execution.id = ?1 AND vmId IN ?2", executionId, vmIds))
+            : List.of();
+        Set<Integer> done = new HashSet<>();
+        int succeeded = 0;
+        int failed = 0;
+        List<String> errors = new ArrayList<>();
+        for (JobVMExecution record : earlier) {
+            if (!done.add(record.vmId)) {
+                continue;
+            }
+            if (JobVMExecution.Status.FAILED.getValue().equals(record.status)) {
+                failed++;
+                errors.add(String.format("VM %d (%s): %s", record.vmId, record.vmName, record.errorMessage));
+            } else {
+                succeeded++;
+            }
+        }
+        List<Integer> remaining = vmIds.stream().filter(vmId -> !done.contains(vmId)).toList();
+
+        try {
+            TaskResult result = remaining.isEmpty() ? TaskResult.success()
+                : task.processShard(context, remaining, lease::isHeld);
+            if (!lease.isHeld()) {
+                LOG.warn("Lost the lease on shard {} of execution {}, leaving it to its new owner",
+                         shard.shardIndex, executionId);
+                return;
+            }
+            if (result.getDetails().get("errors") instanceof List<?> shardErrors) {
+                shardErrors.forEach(error -> errors.add(String.valueOf(error)));
+            }
+            completeShard(shardId, TaskResult.success().withCounts(done.size() + result.getProcessedCount(),
+                succeeded + result.getSuccessCount(), failed + result.getFailedCount()), errors);
+        } catch (Exception e) {
+            LOG.error("Shard {} of execution {} failed: {}", shard.shardIndex, executionId, e.getMessage(), e);
+            errors.add("Shard failed: " + e.getMessage());
+            completeShard(shardId, TaskResult.success().withCounts(done.size() + remaining.size(),
+                succeeded, failed + remaining.size()), errors);
+        }
+    }
+
+    private void completeShard(Long shardId, TaskResult result, List<String> errors) {
+        String owner = owner();
+        QuarkusTransaction.requiringNew().run(() -> {
+            JobExecutionShard shard = JobExecutionShard.findById(shardId);
+            if (!owner.equals(shard.owner)) {
+                // Another instance claimed the shard while this one was slow to send heartbeats
+                LOG.warn("Shard {} of execution {} is now owned by {}, discarding this instance's result",
+                         shard.shardIndex, shard.execution.id, shard.owner);
+                return;
+            }
+            shard.status = JobExecutionShard.Status.COMPLETED.getValue();
+            shard.completedAt = Instant.now();
+            shard.processedVMs = result.getProcessedCount();
+            shard.successfulVMs = result.getSuccessCount();
+            shard.failedVMs = result.getFailedCount();
+            shard.errors = List.copyOf(errors);
+        });
+    }
+
+    private boolean isFinished(Long executionId) {
+        return QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.count(
+            "execution.id = ?1 AND status <> ?2", executionId, JobExecutionShard.Status.COMPLETED.getValue()) == 0);
+    }
+
+    /**
+     * Combined result of all shards of an execution, errors in shard order
+     */
+    TaskResult aggregate(Long executionId) {
+        List<JobExecutionShard> shards = QuarkusTransaction.requiringNew().call(
+            () -> JobExecutionShard.findByExecution(executionId));
+
+        int processed = 0;
+        int succeeded = 0;
+        int failed = 0;
+        List<String> errors = new ArrayList<>();
+        Set<String> owners = new TreeSet<>();
+        for (JobExecutionShard shard : shards) {
+            processed += shard.processedVMs;
+            succeeded += shard.successfulVMs;
+            failed += shard.failedVMs;
+            if (shard.errors != null) {
+                errors.addAll(shard.errors);
+            }
+            if (shard.owner != null) {
+                owners.add(shard.owner);
+            }
+        }
+
+        TaskResult result = failed == 0 ? TaskResult.success() :
+            TaskResult.failure("Task completed with " + failed + " failures");
+        return result.withCounts(processed, succeeded, failed)
+            .withDetail("errors", errors)
+            .withDetail("shards", shards.size())
+            .withDetail("shardOwners", List.copyOf(owners));
+    }
+
+    /**
+     * Complete running executions whose shards all finished a lease ago; their firing instance would
+     * have completed them within the wait interval, so it is gone
+     */
+    private void completeOrphanedExecutions() {
+        Instant cutoff = Instant.now().minusSeconds(config.leaseSeconds());
+        List<Long> executionIds = QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.getEntityManager()
+            .createQuery("SELECT s.execution.id FROM JobExecutionShard s WHERE s.execution.status = :running "
+                + "GROUP BY s.execution.id "
+                + "HAVING SUM(CASE WHEN s.status <> :completed THEN 1 ELSE 0 END) = 0 "
+                + "AND MAX(s.completedAt) < :cutoff", Long.class)
+            .setParameter("running", JobExecution.Status.RUNNING.getValue())
+            .setParameter("completed", JobExecutionShard.Status.COMPLETED.getValue())
+            .setParameter("cutoff", cutoff)
+            .getResultList());
+
+        for (Long executionId : executionIds) {
+            LOG.warn("Completing execution {} whose firing instance is gone", executionId);
+            jobExecutor.recordResult(executionId, aggregate(executionId));
+        }
+    }
+
+    String owner() {
+        return locationService.getLocationInfo().instanceId() + "/" + processId;
+    }
+
+    /**
+     * This instance's lease on a shard it runs: held until lease-seconds after the last heartbeat that
+     * renewed it, which is when other instances may claim the shard, or until a heartbeat finds it claimed
+     */
+    static final class ShardLease {
+
+        private final Duration duration;
+        private volatile Instant renewedAt;
+        private volatile boolean lost;
+
+        ShardLease(Instant renewedAt, Duration duration) {
+            this.renewedAt = renewedAt != null ? renewedAt : Instant.now();
+            this.duration = duration;
+        }
+
+        boolean isHeld() {
+            return !lost && renewedAt.plus(duration).isAfter(Instant.now());
+        }
+
+        void renew(Instant at) {
+            renewedAt = at;
+        }
+
+        void lose() {
+            lost = true;
+        }
+    }
+}
@@ -71,7 +71,7 @@ public class VMSelectorService {
 
             case TAG_EXPRESSION:
                 // Evaluate tag expression
-                selectedVMIds.addAll(evaluateTagExpression(selector.value(), allVMs, ticket));
+                selectedVMIds.addAll(evaluateTagExpression(selector.value(), ticket));
                 break;
 
             default:
@@ -128,7 +128,7 @@ public class VMSelectorService {
     /**
      * Evaluate a tag expression and return matching VM IDs
      */
-    private Set<Integer> evaluateTagExpression(String expression, List<VMResponse> allVMs, String ticket) {
+    private Set<Integer> evaluateTagExpression(String expression, String ticket) {
         if (expression == null || expression.isBlank()) {
             return new HashSet<>();
         }
@@ -138,18 +138,8 @@ public class VMSelectorService {
             TagExpression tagExpr = TagExpressionParser.parse(expression);
             LOG.debug("Evaluating tag expression: {}", expression);
 
-            Set<Integer> matchingVMs = new HashSet<>();
-
-            for (VMResponse vm : allVMs) {
-                // Get tags for this VM
-                Set<String> vmTags = vmTagLookupService.getVMTags(vm.vmid(), ticket);
-
-                // Evaluate expression
-                if (tagExpr.evaluate(vmTags)) {
-                    matchingVMs.add(vm.vmid());
-                    LOG.trace("VM {} ({}) matches expression", vm.vmid(), vm.name());
-                }
-            }
+            // Memoized per inventory version; no per-VM config lookups
+            Set<Integer> matchingVMs = vmTagLookupService.getTagBitmaps(ticket).select(tagExpr);
 
             LOG.debug("Tag expression '{}' matched {} VMs", expression, matchingVMs.size());
             return matchingVMs;
@@ -0,0 +1,180 @@
+package com.coffeesprout.scheduler.tag;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import com.coffeesprout.api.dto.VMResponse;
+
+/**
+ * Per-tag VM bitmaps used to evaluate a {@link TagExpression} with set algebra instead of
+ * testing every VM's tag set.
+ *
+ * Every VM in the inventory is assigned a bit position (in ascending VM ID order). Each distinct
+ * tag maps to a bitmap of the VMs carrying it, so AND is an intersection, OR a union, NOT a
+ * complement against all VMs and a wildcard the union of the bitmaps of all matching tags.
+ * Instances are immutable once built; evaluation always returns fresh bitmaps.
+ *
+ * Tags are kept in a sorted dictionary so a wildcard only scans the tags sharing its literal
+ * prefix. Because the bitmaps describe one inventory version, selection results are memoized
+ * per expression for the lifetime of the instance.
+ */
+public final class TagBitmaps {
+
+    /**
+     * Version used for bitmaps that are not tied to an inventory snapshot
+     */
+    public static final long UNVERSIONED = -1;
+
+    private final long version;
+    private final int[] vmIds;
+    private final NavigableMap<String, BitSet> byTag;
+    private final Map<String, Set<Integer>> results = new ConcurrentHashMap<>();
+
+    private TagBitmaps(long version, int[] vmIds, NavigableMap<String, BitSet> byTag) {
+        this.version = version;
+        this.vmIds = vmIds;
+        this.byTag = byTag;
+    }
+
+    /**
+     * Build bitmaps from a single inventory read
+     * @param vms The VMs to index, with their tags
+     * @return Bitmaps over the given VMs
+     */
+    public static TagBitmaps of(Collection<VMResponse> vms) {
+        return of(vms, UNVERSIONED);
+    }
+
+    /**
+     * Build bitmaps from a single inventory read
+     * @param vms The VMs to index, with their tags
+     * @param version The inventory version the VMs were read from
+     * @return Bitmaps over the given VMs
+     */
+    public static TagBitmaps of(Collection<VMResponse> vms, long version) {
+        int[] ids = vms.stream()
+            .mapToInt(VMResponse::vmid)
+            .distinct()
+            .sorted()
+            .toArray();
+
+        NavigableMap<String, BitSet> byTag = new TreeMap<>();
+        for (VMResponse vm : vms) {
+            if (vm.tags() == null) {
+                continue;
+            }
+            int position = Arrays.binarySearch(ids, vm.vmid());
+            for (String tag : vm.tags()) {
+                byTag.computeIfAbsent(tag, t -> new BitSet(ids.length)).set(position);
+            }
+        }
+
+        return new TagBitmaps(version, ids, Collections.unmodifiableNavigableMap(byTag));
+    }
+
+    /**
+     * Evaluate an expression and return the IDs of all matching VMs.
+     * Results are memoized per expression, so repeated selections against the same inventory
+     * version are free.
+     * @param expression The expression to evaluate
+     * @return Matching VM IDs (unmodifiable)
+     */
+    public Set<Integer> select(TagExpression expression) {
+        return results.computeIfAbsent(expression.toString(),
+            key -> Collections.unmodifiableSet(toIds(expression.evaluate(this))));
+    }
+
+    /**
+     * Inventory version these bitmaps were built from, or {@link #UNVERSIONED}
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Number of VMs covered by these bitmaps
+     */
+    public int size() {
+        return vmIds.length;
+    }
+
+    /**
+     * All distinct tags, in sorted order
+     */
+    public NavigableSet<String> tags() {
+        return byTag.navigableKeySet();
+    }
+
+    /**
+     * Bitmap with every VM set
+     */
+    BitSet all() {
+        BitSet all = new BitSet(vmIds.length);
+        all.set(0, vmIds.length);
+        return all;
+    }
+
+    /**
+     * Bitmap with no VM set
+     */
+    BitSet none() {
+        return new BitSet(vmIds.length);
+    }
+
+    /**
+     * Bitmap of VMs carrying the exact tag
+     */
+    BitSet tag(String tag) {
+        BitSet bits = byTag.get(tag);
+        return bits == null ? none() : (BitSet) bits.clone();
+    }
+
+    /**
+     * Union of the bitmaps of all tags starting with a prefix
+     */
+    BitSet withPrefix(String prefix) {
+        BitSet result = none();
+        for (BitSet bits : tagsWithPrefix(prefix).values()) {
+            result.or(bits);
+        }
+        return result;
+    }
+
+    /**
+     * Union of the bitmaps of all tags matching a wildcard pattern.
+     * Only tags sharing the pattern's literal prefix are tested against the regex.
+     */
+    BitSet matching(String literalPrefix, Pattern pattern) {
+        BitSet result = none();
+        for (Map.Entry<String, BitSet> entry : tagsWithPrefix(literalPrefix).entrySet()) {
+            if (pattern.matcher(entry.getKey()).matches()) {
+                result.or(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private SortedMap<String, BitSet> tagsWithPrefix(String prefix) {
+        if (prefix.isEmpty()) {
+            return byTag;
+        }
+        return byTag.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    /**
+     * Complement a bitmap against all VMs, in place
+     */
+    BitSet complement(BitSet bits) {
+        bits.flip(0, vmIds.length);
+        return bits;
+    }
+
+    Set<Integer> toIds(BitSet bits) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0 && i < vmIds.length; i = bits.nextSetBit(i + 1)) {
+            ids.add(vmIds[i]);
+        }
+        return ids;
+    }
+}
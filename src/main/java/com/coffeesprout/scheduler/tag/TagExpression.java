@@ -1,5 +1,6 @@
 package com.coffeesprout.scheduler.tag;
 
+import java.util.BitSet;
 import java.util.Set;
 
 /**
@@ -23,6 +24,13 @@ public interface TagExpression {
      */
     boolean evaluate(Set<String> tags);
 
+    /**
+     * Evaluate this expression for all VMs at once using set algebra over per-tag bitmaps
+     * @param bitmaps The per-tag VM bitmaps to evaluate against
+     * @return A new bitmap of the matching VMs, owned by the caller
+     */
+    BitSet evaluate(TagBitmaps bitmaps);
+
     /**
      * Get a human-readable string representation of this expression
      * @return String representation
@@ -1,6 +1,7 @@
 package com.coffeesprout.scheduler.tag;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -20,8 +21,13 @@ public class TagExpressionParser {
 
     private static final Pattern TAG_PATTERN = Pattern.compile("[a-zA-Z0-9_\\-*]+");
 
+    // Parsed expressions are immutable, so they are shared by expression text
+    private static final int MAX_CACHED_EXPRESSIONS = 512;
+    private static final Map<String, TagExpression> PARSE_CACHE = new ConcurrentHashMap<>();
+
     /**
-     * Parse a tag expression string into a TagExpression object
+     * Parse a tag expression string into a TagExpression object.
+     * Successfully parsed expressions are cached by their text.
      * @param expression The expression string to parse
      * @return Parsed TagExpression
      * @throws IllegalArgumentException if the expression is invalid
@@ -31,6 +37,20 @@ public class TagExpressionParser {
             throw new IllegalArgumentException("Expression cannot be null or empty");
         }
 
+        TagExpression cached = PARSE_CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        TagExpression parsed = parseUncached(expression);
+        if (PARSE_CACHE.size() >= MAX_CACHED_EXPRESSIONS) {
+            PARSE_CACHE.clear();
+        }
+        PARSE_CACHE.put(expression, parsed);
+        return parsed;
+    }
+
+    private static TagExpression parseUncached(String expression) {
         Tokenizer tokenizer = new Tokenizer(expression);
         TagExpression result = parseOrExpression(tokenizer);
 
@@ -171,14 +191,21 @@ public class TagExpressionParser {
     static class TagMatch implements TagExpression {
         private final String pattern;
         private final Pattern regex;
+        // Literal part before the first wildcard, used to narrow the tag dictionary
+        private final String literalPrefix;
+        private final boolean prefixOnly;
 
         TagMatch(String pattern) {
             this.pattern = pattern;
             if (pattern.contains("*")) {
                 String regexPattern = pattern.replace("*", ".*");
                 this.regex = Pattern.compile("^" + regexPattern + "$");
+                this.literalPrefix = pattern.substring(0, pattern.indexOf('*'));
+                this.prefixOnly = pattern.indexOf('*') == pattern.length() - 1;
             } else {
                 this.regex = null;
+                this.literalPrefix = pattern;
+                this.prefixOnly = false;
             }
         }
 
@@ -191,6 +218,14 @@ public class TagExpressionParser {
             }
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            if (regex == null) {
+                return bitmaps.tag(pattern);
+            }
+            return prefixOnly ? bitmaps.withPrefix(literalPrefix) : bitmaps.matching(literalPrefix, regex);
+        }
+
         @Override
         public String toString() {
             return pattern;
@@ -232,6 +267,15 @@ public class TagExpressionParser {
             return left.evaluate(tags) && right.evaluate(tags);
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            BitSet result = left.evaluate(bitmaps);
+            if (!result.isEmpty()) {
+                result.and(right.evaluate(bitmaps));
+            }
+            return result;
+        }
+
         @Override
         public String toString() {
             return "(" + left + " AND " + right + ")";
@@ -288,6 +332,13 @@ public class TagExpressionParser {
             return left.evaluate(tags) || right.evaluate(tags);
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            BitSet result = left.evaluate(bitmaps);
+            result.or(right.evaluate(bitmaps));
+            return result;
+        }
+
         @Override
         public String toString() {
             return "(" + left + " OR " + right + ")";
@@ -342,6 +393,11 @@ public class TagExpressionParser {
             return !inner.evaluate(tags);
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            return bitmaps.complement(inner.evaluate(bitmaps));
+        }
+
         @Override
         public String toString() {
             return "(NOT " + inner + ")";
@@ -393,6 +449,11 @@ public class TagExpressionParser {
             return true;
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            return bitmaps.all();
+        }
+
         @Override
         public String toString() {
             return "TRUE";
@@ -427,6 +488,11 @@ public class TagExpressionParser {
             return false;
         }
 
+        @Override
+        public BitSet evaluate(TagBitmaps bitmaps) {
+            return bitmaps.none();
+        }
+
         @Override
         public String toString() {
             return "FALSE";
@@ -1,31 +1,79 @@
 package com.coffeesprout.scheduler.task;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 
 import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.BulkConfig;
+import com.coffeesprout.config.JobExecutionConfig;
+import com.coffeesprout.scheduler.entity.JobExecution;
 import com.coffeesprout.scheduler.entity.JobVMExecution;
 import com.coffeesprout.scheduler.entity.JobVMSelector;
+import com.coffeesprout.scheduler.service.JobShardService;
+import com.coffeesprout.scheduler.tag.TagBitmaps;
 import com.coffeesprout.scheduler.tag.TagExpression;
 import com.coffeesprout.scheduler.tag.TagExpressionParser;
+import com.coffeesprout.service.VMService;
 import com.coffeesprout.service.VMTagLookupService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Base class for tasks that operate on VMs
+ * Base class for tasks that operate on VMs.
+ *
+ * The selected VMs are processed concurrently on virtual threads. Job parameters limit how many run at once:
+ * - maxParallel: across the whole job (default: moxxie.bulk.max-concurrency)
+ * - maxParallelPerNode: on one node (default: moxxie.bulk.per-node-concurrency)
+ * - maxParallelPerStorage: on one storage of the VM disks (default: unlimited; reads each VM's config when set)
+ * Every VM of a run with an execution gets a JobVMExecution record. Records are written as VMs finish, in
+ * batches of short transactions (moxxie.scheduler.execution), so progress shows while the run is going and
+ * no connection is held while VMs are processed.
+ * Runs with more VMs than moxxie.scheduler.shards.shard-size are split into shards that any scheduler
+ * instance can claim; the limits above then apply per instance.
  */
 public abstract class AbstractVMTask implements ScheduledTask {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractVMTask.class);
 
+    public static final String PARAM_MAX_PARALLEL = "maxParallel";
+    public static final String PARAM_MAX_PARALLEL_PER_NODE = "maxParallelPerNode";
+    public static final String PARAM_MAX_PARALLEL_PER_STORAGE = "maxParallelPerStorage";
+
     @Inject
     protected VMTagLookupService vmTagLookupService;
 
+    @Inject
+    protected VMService vmService;
+
+    @Inject
+    protected BulkConfig bulkConfig;
+
+    @Inject
+    protected JobExecutionConfig executionConfig;
+
+    @Inject
+    protected JobShardService shardService;
+
+    @Inject
+    @VirtualThreads
+    protected ExecutorService executorService;
+
     @Override
     public TaskResult execute(TaskContext context) {
         LOG.info("Starting {} task execution for job {}", getTaskType(), context.getJob().name);
@@ -44,62 +92,131 @@ public abstract class AbstractVMTask implements ScheduledTask {
                     .withDetail("message", "No VMs matched selection criteria");
             }
 
-            // Process each VM
-            int processed = 0;
-            int succeeded = 0;
-            int failed = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (VMResponse vm : vmsToProcess) {
-                processed++;
+            // Large runs are split into shards that any scheduler instance can claim
+            if (context.getExecution() != null && shardService.shouldShard(vmsToProcess.size())) {
+                return shardService.runSharded(context, this, vmsToProcess);
+            }
 
-                try {
-                    LOG.debug("Processing VM {} ({})", vm.vmid(), vm.name());
+            return processVMs(context, vmsToProcess, () -> true);
 
-                    // Create VM execution record
-                    JobVMExecution vmExecution = createVMExecution(context, vm);
+        } catch (Exception e) {
+            LOG.error("Task execution failed: {}", e.getMessage(), e);
+            return TaskResult.failure("Task execution failed: " + e.getMessage());
+        }
+    }
 
-                    // Execute task for this VM
-                    Map<String, Object> result = processVM(context, vm);
+    /**
+     * Process one shard of a run: the given VMs, in this order, that still exist.
+     * Once leaseHeld turns false another instance may own the shard: no further VMs are started
+     * and no further records are written, the new owner runs them.
+     */
+    public TaskResult processShard(TaskContext context, List<Integer> vmIds, BooleanSupplier leaseHeld) {
+        Map<Integer, VMResponse> byId = new HashMap<>();
+        for (VMResponse vm : vmTagLookupService.listVMs(null)) {
+            byId.put(vm.vmid(), vm);
+        }
+        List<VMResponse> vms = new ArrayList<>(vmIds.size());
+        for (Integer vmId : vmIds) {
+            VMResponse vm = byId.get(vmId);
+            if (vm != null) {
+                vms.add(vm);
+            } else {
+                LOG.warn("VM {} no longer exists, skipping it", vmId);
+            }
+        }
+        return processVMs(context, vms, leaseHeld);
+    }
 
-                    // Update execution record
-                    updateVMExecution(vmExecution, JobVMExecution.Status.SUCCESS, result);
-                    succeeded++;
+    /**
+     * Process the VMs concurrently within the job's limits, recording each one as it finishes.
+     * Stops starting and recording VMs once leaseHeld turns false. When interrupted, the VMs not yet
+     * finished are cancelled and recorded as skipped, and the run fails.
+     */
+    private TaskResult processVMs(TaskContext context, List<VMResponse> vms, BooleanSupplier leaseHeld) {
+        VMConcurrency limits = VMConcurrency.of(context, bulkConfig);
+        CompletionService<VMOutcome> outcomes = new ExecutorCompletionService<>(executorService);
+        // VMs submitted and not finished yet
+        Map<Future<VMOutcome>, VMResponse> pending = new HashMap<>();
+        for (VMResponse vm : vms) {
+            pending.put(outcomes.submit(() -> runVM(context, vm, limits, leaseHeld)), vm);
+        }
 
-                    LOG.debug("Successfully processed VM {} ({})", vm.vmid(), vm.name());
+        int processed = 0;
+        int succeeded = 0;
+        int failed = 0;
+        List<String> errors = new ArrayList<>();
 
-                } catch (Exception e) {
-                    LOG.error("Failed to process VM {} ({}): {}", vm.vmid(), vm.name(), e.getMessage(), e);
+        Long executionId = context.getExecution() != null ? context.getExecution().id : null;
+        if (executionId == null) {
+            LOG.debug("No execution for this run of {}, not recording VM executions", getTaskType());
+        }
+        Duration flushInterval = Duration.ofMillis(executionConfig.flushIntervalMs());
+        JobVMExecutionBuffer records = new JobVMExecutionBuffer(executionConfig.flushSize(), flushInterval, batch -> {
+            if (executionId == null) {
+                return;
+            }
+            if (leaseHeld.getAsBoolean()) {
+                writeVMExecutions(executionId, batch);
+            } else {
+                // The new owner of the shard did not see these records and runs the VMs again
+                LOG.warn("Lost the lease on the shard, not recording {} VMs of execution {}",
+                    batch.size(), executionId);
+            }
+        });
+        List<VMResponse> unprocessed = List.of();
+        try {
+            while (!pending.isEmpty()) {
+                // Wake up at the flush interval so finished VMs are written while slow ones are still running
+                Future<VMOutcome> done = outcomes.poll(Math.max(1, flushInterval.toMillis()), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    records.flushIfDue();
+                    continue;
+                }
+                pending.remove(done);
+                VMOutcome outcome = outcome(done);
+                if (outcome == null) {
+                    continue;
+                }
+                processed++;
+                if (outcome.error() == null) {
+                    succeeded++;
+                } else {
                     failed++;
-                    errors.add(String.format("VM %d (%s): %s", vm.vmid(), vm.name(), e.getMessage()));
-
-                    // Update VM execution record if it exists
-                    try {
-                        JobVMExecution vmExecution = JobVMExecution.find("execution.id = ?1 and vmId = ?2",
-                            context.getExecution().id, vm.vmid()).firstResult();
-                        if (vmExecution != null) {
-                            updateVMExecution(vmExecution, JobVMExecution.Status.FAILED,
-                                Map.of("error", e.getMessage()));
-                        }
-                    } catch (Exception ex) {
-                        LOG.error("Failed to update VM execution record: {}", ex.getMessage());
-                    }
+                    errors.add(String.format("VM %d (%s): %s", outcome.vm().vmid(), outcome.vm().name(),
+                        outcome.error().getMessage()));
                 }
+                records.add(toVMExecution(outcome));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unprocessed = new ArrayList<>(pending.values());
+            LOG.warn("Interrupted while waiting for VMs of {}, cancelling {} unfinished VMs", getTaskType(),
+                unprocessed.size());
+            pending.keySet().forEach(future -> future.cancel(true));
+            for (VMResponse vm : unprocessed) {
+                records.add(skippedVMExecution(vm));
+            }
+        } finally {
+            records.flush();
+        }
 
-            // Build result
-            TaskResult result = failed == 0 ? TaskResult.success() :
+        // Build result
+        TaskResult result;
+        if (!unprocessed.isEmpty()) {
+            result = TaskResult.failure("Task interrupted with " + unprocessed.size() + " of " + vms.size()
+                + " VMs unprocessed");
+        } else {
+            result = failed == 0 ? TaskResult.success() :
                 TaskResult.failure("Task completed with " + failed + " failures");
+        }
 
-            result.withCounts(processed, succeeded, failed)
-                  .withDetail("errors", errors);
-
-            return result;
-
-        } catch (Exception e) {
-            LOG.error("Task execution failed: {}", e.getMessage(), e);
-            return TaskResult.failure("Task execution failed: " + e.getMessage());
+        result.withCounts(processed, succeeded, failed)
+              .withDetail("errors", errors);
+        if (!unprocessed.isEmpty()) {
+            result.withDetail("unprocessed", unprocessed.size());
         }
+
+        return result;
     }
 
     /**
@@ -114,6 +231,8 @@ public abstract class AbstractVMTask implements ScheduledTask {
         }
 
         Set<Integer> selectedVMIds = new HashSet<>();
+        // Fetched lazily and shared by all tag expressions of this job
+        TagBitmaps bitmaps = null;
 
         for (JobVMSelector selector : context.getJob().vmSelectors) {
             Set<Integer> selectorVMIds = new HashSet<>();
@@ -141,14 +260,20 @@ public abstract class AbstractVMTask implements ScheduledTask {
 
                 case TAG_EXPRESSION:
                     // Parse and evaluate tag expression
-                    Set<Integer> taggedVMs = evaluateTagExpression(selector.selectorValue);
+                    if (bitmaps == null) {
+                        bitmaps = vmTagLookupService.getTagBitmaps(null);
+                    }
+                    Set<Integer> taggedVMs = evaluateTagExpression(selector.selectorValue, bitmaps);
                     selectorVMIds.addAll(taggedVMs);
                     break;
             }
 
             // Apply exclusion if specified
             if (selector.excludeExpression != null && !selector.excludeExpression.isBlank()) {
-                Set<Integer> excludedVMs = evaluateTagExpression(selector.excludeExpression);
+                if (bitmaps == null) {
+                    bitmaps = vmTagLookupService.getTagBitmaps(null);
+                }
+                Set<Integer> excludedVMs = evaluateTagExpression(selector.excludeExpression, bitmaps);
                 selectorVMIds.removeAll(excludedVMs);
             }
 
@@ -168,28 +293,25 @@ public abstract class AbstractVMTask implements ScheduledTask {
         if (expression == null || expression.isBlank()) {
             return new HashSet<>();
         }
+        return evaluateTagExpression(expression, vmTagLookupService.getTagBitmaps(null));
+    }
+
+    /**
+     * Evaluate a tag expression against prebuilt per-tag bitmaps and return matching VM IDs
+     */
+    protected Set<Integer> evaluateTagExpression(String expression, TagBitmaps bitmaps) {
+        if (expression == null || expression.isBlank()) {
+            return new HashSet<>();
+        }
 
         try {
             // Parse the tag expression
             TagExpression tagExpr = TagExpressionParser.parse(expression);
             LOG.debug("Evaluating tag expression: {}", expression);
 
-            // Get all VMs and evaluate expression against their tags
-            List<VMResponse> allVMs = vmTagLookupService.listVMs(null);
-            Set<Integer> matchingVMs = new HashSet<>();
-
-            for (VMResponse vm : allVMs) {
-                // Get tags for this VM
-                Set<String> vmTags = vmTagLookupService.getVMTags(vm.vmid(), null);
+            Set<Integer> matchingVMs = bitmaps.select(tagExpr);
 
-                // Evaluate expression
-                if (tagExpr.evaluate(vmTags)) {
-                    matchingVMs.add(vm.vmid());
-                    LOG.trace("VM {} ({}) matches expression", vm.vmid(), vm.name());
-                }
-            }
-
-            LOG.debug("Tag expression '{}' matched {} VMs", expression, matchingVMs.size());
+            LOG.debug("Tag expression '{}' matched {} of {} VMs", expression, matchingVMs.size(), bitmaps.size());
             return matchingVMs;
 
         } catch (Exception e) {
@@ -207,33 +329,181 @@ public abstract class AbstractVMTask implements ScheduledTask {
     }
 
     /**
-     * Create VM execution record
+     * Run one VM once the job, its node and, if limited, its storages have a free slot.
+     * Never throws; the outcome carries the error of a failed VM. Null if the VM was not started
+     * because leaseHeld turned false while it waited.
+     */
+    private VMOutcome runVM(TaskContext context, VMResponse vm, VMConcurrency limits, BooleanSupplier leaseHeld) {
+        List<Semaphore> held = new ArrayList<>(4);
+        Instant startedAt = Instant.now();
+        try {
+            // Most specific limits first, all VMs in the same order, so waiting VMs cannot deadlock
+            if (vm.node() != null) {
+                acquire(limits.node(vm.node()), held);
+            }
+            if (limits.limitsStorage()) {
+                for (String storage : new TreeSet<>(storages(context, vm))) {
+                    acquire(limits.storage(storage), held);
+                }
+            }
+            acquire(limits.job(), held);
+            if (!leaseHeld.getAsBoolean()) {
+                LOG.debug("Not starting VM {} ({}), the shard's lease was lost", vm.vmid(), vm.name());
+                return null;
+            }
+
+            startedAt = Instant.now();
+            LOG.debug("Processing VM {} ({})", vm.vmid(), vm.name());
+            Map<String, Object> result = processVM(context, vm);
+            LOG.debug("Successfully processed VM {} ({})", vm.vmid(), vm.name());
+            return new VMOutcome(vm, startedAt, Instant.now(), result, null);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new VMOutcome(vm, startedAt, Instant.now(), null, e);
+        } catch (Exception e) {
+            LOG.error("Failed to process VM {} ({}): {}", vm.vmid(), vm.name(), e.getMessage(), e);
+            return new VMOutcome(vm, startedAt, Instant.now(), null, e);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).release();
+            }
+        }
+    }
+
+    private VMOutcome outcome(Future<VMOutcome> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            // runVM reports failures in its outcome, so this is a bug rather than a failed VM
+            LOG.error("Unexpected failure while processing a VM of {}: {}", getTaskType(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, List<Semaphore> held) throws InterruptedException {
+        semaphore.acquire();
+        held.add(semaphore);
+    }
+
+    /**
+     * Storages a VM's disks are on, for tasks that limit concurrency per storage
      */
-    @Transactional
-    protected JobVMExecution createVMExecution(TaskContext context, VMResponse vm) {
+    protected Set<String> storages(TaskContext context, VMResponse vm) {
+        Set<String> storages = new HashSet<>();
+        for (Map.Entry<String, Object> entry : vmService.getVMConfig(vm.node(), vm.vmid(), null).entrySet()) {
+            if (entry.getKey().matches("(scsi|ide|sata|virtio|efidisk|tpmstate)\\d+")) {
+                String disk = String.valueOf(entry.getValue());
+                int colon = disk.indexOf(':');
+                if (colon > 0 && !disk.contains("media=cdrom")) {
+                    storages.add(disk.substring(0, colon));
+                }
+            }
+        }
+        return storages;
+    }
+
+    private static JobVMExecution toVMExecution(VMOutcome outcome) {
+        JobVMExecution vmExecution = new JobVMExecution();
+        vmExecution.vmId = outcome.vm().vmid();
+        vmExecution.vmName = outcome.vm().name();
+        vmExecution.nodeName = outcome.vm().node();
+        vmExecution.startedAt = outcome.startedAt();
+        if (outcome.error() == null) {
+            vmExecution.complete(JobVMExecution.Status.SUCCESS, outcome.result());
+        } else {
+            vmExecution.complete(JobVMExecution.Status.FAILED,
+                Map.of("error", String.valueOf(outcome.error().getMessage())));
+            vmExecution.errorMessage = outcome.error().getMessage();
+        }
+        vmExecution.completedAt = outcome.completedAt();
+        return vmExecution;
+    }
+
+    private static JobVMExecution skippedVMExecution(VMResponse vm) {
         JobVMExecution vmExecution = new JobVMExecution();
-        vmExecution.execution = context.getExecution();
         vmExecution.vmId = vm.vmid();
         vmExecution.vmName = vm.name();
         vmExecution.nodeName = vm.node();
-        vmExecution.status = JobVMExecution.Status.SUCCESS.getValue(); // Will be updated
         vmExecution.startedAt = Instant.now();
-        vmExecution.persist();
+        vmExecution.complete(JobVMExecution.Status.SKIPPED, Map.of("reason", "Run interrupted before the VM finished"));
         return vmExecution;
     }
 
     /**
-     * Update VM execution record
+     * Write a batch of VM execution records in a short transaction of its own
      */
-    @Transactional
-    protected void updateVMExecution(JobVMExecution vmExecution, JobVMExecution.Status status,
-                                   Map<String, Object> resultData) {
-        vmExecution.complete(status, resultData);
-        vmExecution.persist();
+    protected void writeVMExecutions(Long executionId, List<JobVMExecution> vmExecutions) {
+        if (executionId == null) {
+            LOG.debug("Not recording {} VM executions without an execution", vmExecutions.size());
+            return;
+        }
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                JobExecution execution = JobExecution.getEntityManager().getReference(JobExecution.class, executionId);
+                for (JobVMExecution vmExecution : vmExecutions) {
+                    vmExecution.execution = execution;
+                }
+                JobVMExecution.persist(vmExecutions);
+            });
+        } catch (Exception e) {
+            LOG.error("Failed to record {} VM executions of execution {}: {}", vmExecutions.size(), executionId,
+                e.getMessage());
+        }
     }
 
     /**
      * Process a single VM - to be implemented by subclasses
      */
     protected abstract Map<String, Object> processVM(TaskContext context, VMResponse vm) throws Exception;
+
+    /**
+     * Result of processing one VM
+     *
+     * @param result What processVM returned, or null if it failed
+     * @param error Why the VM failed, or null if it succeeded
+     */
+    protected record VMOutcome(VMResponse vm, Instant startedAt, Instant completedAt,
+                               Map<String, Object> result, Exception error) {}
+
+    /**
+     * Concurrency limits of one job run: for the whole job, per node and optionally per storage
+     */
+    static final class VMConcurrency {
+
+        private final Semaphore job;
+        private final int perNode;
+        private final int perStorage;
+        private final ConcurrentMap<String, Semaphore> nodes = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Semaphore> storages = new ConcurrentHashMap<>();
+
+        VMConcurrency(int maxParallel, int perNode, int perStorage) {
+            this.job = new Semaphore(Math.max(1, maxParallel), true);
+            this.perNode = Math.max(1, perNode);
+            this.perStorage = perStorage;
+        }
+
+        static VMConcurrency of(TaskContext context, BulkConfig defaults) {
+            return new VMConcurrency(
+                context.getIntParameter(PARAM_MAX_PARALLEL, defaults.maxConcurrency()),
+                context.getIntParameter(PARAM_MAX_PARALLEL_PER_NODE, defaults.perNodeConcurrency()),
+                context.getIntParameter(PARAM_MAX_PARALLEL_PER_STORAGE, 0));
+        }
+
+        Semaphore job() {
+            return job;
+        }
+
+        Semaphore node(String node) {
+            return nodes.computeIfAbsent(node, name -> new Semaphore(perNode, true));
+        }
+
+        boolean limitsStorage() {
+            return perStorage > 0;
+        }
+
+        Semaphore storage(String storage) {
+            return storages.computeIfAbsent(storage, name -> new Semaphore(perStorage, true));
+        }
+    }
 }
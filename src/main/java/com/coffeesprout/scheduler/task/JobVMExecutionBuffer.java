@@ -0,0 +1,62 @@
+package com.coffeesprout.scheduler.task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.coffeesprout.scheduler.entity.JobVMExecution;
+
+/**
+ * Per-VM execution records of one job run, written in batches.
+ *
+ * Records are handed to the writer once flush-size of them are buffered or flush-interval has passed
+ * since the last write, and at the end of the run, so a large job writes a few batches instead of a
+ * statement per VM.
+ */
+final class JobVMExecutionBuffer {
+
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final Consumer<List<JobVMExecution>> writer;
+    private List<JobVMExecution> pending = new ArrayList<>();
+    private Instant lastFlush = Instant.now();
+
+    JobVMExecutionBuffer(int flushSize, Duration flushInterval, Consumer<List<JobVMExecution>> writer) {
+        this.flushSize = Math.max(1, flushSize);
+        this.flushInterval = flushInterval;
+        this.writer = writer;
+    }
+
+    void add(JobVMExecution record) {
+        pending.add(record);
+        if (pending.size() >= flushSize) {
+            flush();
+        } else {
+            flushIfDue();
+        }
+    }
+
+    /**
+     * Write the buffered records if flush-interval has passed since the last write
+     */
+    void flushIfDue() {
+        if (lastFlush.plus(flushInterval).isBefore(Instant.now())) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the buffered records; they are dropped even if the writer fails, so one bad batch is not retried forever
+     */
+    void flush() {
+        lastFlush = Instant.now();
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<JobVMExecution> batch = pending;
+        pending = new ArrayList<>();
+        writer.accept(batch);
+    }
+}
@@ -0,0 +1,81 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of audit entries with a lock-free write path.
+ *
+ * Writers claim a sequence number and store the entry in its slot; nothing blocks them. A single
+ * drainer reads the slots in sequence order. If writers get a full ring ahead of the drainer, the
+ * oldest unread entries are overwritten and counted as dropped.
+ */
+final class AuditRingBuffer {
+
+    private record Slot(long sequence, AuditService.AuditEntry entry) {}
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Next sequence to drain; only advanced by drain
+    private volatile long drained;
+
+    AuditRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void add(AuditService.AuditEntry entry) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot(sequence, entry));
+    }
+
+    /**
+     * Number of entries added but not drained yet
+     */
+    long pending() {
+        return next.get() - drained;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Take up to max entries in the order they were added. Stops early at an entry whose writer has
+     * claimed its slot but not stored it yet.
+     */
+    synchronized List<AuditService.AuditEntry> drain(int max) {
+        long end = next.get();
+        long position = drained;
+        if (end - position > slots.length()) {
+            // Everything before the last ring's worth has been overwritten
+            dropped.addAndGet(end - slots.length() - position);
+            position = end - slots.length();
+        }
+
+        List<AuditService.AuditEntry> entries = new ArrayList<>((int) Math.min(max, end - position));
+        while (position < end && entries.size() < max) {
+            Slot slot = slots.get((int) (position & mask));
+            if (slot == null || slot.sequence() < position) {
+                break;
+            }
+            if (slot.sequence() > position) {
+                // Overwritten by a writer a full ring ahead
+                dropped.incrementAndGet();
+            } else {
+                entries.add(slot.entry());
+            }
+            position++;
+        }
+        drained = position;
+        return entries;
+    }
+}
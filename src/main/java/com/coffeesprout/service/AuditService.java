@@ -1,31 +1,63 @@
 package com.coffeesprout.service;
 
 import java.time.Instant;
-import java.util.ArrayList;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import jakarta.interceptor.InvocationContext;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.SecurityContext;
 
-import com.coffeesprout.util.UnitConverter;
+import com.coffeesprout.config.AuditConfig;
+import com.coffeesprout.model.AuditRecord;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.jboss.logging.Logger;
 
+/**
+ * Safety audit log.
+ *
+ * Decisions go into a lock-free ring buffer on the request path. The buffer is written to the audit_log
+ * table in batches, every flush-interval or as soon as flush-size entries are waiting, and before every
+ * query, so queries see all entries recorded so far. A batch whose write fails is kept and written first on
+ * the next flush.
+ */
 @ApplicationScoped
 public class AuditService {
 
     private static final Logger LOG = Logger.getLogger(AuditService.class);
 
+    private static final String DECISION_ALLOWED = "ALLOWED";
+    private static final String DECISION_BLOCKED = "BLOCKED";
+
     @Inject
     SafetyConfig safetyConfig;
 
-    // In-memory storage for audit entries (in production, use a database)
-    private final List<AuditEntry> auditEntries = new ArrayList<>();
+    @Inject
+    AuditConfig config;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    private AuditRingBuffer buffer;
+    // Drained batch whose write failed; written before any newer entries
+    private List<AuditEntry> failedBatch = List.of();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final AtomicReference<Instant> lastBlocked = new AtomicReference<>();
     private final Map<String, AtomicLong> statistics = new ConcurrentHashMap<>();
 
     @Context
@@ -37,6 +69,15 @@ public class AuditService {
         statistics.put("overriddenOperations", new AtomicLong(0));
     }
 
+    @PostConstruct
+    void init() {
+        buffer = new AuditRingBuffer(config.bufferSize());
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
     public void logAllowed(InvocationContext context, SafetyDecision decision) {
         if (!safetyConfig.auditLog()) {
             return;
@@ -45,25 +86,15 @@ public class AuditService {
         statistics.get("totalOperations").incrementAndGet();
 
         String operation = buildOperationString(context);
-        String user = getCurrentUser();
-
-        AuditEntry entry = new AuditEntry(
+        record(new AuditEntry(
             Instant.now(),
             operation,
-            "ALLOWED",
+            DECISION_ALLOWED,
             decision.getReason(),
             extractVmId(context),
-            user,
+            getCurrentUser(),
             getClientIp()
-        );
-
-        synchronized (auditEntries) {
-            auditEntries.add(entry);
-            // Keep only last UnitConverter.Time.MILLIS_PER_SECOND entries
-            if (auditEntries.size() > UnitConverter.Time.MILLIS_PER_SECOND) {
-                auditEntries.remove(0);
-            }
-        }
+        ));
 
         LOG.info("Safety allowed: " + operation + " - " + decision.getReason());
     }
@@ -73,25 +104,18 @@ public class AuditService {
         statistics.get("blockedOperations").incrementAndGet();
 
         String operation = buildOperationString(context);
-        String user = getCurrentUser();
-
         AuditEntry entry = new AuditEntry(
             Instant.now(),
             operation,
-            "BLOCKED",
+            DECISION_BLOCKED,
             decision.getReason(),
             extractVmId(context),
-            user,
+            getCurrentUser(),
             getClientIp()
         );
-
-        synchronized (auditEntries) {
-            auditEntries.add(entry);
-            // Keep only last UnitConverter.Time.MILLIS_PER_SECOND entries
-            if (auditEntries.size() > UnitConverter.Time.MILLIS_PER_SECOND) {
-                auditEntries.remove(0);
-            }
-        }
+        lastBlocked.accumulateAndGet(entry.timestamp(),
+            (previous, current) -> previous == null || current.isAfter(previous) ? current : previous);
+        record(entry);
 
         LOG.warn("Safety blocked: " + operation + " - " + decision.getReason());
     }
@@ -105,22 +129,89 @@ public class AuditService {
         LOG.warn("Safety warning: " + operation + " - " + message);
     }
 
+    /**
+     * Entries after the given time, oldest first, up to max-page-size
+     */
     public List<AuditEntry> getAuditEntries(Instant startTime) {
-        synchronized (auditEntries) {
-            return auditEntries.stream()
-                .filter(entry -> entry.timestamp().isAfter(startTime))
-                .toList();
+        flush();
+        return AuditRecord.<AuditRecord>find("recordedAt > ?1 ORDER BY recordedAt, id", startTime)
+            .page(0, config.maxPageSize())
+            .list()
+            .stream()
+            .map(AuditService::toEntry)
+            .toList();
+    }
+
+    /**
+     * One page of entries matching all given filters, newest first.
+     *
+     * @param from Earliest time, inclusive
+     * @param to Latest time, exclusive, or null
+     * @param cursor nextCursor of the previous page, or null for the first page
+     */
+    public AuditPage queryAuditEntries(Instant from, Instant to, String user, Integer vmId, String decision,
+                                       String cursor, int limit) {
+        flush();
+
+        StringBuilder query = new StringBuilder("recordedAt >= :from");
+        Parameters params = Parameters.with("from", from);
+        if (to != null) {
+            query.append(" AND recordedAt < :to");
+            params.and("to", to);
+        }
+        if (user != null) {
+            query.append(" AND username = :user");
+            params.and("user", user);
+        }
+        if (vmId != null) {
+            query.append(" AND vmId = :vmId");
+            params.and("vmId", vmId);
         }
+        if (decision != null) {
+            query.append(" AND decision = :decision");
+            params.and("decision", decision);
+        }
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                params.and("cursorTime", Instant.parse(cursor.substring(0, separator)));
+                params.and("cursorId", Long.parseLong(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            query.append(" AND (recordedAt < :cursorTime OR (recordedAt = :cursorTime AND id < :cursorId))");
+        }
+        query.append(" ORDER BY recordedAt DESC, id DESC");
+
+        int pageSize = Math.max(1, Math.min(limit, config.maxPageSize()));
+        // One extra row tells whether there is a next page
+        List<AuditRecord> records = AuditRecord.<AuditRecord>find(query.toString(), params)
+            .page(0, pageSize + 1)
+            .list();
+
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            AuditRecord last = records.get(pageSize - 1);
+            nextCursor = last.recordedAt + "_" + last.id;
+        }
+        return new AuditPage(records.stream().map(AuditService::toEntry).toList(), nextCursor);
     }
 
     public SafetyStatistics getStatistics() {
-        Instant lastBlocked = null;
-        synchronized (auditEntries) {
-            for (int i = auditEntries.size() - 1; i >= 0; i--) {
-                if ("BLOCKED".equals(auditEntries.get(i).decision())) {
-                    lastBlocked = auditEntries.get(i).timestamp();
-                    break;
-                }
+        Instant blocked = lastBlocked.get();
+        if (blocked == null) {
+            // Nothing blocked since startup; the log still knows earlier decisions
+            try {
+                blocked = AuditRecord.find("decision = ?1 ORDER BY recordedAt DESC", DECISION_BLOCKED)
+                    .<AuditRecord>firstResultOptional()
+                    .map(record -> record.recordedAt)
+                    .orElse(null);
+            } catch (Exception e) {
+                LOG.debug("Could not read last blocked operation: " + e.getMessage());
             }
         }
 
@@ -128,10 +219,82 @@ public class AuditService {
             statistics.get("totalOperations").get(),
             statistics.get("blockedOperations").get(),
             statistics.get("overriddenOperations").get(),
-            lastBlocked
+            blocked
         );
     }
 
+    /**
+     * Write all buffered entries
+     */
+    @Scheduled(every = "${moxxie.audit.flush-interval:2s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    synchronized void flush() {
+        long droppedBefore = buffer.dropped();
+        List<AuditEntry> entries;
+        while (!(entries = failedBatch.isEmpty() ? buffer.drain(config.maxPageSize()) : failedBatch).isEmpty()) {
+            try {
+                persist(entries.stream().map(AuditService::toRecord).toList());
+                failedBatch = List.of();
+            } catch (Exception e) {
+                failedBatch = entries;
+                LOG.error("Failed to write " + entries.size() + " audit entries, retrying on the next flush: "
+                    + e.getMessage());
+                break;
+            }
+        }
+        long dropped = buffer.dropped() - droppedBefore;
+        if (dropped > 0) {
+            LOG.warn("Dropped " + dropped + " audit entries that could not be written in time");
+        }
+    }
+
+    void persist(List<AuditRecord> records) {
+        QuarkusTransaction.requiringNew().run(() -> AuditRecord.persist(records));
+    }
+
+    @Scheduled(every = "${moxxie.audit.cleanup-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeExpiredEntries() {
+        Instant cutoff = Instant.now().minus(config.retentionDays(), ChronoUnit.DAYS);
+        try {
+            long deleted = QuarkusTransaction.requiringNew().call(() -> AuditRecord.delete("recordedAt < ?1", cutoff));
+            if (deleted > 0) {
+                LOG.info("Deleted " + deleted + " audit entries recorded before " + cutoff);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to delete old audit entries: " + e.getMessage());
+        }
+    }
+
+    private void record(AuditEntry entry) {
+        buffer.add(entry);
+        if (buffer.pending() >= config.flushSize() && flushQueued.compareAndSet(false, true)) {
+            executorService.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushQueued.set(false);
+                }
+            });
+        }
+    }
+
+    private static AuditRecord toRecord(AuditEntry entry) {
+        AuditRecord record = new AuditRecord();
+        record.recordedAt = entry.timestamp();
+        record.operation = entry.operation();
+        record.decision = entry.decision();
+        record.reason = entry.reason();
+        record.vmId = entry.vmId();
+        record.username = entry.user();
+        record.clientIp = entry.clientIp();
+        return record;
+    }
+
+    private static AuditEntry toEntry(AuditRecord record) {
+        return new AuditEntry(record.recordedAt, record.operation, record.decision, record.reason, record.vmId,
+                              record.username, record.clientIp);
+    }
+
     private String buildOperationString(InvocationContext context) {
         String methodName = context.getMethod().getName();
         String className = context.getTarget().getClass().getSimpleName();
@@ -185,6 +348,11 @@ public class AuditService {
         String clientIp
     ) {}
 
+    public record AuditPage(
+        List<AuditEntry> entries,
+        String nextCursor
+    ) {}
+
     public record SafetyStatistics(
         long totalOperations,
         long blockedOperations,
@@ -0,0 +1,289 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.coffeesprout.api.dto.BackupCoverage;
+import com.coffeesprout.api.dto.BackupHealth;
+import com.coffeesprout.api.dto.BackupResponse;
+import com.coffeesprout.api.dto.ClientStorageUsage;
+import com.coffeesprout.api.dto.StorageLocationUsage;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.api.dto.VMStorageUsage;
+import com.coffeesprout.util.UnitConverter;
+
+/**
+ * Backup usage and coverage figures of one catalog version joined with one inventory snapshot.
+ *
+ * Everything is computed in a single pass over the backups into per-VM and per-storage accumulators;
+ * client figures are rolled up from the VM accumulators. Health depends on thresholds and the current
+ * time, so it is evaluated on request from the latest backup per VM and the sorted creation times.
+ */
+final class BackupAggregate {
+
+    private static final String NO_CLIENT = "no-client";
+
+    private final long catalogVersion;
+    private final long inventoryVersion;
+    private final List<VMResponse> vms;
+    private final List<VMStorageUsage> vmUsage;
+    private final List<ClientStorageUsage> clientUsage;
+    private final List<StorageLocationUsage> storageUsage;
+    private final Map<Integer, Instant> latestByVm;
+    // Creation times of all backups in epoch milliseconds, ascending
+    private final long[] createdAt;
+
+    private BackupAggregate(long catalogVersion, long inventoryVersion, List<VMResponse> vms,
+                            List<VMStorageUsage> vmUsage, List<ClientStorageUsage> clientUsage,
+                            List<StorageLocationUsage> storageUsage, Map<Integer, Instant> latestByVm,
+                            long[] createdAt) {
+        this.catalogVersion = catalogVersion;
+        this.inventoryVersion = inventoryVersion;
+        this.vms = vms;
+        this.vmUsage = vmUsage;
+        this.clientUsage = clientUsage;
+        this.storageUsage = storageUsage;
+        this.latestByVm = latestByVm;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Aggregate the backups of a catalog version against the VMs of an inventory snapshot
+     */
+    static BackupAggregate compute(long catalogVersion, long inventoryVersion, List<BackupResponse> backups,
+                                   List<VMResponse> vms) {
+        Map<Integer, VmTotals> vmTotals = new HashMap<>();
+        Map<String, StorageTotals> storageTotals = new HashMap<>();
+        long[] created = new long[backups.size()];
+
+        int i = 0;
+        for (BackupResponse backup : backups) {
+            long size = backup.size() != null ? backup.size() : 0;
+            long time = backup.createdAt().toEpochMilli();
+            created[i++] = time;
+
+            if (backup.storage() != null) {
+                StorageTotals storage = storageTotals.computeIfAbsent(backup.storage(), key -> new StorageTotals());
+                storage.size += size;
+                storage.count++;
+            }
+            if (backup.vmId() != null) {
+                VmTotals vm = vmTotals.computeIfAbsent(backup.vmId(), key -> new VmTotals());
+                vm.size += size;
+                vm.count++;
+                vm.oldest = Math.min(vm.oldest, time);
+                vm.newest = Math.max(vm.newest, time);
+                if (backup.storage() != null) {
+                    vm.sizeByStorage.merge(backup.storage(), size, Long::sum);
+                }
+            }
+        }
+        // Catalog backups come newest first; sorting keeps the aggregate correct for any order
+        Arrays.sort(created);
+
+        Map<Integer, VMResponse> vmMap = new HashMap<>();
+        for (VMResponse vm : vms) {
+            vmMap.put(vm.vmid(), vm);
+        }
+
+        List<VMStorageUsage> vmUsage = new ArrayList<>(vmTotals.size());
+        Map<String, ClientTotals> clientTotals = new HashMap<>();
+        Map<Integer, Instant> latestByVm = new HashMap<>();
+        for (Map.Entry<Integer, VmTotals> entry : vmTotals.entrySet()) {
+            int vmId = entry.getKey();
+            VmTotals totals = entry.getValue();
+            VMResponse vm = vmMap.get(vmId);
+            List<String> tags = vm != null && vm.tags() != null ? vm.tags() : Collections.emptyList();
+            Instant newest = Instant.ofEpochMilli(totals.newest);
+
+            vmUsage.add(new VMStorageUsage(
+                vmId,
+                vm != null ? vm.name() : "Unknown VM " + vmId,
+                totals.size,
+                UnitConverter.formatBytes(totals.size),
+                totals.count,
+                Instant.ofEpochMilli(totals.oldest),
+                newest,
+                Map.copyOf(totals.sizeByStorage),
+                tags));
+            latestByVm.put(vmId, newest);
+
+            ClientTotals client = clientTotals.computeIfAbsent(clientTag(tags), key -> new ClientTotals());
+            client.size += totals.size;
+            client.vmCount++;
+            client.backupCount += totals.count;
+            client.sizeByVm.put(vmId, totals.size);
+            totals.sizeByStorage.forEach((storage, size) -> client.sizeByStorage.merge(storage, size, Long::sum));
+        }
+        vmUsage.sort(Comparator.comparingLong(VMStorageUsage::totalSize).reversed());
+
+        List<ClientStorageUsage> clientUsage = new ArrayList<>(clientTotals.size());
+        clientTotals.forEach((tag, totals) -> clientUsage.add(new ClientStorageUsage(
+            tag,
+            totals.size,
+            UnitConverter.formatBytes(totals.size),
+            totals.vmCount,
+            totals.backupCount,
+            Map.copyOf(totals.sizeByVm),
+            Map.copyOf(totals.sizeByStorage))));
+        clientUsage.sort(Comparator.comparingLong(ClientStorageUsage::totalSize).reversed());
+
+        // TODO: Get actual storage capacity from Proxmox storage API
+        List<StorageLocationUsage> storageUsage = new ArrayList<>(storageTotals.size());
+        storageTotals.forEach((storage, totals) -> storageUsage.add(new StorageLocationUsage(
+            storage,
+            totals.size,
+            UnitConverter.formatBytes(totals.size),
+            totals.count,
+            -1L,  // Available space unknown
+            "Unknown",
+            -1.0  // Usage percent unknown
+        )));
+        storageUsage.sort(Comparator.comparingLong(StorageLocationUsage::totalSize).reversed());
+
+        return new BackupAggregate(catalogVersion, inventoryVersion, List.copyOf(vms), List.copyOf(vmUsage),
+                                   List.copyOf(clientUsage), List.copyOf(storageUsage), Map.copyOf(latestByVm),
+                                   created);
+    }
+
+    /**
+     * Whether this aggregate was computed from the given catalog and inventory versions
+     */
+    boolean isFor(long catalogVersion, long inventoryVersion) {
+        return this.catalogVersion == catalogVersion && this.inventoryVersion == inventoryVersion;
+    }
+
+    /**
+     * Storage usage per VM, largest first
+     */
+    List<VMStorageUsage> vmUsage() {
+        return vmUsage;
+    }
+
+    /**
+     * Storage usage per client tag, largest first
+     */
+    List<ClientStorageUsage> clientUsage() {
+        return clientUsage;
+    }
+
+    /**
+     * Storage usage per storage location, largest first
+     */
+    List<StorageLocationUsage> storageUsage() {
+        return storageUsage;
+    }
+
+    /**
+     * Backup coverage of every VM and the age distribution of all backups at the given time
+     */
+    BackupHealth health(int coverageThresholdDays, int overdueThresholdDays, Instant now) {
+        Instant coverageThreshold = now.minus(coverageThresholdDays, ChronoUnit.DAYS);
+        Instant overdueThreshold = now.minus(overdueThresholdDays, ChronoUnit.DAYS);
+
+        List<BackupCoverage> coverage = new ArrayList<>(vms.size());
+        int vmsWithRecentBackup = 0;
+        int vmsWithoutBackup = 0;
+        int vmsOverdue = 0;
+
+        for (VMResponse vm : vms) {
+            List<String> tags = vm.tags() != null ? vm.tags() : Collections.emptyList();
+            Instant latestBackup = latestByVm.get(vm.vmid());
+
+            if (latestBackup == null) {
+                vmsWithoutBackup++;
+                coverage.add(new BackupCoverage(vm.vmid(), vm.name(), tags, null, "NO_BACKUP", true,
+                                                "No backups found"));
+                continue;
+            }
+
+            boolean isOverdue = latestBackup.isBefore(overdueThreshold);
+            if (latestBackup.isAfter(coverageThreshold)) {
+                vmsWithRecentBackup++;
+            }
+
+            String overdueReason = null;
+            if (isOverdue) {
+                vmsOverdue++;
+                long daysSinceBackup = ChronoUnit.DAYS.between(latestBackup, now);
+                overdueReason = String.format("Last backup %d days ago (threshold: %d days)",
+                                              daysSinceBackup, overdueThresholdDays);
+            }
+            coverage.add(new BackupCoverage(vm.vmid(), vm.name(), tags, latestBackup, "OK", isOverdue,
+                                            overdueReason));
+        }
+
+        return new BackupHealth(vms.size(), vmsWithRecentBackup, vmsWithoutBackup, vmsOverdue, coverage,
+                                backupsByAge(now));
+    }
+
+    /**
+     * Backups per age bucket; a backup is n days old after n full days have passed
+     */
+    private Map<String, Integer> backupsByAge(Instant now) {
+        int under1 = createdAfter(now.minus(Duration.ofDays(1)));
+        int upTo7 = createdAfter(now.minus(Duration.ofDays(8)));
+        int upTo30 = createdAfter(now.minus(Duration.ofDays(31)));
+        int upTo90 = createdAfter(now.minus(Duration.ofDays(91)));
+
+        Map<String, Integer> backupsByAge = new LinkedHashMap<>();
+        backupsByAge.put("< 1 day", under1);
+        backupsByAge.put("1-7 days", upTo7 - under1);
+        backupsByAge.put("7-30 days", upTo30 - upTo7);
+        backupsByAge.put("30-90 days", upTo90 - upTo30);
+        backupsByAge.put("> 90 days", createdAt.length - upTo90);
+        return backupsByAge;
+    }
+
+    private int createdAfter(Instant instant) {
+        long millis = instant.toEpochMilli();
+        int low = 0;
+        int high = createdAt.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (createdAt[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return createdAt.length - low;
+    }
+
+    private static String clientTag(List<String> tags) {
+        return tags.stream()
+            .filter(tag -> tag.startsWith("client-"))
+            .findFirst()
+            .orElse(NO_CLIENT);
+    }
+
+    private static final class VmTotals {
+        long size;
+        int count;
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        final Map<String, Long> sizeByStorage = new HashMap<>();
+    }
+
+    private static final class StorageTotals {
+        long size;
+        int count;
+    }
+
+    private static final class ClientTotals {
+        long size;
+        int vmCount;
+        int backupCount;
+        final Map<Integer, Long> sizeByVm = new HashMap<>();
+        final Map<String, Long> sizeByStorage = new HashMap<>();
+    }
+}
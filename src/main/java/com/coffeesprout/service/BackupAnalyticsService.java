@@ -10,7 +10,7 @@ import jakarta.inject.Inject;
 
 import com.coffeesprout.api.dto.*;
 import com.coffeesprout.api.exception.ProxmoxException;
-import com.coffeesprout.util.UnitConverter;
+import com.coffeesprout.model.BackupDailyStat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,13 +21,16 @@ public class BackupAnalyticsService {
     private static final Logger LOG = LoggerFactory.getLogger(BackupAnalyticsService.class);
 
     @Inject
-    BackupService backupService;
+    BackupCatalogService backupCatalogService;
 
     @Inject
-    VMService vmService;
+    BackupHistoryService backupHistoryService;
 
     @Inject
-    TagService tagService;
+    VMInventoryService vmInventoryService;
+
+    // Shared by the usage and health endpoints until the catalog or inventory changes
+    private volatile BackupAggregate aggregate;
 
     /**
      * Get storage usage per VM
@@ -36,73 +39,7 @@ public class BackupAnalyticsService {
         LOG.debug("Calculating storage usage per VM");
 
         try {
-            // Get all backups
-            List<BackupResponse> allBackups = backupService.listAllBackups(ticket);
-
-            // Get all VMs to get their names and tags
-            List<VMResponse> allVMs = vmService.listVMs(ticket);
-            Map<Integer, VMResponse> vmMap = allVMs.stream()
-                    .collect(Collectors.toMap(VMResponse::vmid, vm -> vm));
-
-            // Group backups by VM ID
-            Map<Integer, List<BackupResponse>> backupsByVm = allBackups.stream()
-                    .collect(Collectors.groupingBy(BackupResponse::vmId));
-
-            // Calculate usage for each VM
-            List<VMStorageUsage> usageList = new ArrayList<>();
-
-            for (Map.Entry<Integer, List<BackupResponse>> entry : backupsByVm.entrySet()) {
-                int vmId = entry.getKey();
-                List<BackupResponse> vmBackups = entry.getValue();
-
-                // Get VM info
-                VMResponse vm = vmMap.get(vmId);
-                String vmName = vm != null ? vm.name() : "Unknown VM " + vmId;
-                List<String> tags = vm != null && vm.tags() != null
-                        ? vm.tags()
-                        : Collections.emptyList();
-
-                // Calculate totals
-                long totalSize = vmBackups.stream()
-                        .mapToLong(BackupResponse::size)
-                        .sum();
-
-                // Group by storage
-                Map<String, Long> sizeByStorage = vmBackups.stream()
-                        .collect(Collectors.groupingBy(
-                                BackupResponse::storage,
-                                Collectors.summingLong(BackupResponse::size)
-                        ));
-
-                // Find oldest and newest
-                Optional<Instant> oldest = vmBackups.stream()
-                        .map(BackupResponse::createdAt)
-                        .min(Instant::compareTo);
-
-                Optional<Instant> newest = vmBackups.stream()
-                        .map(BackupResponse::createdAt)
-                        .max(Instant::compareTo);
-
-                VMStorageUsage usage = new VMStorageUsage(
-                        vmId,
-                        vmName,
-                        totalSize,
-                        UnitConverter.formatBytes(totalSize),
-                        vmBackups.size(),
-                        oldest.orElse(null),
-                        newest.orElse(null),
-                        sizeByStorage,
-                        tags
-                );
-
-                usageList.add(usage);
-            }
-
-            // Sort by total size descending
-            usageList.sort((a, b) -> Long.compare(b.totalSize(), a.totalSize()));
-
-            return usageList;
-
+            return aggregate(ticket).vmUsage();
         } catch (Exception e) {
             LOG.error("Failed to calculate VM storage usage: {}", e.getMessage());
             throw ProxmoxException.internalError("calculate VM storage usage", e);
@@ -116,71 +53,7 @@ public class BackupAnalyticsService {
         LOG.debug("Calculating storage usage per client");
 
         try {
-            // Get VM storage usage first
-            List<VMStorageUsage> vmUsages = getVMStorageUsage(ticket);
-
-            // Group by client tag
-            Map<String, List<VMStorageUsage>> usageByClient = new HashMap<>();
-
-            for (VMStorageUsage vmUsage : vmUsages) {
-                // Find client tag (tags starting with "client-")
-                String clientTag = vmUsage.tags().stream()
-                        .filter(tag -> tag.startsWith("client-"))
-                        .findFirst()
-                        .orElse("no-client");
-
-                usageByClient.computeIfAbsent(clientTag, k -> new ArrayList<>()).add(vmUsage);
-            }
-
-            // Calculate totals per client
-            List<ClientStorageUsage> clientUsages = new ArrayList<>();
-
-            for (Map.Entry<String, List<VMStorageUsage>> entry : usageByClient.entrySet()) {
-                String clientTag = entry.getKey();
-                List<VMStorageUsage> clientVMs = entry.getValue();
-
-                // Calculate totals
-                long totalSize = clientVMs.stream()
-                        .mapToLong(VMStorageUsage::totalSize)
-                        .sum();
-
-                int totalBackups = clientVMs.stream()
-                        .mapToInt(VMStorageUsage::backupCount)
-                        .sum();
-
-                // Size by VM
-                Map<Integer, Long> sizeByVm = clientVMs.stream()
-                        .collect(Collectors.toMap(
-                                VMStorageUsage::vmId,
-                                VMStorageUsage::totalSize
-                        ));
-
-                // Size by storage (aggregate across all VMs)
-                Map<String, Long> sizeByStorage = new HashMap<>();
-                for (VMStorageUsage vmUsage : clientVMs) {
-                    for (Map.Entry<String, Long> storageEntry : vmUsage.sizeByStorage().entrySet()) {
-                        sizeByStorage.merge(storageEntry.getKey(), storageEntry.getValue(), Long::sum);
-                    }
-                }
-
-                ClientStorageUsage usage = new ClientStorageUsage(
-                        clientTag,
-                        totalSize,
-                        UnitConverter.formatBytes(totalSize),
-                        clientVMs.size(),
-                        totalBackups,
-                        sizeByVm,
-                        sizeByStorage
-                );
-
-                clientUsages.add(usage);
-            }
-
-            // Sort by total size descending
-            clientUsages.sort((a, b) -> Long.compare(b.totalSize(), a.totalSize()));
-
-            return clientUsages;
-
+            return aggregate(ticket).clientUsage();
         } catch (Exception e) {
             LOG.error("Failed to calculate client storage usage: {}", e.getMessage());
             throw ProxmoxException.internalError("calculate client storage usage", e);
@@ -194,43 +67,7 @@ public class BackupAnalyticsService {
         LOG.debug("Calculating storage usage per location");
 
         try {
-            // Get all backups
-            List<BackupResponse> allBackups = backupService.listAllBackups(ticket);
-
-            // Group by storage
-            Map<String, List<BackupResponse>> backupsByStorage = allBackups.stream()
-                    .collect(Collectors.groupingBy(BackupResponse::storage));
-
-            List<StorageLocationUsage> storageUsages = new ArrayList<>();
-
-            for (Map.Entry<String, List<BackupResponse>> entry : backupsByStorage.entrySet()) {
-                String storage = entry.getKey();
-                List<BackupResponse> storageBackups = entry.getValue();
-
-                long totalSize = storageBackups.stream()
-                        .mapToLong(BackupResponse::size)
-                        .sum();
-
-                // TODO: Get actual storage capacity from Proxmox storage API
-                // For now, we'll just show usage without capacity
-                StorageLocationUsage usage = new StorageLocationUsage(
-                        storage,
-                        totalSize,
-                        UnitConverter.formatBytes(totalSize),
-                        storageBackups.size(),
-                        -1L,  // Available space unknown
-                        "Unknown",
-                        -1.0  // Usage percent unknown
-                );
-
-                storageUsages.add(usage);
-            }
-
-            // Sort by total size descending
-            storageUsages.sort((a, b) -> Long.compare(b.totalSize(), a.totalSize()));
-
-            return storageUsages;
-
+            return aggregate(ticket).storageUsage();
         } catch (Exception e) {
             LOG.error("Failed to calculate storage location usage: {}", e.getMessage());
             throw ProxmoxException.internalError("calculate storage location usage", e);
@@ -238,19 +75,36 @@ public class BackupAnalyticsService {
     }
 
     /**
-     * Get storage trends over time
-     * For now, this is a simplified implementation that shows current state
-     * In a production system, this would track historical data
+     * Get storage trends of the whole cluster over time
      */
     public StorageTrend getStorageTrends(String period, @AuthTicket String ticket) {
-        LOG.debug("Calculating storage trends for period: {}", period);
+        return getStorageTrends(period, BackupDailyStat.SCOPE_CLUSTER, BackupDailyStat.CLUSTER_KEY, ticket);
+    }
+
+    /**
+     * Get storage trends of the cluster, a storage, a client or a VM over time.
+     * Read from the recorded backup history; until history exists, the cluster trend is derived from
+     * the creation times of the backups currently present.
+     *
+     * @param scope One of the BackupDailyStat scopes
+     * @param scopeKey Storage ID, client tag or VM ID, or the cluster key
+     */
+    public StorageTrend getStorageTrends(String period, String scope, String scopeKey, @AuthTicket String ticket) {
+        LOG.debug("Calculating storage trends for period: {}, {} {}", period, scope, scopeKey);
 
         try {
-            // Get all backups
-            List<BackupResponse> allBackups = backupService.listAllBackups(ticket);
+            if (backupHistoryService.isEnabled()) {
+                Optional<StorageTrend> recorded = backupHistoryService.trend(period, scope, scopeKey);
+                if (recorded.isPresent()) {
+                    return recorded.get();
+                }
+            }
+            if (!BackupDailyStat.SCOPE_CLUSTER.equals(scope)) {
+                return new StorageTrend(period, List.of());
+            }
+
+            BackupCatalog catalog = backupCatalogService.getCatalog(ticket);
 
-            // For now, create synthetic trend data based on backup creation times
-            // In production, this would query historical data
             List<TrendPoint> dataPoints = new ArrayList<>();
 
             // Determine time window based on period
@@ -275,32 +129,27 @@ public class BackupAnalyticsService {
                     throw new IllegalArgumentException("Invalid period: " + period);
             }
 
+            // Everything created before the window counts towards the first point
+            List<BackupResponse> earlier = catalog.createdBetween(Instant.EPOCH, startTime);
+            long cumulativeSize = earlier.stream().mapToLong(BackupResponse::size).sum();
+            int cumulativeCount = earlier.size();
+
             // Group backups by time intervals
             Instant currentInterval = startTime;
             while (currentInterval.isBefore(now)) {
-                final Instant intervalStart = currentInterval;
                 final Instant intervalEnd = currentInterval.plus(intervalDays, ChronoUnit.DAYS);
 
-                // Find backups created in this interval
-                List<BackupResponse> intervalBackups = allBackups.stream()
-                        .filter(b -> !b.createdAt().isBefore(intervalStart) && b.createdAt().isBefore(intervalEnd))
-                        .collect(Collectors.toList());
-
-                // Calculate cumulative size up to this point
-                long cumulativeSize = allBackups.stream()
-                        .filter(b -> b.createdAt().isBefore(intervalEnd))
-                        .mapToLong(BackupResponse::size)
-                        .sum();
-
-                int cumulativeCount = (int) allBackups.stream()
-                        .filter(b -> b.createdAt().isBefore(intervalEnd))
-                        .count();
+                // Backups created in this interval, from the creation time index
+                List<BackupResponse> intervalBackups = catalog.createdBetween(currentInterval, intervalEnd);
 
                 long sizeAdded = intervalBackups.stream()
                         .mapToLong(BackupResponse::size)
                         .sum();
 
-                // TODO: Track deletions properly
+                cumulativeSize += sizeAdded;
+                cumulativeCount += intervalBackups.size();
+
+                // Deletions are only known from the recorded history
                 long sizeRemoved = 0L;
 
                 TrendPoint point = new TrendPoint(
@@ -323,6 +172,20 @@ public class BackupAnalyticsService {
         }
     }
 
+    /**
+     * Get backup storage growth per key of a scope over the last days, largest growth first
+     */
+    public List<BackupGrowth> getStorageGrowth(String scope, int days) {
+        LOG.debug("Calculating {} backup growth over {} days", scope, days);
+
+        try {
+            return backupHistoryService.growth(scope, days);
+        } catch (Exception e) {
+            LOG.error("Failed to calculate backup growth: {}", e.getMessage());
+            throw ProxmoxException.internalError("calculate backup growth", e);
+        }
+    }
+
     /**
      * Get overall backup health status
      */
@@ -331,114 +194,7 @@ public class BackupAnalyticsService {
                  coverageThresholdDays, overdueThresholdDays);
 
         try {
-            // Get all VMs
-            List<VMResponse> allVMs = vmService.listVMs(ticket);
-
-            // Get all backups
-            List<BackupResponse> allBackups = backupService.listAllBackups(ticket);
-
-            // Group backups by VM
-            Map<Integer, List<BackupResponse>> backupsByVm = allBackups.stream()
-                    .collect(Collectors.groupingBy(BackupResponse::vmId));
-
-            // Calculate coverage for each VM
-            List<BackupCoverage> coverage = new ArrayList<>();
-            int vmsWithRecentBackup = 0;
-            int vmsWithoutBackup = 0;
-            int vmsOverdue = 0;
-
-            Instant now = Instant.now();
-            Instant coverageThreshold = now.minus(coverageThresholdDays, ChronoUnit.DAYS);
-            Instant overdueThreshold = now.minus(overdueThresholdDays, ChronoUnit.DAYS);
-
-            for (VMResponse vm : allVMs) {
-                List<BackupResponse> vmBackups = backupsByVm.getOrDefault(vm.vmid(), Collections.emptyList());
-
-                if (vmBackups.isEmpty()) {
-                    vmsWithoutBackup++;
-                    coverage.add(new BackupCoverage(
-                            vm.vmid(),
-                            vm.name(),
-                            vm.tags() != null
-                                    ? vm.tags()
-                                    : Collections.emptyList(),
-                            null,
-                            "NO_BACKUP",
-                            true,
-                            "No backups found"
-                    ));
-                } else {
-                    // Find most recent backup
-                    BackupResponse latestBackup = vmBackups.stream()
-                            .max(Comparator.comparing(BackupResponse::createdAt))
-                            .orElse(null);
-
-                    if (latestBackup != null) {
-                        boolean hasRecentBackup = latestBackup.createdAt().isAfter(coverageThreshold);
-                        boolean isOverdue = latestBackup.createdAt().isBefore(overdueThreshold);
-
-                        if (hasRecentBackup) {
-                            vmsWithRecentBackup++;
-                        }
-                        if (isOverdue) {
-                            vmsOverdue++;
-                        }
-
-                        String overdueReason = null;
-                        if (isOverdue) {
-                            long daysSinceBackup = ChronoUnit.DAYS.between(latestBackup.createdAt(), now);
-                            overdueReason = String.format("Last backup %d days ago (threshold: %d days)",
-                                                        daysSinceBackup, overdueThresholdDays);
-                        }
-
-                        coverage.add(new BackupCoverage(
-                                vm.vmid(),
-                                vm.name(),
-                                vm.tags() != null
-                                    ? vm.tags()
-                                    : Collections.emptyList(),
-                                latestBackup.createdAt(),
-                                "OK",
-                                isOverdue,
-                                overdueReason
-                        ));
-                    }
-                }
-            }
-
-            // Calculate backup age distribution
-            Map<String, Integer> backupsByAge = new LinkedHashMap<>();
-            backupsByAge.put("< 1 day", 0);
-            backupsByAge.put("1-7 days", 0);
-            backupsByAge.put("7-30 days", 0);
-            backupsByAge.put("30-90 days", 0);
-            backupsByAge.put("> 90 days", 0);
-
-            for (BackupResponse backup : allBackups) {
-                long daysSinceBackup = ChronoUnit.DAYS.between(backup.createdAt(), now);
-
-                if (daysSinceBackup < 1) {
-                    backupsByAge.merge("< 1 day", 1, Integer::sum);
-                } else if (daysSinceBackup <= 7) {
-                    backupsByAge.merge("1-7 days", 1, Integer::sum);
-                } else if (daysSinceBackup <= 30) {
-                    backupsByAge.merge("7-30 days", 1, Integer::sum);
-                } else if (daysSinceBackup <= 90) {
-                    backupsByAge.merge("30-90 days", 1, Integer::sum);
-                } else {
-                    backupsByAge.merge("> 90 days", 1, Integer::sum);
-                }
-            }
-
-            return new BackupHealth(
-                    allVMs.size(),
-                    vmsWithRecentBackup,
-                    vmsWithoutBackup,
-                    vmsOverdue,
-                    coverage,
-                    backupsByAge
-            );
-
+            return aggregate(ticket).health(coverageThresholdDays, overdueThresholdDays, Instant.now());
         } catch (Exception e) {
             LOG.error("Failed to calculate backup health: {}", e.getMessage());
             throw ProxmoxException.internalError("calculate backup health", e);
@@ -458,4 +214,22 @@ public class BackupAnalyticsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Usage and coverage figures for the current catalog and inventory, computed once per version pair
+     */
+    private BackupAggregate aggregate(String ticket) {
+        BackupCatalog catalog = backupCatalogService.getCatalog(ticket);
+        VMInventorySnapshot inventory = vmInventoryService.getSnapshot(ticket);
+
+        BackupAggregate current = aggregate;
+        if (current != null && current.isFor(catalog.version(), inventory.version())) {
+            return current;
+        }
+        BackupAggregate computed = BackupAggregate.compute(catalog.version(), inventory.version(),
+                                                           catalog.backups(), inventory.qemuVMs());
+        aggregate = computed;
+        LOG.debug("Aggregated {} backups of catalog v{} against inventory v{}",
+                  catalog.size(), catalog.version(), inventory.version());
+        return computed;
+    }
 }
@@ -0,0 +1,272 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.BackupResponse;
+
+/**
+ * Immutable point-in-time view of every backup in the cluster.
+ *
+ * Backups are held per scanned storage segment: a shared storage is one segment, a node-local storage is
+ * one segment per node. On refresh, segments whose content did not change are carried over as-is, so
+ * an unchanged cluster yields the same catalog version and indexes are only rebuilt when something was
+ * added or removed. Lookups by VM, storage, volume ID and creation time are served from indexes.
+ */
+public final class BackupCatalog {
+
+    private static final Comparator<BackupResponse> NEWEST_FIRST =
+        Comparator.comparing(BackupResponse::createdAt).reversed();
+
+    private final long version;
+    private final Instant fetchedAt;
+    private final Map<String, List<BackupResponse>> segments;
+    private final List<BackupResponse> added;
+    private final List<BackupResponse> removed;
+
+    private final List<BackupResponse> backups;
+    private final List<BackupResponse> oldestFirst;
+    private final Map<Integer, List<BackupResponse>> byVm;
+    private final Map<String, List<BackupResponse>> byStorage;
+    private final Map<String, BackupResponse> byVolid;
+
+    private BackupCatalog(long version, Instant fetchedAt, Map<String, List<BackupResponse>> segments,
+                          List<BackupResponse> added, List<BackupResponse> removed) {
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+        this.segments = segments;
+        this.added = added;
+        this.removed = removed;
+
+        Map<String, BackupResponse> volids = new LinkedHashMap<>();
+        for (List<BackupResponse> segment : segments.values()) {
+            for (BackupResponse backup : segment) {
+                volids.putIfAbsent(backup.volid(), backup);
+            }
+        }
+        this.byVolid = Map.copyOf(volids);
+        this.backups = volids.values().stream().sorted(NEWEST_FIRST).toList();
+        this.oldestFirst = backups.reversed();
+
+        Map<Integer, List<BackupResponse>> vms = new HashMap<>();
+        Map<String, List<BackupResponse>> storages = new HashMap<>();
+        for (BackupResponse backup : backups) {
+            if (backup.vmId() != null) {
+                vms.computeIfAbsent(backup.vmId(), id -> new ArrayList<>()).add(backup);
+            }
+            if (backup.storage() != null) {
+                storages.computeIfAbsent(backup.storage(), id -> new ArrayList<>()).add(backup);
+            }
+        }
+        this.byVm = copyOf(vms);
+        this.byStorage = copyOf(storages);
+    }
+
+    // Same content as an existing catalog, re-confirmed at a later time
+    private BackupCatalog(BackupCatalog unchanged, Instant fetchedAt) {
+        this.version = unchanged.version;
+        this.fetchedAt = fetchedAt;
+        this.segments = unchanged.segments;
+        this.added = List.of();
+        this.removed = List.of();
+        this.backups = unchanged.backups;
+        this.oldestFirst = unchanged.oldestFirst;
+        this.byVm = unchanged.byVm;
+        this.byStorage = unchanged.byStorage;
+        this.byVolid = unchanged.byVolid;
+    }
+
+    /**
+     * Catalog with no backups, to apply the first scan to
+     */
+    static BackupCatalog empty() {
+        return new BackupCatalog(0, Instant.EPOCH, Map.of(), List.of(), List.of());
+    }
+
+    /**
+     * Apply a rescan to this catalog.
+     *
+     * @param nextVersion Version to use if anything changed
+     * @param scanned Backups per segment that was listed successfully
+     * @param failed Segments that could not be listed; their previous content is kept
+     * @return this catalog's content re-confirmed at fetchedAt when nothing changed, otherwise a new version
+     */
+    BackupCatalog update(long nextVersion, Instant fetchedAt, Map<String, List<BackupResponse>> scanned,
+                         Set<String> failed) {
+        Map<String, List<BackupResponse>> next = new HashMap<>();
+        boolean changed = false;
+
+        for (Map.Entry<String, List<BackupResponse>> entry : scanned.entrySet()) {
+            List<BackupResponse> previous = segments.get(entry.getKey());
+            if (previous != null && sameContent(previous, entry.getValue())) {
+                next.put(entry.getKey(), previous);
+            } else {
+                next.put(entry.getKey(), List.copyOf(entry.getValue()));
+                changed = true;
+            }
+        }
+        for (String key : failed) {
+            List<BackupResponse> previous = segments.get(key);
+            if (previous != null && !scanned.containsKey(key)) {
+                next.put(key, previous);
+            }
+        }
+        // Segments of storages that disappeared from the cluster
+        if (!next.keySet().equals(segments.keySet())) {
+            changed = true;
+        }
+
+        if (!changed) {
+            return new BackupCatalog(this, fetchedAt);
+        }
+
+        Set<String> nextVolids = new HashSet<>();
+        List<BackupResponse> addedBackups = new ArrayList<>();
+        for (List<BackupResponse> segment : next.values()) {
+            for (BackupResponse backup : segment) {
+                if (nextVolids.add(backup.volid()) && !byVolid.containsKey(backup.volid())) {
+                    addedBackups.add(backup);
+                }
+            }
+        }
+        addedBackups.sort(NEWEST_FIRST);
+        List<BackupResponse> removedBackups = backups.stream()
+            .filter(backup -> !nextVolids.contains(backup.volid()))
+            .toList();
+        return new BackupCatalog(nextVersion, fetchedAt, Map.copyOf(next), List.copyOf(addedBackups), removedBackups);
+    }
+
+    private static boolean sameContent(List<BackupResponse> previous, List<BackupResponse> current) {
+        if (previous.size() != current.size()) {
+            return false;
+        }
+        Set<BackupResponse> previousContent = new HashSet<>();
+        previous.forEach(backup -> previousContent.add(withoutNode(backup)));
+        return current.stream().allMatch(backup -> previousContent.contains(withoutNode(backup)));
+    }
+
+    // A shared storage is listed from whichever node answers first, so the node is not part of its content
+    private static BackupResponse withoutNode(BackupResponse backup) {
+        return new BackupResponse(backup.volid(), backup.filename(), backup.size(), backup.createdAt(),
+                                  backup.notes(), backup.isProtected(), backup.vmId(), null, backup.compression(),
+                                  backup.encrypted(), backup.verifyState(), backup.storage(), backup.sizeHuman());
+    }
+
+    private static <K> Map<K, List<BackupResponse>> copyOf(Map<K, List<BackupResponse>> grouped) {
+        Map<K, List<BackupResponse>> copied = new HashMap<>();
+        grouped.forEach((key, list) -> copied.put(key, List.copyOf(list)));
+        return Map.copyOf(copied);
+    }
+
+    /**
+     * Version of the catalog content; only bumped when a refresh found changes
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * When the content was last confirmed against Proxmox
+     */
+    public Instant fetchedAt() {
+        return fetchedAt;
+    }
+
+    public boolean isOlderThan(Duration maxAge) {
+        return fetchedAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    /**
+     * All backups, newest first
+     */
+    public List<BackupResponse> backups() {
+        return backups;
+    }
+
+    /**
+     * Backups of one VM, newest first
+     */
+    public List<BackupResponse> forVm(int vmId) {
+        return byVm.getOrDefault(vmId, List.of());
+    }
+
+    /**
+     * Backups grouped by VM ID, each newest first
+     */
+    public Map<Integer, List<BackupResponse>> byVm() {
+        return byVm;
+    }
+
+    /**
+     * Backups on one storage, newest first
+     */
+    public List<BackupResponse> forStorage(String storage) {
+        return byStorage.getOrDefault(storage, List.of());
+    }
+
+    /**
+     * Backups grouped by storage ID, each newest first
+     */
+    public Map<String, List<BackupResponse>> byStorage() {
+        return byStorage;
+    }
+
+    public Optional<BackupResponse> find(String volid) {
+        return Optional.ofNullable(byVolid.get(volid));
+    }
+
+    /**
+     * Backups created in [from, to), oldest first
+     */
+    public List<BackupResponse> createdBetween(Instant from, Instant to) {
+        int start = firstCreatedAtOrAfter(from);
+        int end = firstCreatedAtOrAfter(to);
+        return start < end ? oldestFirst.subList(start, end) : List.of();
+    }
+
+    /**
+     * Backups that appeared in this version compared to the previous one
+     */
+    public List<BackupResponse> added() {
+        return added;
+    }
+
+    /**
+     * Backups that disappeared in this version compared to the previous one
+     */
+    public List<BackupResponse> removed() {
+        return removed;
+    }
+
+    public int size() {
+        return backups.size();
+    }
+
+    Collection<String> segmentKeys() {
+        return segments.keySet();
+    }
+
+    private int firstCreatedAtOrAfter(Instant instant) {
+        int low = 0;
+        int high = oldestFirst.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (oldestFirst.get(middle).createdAt().isBefore(instant)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,304 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.BackupResponse;
+import com.coffeesprout.api.exception.ProxmoxException;
+import com.coffeesprout.client.Node;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.StorageContent;
+import com.coffeesprout.client.StorageContentResponse;
+import com.coffeesprout.client.StoragePool;
+import com.coffeesprout.client.StorageResponse;
+import com.coffeesprout.config.BackupCatalogConfig;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains the {@link BackupCatalog} that backup listings, analytics and retention read from.
+ *
+ * A scan lists the storages of all nodes concurrently, then lists the backup content of every
+ * backup-capable storage concurrently (bounded by the scan concurrency). A shared storage is listed once,
+ * from the first node that can reach it. The result is diffed against the current catalog by segment,
+ * so a rescan of an unchanged cluster keeps the catalog version and its indexes.
+ */
+@ApplicationScoped
+@AutoAuthenticate
+public class BackupCatalogService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackupCatalogService.class);
+
+    @Inject
+    @RestClient
+    ProxmoxClient proxmoxClient;
+
+    @Inject
+    NodeService nodeService;
+
+    @Inject
+    TicketManager ticketManager;
+
+    @Inject
+    BackupCatalogConfig catalogConfig;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    private volatile BackupCatalog catalog;
+    // Invalidation count the current catalog was scanned after
+    private volatile long catalogSequence;
+    private final AtomicLong versionCounter = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+    // Serializes scans so concurrent misses share one
+    private final Lock refreshLock = new ReentrantLock();
+    // Nodes that listed each segment in the last scan, to tell which segments a failed node was reporting
+    private volatile Map<String, List<String>> lastSegmentNodes = Map.of();
+
+    /**
+     * Get the catalog, rescanning if it is stale.
+     */
+    public BackupCatalog getCatalog(@AuthTicket String ticket) {
+        return getCatalog(false, ticket);
+    }
+
+    /**
+     * Get the catalog.
+     *
+     * @param fresh when true the returned catalog was scanned after this call started
+     * @param ticket Authentication ticket
+     */
+    public BackupCatalog getCatalog(boolean fresh, @AuthTicket String ticket) {
+        if (!catalogConfig.enabled()) {
+            return scan(BackupCatalog.empty(), ticket);
+        }
+
+        BackupCatalog current = catalog;
+        if (!fresh && isUsable(current)) {
+            return current;
+        }
+
+        Instant requestedAt = Instant.now();
+        refreshLock.lock();
+        try {
+            // Another caller may have rescanned while we were waiting for the lock
+            current = catalog;
+            if (isUsable(current) && (!fresh || !current.fetchedAt().isBefore(requestedAt))) {
+                return current;
+            }
+
+            long sequence = invalidations.get();
+            try {
+                BackupCatalog scanned = scan(current != null ? current : BackupCatalog.empty(), ticket);
+                catalog = scanned;
+                catalogSequence = sequence;
+                return scanned;
+            } catch (RuntimeException e) {
+                if (!fresh && current != null) {
+                    LOG.warn("Backup catalog refresh failed, serving catalog from {}: {}",
+                        current.fetchedAt(), e.getMessage());
+                    return current;
+                }
+                throw e;
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Mark the catalog stale so the next read rescans.
+     * Use after Moxxie created or deleted backups.
+     */
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        LOG.debug("Backup catalog invalidated");
+    }
+
+    void onTaskCompleted(@Observes TaskCompletedEvent event) {
+        String type = event.status().type();
+        if ("vzdump".equals(type) || "imgdel".equals(type)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Keep the catalog warm so analytics rarely pay for a full scan.
+     */
+    @Scheduled(every = "${moxxie.backup-catalog.refresh-interval:2m}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void refreshInBackground() {
+        if (!catalogConfig.enabled()) {
+            return;
+        }
+
+        try {
+            BackupCatalog refreshed = getCatalog(true, ticketManager.getTicket());
+            LOG.debug("Background backup catalog refresh: v{} with {} backups",
+                refreshed.version(), refreshed.size());
+        } catch (Exception e) {
+            LOG.warn("Background backup catalog refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isUsable(BackupCatalog candidate) {
+        return candidate != null
+            && catalogSequence == invalidations.get()
+            && !candidate.isOlderThan(Duration.ofSeconds(catalogConfig.maxStalenessSeconds()));
+    }
+
+    private BackupCatalog scan(BackupCatalog previous, String ticket) {
+        Instant requestedAt = Instant.now();
+        List<Node> nodes;
+        try {
+            nodes = nodeService.listNodes(ticket);
+        } catch (Exception e) {
+            throw ProxmoxException.internalError("list nodes for backup scan", e);
+        }
+
+        // Storage lists of all nodes, fetched concurrently
+        Map<String, CompletableFuture<List<StoragePool>>> storageLookups = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            storageLookups.put(node.getName(),
+                CompletableFuture.supplyAsync(() -> backupStorages(node.getName(), ticket), executorService));
+        }
+
+        // One segment per shared storage and per node-local storage, with the nodes that can list it
+        Map<String, List<String>> segmentNodes = new LinkedHashMap<>();
+        Map<String, String> segmentStorage = new LinkedHashMap<>();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        Set<String> failedNodes = new HashSet<>();
+        for (Map.Entry<String, CompletableFuture<List<StoragePool>>> lookup : storageLookups.entrySet()) {
+            String node = lookup.getKey();
+            List<StoragePool> storages;
+            try {
+                storages = lookup.getValue().join();
+            } catch (Exception e) {
+                LOG.debug("Failed to list storages on node {}: {}", node, e.getMessage());
+                failedNodes.add(node);
+                // Keep what we knew about this node's local storages
+                previous.segmentKeys().stream().filter(key -> key.startsWith(node + "/")).forEach(failed::add);
+                continue;
+            }
+            for (StoragePool storage : storages) {
+                String key = storage.getShared() == 1 ? storage.getStorage() : node + "/" + storage.getStorage();
+                segmentNodes.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+                segmentStorage.putIfAbsent(key, storage.getStorage());
+            }
+        }
+
+        // Shared storages that only failed nodes reported are unknown rather than gone
+        Map<String, List<String>> knownSegmentNodes = lastSegmentNodes;
+        for (Map.Entry<String, List<String>> segment : knownSegmentNodes.entrySet()) {
+            if (!segmentNodes.containsKey(segment.getKey())
+                    && segment.getValue().stream().anyMatch(failedNodes::contains)) {
+                failed.add(segment.getKey());
+            }
+        }
+
+        // Content of every segment, fetched concurrently within the scan concurrency
+        Semaphore permits = new Semaphore(Math.max(1, catalogConfig.scanConcurrency()));
+        Map<String, List<BackupResponse>> scanned = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> listings = new ArrayList<>();
+        for (Map.Entry<String, List<String>> segment : segmentNodes.entrySet()) {
+            String key = segment.getKey();
+            listings.add(CompletableFuture.runAsync(() -> {
+                List<BackupResponse> backups = listSegment(segmentStorage.get(key), segment.getValue(), permits, ticket);
+                if (backups != null) {
+                    scanned.put(key, backups);
+                } else {
+                    failed.add(key);
+                }
+            }, executorService));
+        }
+        CompletableFuture.allOf(listings.toArray(CompletableFuture[]::new)).join();
+
+        if (scanned.isEmpty() && !failed.isEmpty()) {
+            throw ProxmoxException.internalError("list backups: no backup storage could be read");
+        }
+
+        Map<String, List<String>> remembered = new HashMap<>(segmentNodes);
+        for (String key : failed) {
+            List<String> nodesBefore = knownSegmentNodes.get(key);
+            if (nodesBefore != null) {
+                remembered.putIfAbsent(key, nodesBefore);
+            }
+        }
+        lastSegmentNodes = remembered;
+
+        BackupCatalog updated = previous.update(versionCounter.get() + 1, requestedAt, scanned, failed);
+        if (updated.version() != previous.version()) {
+            versionCounter.set(updated.version());
+            LOG.info("Backup catalog v{}: {} backups in {} storages ({} added, {} removed, {} storages unreadable)",
+                updated.version(), updated.size(), scanned.size(), updated.added().size(),
+                updated.removed().size(), failed.size());
+        }
+        return updated;
+    }
+
+    private List<StoragePool> backupStorages(String node, String ticket) {
+        StorageResponse response = proxmoxClient.getNodeStorage(node, ticket);
+        if (response.getData() == null) {
+            return List.of();
+        }
+        return response.getData().stream()
+            .filter(storage -> storage.getContent() != null && storage.getContent().contains("backup"))
+            .toList();
+    }
+
+    /**
+     * List the backups of one storage from the first node that answers
+     *
+     * @return the backups, or null if no node could list the storage
+     */
+    private List<BackupResponse> listSegment(String storage, List<String> nodes, Semaphore permits, String ticket) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            for (String node : nodes) {
+                try {
+                    StorageContentResponse response = proxmoxClient.listStorageContent(node, storage, "backup", null, ticket);
+                    if (response.getData() == null) {
+                        return List.of();
+                    }
+                    return response.getData().stream()
+                        .filter(StorageContent::isBackup)
+                        .map(content -> BackupService.toBackupResponse(content, node))
+                        .toList();
+                } catch (Exception e) {
+                    LOG.debug("Failed to list content for storage {} on node {}: {}", storage, node, e.getMessage());
+                }
+            }
+            return null;
+        } finally {
+            permits.release();
+        }
+    }
+}
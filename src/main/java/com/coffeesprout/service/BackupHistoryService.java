@@ -0,0 +1,357 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.BackupGrowth;
+import com.coffeesprout.api.dto.BackupResponse;
+import com.coffeesprout.api.dto.StorageTrend;
+import com.coffeesprout.api.dto.TrendPoint;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.BackupCatalogConfig;
+import com.coffeesprout.model.BackupDailyStat;
+import com.coffeesprout.model.BackupRecord;
+import com.coffeesprout.util.UnitConverter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a durable record of every backup the catalog has seen and daily aggregates over it.
+ *
+ * Each run reconciles the current catalog with backup_records: new backups are inserted, backups no
+ * longer in the catalog get a deletion time. The daily stats of the cluster and of every storage, client
+ * and VM are then recomputed with one set-based upsert per scope, only for the days the changes touch.
+ * Trend and growth queries read the daily stats instead of scanning backups. Days are UTC.
+ */
+@ApplicationScoped
+public class BackupHistoryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackupHistoryService.class);
+
+    private static final String NO_CLIENT = "no-client";
+    // Bound on the volids in one IN list when looking for re-appearing backups
+    private static final int LOOKUP_BATCH = 500;
+
+    // Backups present at the end of a day, created on it, and deleted on it, per scope key
+    private static final String RECOMPUTE_SQL = """
+        INSERT INTO backup_daily_stats (scope, scope_key, day, backup_count, total_bytes,
+                                        added_count, added_bytes, removed_count, removed_bytes)
+        SELECT '%s', %s, CAST(d.day AS date),
+               COUNT(*) FILTER (WHERE r.deleted_at IS NULL OR r.deleted_at >= d.day + INTERVAL '1 day'),
+               COALESCE(SUM(r.size_bytes) FILTER (WHERE r.deleted_at IS NULL OR r.deleted_at >= d.day + INTERVAL '1 day'), 0),
+               COUNT(*) FILTER (WHERE r.created_at >= d.day),
+               COALESCE(SUM(r.size_bytes) FILTER (WHERE r.created_at >= d.day), 0),
+               COUNT(*) FILTER (WHERE r.deleted_at < d.day + INTERVAL '1 day'),
+               COALESCE(SUM(r.size_bytes) FILTER (WHERE r.deleted_at < d.day + INTERVAL '1 day'), 0)
+        FROM generate_series(CAST(?1 AS timestamp), CAST(?2 AS timestamp), INTERVAL '1 day') AS d(day)
+        JOIN backup_records r
+          ON r.created_at < d.day + INTERVAL '1 day'
+         AND (r.deleted_at IS NULL OR r.deleted_at >= d.day)
+        GROUP BY 2, d.day
+        ON CONFLICT (scope, scope_key, day) DO UPDATE SET
+            backup_count = EXCLUDED.backup_count,
+            total_bytes = EXCLUDED.total_bytes,
+            added_count = EXCLUDED.added_count,
+            added_bytes = EXCLUDED.added_bytes,
+            removed_count = EXCLUDED.removed_count,
+            removed_bytes = EXCLUDED.removed_bytes
+        """;
+
+    // Scope key expression over backup_records r, per scope
+    private static final Map<String, String> SCOPE_KEYS = new LinkedHashMap<>();
+
+    static {
+        SCOPE_KEYS.put(BackupDailyStat.SCOPE_CLUSTER, "'" + BackupDailyStat.CLUSTER_KEY + "'");
+        SCOPE_KEYS.put(BackupDailyStat.SCOPE_STORAGE, "r.storage");
+        SCOPE_KEYS.put(BackupDailyStat.SCOPE_CLIENT, "r.client");
+        SCOPE_KEYS.put(BackupDailyStat.SCOPE_VM, "COALESCE(CAST(r.vm_id AS VARCHAR), 'unknown')");
+    }
+
+    @Inject
+    BackupCatalogService backupCatalogService;
+
+    @Inject
+    VMService vmService;
+
+    @Inject
+    BackupCatalogConfig catalogConfig;
+
+    // Catalog version last written to backup_records
+    private volatile long recordedVersion = -1;
+
+    public boolean isEnabled() {
+        return catalogConfig.historyEnabled();
+    }
+
+    @Scheduled(every = "${moxxie.backup-catalog.history-interval:15m}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void recordInBackground() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            record();
+        } catch (Exception e) {
+            LOG.warn("Recording backup history failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconcile backup_records with the current catalog and refresh the affected daily stats.
+     * Skipped when the VMs cannot be listed, since new records would be stored without their client for good;
+     * the next run tries again.
+     */
+    public void record() {
+        BackupCatalog catalog = backupCatalogService.getCatalog(null);
+        if (catalog.version() == recordedVersion) {
+            return;
+        }
+
+        Map<Integer, String> clients;
+        try {
+            clients = clientTags();
+        } catch (Exception e) {
+            LOG.warn("Skipping backup history for catalog v{}, could not list VMs for client tags: {}",
+                     catalog.version(), e.getMessage());
+            return;
+        }
+        Instant now = Instant.now();
+        int changed = QuarkusTransaction.requiringNew().call(() -> reconcile(catalog, clients, now));
+        recordedVersion = catalog.version();
+        if (changed > 0) {
+            LOG.info("Backup history: {} backup records changed for catalog v{}", changed, catalog.version());
+        }
+    }
+
+    /**
+     * Trend of one scope from the daily stats
+     *
+     * @return empty when nothing was recorded for the scope yet
+     */
+    public Optional<StorageTrend> trend(String period, String scope, String scopeKey) {
+        TrendWindow window = TrendWindow.of(period);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = window.start(today);
+
+        List<BackupDailyStat> rows = BackupDailyStat.findRange(scope, scopeKey, start, today);
+        BackupDailyStat carried = BackupDailyStat.findLatestBefore(scope, scopeKey, start);
+        if (rows.isEmpty() && carried == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new StorageTrend(period, buckets(rows, carried, start, today, window.intervalDays())));
+    }
+
+    /**
+     * Growth of every key of a scope over the last days, largest growth first
+     */
+    public List<BackupGrowth> growth(String scope, int days) {
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(Math.max(1, days) - 1L);
+
+        Map<String, Long> startBytes = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        List<Object[]> starts = BackupDailyStat.getEntityManager().createNativeQuery(
+                "SELECT DISTINCT ON (scope_key) scope_key, total_bytes FROM backup_daily_stats "
+                    + "WHERE scope = ?1 AND day < ?2 ORDER BY scope_key, day DESC")
+            .setParameter(1, scope)
+            .setParameter(2, from)
+            .getResultList();
+        for (Object[] start : starts) {
+            startBytes.put((String) start[0], ((Number) start[1]).longValue());
+        }
+
+        Map<String, List<BackupDailyStat>> rowsByKey = new LinkedHashMap<>();
+        for (BackupDailyStat row : BackupDailyStat.findRange(scope, from, to)) {
+            rowsByKey.computeIfAbsent(row.scopeKey, key -> new ArrayList<>()).add(row);
+        }
+        startBytes.keySet().forEach(key -> rowsByKey.computeIfAbsent(key, k -> List.of()));
+
+        List<BackupGrowth> growth = new ArrayList<>();
+        for (Map.Entry<String, List<BackupDailyStat>> entry : rowsByKey.entrySet()) {
+            growth.add(growth(scope, entry.getKey(), from, to, startBytes.getOrDefault(entry.getKey(), 0L),
+                              entry.getValue()));
+        }
+        growth.sort(Comparator.comparingLong(BackupGrowth::growth).reversed());
+        return growth;
+    }
+
+    private int reconcile(BackupCatalog catalog, Map<Integer, String> clients, Instant now) {
+        Map<String, BackupRecord> present = new HashMap<>();
+        for (BackupRecord record : BackupRecord.findPresent()) {
+            present.put(record.volid, record);
+        }
+
+        List<BackupResponse> appeared = new ArrayList<>();
+        for (BackupResponse backup : catalog.backups()) {
+            if (present.remove(backup.volid()) == null) {
+                appeared.add(backup);
+            }
+        }
+
+        LocalDate today = day(now);
+        LocalDate from = today;
+
+        // Backups marked deleted earlier that are listed again, e.g. after a storage was unreachable
+        Map<String, BackupRecord> returning = new HashMap<>();
+        for (int i = 0; i < appeared.size(); i += LOOKUP_BATCH) {
+            List<String> volids = appeared.subList(i, Math.min(appeared.size(), i + LOOKUP_BATCH)).stream()
+                .map(BackupResponse::volid)
+                .toList();
+            for (BackupRecord record : BackupRecord.<BackupRecord>list("volid IN ?1", volids)) {
+                returning.put(record.volid, record);
+            }
+        }
+
+        for (BackupResponse backup : appeared) {
+            BackupRecord record = returning.get(backup.volid());
+            if (record != null) {
+                if (record.deletedAt != null) {
+                    from = min(from, day(record.deletedAt));
+                    record.deletedAt = null;
+                }
+                continue;
+            }
+
+            record = new BackupRecord();
+            record.volid = backup.volid();
+            record.vmId = backup.vmId();
+            record.storage = backup.storage() != null ? backup.storage() : "unknown";
+            record.node = backup.node();
+            record.client = backup.vmId() != null ? clients.getOrDefault(backup.vmId(), NO_CLIENT) : NO_CLIENT;
+            record.sizeBytes = backup.size() != null ? backup.size() : 0;
+            record.createdAt = backup.createdAt();
+            record.firstSeenAt = now;
+            record.persist();
+            from = min(from, day(backup.createdAt()));
+        }
+
+        // Whatever is left was in the catalog before and is gone now
+        for (BackupRecord record : present.values()) {
+            record.deletedAt = now;
+        }
+
+        int changed = appeared.size() + present.size();
+        if (changed > 0) {
+            BackupRecord.flush();
+            recomputeStats(from, today);
+        }
+        return changed;
+    }
+
+    private void recomputeStats(LocalDate from, LocalDate to) {
+        for (Map.Entry<String, String> scope : SCOPE_KEYS.entrySet()) {
+            BackupRecord.getEntityManager()
+                .createNativeQuery(RECOMPUTE_SQL.formatted(scope.getKey(), scope.getValue()))
+                .setParameter(1, from)
+                .setParameter(2, to)
+                .executeUpdate();
+        }
+        LOG.debug("Recomputed backup daily stats from {} to {}", from, to);
+    }
+
+    private Map<Integer, String> clientTags() {
+        Map<Integer, String> clients = new HashMap<>();
+        for (VMResponse vm : vmService.listVMs(null)) {
+            String client = vm.tags() == null ? NO_CLIENT : vm.tags().stream()
+                .filter(tag -> tag.startsWith("client-"))
+                .findFirst()
+                .orElse(NO_CLIENT);
+            clients.put(vm.vmid(), client);
+        }
+        return clients;
+    }
+
+    /**
+     * Trend points for consecutive buckets of intervalDays from start through end. Each point carries the
+     * totals of the last day in its bucket that has a row, or of the previous point when none has.
+     *
+     * @param rows Daily stats of one scope key within [start, end], by day
+     * @param carried Latest daily stat before start, or null
+     */
+    static List<TrendPoint> buckets(List<BackupDailyStat> rows, BackupDailyStat carried, LocalDate start,
+                                    LocalDate end, int intervalDays) {
+        long totalBytes = carried != null ? carried.totalBytes : 0;
+        int backupCount = carried != null ? carried.backupCount : 0;
+
+        List<TrendPoint> points = new ArrayList<>();
+        int next = 0;
+        for (LocalDate bucket = start; !bucket.isAfter(end); bucket = bucket.plusDays(intervalDays)) {
+            LocalDate bucketEnd = bucket.plusDays(intervalDays);
+            long added = 0;
+            long removed = 0;
+            while (next < rows.size() && rows.get(next).day.isBefore(bucketEnd)) {
+                BackupDailyStat row = rows.get(next++);
+                added += row.addedBytes;
+                removed += row.removedBytes;
+                totalBytes = row.totalBytes;
+                backupCount = row.backupCount;
+            }
+            points.add(new TrendPoint(bucketEnd.atStartOfDay(ZoneOffset.UTC).toInstant(), totalBytes, backupCount,
+                                      added, removed));
+        }
+        return points;
+    }
+
+    private static BackupGrowth growth(String scope, String key, LocalDate from, LocalDate to, long startBytes,
+                                       List<BackupDailyStat> rows) {
+        long endBytes = rows.isEmpty() ? startBytes : rows.get(rows.size() - 1).totalBytes;
+        int addedCount = 0;
+        long addedBytes = 0;
+        int removedCount = 0;
+        long removedBytes = 0;
+        for (BackupDailyStat row : rows) {
+            addedCount += row.addedCount;
+            addedBytes += row.addedBytes;
+            removedCount += row.removedCount;
+            removedBytes += row.removedBytes;
+        }
+        long growthBytes = endBytes - startBytes;
+        String growthHuman = (growthBytes < 0 ? "-" : "+") + UnitConverter.formatBytes(Math.abs(growthBytes));
+        return new BackupGrowth(scope, key, from, to, startBytes, endBytes, growthBytes, growthHuman,
+                                addedCount, addedBytes, removedCount, removedBytes);
+    }
+
+    private static LocalDate day(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Range and bucket size of a trend period
+     */
+    record TrendWindow(int days, int intervalDays) {
+
+        static TrendWindow of(String period) {
+            return switch (period.toLowerCase()) {
+                case "daily" -> new TrendWindow(30, 1);
+                case "weekly" -> new TrendWindow(12 * 7, 7);
+                case "monthly" -> new TrendWindow(365, 30);
+                default -> throw new IllegalArgumentException("Invalid period: " + period);
+            };
+        }
+
+        /**
+         * First day of the window ending with the given day
+         */
+        LocalDate start(LocalDate end) {
+            return end.minusDays(days - 1L);
+        }
+    }
+}
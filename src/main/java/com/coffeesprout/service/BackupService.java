@@ -2,10 +2,7 @@ package com.coffeesprout.service;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -26,7 +23,6 @@ import com.coffeesprout.client.StorageContent;
 import com.coffeesprout.client.StorageContentResponse;
 import com.coffeesprout.client.StorageResponse;
 import com.coffeesprout.client.TaskStatusResponse;
-import com.coffeesprout.scheduler.service.VMSelectorService;
 import com.coffeesprout.util.UnitConverter;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
@@ -38,6 +34,9 @@ public class BackupService {
 
     private static final Logger LOG = LoggerFactory.getLogger(BackupService.class);
 
+    @Inject
+    OperationProgressService operationProgress;
+
     // Pattern to extract VM ID from backup filename
     private static final Pattern BACKUP_FILENAME_PATTERN =
         Pattern.compile("vzdump-qemu-(\\d+)-\\d{4}_\\d{2}_\\d{2}-\\d{2}_\\d{2}_\\d{2}\\..*");
@@ -56,7 +55,13 @@ public class BackupService {
     TicketManager ticketManager;
 
     @Inject
-    VMSelectorService vmSelectorService;
+    BulkOperationEngine bulkEngine;
+
+    @Inject
+    VMInventoryService vmInventoryService;
+
+    @Inject
+    BackupCatalogService backupCatalogService;
 
     /**
      * Create a backup for a VM
@@ -146,7 +151,7 @@ public class BackupService {
                                     List<BackupResponse> backups = contentResponse.getData().stream()
                                             .filter(StorageContent::isBackup)
                                             .filter(content -> content.getVmid() != null && content.getVmid() == vmId)
-                                            .map(content -> convertToBackupResponse(content, node.getName()))
+                                            .map(content -> toBackupResponse(content, node.getName()))
                                             .collect(Collectors.toList());
 
                                     allBackups.addAll(backups);
@@ -174,93 +179,10 @@ public class BackupService {
     }
 
     /**
-     * List all backups across all VMs
+     * List all backups across all VMs, newest first, from the backup catalog
      */
     public List<BackupResponse> listAllBackups(@AuthTicket String ticket) {
-        LOG.info("Listing all backups across all nodes and storages");
-
-        try {
-            List<BackupResponse> allBackups = new ArrayList<>();
-            Set<String> processedSharedStorages = new HashSet<>();
-
-            // Get all nodes
-            var nodes = nodeService.listNodes(ticket);
-            LOG.info("Found {} nodes to check for backups", nodes.size());
-
-            // Process each node
-            for (var node : nodes) {
-                LOG.info("Checking node {} for backup storages", node.getName());
-                try {
-                    // Get storage pools for this node
-                    StorageResponse storageResponse = proxmoxClient.getNodeStorage(node.getName(), ticket);
-                    if (storageResponse.getData() == null) {
-                        continue;
-                    }
-
-                    // Check each storage for backups
-                    LOG.info("Node {} has {} storage pools", node.getName(), storageResponse.getData().size());
-                    for (var storage : storageResponse.getData()) {
-                        if (storage.getContent() != null && storage.getContent().contains("backup")) {
-                            // Check if this is a shared storage that we've already processed
-                            boolean isShared = storage.getShared() == 1;
-                            if (isShared && processedSharedStorages.contains(storage.getStorage())) {
-                                LOG.info("Skipping shared storage {} on node {} (already processed)",
-                                        storage.getStorage(), node.getName());
-                                continue;
-                            }
-
-                            LOG.info("Storage {} on node {} supports backups (shared: {})",
-                                    storage.getStorage(), node.getName(), isShared);
-
-                            try {
-                                // List all backup content in this storage
-                                StorageContentResponse contentResponse = proxmoxClient.listStorageContent(
-                                        node.getName(),
-                                        storage.getStorage(),
-                                        "backup",
-                                        null, // No VM ID filter
-                                        ticket
-                                );
-
-                                if (contentResponse.getData() != null) {
-                                    // Convert to BackupResponse objects
-                                    List<BackupResponse> backups = contentResponse.getData().stream()
-                                            .filter(StorageContent::isBackup)
-                                            .map(content -> convertToBackupResponse(content, node.getName()))
-                                            .collect(Collectors.toList());
-
-                                    LOG.info("Found {} backups in storage {} on node {}",
-                                             backups.size(), storage.getStorage(), node.getName());
-                                    allBackups.addAll(backups);
-
-                                    // Mark shared storage as processed
-                                    if (isShared) {
-                                        processedSharedStorages.add(storage.getStorage());
-                                    }
-                                } else {
-                                    LOG.info("No backup data returned for storage {} on node {}",
-                                             storage.getStorage(), node.getName());
-                                }
-                            } catch (Exception e) {
-                                LOG.debug("Failed to list content for storage {} on node {}: {}",
-                                         storage.getStorage(), node.getName(), e.getMessage());
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    LOG.debug("Failed to process node {}: {}", node.getName(), e.getMessage());
-                }
-            }
-
-            // Sort by creation time (newest first)
-            allBackups.sort((a, b) -> b.createdAt().compareTo(a.createdAt()));
-
-            return allBackups;
-
-        } catch (Exception e) {
-            LOG.error("Failed to list all backups: {}", e.getMessage());
-            throw ProxmoxException.internalError("list all backups", e);
-        }
+        return backupCatalogService.getCatalog(ticket).backups();
     }
 
     /**
@@ -324,6 +246,7 @@ public class BackupService {
                 throw ProxmoxException.internalError("No task ID returned from Proxmox for backup deletion");
             }
 
+            backupCatalogService.invalidate();
             LOG.info("Backup deletion task started: {}", response.getData());
             return new TaskResponse(response.getData(),
                     "Backup deletion started: " + volid);
@@ -379,6 +302,7 @@ public class BackupService {
                 throw ProxmoxException.internalError("No task ID returned from Proxmox for VM restore");
             }
 
+            vmInventoryService.invalidate();
             LOG.info("VM restore task started: {}", response.getData());
             return new TaskResponse(response.getData(),
                     String.format("Restore of VM %d from backup '%s' started on node %s",
@@ -421,7 +345,7 @@ public class BackupService {
     /**
      * Convert StorageContent to BackupResponse
      */
-    private BackupResponse convertToBackupResponse(StorageContent content, String node) {
+    static BackupResponse toBackupResponse(StorageContent content, String node) {
         // Extract compression type from filename or format
         String compression = extractCompression(content);
 
@@ -451,7 +375,7 @@ public class BackupService {
     /**
      * Extract compression type from backup content
      */
-    private String extractCompression(StorageContent content) {
+    private static String extractCompression(StorageContent content) {
         String filename = content.getFilename();
         if (filename != null) {
             if (filename.endsWith(".zst")) return "zstd";
@@ -465,7 +389,7 @@ public class BackupService {
     /**
      * Extract VM ID from backup filename
      */
-    private Integer extractVmIdFromFilename(String filename) {
+    private static Integer extractVmIdFromFilename(String filename) {
         if (filename != null) {
             Matcher matcher = BACKUP_FILENAME_PATTERN.matcher(filename);
             if (matcher.find()) {
@@ -483,35 +407,51 @@ public class BackupService {
      * Perform bulk backup operations on multiple VMs
      */
     public BulkBackupResponse bulkCreateBackups(BulkBackupRequest request, @AuthTicket String ticket) {
+        return bulkCreateBackups(request, null, ticket);
+    }
+
+    /**
+     * Perform bulk backup operations on multiple VMs and wait up to {@link BulkOperationEngine#SYNC_WAIT} for all
+     * of them, publishing each VM's result to {@link OperationProgressService} under the operation ID.
+     * On timeout the job keeps running in the background.
+     */
+    public BulkBackupResponse bulkCreateBackups(BulkBackupRequest request, String operationId, @AuthTicket String ticket) {
+        BulkJobHandle<BulkBackupResponse> handle = startBulkCreateBackups(request, operationId, ticket);
+        try {
+            return handle.await(BulkOperationEngine.SYNC_WAIT);
+        } catch (TimeoutException e) {
+            LOG.warn("Bulk backup job {} still running after {}", handle.jobId(), BulkOperationEngine.SYNC_WAIT);
+            throw ProxmoxException.timeout("bulk backup (job " + handle.jobId() + ")",
+                (int) BulkOperationEngine.SYNC_WAIT.toSeconds());
+        }
+    }
+
+    /**
+     * Start bulk backups as a background job and return its handle
+     */
+    public BulkJobHandle<BulkBackupResponse> startBulkCreateBackups(BulkBackupRequest request, String operationId,
+                                                                    @AuthTicket String ticket) {
         LOG.info("Starting bulk backup operation with {} selectors to storage '{}'",
                 request.vmSelectors().size(), request.storage());
 
         Instant startTime = Instant.now();
 
-        // Get all VMs that match the selectors
-        List<VMResponse> targetVMs = new ArrayList<>();
-        for (var selector : request.vmSelectors()) {
-            try {
-                List<VMResponse> vms = vmSelectorService.selectVMs(selector, ticket);
-                targetVMs.addAll(vms);
-            } catch (Exception e) {
-                LOG.error("Failed to select VMs with selector {}: {}", selector, e.getMessage());
-                throw ProxmoxException.internalError("select VMs with selector " + selector.type(), e);
-            }
-        }
+        operationProgress.start(operationId);
 
-        // Remove duplicates
-        Map<Integer, VMResponse> uniqueVMs = new HashMap<>();
-        for (VMResponse vm : targetVMs) {
-            uniqueVMs.put(vm.vmid(), vm);
+        List<VMResponse> targetVMs;
+        try {
+            targetVMs = bulkEngine.selectTargets(request.vmSelectors(), ticket);
+            if (!targetVMs.isEmpty() && !request.dryRun()) {
+                verifyBackupStorage(request.storage(), ticket);
+            }
+        } catch (RuntimeException e) {
+            operationProgress.fail(operationId, e.getMessage());
+            throw e;
         }
-        targetVMs = new ArrayList<>(uniqueVMs.values());
-
-        LOG.info("Found {} unique VMs matching selectors", targetVMs.size());
 
         if (targetVMs.isEmpty()) {
             Instant endTime = Instant.now();
-            return new BulkBackupResponse(
+            return bulkEngine.completed(operationId, new BulkBackupResponse(
                 Map.of(),
                 "No VMs found matching the provided selectors",
                 0, 0, 0, 0,
@@ -519,36 +459,12 @@ public class BackupService {
                 startTime,
                 endTime,
                 java.time.Duration.between(startTime, endTime).getSeconds()
-            );
+            ));
         }
 
-        // Check if storage exists (do this once for all VMs)
-        if (!request.dryRun()) {
-            try {
-                // Verify storage exists by getting storage info
-                var nodes = nodeService.listNodes(ticket);
-                if (!nodes.isEmpty()) {
-                    // Just check on the first node - storage should be available cluster-wide
-                    StorageContentResponse storageCheck = proxmoxClient.listStorageContent(
-                        nodes.get(0).getName(),
-                        request.storage(),
-                        null,
-                        null,
-                        ticket
-                    );
-                    LOG.debug("Storage '{}' verified", request.storage());
-                }
-            } catch (Exception e) {
-                LOG.error("Storage verification failed for '{}': {}", request.storage(), e.getMessage());
-                throw ProxmoxException.internalError("storage verification for '" + request.storage() + "'", e);
-            }
-        }
-
-        // Prepare results map - use concurrent map for thread safety
-        Map<Integer, BulkBackupResponse.BackupResult> results = new ConcurrentHashMap<>();
-
         // If dry run, just show what would be done
         if (request.dryRun()) {
+            Map<Integer, BulkBackupResponse.BackupResult> results = new HashMap<>();
             for (VMResponse vm : targetVMs) {
                 // Check if VM is running and mode requires stop/suspend
                 if ("stop".equals(request.mode()) && "running".equals(vm.status())) {
@@ -567,7 +483,7 @@ public class BackupService {
             }
 
             Instant endTime = Instant.now();
-            return new BulkBackupResponse(
+            return bulkEngine.completed(operationId, new BulkBackupResponse(
                 results,
                 String.format("Dry run: Would create %d backups on storage '%s'",
                     targetVMs.size(), request.storage()),
@@ -579,83 +495,112 @@ public class BackupService {
                 startTime,
                 endTime,
                 java.time.Duration.between(startTime, endTime).getSeconds()
-            );
+            ));
         }
 
-        // Create executor for parallel backup operations
-        ExecutorService executor = Executors.newFixedThreadPool(request.maxParallel());
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
         // Get CSRF token once for all operations
         String csrfToken = ticketManager.getCsrfToken();
+        int total = targetVMs.size();
 
-        for (VMResponse vm : targetVMs) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    LOG.info("Creating backup for VM {} ({}) on node {} to storage '{}'",
-                        vm.vmid(), vm.name(), vm.node(), request.storage());
+        return bulkEngine.submit("backup", operationId, targetVMs, request.maxParallel(),
+            new BulkOperationEngine.BulkTask<BulkBackupResponse.BackupResult>() {
+                @Override
+                public BulkBackupResponse.BackupResult execute(VMResponse vm) {
+                    return createBulkBackup(request, vm, ticket, csrfToken);
+                }
 
-                    // Build notes with VM info
-                    String notes = request.notes();
-                    if (notes == null || notes.isBlank()) {
-                        notes = String.format("Bulk backup of VM %s (%d)", vm.name(), vm.vmid());
-                    }
+                @Override
+                public BulkBackupResponse.BackupResult failed(VMResponse vm, Exception error) {
+                    return BulkBackupResponse.BackupResult.error(error.getMessage(), vm.name(), vm.node());
+                }
 
-                    // Append TTL to notes if specified
-                    if (request.ttlDays() != null && request.ttlDays() > 0) {
-                        notes += String.format(" (TTL: %dd)", request.ttlDays());
-                    }
+                @Override
+                public BulkBackupResponse.BackupResult cancelled(VMResponse vm) {
+                    return BulkBackupResponse.BackupResult.skipped("Bulk job cancelled", vm.name(), vm.node());
+                }
 
-                    // Debug log the notes
-                    LOG.debug("Backup notes for VM {}: {}", vm.vmid(), notes);
-
-                    // Create backup with notes (using notes-template parameter)
-                    TaskStatusResponse response = proxmoxClient.createBackup(
-                        vm.node(),
-                        String.valueOf(vm.vmid()),
-                        request.storage(),
-                        request.mode(),
-                        request.compress(),
-                        notes,  // Now using correct notes-template parameter
-                        null,  // protected flag - omit for now
-                        null,  // removeOlder - omit for now
-                        null,  // mailNotification - omit for now
-                        ticket,
-                        csrfToken
-                    );
-
-                    if (response.getData() == null) {
-                        throw ProxmoxException.internalError("No task ID returned from Proxmox for backup creation");
-                    }
+                @Override
+                public String status(BulkBackupResponse.BackupResult result) {
+                    return result.status();
+                }
 
-                    results.put(vm.vmid(), BulkBackupResponse.BackupResult.success(
-                        response.getData(), vm.name(), vm.node(), request.storage()
-                    ));
+                @Override
+                public Set<String> storages(VMResponse vm) {
+                    return Set.of(request.storage());
+                }
+            },
+            results -> summarizeBackupResults(request, total, startTime, results));
+    }
 
-                    LOG.info("Backup task {} started for VM {} ({})",
-                        response.getData(), vm.vmid(), vm.name());
+    private void verifyBackupStorage(String storage, String ticket) {
+        try {
+            // Verify storage exists by getting storage info
+            var nodes = nodeService.listNodes(ticket);
+            if (!nodes.isEmpty()) {
+                // Just check on the first node - storage should be available cluster-wide
+                proxmoxClient.listStorageContent(
+                    nodes.get(0).getName(),
+                    storage,
+                    null,
+                    null,
+                    ticket
+                );
+                LOG.debug("Storage '{}' verified", storage);
+            }
+        } catch (Exception e) {
+            LOG.error("Storage verification failed for '{}': {}", storage, e.getMessage());
+            throw ProxmoxException.internalError("storage verification for '" + storage + "'", e);
+        }
+    }
 
-                } catch (Exception e) {
-                    LOG.error("Failed to create backup for VM {} ({}): {}",
-                        vm.vmid(), vm.name(), e.getMessage());
-                    results.put(vm.vmid(), BulkBackupResponse.BackupResult.error(
-                        e.getMessage(), vm.name(), vm.node()
-                    ));
-                }
-            }, executor);
+    private BulkBackupResponse.BackupResult createBulkBackup(BulkBackupRequest request, VMResponse vm,
+                                                             String ticket, String csrfToken) {
+        LOG.info("Creating backup for VM {} ({}) on node {} to storage '{}'",
+            vm.vmid(), vm.name(), vm.node(), request.storage());
 
-            futures.add(future);
+        // Build notes with VM info
+        String notes = request.notes();
+        if (notes == null || notes.isBlank()) {
+            notes = String.format("Bulk backup of VM %s (%d)", vm.name(), vm.vmid());
         }
 
-        // Wait for all backup tasks to be submitted
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
-        } catch (Exception e) {
-            LOG.error("Error waiting for bulk backup completion: {}", e.getMessage());
-        } finally {
-            executor.shutdown();
+        // Append TTL to notes if specified
+        if (request.ttlDays() != null && request.ttlDays() > 0) {
+            notes += String.format(" (TTL: %dd)", request.ttlDays());
         }
 
+        // Debug log the notes
+        LOG.debug("Backup notes for VM {}: {}", vm.vmid(), notes);
+
+        // Create backup with notes (using notes-template parameter)
+        TaskStatusResponse response = proxmoxClient.createBackup(
+            vm.node(),
+            String.valueOf(vm.vmid()),
+            request.storage(),
+            request.mode(),
+            request.compress(),
+            notes,  // Now using correct notes-template parameter
+            null,  // protected flag - omit for now
+            null,  // removeOlder - omit for now
+            null,  // mailNotification - omit for now
+            ticket,
+            csrfToken
+        );
+
+        if (response.getData() == null) {
+            throw ProxmoxException.internalError("No task ID returned from Proxmox for backup creation");
+        }
+
+        LOG.info("Backup task {} started for VM {} ({})",
+            response.getData(), vm.vmid(), vm.name());
+
+        return BulkBackupResponse.BackupResult.success(
+            response.getData(), vm.name(), vm.node(), request.storage()
+        );
+    }
+
+    private BulkBackupResponse summarizeBackupResults(BulkBackupRequest request, int total, Instant startTime,
+                                                      Map<Integer, BulkBackupResponse.BackupResult> results) {
         // Count results
         long successCount = results.values().stream()
             .filter(r -> "success".equals(r.status()))
@@ -668,7 +613,7 @@ public class BackupService {
             .count();
 
         String summary = String.format("Started %d/%d backup tasks on storage '%s'",
-            successCount, targetVMs.size(), request.storage());
+            successCount, total, request.storage());
         if (failureCount > 0) {
             summary += String.format(" (%d failed)", failureCount);
         }
@@ -677,7 +622,7 @@ public class BackupService {
         return new BulkBackupResponse(
             results,
             summary,
-            targetVMs.size(),
+            total,
             (int) successCount,
             (int) failureCount,
             (int) skippedCount,
@@ -0,0 +1,57 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle for a bulk operation started by {@link BulkOperationEngine}.
+ *
+ * @param jobId ID of the persisted bulk job, or null when nothing had to be executed (dry run or no matching VMs)
+ * @param operationId Key under which progress is published to {@link OperationProgressService}
+ * @param response Completes with the bulk response once every VM has been processed
+ */
+public record BulkJobHandle<T>(Long jobId, String operationId, CompletableFuture<T> response) {
+
+    /**
+     * Handle for an operation that finished without starting a job
+     */
+    public static <T> BulkJobHandle<T> completed(String operationId, T response) {
+        return new BulkJobHandle<>(null, operationId, CompletableFuture.completedFuture(response));
+    }
+
+    /**
+     * Block until the operation has finished and return its response
+     */
+    public T await() {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wait at most the given time for the operation to finish and return its response.
+     * The job keeps running when the wait times out.
+     */
+    public T await(Duration timeout) throws TimeoutException {
+        try {
+            return response.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bulk job " + jobId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
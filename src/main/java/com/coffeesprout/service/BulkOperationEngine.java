@@ -0,0 +1,468 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.BulkJobItemResponse;
+import com.coffeesprout.api.dto.BulkJobResponse;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.api.exception.ProxmoxException;
+import com.coffeesprout.config.BulkConfig;
+import com.coffeesprout.model.BulkJob;
+import com.coffeesprout.model.BulkJobItem;
+import com.coffeesprout.scheduler.model.VMSelector;
+import com.coffeesprout.scheduler.service.VMSelectorService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs bulk VM operations (power, snapshot, backup) as persisted background jobs.
+ *
+ * Every targeted VM gets its own virtual thread. Before touching Proxmox it takes a permit from the job
+ * (the request's maxParallel), from the VM's node, from each storage the operation writes to and from the
+ * global budget, always in that order so threads never wait on each other in a cycle. Each VM outcome is
+ * written to {@link BulkJobItem} and published to {@link OperationProgressService} as soon as it is known.
+ * Cancelling a job stops VMs that have not started yet; operations already sent to Proxmox run to completion.
+ */
+@ApplicationScoped
+public class BulkOperationEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkOperationEngine.class);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() { };
+
+    public static final String ITEM_SUCCESS = "success";
+    public static final String ITEM_ERROR = "error";
+    public static final String ITEM_SKIPPED = "skipped";
+    public static final String ITEM_CANCELLED = "cancelled";
+
+    /**
+     * How long synchronous bulk snapshot and backup requests wait for their job before handing out the job instead
+     */
+    public static final Duration SYNC_WAIT = Duration.ofMinutes(5);
+
+    @Inject
+    BulkConfig config;
+
+    @Inject
+    VMSelectorService vmSelectorService;
+
+    @Inject
+    OperationProgressService operationProgress;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    LocationService locationService;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    // Distinguishes processes that share a configured instance ID
+    private final String processId = UUID.randomUUID().toString().substring(0, 8);
+
+    private Semaphore globalPermits;
+    private final ConcurrentMap<String, Semaphore> nodePermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Semaphore> storagePermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Job<?, ?>> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        globalPermits = new Semaphore(config.maxConcurrency(), true);
+        Gauge.builder("moxxie.bulk.jobs.active", jobs, Map::size)
+            .description("Bulk jobs currently running on this instance")
+            .register(registry);
+        Gauge.builder("moxxie.bulk.operations.running", globalPermits,
+                permits -> config.maxConcurrency() - permits.availablePermits())
+            .description("VM operations currently holding a global bulk permit")
+            .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        interruptAbandonedJobs();
+    }
+
+    /**
+     * Renew the lease on this instance's running jobs, then mark jobs interrupted whose owner is gone
+     */
+    @Scheduled(every = "${moxxie.bulk.heartbeat-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void heartbeat() {
+        if (!jobs.isEmpty()) {
+            try {
+                QuarkusTransaction.requiringNew().run(() -> BulkJob.update(
+                    "heartbeatAt = ?1 WHERE owner = ?2 AND status = ?3",
+                    Instant.now(), owner(), BulkJob.STATUS_RUNNING));
+            } catch (Exception e) {
+                LOG.warn("Failed to send bulk job heartbeat: {}", e.getMessage());
+            }
+        }
+        interruptAbandonedJobs();
+    }
+
+    /**
+     * Jobs still marked running without a heartbeat for a lease were cut off by a restart or crash of the
+     * instance running them; their remaining VMs will never be processed. Jobs of live instances are left alone.
+     */
+    private void interruptAbandonedJobs() {
+        Instant stale = Instant.now().minusSeconds(config.leaseSeconds());
+        try {
+            int interrupted = QuarkusTransaction.requiringNew().call(() -> BulkJob.update(
+                "status = ?1, completedAt = ?2 WHERE status = ?3 AND (heartbeatAt IS NULL OR heartbeatAt < ?4)",
+                BulkJob.STATUS_INTERRUPTED, Instant.now(), BulkJob.STATUS_RUNNING, stale));
+            if (interrupted > 0) {
+                LOG.warn("Marked {} bulk jobs as interrupted, their instances stopped sending heartbeats", interrupted);
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not mark interrupted bulk jobs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Resolve selectors to the distinct set of VMs they match
+     */
+    public List<VMResponse> selectTargets(List<VMSelector> selectors, String ticket) {
+        Map<Integer, VMResponse> unique = new LinkedHashMap<>();
+        for (VMSelector selector : selectors) {
+            try {
+                for (VMResponse vm : vmSelectorService.selectVMs(selector, ticket)) {
+                    unique.putIfAbsent(vm.vmid(), vm);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to select VMs with selector {}: {}", selector, e.getMessage());
+                throw ProxmoxException.internalError("select VMs with selector " + selector, e);
+            }
+        }
+        LOG.info("Found {} unique VMs matching selectors", unique.size());
+        return new ArrayList<>(unique.values());
+    }
+
+    /**
+     * Finish an operation that needed no job (dry run or no matching VMs)
+     */
+    public <T> BulkJobHandle<T> completed(String operationId, T response) {
+        operationProgress.complete(operationId, response);
+        return BulkJobHandle.completed(operationId, response);
+    }
+
+    /**
+     * Start a bulk job and return immediately.
+     *
+     * @param operation Short operation name stored with the job (e.g. "power:START")
+     * @param operationId Progress key; a random one is assigned when null
+     * @param targets VMs to process
+     * @param maxParallel Maximum number of this job's VMs processed at once
+     * @param task What to do for each VM
+     * @param summarizer Builds the bulk response from the per-VM results
+     */
+    public <R, T> BulkJobHandle<T> submit(String operation, String operationId, List<VMResponse> targets,
+                                          int maxParallel, BulkTask<R> task,
+                                          Function<Map<Integer, R>, T> summarizer) {
+        String progressKey = operationId != null ? operationId : "bulk-" + UUID.randomUUID();
+        Long jobId = QuarkusTransaction.requiringNew().call(() -> {
+            BulkJob job = new BulkJob();
+            job.operation = operation;
+            job.operationId = progressKey;
+            job.status = BulkJob.STATUS_RUNNING;
+            job.total = targets.size();
+            job.owner = owner();
+            job.heartbeatAt = Instant.now();
+            job.persist();
+            return job.id;
+        });
+
+        Job<R, T> job = new Job<>(jobId, progressKey, task, summarizer, maxParallel, targets.size());
+        jobs.put(jobId, job);
+        LOG.info("Started bulk job {} ({}) for {} VMs", jobId, operation, targets.size());
+
+        if (targets.isEmpty()) {
+            finish(job);
+        }
+        for (VMResponse vm : targets) {
+            executorService.execute(() -> process(job, vm));
+        }
+        return new BulkJobHandle<>(jobId, progressKey, job.response);
+    }
+
+    /**
+     * Stop a running job from starting further VMs
+     * @return false if the job is not running on this instance
+     */
+    public boolean cancel(long jobId) {
+        Job<?, ?> job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        LOG.info("Cancelling bulk job {}", jobId);
+        return true;
+    }
+
+    /**
+     * Whether the job is running on this instance
+     */
+    public boolean isRunning(long jobId) {
+        return jobs.containsKey(jobId);
+    }
+
+    /**
+     * Look up a job, including the number of VMs processed so far
+     */
+    public Optional<BulkJobResponse> getJob(long jobId) {
+        return BulkJob.<BulkJob>findByIdOptional(jobId).map(this::toResponse);
+    }
+
+    /**
+     * Most recent jobs first
+     */
+    public List<BulkJobResponse> listJobs(int limit) {
+        return BulkJob.findRecent(limit).stream().map(this::toResponse).toList();
+    }
+
+    /**
+     * Recorded per-VM outcomes of a job, optionally filtered by outcome
+     */
+    public List<BulkJobItemResponse> listItems(long jobId, String status) {
+        List<BulkJobItem> items = status == null || status.isBlank()
+            ? BulkJobItem.findByJob(jobId)
+            : BulkJobItem.findByJobAndStatus(jobId, status);
+        return items.stream().map(BulkJobItemResponse::fromEntity).toList();
+    }
+
+    private BulkJobResponse toResponse(BulkJob job) {
+        long processed = job.isRunning() ? BulkJobItem.countByJob(job.id) : job.total;
+        return BulkJobResponse.fromEntity(job, processed);
+    }
+
+    @Scheduled(every = "${moxxie.bulk.cleanup-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(config.jobRetentionDays(), ChronoUnit.DAYS);
+        try {
+            long deleted = QuarkusTransaction.requiringNew().call(() -> BulkJob.delete(
+                "status <> ?1 AND completedAt < ?2", BulkJob.STATUS_RUNNING, cutoff));
+            if (deleted > 0) {
+                LOG.info("Deleted {} bulk jobs finished before {}", deleted, cutoff);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to delete old bulk jobs: {}", e.getMessage());
+        }
+    }
+
+    private <R, T> void process(Job<R, T> job, VMResponse vm) {
+        List<Semaphore> held = new ArrayList<>(4);
+        Instant startedAt = null;
+        String itemStatus;
+        R result;
+        try {
+            if (!job.cancelled) {
+                acquire(job.permits, held);
+                if (vm.node() != null) {
+                    acquire(nodePermits.computeIfAbsent(vm.node(),
+                        node -> new Semaphore(config.perNodeConcurrency(), true)), held);
+                }
+                for (String storage : new TreeSet<>(job.task.storages(vm))) {
+                    acquire(storagePermits.computeIfAbsent(storage,
+                        name -> new Semaphore(config.perStorageConcurrency(), true)), held);
+                }
+                acquire(globalPermits, held);
+            }
+
+            if (job.cancelled) {
+                result = job.task.cancelled(vm);
+                itemStatus = ITEM_CANCELLED;
+            } else {
+                startedAt = Instant.now();
+                result = job.task.execute(vm);
+                itemStatus = job.task.status(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = job.task.cancelled(vm);
+            itemStatus = ITEM_CANCELLED;
+        } catch (Exception e) {
+            LOG.error("Bulk job {} failed for VM {} ({}): {}", job.id, vm.vmid(), vm.name(), e.getMessage());
+            result = job.task.failed(vm, e);
+            itemStatus = ITEM_ERROR;
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).release();
+            }
+        }
+
+        job.results.put(vm.vmid(), result);
+        job.statuses.put(vm.vmid(), itemStatus);
+        persistItem(job.id, vm, itemStatus, result, startedAt);
+        operationProgress.publishResult(job.operationId, vm.vmid(), result);
+
+        if (job.remaining.decrementAndGet() == 0) {
+            finish(job);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, List<Semaphore> held) throws InterruptedException {
+        semaphore.acquire();
+        held.add(semaphore);
+    }
+
+    private void persistItem(long jobId, VMResponse vm, String status, Object result, Instant startedAt) {
+        try {
+            Map<String, Object> resultData = toMap(result);
+            QuarkusTransaction.requiringNew().run(() -> {
+                BulkJobItem item = new BulkJobItem();
+                item.job = BulkJob.getEntityManager().getReference(BulkJob.class, jobId);
+                item.vmId = vm.vmid();
+                item.vmName = vm.name();
+                item.nodeName = vm.node();
+                item.status = status;
+                item.result = resultData;
+                item.startedAt = startedAt;
+                item.completedAt = Instant.now();
+                item.persist();
+            });
+        } catch (Exception e) {
+            LOG.warn("Failed to record outcome of VM {} for bulk job {}: {}", vm.vmid(), jobId, e.getMessage());
+        }
+    }
+
+    private <R, T> void finish(Job<R, T> job) {
+        jobs.remove(job.id);
+        T response;
+        try {
+            response = job.summarizer.apply(Map.copyOf(job.results));
+        } catch (RuntimeException e) {
+            LOG.error("Failed to summarize bulk job {}: {}", job.id, e.getMessage());
+            operationProgress.fail(job.operationId, e.getMessage());
+            job.response.completeExceptionally(e);
+            return;
+        }
+
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        job.statuses.values().forEach(status -> counts.merge(status, 1, Integer::sum));
+        Map<String, Object> responseData = toMap(response);
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                BulkJob entity = BulkJob.findById(job.id);
+                if (entity == null) {
+                    return;
+                }
+                entity.status = job.cancelled ? BulkJob.STATUS_CANCELLED : BulkJob.STATUS_COMPLETED;
+                entity.succeeded = counts.getOrDefault(ITEM_SUCCESS, 0);
+                entity.failed = counts.getOrDefault(ITEM_ERROR, 0);
+                entity.skipped = counts.getOrDefault(ITEM_SKIPPED, 0);
+                entity.cancelled = counts.getOrDefault(ITEM_CANCELLED, 0);
+                entity.summary = responseData != null && responseData.get("summary") != null
+                    ? String.valueOf(responseData.get("summary")) : null;
+                entity.response = responseData;
+                entity.completedAt = Instant.now();
+            });
+        } catch (Exception e) {
+            LOG.warn("Failed to record completion of bulk job {}: {}", job.id, e.getMessage());
+        }
+
+        LOG.info("Bulk job {} finished: {}", job.id, counts);
+        operationProgress.complete(job.operationId, response);
+        job.response.complete(response);
+    }
+
+    private String owner() {
+        return locationService.getLocationInfo().instanceId() + "/" + processId;
+    }
+
+    private Map<String, Object> toMap(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.convertValue(value, MAP_TYPE);
+        } catch (IllegalArgumentException e) {
+            LOG.debug("Could not convert {} for storage: {}", value.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The per-VM work of a bulk operation
+     */
+    public interface BulkTask<R> {
+
+        /**
+         * Perform the operation on one VM. Exceptions are turned into {@link #failed}.
+         */
+        R execute(VMResponse vm) throws Exception;
+
+        R failed(VMResponse vm, Exception error);
+
+        /**
+         * Result for a VM that was not started because the job was cancelled
+         */
+        R cancelled(VMResponse vm);
+
+        /**
+         * Outcome of a result: success, error or skipped
+         */
+        String status(R result);
+
+        /**
+         * Storages the operation writes to, each limited to the per-storage concurrency
+         */
+        default Set<String> storages(VMResponse vm) {
+            return Set.of();
+        }
+    }
+
+    private static final class Job<R, T> {
+        final long id;
+        final String operationId;
+        final BulkTask<R> task;
+        final Function<Map<Integer, R>, T> summarizer;
+        final Semaphore permits;
+        final AtomicInteger remaining;
+        final Map<Integer, R> results = new ConcurrentHashMap<>();
+        final Map<Integer, String> statuses = new ConcurrentHashMap<>();
+        final CompletableFuture<T> response = new CompletableFuture<>();
+        volatile boolean cancelled;
+
+        Job(long id, String operationId, BulkTask<R> task, Function<Map<Integer, R>, T> summarizer,
+            int maxParallel, int total) {
+            this.id = id;
+            this.operationId = operationId;
+            this.task = task;
+            this.summarizer = summarizer;
+            this.permits = new Semaphore(Math.max(1, maxParallel), true);
+            this.remaining = new AtomicInteger(total);
+        }
+    }
+}
@@ -242,7 +242,8 @@ public class ClusterProvisioningService {
 
         // Get next available VM ID - use range if specified
         Integer vmId;
-        if (spec.options() != null && spec.options().vmIdRangeStart() != null) {
+        boolean vmIdFromRange = spec.options() != null && spec.options().vmIdRangeStart() != null;
+        if (vmIdFromRange) {
             // Calculate VM ID from range start
             int nodeIndex = 0;
             for (NodeGroupSpec g : spec.nodeGroups()) {
@@ -292,6 +293,11 @@ public class ClusterProvisioningService {
                 LOG.info("Successfully provisioned VM {} for node '{}' on target host '{}'", vmId, nodeName, targetHost);
                 nodeState.setStatus(ClusterProvisioningState.NodeProvisioningState.NodeStatus.READY);
                 return new NodeProvisioningResult(nodeName, vmId, targetHost, null);
+            })
+            .onFailure().invoke(e -> {
+                if (!vmIdFromRange) {
+                    vmIdService.releaseVmId(vmId);
+                }
             });
     }
 
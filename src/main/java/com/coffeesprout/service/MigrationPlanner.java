@@ -0,0 +1,179 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.DrainPlanResponse;
+import com.coffeesprout.api.dto.DrainPlanResponse.PlannedVM;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.MigrationConfig;
+import com.coffeesprout.model.VmMigration;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates what VM migrations cost and plans drains around it.
+ *
+ * An online migration copies guest memory in pre-copy rounds, each resending the pages dirtied during the
+ * previous round, so memory costs maxmem / (1 - dirty rate / bandwidth). Local disks are copied once.
+ * Migrations leaving a node share its link: each gets an equal share as its bwlimit, further capped at the
+ * throughput the node achieved in its recent migrations.
+ */
+@ApplicationScoped
+public class MigrationPlanner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationPlanner.class);
+
+    /**
+     * Option under which a migration's memory plus local disk size is recorded in vm_migrations
+     */
+    public static final String DATA_BYTES_OPTION = "dataBytes";
+
+    // Bytes per second in one Mbit/s
+    private static final long MBIT = 1_000_000L / 8;
+    // QEMU throttles guests that dirty memory faster than it can be sent, which bounds the resent memory
+    private static final double MAX_PRECOPY_FACTOR = 10.0;
+
+    @Inject
+    MigrationConfig migrationConfig;
+
+    /**
+     * Size of the data a migration has to move: memory of a running VM plus local disks that are copied
+     */
+    public MigrationEstimate estimate(VMResponse vm, boolean copiesLocalDisks, Set<String> storages) {
+        boolean online = "running".equals(vm.status());
+        return new MigrationEstimate(vm, online, online ? vm.maxmem() : 0, copiesLocalDisks ? vm.maxdisk() : 0,
+                                     storages != null ? storages : Set.of());
+    }
+
+    /**
+     * Plan migrating the given VMs off a node with the given number of concurrent migrations
+     */
+    public DrainPlanResponse plan(String sourceNode, List<MigrationEstimate> migrations, int concurrency) {
+        return plan(sourceNode, migrations, concurrency, observedThroughput(sourceNode));
+    }
+
+    DrainPlanResponse plan(String sourceNode, List<MigrationEstimate> migrations, int concurrency,
+                           long observedBytesPerSecond) {
+        int slots = Math.max(1, concurrency);
+        long rate = rate(slots, observedBytesPerSecond);
+
+        // Same order the scheduler starts them in; each migration takes the slot that frees up first
+        List<MigrationEstimate> ordered = new ArrayList<>(migrations);
+        ordered.sort(Comparator.comparingLong(MigrationEstimate::dataBytes).reversed());
+        PriorityQueue<Long> slotFreeAt = new PriorityQueue<>();
+        for (int i = 0; i < slots; i++) {
+            slotFreeAt.add(0L);
+        }
+
+        List<PlannedVM> planned = new ArrayList<>();
+        long totalBytes = 0;
+        long makespan = 0;
+        for (MigrationEstimate migration : ordered) {
+            long transferBytes = transferBytes(migration, rate);
+            long seconds = Math.ceilDiv(transferBytes, rate);
+            long start = slotFreeAt.poll();
+            slotFreeAt.add(start + seconds);
+            totalBytes += transferBytes;
+            makespan = Math.max(makespan, start + seconds);
+            planned.add(new PlannedVM(migration.vm().vmid(), migration.vm().name(), migration.online(),
+                                      migration.memoryBytes(), migration.diskBytes(), transferBytes, start, seconds));
+        }
+
+        return new DrainPlanResponse(sourceNode, slots, linkBytesPerSecond(),
+                                     observedBytesPerSecond > 0 ? observedBytesPerSecond : null,
+                                     bwlimit(slots), totalBytes, makespan, planned);
+    }
+
+    /**
+     * Bandwidth limit in KiB/s for each of the given number of concurrent migrations on one link,
+     * or null when automatic limits are disabled
+     */
+    public Integer bwlimit(int concurrency) {
+        if (!migrationConfig.planner().autoBwlimit()) {
+            return null;
+        }
+        long share = linkBytesPerSecond() / Math.max(1, concurrency);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, share / 1024));
+    }
+
+    /**
+     * Median throughput of recent completed migrations from a node, or 0 without usable history
+     */
+    public long observedThroughput(String sourceNode) {
+        try {
+            List<Long> samples = QuarkusTransaction.requiringNew().call(() ->
+                VmMigration.findRecentCompletedFrom(sourceNode, migrationConfig.planner().historySize()).stream()
+                    .map(MigrationPlanner::throughput)
+                    .filter(throughput -> throughput > 0)
+                    .toList());
+            return median(samples);
+        } catch (Exception e) {
+            LOG.warn("Could not read migration history of node {}: {}", sourceNode, e.getMessage());
+            return 0;
+        }
+    }
+
+    long transferBytes(MigrationEstimate migration, long rate) {
+        return migration.diskBytes() + Math.round(migration.memoryBytes() * precopyFactor(rate));
+    }
+
+    /**
+     * Total memory sent per byte of guest memory when the guest keeps dirtying pages at the configured rate
+     */
+    double precopyFactor(long rate) {
+        double dirtyRatio = (double) migrationConfig.planner().memoryDirtyRateMbps() * MBIT / rate;
+        if (dirtyRatio >= 1 - 1 / MAX_PRECOPY_FACTOR) {
+            return MAX_PRECOPY_FACTOR;
+        }
+        return 1 / (1 - dirtyRatio);
+    }
+
+    private long rate(int slots, long observedBytesPerSecond) {
+        long share = Math.max(1, linkBytesPerSecond() / slots);
+        return observedBytesPerSecond > 0 ? Math.min(share, observedBytesPerSecond) : share;
+    }
+
+    private long linkBytesPerSecond() {
+        return Math.max(1, migrationConfig.planner().linkBandwidthMbps()) * MBIT;
+    }
+
+    private static long throughput(VmMigration migration) {
+        if (migration.options == null || migration.durationSeconds == null || migration.durationSeconds <= 0) {
+            return 0;
+        }
+        return migration.options.get(DATA_BYTES_OPTION) instanceof Number bytes
+            ? bytes.longValue() / migration.durationSeconds
+            : 0;
+    }
+
+    static long median(List<Long> samples) {
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = samples.stream().sorted().toList();
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    /**
+     * Data a single migration moves
+     *
+     * @param online Whether the VM is running and its memory is copied live
+     * @param storages Local storages its disks are copied from
+     */
+    public record MigrationEstimate(VMResponse vm, boolean online, long memoryBytes, long diskBytes,
+                                    Set<String> storages) {
+
+        public long dataBytes() {
+            return memoryBytes + diskBytes;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.NodeDrainResponse.DrainProgress;
+import com.coffeesprout.api.dto.NodeDrainResponse.VMMigrationStatus;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.api.exception.ProxmoxException;
+import com.coffeesprout.config.MigrationConfig;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Admits drain migrations within per-source-node, per-target-node, per-storage and per-network limits.
+ *
+ * Limits are shared by all drains running on this instance. VMs are admitted largest first (longest
+ * migration first keeps the tail of a drain short), and the target is chosen at admission time: the node
+ * with the most memory left after the migrations already placed on it, among those with a free slot.
+ * Target capacity is re-read periodically, so placement follows the cluster as migrations complete.
+ */
+@ApplicationScoped
+public class MigrationScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationScheduler.class);
+
+    // How long the dispatcher waits for a completion before re-checking limits held by other drains
+    private static final long DISPATCH_WAIT_MS = 1000;
+
+    // Attempts at the first read of target nodes before the drain fails; without it every VM would look unplaceable
+    private static final int INITIAL_TARGET_ATTEMPTS = 3;
+
+    @Inject
+    MigrationConfig migrationConfig;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    // How long an interrupted drain keeps collecting migrations it already started
+    long interruptedWaitMs = 60_000;
+
+    // In-flight migrations per limit key, shared by all drains; guarded by this
+    private final Map<String, Integer> inFlight = new HashMap<>();
+
+    /**
+     * Migration network passed to Proxmox, if configured
+     */
+    public String migrationNetwork() {
+        return migrationConfig.scheduler().network().orElse(null);
+    }
+
+    /**
+     * Most migrations a drain with the given concurrency runs at once from its source node
+     */
+    public int sourceConcurrency(int maxConcurrent) {
+        return Math.max(1, Math.min(maxConcurrent, migrationConfig.scheduler().perSourceNode()));
+    }
+
+    /**
+     * Run all migrations of one drain and return their statuses. Blocks until every VM has been handled.
+     * When interrupted, no further migrations are started; those already running are collected for a bounded
+     * time and reported as {@code in-progress} if still running, and queued VMs are reported as {@code skipped}.
+     *
+     * @param sourceNode Node being drained
+     * @param migrations VMs to move
+     * @param maxConcurrent Limit for this drain on top of the shared limits
+     * @param targets Candidate target nodes with their free memory; called again every refresh interval
+     * @param migrator Performs one migration to the chosen target and reports its status
+     * @param progress Receives progress after every completed migration
+     * @throws ProxmoxException when the target nodes cannot be read at all
+     */
+    public List<VMMigrationStatus> run(String sourceNode, List<PlannedMigration> migrations, int maxConcurrent,
+                                       Supplier<List<TargetNode>> targets, Migrator migrator,
+                                       ProgressListener progress) {
+        MigrationConfig.Scheduler limits = migrationConfig.scheduler();
+        String networkKey = "network:" + limits.network().orElse("default");
+        Duration refreshInterval = Duration.ofSeconds(limits.targetRefreshSeconds());
+
+        LinkedList<PlannedMigration> queue = new LinkedList<>(migrations);
+        queue.sort(Comparator.comparingLong(PlannedMigration::estimatedBytes).reversed());
+
+        Placement placement = new Placement(targets);
+        placement.load(INITIAL_TARGET_ATTEMPTS, sourceNode);
+        BlockingQueue<Finished> finished = new LinkedBlockingQueue<>();
+        List<VMMigrationStatus> statuses = new ArrayList<>();
+        // Started migrations by VM ID, for reporting those still running when the drain is interrupted
+        Map<Integer, Finished> started = new LinkedHashMap<>();
+        Stats stats = new Stats(migrations.stream().mapToLong(PlannedMigration::estimatedBytes).sum());
+        int running = 0;
+
+        LOG.info("Scheduling {} migrations off {} (max {} concurrent for this drain)",
+                 queue.size(), sourceNode, maxConcurrent);
+
+        while (!queue.isEmpty() || running > 0) {
+            placement.refreshIfStale(refreshInterval);
+
+            Iterator<PlannedMigration> it = queue.iterator();
+            while (it.hasNext() && running < maxConcurrent) {
+                PlannedMigration migration = it.next();
+                if (!placement.hasCandidate(migration)) {
+                    it.remove();
+                    VMResponse vm = migration.vm();
+                    LOG.warn("No target node can take VM {} ({})", vm.vmid(), vm.name());
+                    statuses.add(new VMMigrationStatus(vm.vmid(), vm.name(), "failed", null, "No suitable target node found"));
+                    stats.failed++;
+                    progress.onProgress(stats.snapshot(running, queue.size()), List.copyOf(statuses));
+                    continue;
+                }
+
+                String target = admit(sourceNode, networkKey, migration, placement, limits);
+                if (target == null) {
+                    continue;
+                }
+                it.remove();
+                running++;
+                started.put(migration.vm().vmid(), new Finished(migration, target, null));
+                executorService.execute(() -> {
+                    VMMigrationStatus status;
+                    try {
+                        status = migrator.migrate(migration.vm(), target);
+                    } catch (Exception e) {
+                        status = new VMMigrationStatus(migration.vm().vmid(), migration.vm().name(), "failed", target, e.getMessage());
+                    } finally {
+                        // Released here so the slots are freed even when the dispatcher stopped waiting
+                        release(sourceNode, networkKey, migration, target);
+                    }
+                    finished.add(new Finished(migration, target, status));
+                });
+            }
+
+            if (running == 0) {
+                if (queue.isEmpty()) {
+                    break;
+                }
+                // Every remaining VM is blocked by slots held by other drains
+                if (!sleepQuietly(DISPATCH_WAIT_MS)) {
+                    interrupted(sourceNode, queue, started, finished, placement, statuses, stats, progress);
+                    break;
+                }
+                continue;
+            }
+
+            Finished done;
+            try {
+                done = finished.poll(DISPATCH_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted(sourceNode, queue, started, finished, placement, statuses, stats, progress);
+                break;
+            }
+            if (done == null) {
+                continue;
+            }
+
+            running--;
+            record(done, started, placement, statuses, stats);
+            progress.onProgress(stats.snapshot(running, queue.size()), List.copyOf(statuses));
+        }
+
+        return statuses;
+    }
+
+    /**
+     * Wind down an interrupted drain: collect migrations that finish within {@link #interruptedWaitMs},
+     * then report the ones still running and the queued ones, so every VM of the drain has a status.
+     */
+    private void interrupted(String sourceNode, List<PlannedMigration> queue, Map<Integer, Finished> started,
+                             BlockingQueue<Finished> finished, Placement placement,
+                             List<VMMigrationStatus> statuses, Stats stats, ProgressListener progress) {
+        LOG.warn("Migration scheduling for {} interrupted with {} running and {} queued",
+                 sourceNode, started.size(), queue.size());
+
+        // Clear the interrupt so the bounded wait below can block; it is restored afterwards
+        Thread.interrupted();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interruptedWaitMs);
+        try {
+            while (!started.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Finished done = finished.poll(remaining, TimeUnit.NANOSECONDS);
+                if (done != null) {
+                    record(done, started, placement, statuses, stats);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Stopped waiting for running migrations off {}", sourceNode);
+        } finally {
+            Thread.currentThread().interrupt();
+        }
+
+        for (PlannedMigration migration : queue) {
+            VMResponse vm = migration.vm();
+            statuses.add(new VMMigrationStatus(vm.vmid(), vm.name(), "skipped", null, "Drain interrupted before migration started"));
+        }
+        if (!started.isEmpty()) {
+            LOG.warn("{} migrations off {} still running after the drain was interrupted", started.size(), sourceNode);
+            for (Finished running : started.values()) {
+                VMResponse vm = running.migration().vm();
+                statuses.add(new VMMigrationStatus(vm.vmid(), vm.name(), "in-progress", running.target(),
+                    "Drain interrupted while migration was running"));
+            }
+        }
+        progress.onProgress(stats.snapshot(started.size(), 0), List.copyOf(statuses));
+        queue.clear();
+    }
+
+    private static void record(Finished done, Map<Integer, Finished> started, Placement placement,
+                               List<VMMigrationStatus> statuses, Stats stats) {
+        started.remove(done.migration().vm().vmid());
+        placement.finished(done.migration(), done.target(), "completed".equals(done.status().status()));
+        statuses.add(done.status());
+        if ("completed".equals(done.status().status())) {
+            stats.completed++;
+            stats.bytesMigrated += done.migration().estimatedBytes();
+        } else {
+            stats.failed++;
+        }
+    }
+
+    private synchronized String admit(String sourceNode, String networkKey, PlannedMigration migration,
+                                      Placement placement, MigrationConfig.Scheduler limits) {
+        if (!hasSlot("source:" + sourceNode, limits.perSourceNode()) || !hasSlot(networkKey, limits.perNetwork())) {
+            return null;
+        }
+        for (String storage : migration.storages()) {
+            if (!hasSlot(storageKey(sourceNode, storage), limits.perStorage())) {
+                return null;
+            }
+        }
+        String target = placement.choose(migration, node -> hasSlot("target:" + node, limits.perTargetNode()));
+        if (target == null) {
+            return null;
+        }
+
+        increment("source:" + sourceNode, 1);
+        increment("target:" + target, 1);
+        increment(networkKey, 1);
+        for (String storage : migration.storages()) {
+            increment(storageKey(sourceNode, storage), 1);
+        }
+        LOG.debug("Admitted migration of VM {} from {} to {}", migration.vm().vmid(), sourceNode, target);
+        return target;
+    }
+
+    private synchronized void release(String sourceNode, String networkKey, PlannedMigration migration, String target) {
+        increment("source:" + sourceNode, -1);
+        increment("target:" + target, -1);
+        increment(networkKey, -1);
+        for (String storage : migration.storages()) {
+            increment(storageKey(sourceNode, storage), -1);
+        }
+    }
+
+    private static String storageKey(String sourceNode, String storage) {
+        // Local storages are per node, so the same name on two nodes is two storages
+        return "storage:" + sourceNode + "/" + storage;
+    }
+
+    private boolean hasSlot(String key, int limit) {
+        return inFlight.getOrDefault(key, 0) < limit;
+    }
+
+    private void increment(String key, int delta) {
+        inFlight.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static boolean sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * One VM to migrate
+     *
+     * @param estimatedBytes Data expected to cross the network: memory, plus disks when they are on local storage
+     * @param storages Local storages whose disks are copied by the migration
+     */
+    public record PlannedMigration(VMResponse vm, long estimatedBytes, Set<String> storages) {
+    }
+
+    /**
+     * A candidate target node
+     *
+     * @param freeMemory Free memory in bytes, or a negative value when unknown
+     */
+    public record TargetNode(String name, long freeMemory) {
+    }
+
+    /**
+     * Performs one migration
+     */
+    @FunctionalInterface
+    public interface Migrator {
+        VMMigrationStatus migrate(VMResponse vm, String targetNode);
+    }
+
+    /**
+     * Receives drain progress after every finished VM
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(DrainProgress progress, List<VMMigrationStatus> statuses);
+    }
+
+    /**
+     * A started migration; the status is null until it has finished
+     */
+    private record Finished(PlannedMigration migration, String target, VMMigrationStatus status) {
+    }
+
+    /**
+     * Target capacity for one drain: the last read free memory minus memory placed since that read
+     */
+    private static final class Placement {
+        private final Supplier<List<TargetNode>> supplier;
+        private final Map<String, Long> placedSinceRefresh = new HashMap<>();
+        private final Map<String, Long> inFlightMemory = new HashMap<>();
+        private List<TargetNode> targets = List.of();
+        private long refreshedAt;
+
+        Placement(Supplier<List<TargetNode>> supplier) {
+            this.supplier = supplier;
+        }
+
+        /**
+         * First read of the targets, retried; a drain cannot place anything without it
+         */
+        void load(int attempts, String sourceNode) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    targets = supplier.get();
+                    refreshedAt = System.nanoTime();
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= attempts) {
+                        throw ProxmoxException.serviceUnavailable("migration targets",
+                            "could not read target nodes for draining " + sourceNode + ": " + e.getMessage());
+                    }
+                    LOG.warn("Failed to read migration targets (attempt {}/{}), retrying: {}", attempt, attempts, e.getMessage());
+                    if (!sleepQuietly(DISPATCH_WAIT_MS)) {
+                        throw ProxmoxException.serviceUnavailable("migration targets",
+                            "interrupted while reading target nodes for draining " + sourceNode);
+                    }
+                }
+            }
+        }
+
+        void refreshIfStale(Duration interval) {
+            long now = System.nanoTime();
+            if (refreshedAt != 0 && now - refreshedAt < interval.toNanos()) {
+                return;
+            }
+            try {
+                targets = supplier.get();
+                refreshedAt = now;
+                // A fresh read already counts completed migrations; only in-flight ones are still pending
+                placedSinceRefresh.clear();
+                placedSinceRefresh.putAll(inFlightMemory);
+            } catch (Exception e) {
+                LOG.warn("Failed to refresh migration targets, keeping previous view: {}", e.getMessage());
+                refreshedAt = now;
+            }
+        }
+
+        boolean hasCandidate(PlannedMigration migration) {
+            return targets.stream().anyMatch(target -> fits(target, migration));
+        }
+
+        String choose(PlannedMigration migration, Predicate<String> hasSlot) {
+            TargetNode best = null;
+            long bestRemaining = Long.MIN_VALUE;
+            for (TargetNode target : targets) {
+                if (!fits(target, migration) || !hasSlot.test(target.name())) {
+                    continue;
+                }
+                long remaining = remaining(target) - migration.vm().maxmem();
+                if (best == null || remaining > bestRemaining) {
+                    best = target;
+                    bestRemaining = remaining;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            placedSinceRefresh.merge(best.name(), migration.vm().maxmem(), Long::sum);
+            inFlightMemory.merge(best.name(), migration.vm().maxmem(), Long::sum);
+            return best.name();
+        }
+
+        void finished(PlannedMigration migration, String target, boolean succeeded) {
+            inFlightMemory.merge(target, -migration.vm().maxmem(), Long::sum);
+            if (!succeeded) {
+                // The VM stayed on the source node
+                placedSinceRefresh.merge(target, -migration.vm().maxmem(), Long::sum);
+            }
+        }
+
+        private boolean fits(TargetNode target, PlannedMigration migration) {
+            return target.freeMemory() < 0 || remaining(target) >= migration.vm().maxmem();
+        }
+
+        private long remaining(TargetNode target) {
+            if (target.freeMemory() < 0) {
+                return Long.MAX_VALUE / 2 - placedSinceRefresh.getOrDefault(target.name(), 0L);
+            }
+            return target.freeMemory() - placedSinceRefresh.getOrDefault(target.name(), 0L);
+        }
+    }
+
+    /**
+     * Running totals used for throughput and ETA
+     */
+    private static final class Stats {
+        private final long bytesTotal;
+        private final long startedAt = System.nanoTime();
+        private int completed;
+        private int failed;
+        private long bytesMigrated;
+
+        Stats(long bytesTotal) {
+            this.bytesTotal = bytesTotal;
+        }
+
+        DrainProgress snapshot(int running, int queued) {
+            double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - startedAt) / 1e9);
+            double throughput = bytesMigrated / elapsedSeconds;
+            long remainingBytes = Math.max(0, bytesTotal - bytesMigrated);
+            Long etaSeconds = throughput > 0 ? Math.round(remainingBytes / throughput) : null;
+            return new DrainProgress(completed, failed, running, queued, bytesMigrated, bytesTotal,
+                                     Math.round(throughput), etaSeconds);
+        }
+    }
+}
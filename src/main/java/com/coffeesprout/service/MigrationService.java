@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
@@ -45,7 +46,7 @@ public class MigrationService {
     TicketManager ticketManager;
 
     @Inject
-    TaskService taskService;
+    TaskWatcherService taskWatcherService;
 
     @Inject
     MigrationConfig migrationConfig;
@@ -53,6 +54,12 @@ public class MigrationService {
     @Inject
     StorageConfigCache storageCache;
 
+    @Inject
+    MigrationPlanner migrationPlanner;
+
+    @Inject
+    VMInventoryService vmInventoryService;
+
     @Inject
     @VirtualThreads
     ExecutorService executorService;
@@ -63,7 +70,7 @@ public class MigrationService {
      *
      * @return LocalDiskDetectionResult containing detection details
      */
-    private LocalDiskDetectionResult detectLocalDisks(int vmId, String node, String ticket) {
+    public LocalDiskDetectionResult detectLocalDisks(int vmId, String node, @AuthTicket String ticket) {
         if (!migrationConfig.autoDetectLocalDisks()) {
             LOG.debug("Auto-detection disabled by configuration");
             return new LocalDiskDetectionResult(false, null, null);
@@ -422,7 +429,9 @@ public class MigrationService {
 
         try {
             // Wait for task completion (no timeout - migrations can take hours)
-            TaskStatusDetailResponse taskStatus = waitForTaskCompletion(taskUpid, ticket);
+            TaskStatusDetailResponse taskStatus = waitForTaskCompletion(taskUpid);
+            // The VM may have moved even if the task failed; stop serving its old node
+            vmInventoryService.invalidate();
 
             if (!"OK".equals(taskStatus.exitstatus())) {
                 migration.markFailed("Migration task failed: " + taskStatus.exitstatus());
@@ -432,7 +441,7 @@ public class MigrationService {
 
             // Verify VM is on target node
             Thread.sleep(2000);
-            List<VMResponse> updatedVms = vmService.listVMs(ticket);
+            List<VMResponse> updatedVms = vmService.listVMsFresh(ticket);
             VMResponse migratedVm = updatedVms.stream()
                 .filter(v -> v.vmid() == vmId)
                 .findFirst()
@@ -573,13 +582,16 @@ public class MigrationService {
             }
 
             migration.taskUpid = task.getData();
+            // Recorded so later drains can measure this node's migration throughput
+            migration.options.put(MigrationPlanner.DATA_BYTES_OPTION,
+                migrationPlanner.estimate(vm, needsLocalDiskMigration, null).dataBytes());
             migration.persist();
 
             LOG.info("Migration task {} started for VM {}", task.getData(), vmId);
 
             // 4. Monitor task completion
             try {
-                TaskStatusDetailResponse taskStatus = waitForTaskCompletion(task.getData(), ticket);
+                TaskStatusDetailResponse taskStatus = waitForTaskCompletion(task.getData());
 
                 if (!"OK".equals(taskStatus.exitstatus())) {
                     throw ProxmoxException.internalError("Migration task failed with status: " + taskStatus.exitstatus());
@@ -587,12 +599,14 @@ public class MigrationService {
             } catch (Exception e) {
                 LOG.error("Error waiting for migration task: {}", e.getMessage());
                 // Continue to check VM state anyway
+            } finally {
+                vmInventoryService.invalidate();
             }
 
             // 5. Verify VM is on target node and check state
             Thread.sleep(2000); // Give Proxmox a moment to update
 
-            List<VMResponse> updatedVms = vmService.listVMs(ticket);
+            List<VMResponse> updatedVms = vmService.listVMsFresh(ticket);
             VMResponse migratedVm = updatedVms.stream()
                 .filter(v -> v.vmid() == vmId)
                 .findFirst()
@@ -620,7 +634,7 @@ public class MigrationService {
                     Thread.sleep(3000);
 
                     // Check state again
-                    updatedVms = vmService.listVMs(ticket);
+                    updatedVms = vmService.listVMsFresh(ticket);
                     migratedVm = updatedVms.stream()
                         .filter(v -> v.vmid() == vmId)
                         .findFirst()
@@ -735,10 +749,13 @@ public class MigrationService {
 
             migration.taskUpid = task.getData();
             migration.migrationType = "offline";
+            // Local disks are not sent with an offline fallback, so the online estimate no longer applies
+            migration.options.remove(MigrationPlanner.DATA_BYTES_OPTION);
             migration.persist();
 
             // Wait for migration to complete
-            TaskStatusDetailResponse taskStatus = waitForTaskCompletion(task.getData(), ticket);
+            TaskStatusDetailResponse taskStatus = waitForTaskCompletion(task.getData());
+            vmInventoryService.invalidate();
 
             if (!"OK".equals(taskStatus.exitstatus())) {
                 throw ProxmoxException.internalError("Offline migration task failed with status: " + taskStatus.exitstatus());
@@ -752,7 +769,7 @@ public class MigrationService {
             Thread.sleep(3000);
 
             // Verify final state
-            List<VMResponse> updatedVms = vmService.listVMs(ticket);
+            List<VMResponse> updatedVms = vmService.listVMsFresh(ticket);
             VMResponse migratedVm = updatedVms.stream()
                 .filter(v -> v.vmid() == vm.vmid())
                 .findFirst()
@@ -850,25 +867,16 @@ public class MigrationService {
     /**
      * Wait for a task to complete (no timeout - migrations can take hours)
      */
-    private TaskStatusDetailResponse waitForTaskCompletion(String upid, String ticket) throws Exception {
+    private TaskStatusDetailResponse waitForTaskCompletion(String upid) throws Exception {
         LOG.info("Waiting for task {} to complete (this may take a while for large disks)...", upid);
 
-        int checkCount = 0;
-        while (true) {
-            TaskStatusDetailResponse status = taskService.getTaskStatus(upid, ticket);
-
-            if (Boolean.TRUE.equals(status.finished())) {
-                LOG.info("Task {} completed with status: {}", upid, status.exitstatus());
-                return status;
-            }
-
-            // Log progress every 10 checks (20 seconds)
-            if (++checkCount % 10 == 0) {
-                LOG.info("Migration still in progress... (checked {} times)", checkCount);
+        try {
+            return taskWatcherService.watch(upid).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
             }
-
-            // Wait 2 seconds before checking again
-            Thread.sleep(2000);
+            throw e;
         }
     }
 
@@ -6,18 +6,24 @@ import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
+import com.coffeesprout.api.dto.DrainPlanResponse;
 import com.coffeesprout.api.dto.NodeDrainRequest;
 import com.coffeesprout.api.dto.NodeDrainResponse;
+import com.coffeesprout.api.dto.NodeDrainResponse.DrainProgress;
 import com.coffeesprout.api.dto.NodeDrainResponse.VMMigrationStatus;
 import com.coffeesprout.api.dto.NodeMaintenanceResponse;
 import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.client.Node;
+import com.coffeesprout.client.NodeStatus;
 import com.coffeesprout.model.NodeMaintenance;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.jboss.logging.Logger;
 
 /**
@@ -41,6 +47,16 @@ public class NodeMaintenanceService {
     @Inject
     NodeService nodeService;
 
+    @Inject
+    MigrationScheduler migrationScheduler;
+
+    @Inject
+    MigrationPlanner migrationPlanner;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
     /**
      * Drain a node by migrating all VMs off it.
      */
@@ -110,11 +126,19 @@ public class NodeMaintenanceService {
                 LOG.errorf(e, "Drain operation %s failed: %s", finalDrainId, e.getMessage());
                 markDrainFailed(finalDrainId, e.getMessage());
             }
-        });
+        }, executorService);
 
         return drainResponse;
     }
 
+    /**
+     * Predict the cost and duration of draining a node without migrating anything.
+     */
+    public DrainPlanResponse planDrain(String node, NodeDrainRequest request, @AuthTicket String ticket) {
+        List<VMResponse> vmsToMigrate = filterVMsForDrain(vmService.listVMsWithFilters(null, null, node, null, ticket), request);
+        return migrationPlanner.plan(node, estimateMigrations(node, vmsToMigrate, ticket), drainConcurrency(request));
+    }
+
     /**
      * Execute the actual drain operation (migrating VMs).
      */
@@ -122,32 +146,29 @@ public class NodeMaintenanceService {
                                        NodeDrainRequest request, String ticket) {
         LOG.infof("Executing drain operation %s for node %s with %d VMs", drainId, node, vms.size());
 
-        List<VMMigrationStatus> vmStatuses = new ArrayList<>();
-        int completed = 0;
-        int failed = 0;
+        List<MigrationPlanner.MigrationEstimate> estimates = estimateMigrations(node, vms, ticket);
+        DrainPlanResponse plan = migrationPlanner.plan(node, estimates, drainConcurrency(request));
+        LOG.infof("Drain %s plan: %d bytes over %d concurrent migrations, predicted %d seconds, bwlimit %s KiB/s",
+                  drainId, plan.totalBytes(), plan.concurrency(), plan.predictedMakespanSeconds(), plan.bwlimit());
 
-        if (request.parallelOrDefault()) {
-            // Parallel migration with concurrency limit
-            completed = executeParallelMigrations(drainId, node, vms, request, ticket, vmStatuses);
-            failed = vms.size() - completed;
-        } else {
-            // Sequential migration
-            for (VMResponse vm : vms) {
-                VMMigrationStatus status = migrateVM(vm, node, request, ticket);
-                vmStatuses.add(status);
-
-                if ("completed".equals(status.status())) {
-                    completed++;
-                } else {
-                    failed++;
-                }
+        // Sequential drains are a scheduler run with a concurrency of one
+        int maxConcurrent = request.parallelOrDefault() ? request.maxConcurrentOrDefault() : 1;
+        List<VMMigrationStatus> vmStatuses = migrationScheduler.run(
+            node,
+            estimates.stream()
+                .map(estimate -> new MigrationScheduler.PlannedMigration(estimate.vm(), estimate.dataBytes(), estimate.storages()))
+                .toList(),
+            maxConcurrent,
+            () -> drainTargets(node, request, ticket),
+            (vm, targetNode) -> migrateVM(vm, node, targetNode, request, plan.bwlimit(), ticket),
+            (progress, statuses) -> updateDrainProgress(drainId, progress, statuses)
+        );
 
-                // Update progress
-                updateDrainProgress(drainId, completed, failed, vmStatuses);
-            }
-        }
+        int completed = (int) vmStatuses.stream().filter(status -> "completed".equals(status.status())).count();
+        int failed = vms.size() - completed;
 
         // Mark operation as complete
+        NodeDrainResponse current = drainOperations.get(drainId);
         NodeDrainResponse finalResponse = new NodeDrainResponse(
             drainId,
             node,
@@ -157,9 +178,10 @@ public class NodeMaintenanceService {
             completed,
             failed,
             vmStatuses,
-            drainOperations.get(drainId).startedAt(),
+            current.startedAt(),
             LocalDateTime.now(),
-            String.format("Drain completed: %d/%d VMs migrated successfully", completed, vms.size())
+            String.format("Drain completed: %d/%d VMs migrated successfully", completed, vms.size()),
+            current.progress()
         );
 
         drainOperations.put(drainId, finalResponse);
@@ -169,65 +191,72 @@ public class NodeMaintenanceService {
     }
 
     /**
-     * Execute migrations in parallel with concurrency control.
+     * Estimate how much data each migration moves and which local storages it copies from.
      */
-    private int executeParallelMigrations(String drainId, String node, List<VMResponse> vms,
-                                          NodeDrainRequest request, String ticket,
-                                          List<VMMigrationStatus> vmStatuses) {
-        int maxConcurrent = request.maxConcurrentOrDefault();
-        LOG.infof("Executing parallel migrations with max concurrency: %d", maxConcurrent);
-
-        List<CompletableFuture<VMMigrationStatus>> futures = vms.stream()
-            .map(vm -> CompletableFuture.supplyAsync(() -> migrateVM(vm, node, request, ticket)))
-            .collect(Collectors.toList());
+    private List<MigrationPlanner.MigrationEstimate> estimateMigrations(String node, List<VMResponse> vms, String ticket) {
+        List<MigrationPlanner.MigrationEstimate> estimates = new ArrayList<>();
+        for (VMResponse vm : vms) {
+            MigrationService.LocalDiskDetectionResult localDisks = migrationService.detectLocalDisks(vm.vmid(), node, ticket);
+            boolean copiesDisks = localDisks.hasLocalDisks() && localDisks.localStoragePools() != null;
+            Set<String> storages = copiesDisks ? Set.copyOf(localDisks.localStoragePools()) : Set.of();
+            estimates.add(migrationPlanner.estimate(vm, copiesDisks, storages));
+        }
+        return estimates;
+    }
 
-        // Wait for all to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    /**
+     * Migrations of a drain sharing the source node's link at once.
+     */
+    private int drainConcurrency(NodeDrainRequest request) {
+        return migrationScheduler.sourceConcurrency(request.parallelOrDefault() ? request.maxConcurrentOrDefault() : 1);
+    }
 
-        // Collect results
-        int completed = 0;
-        for (CompletableFuture<VMMigrationStatus> future : futures) {
+    /**
+     * Candidate target nodes for a drain with their free memory.
+     */
+    private List<MigrationScheduler.TargetNode> drainTargets(String sourceNode, NodeDrainRequest request, String ticket) {
+        if (request.targetNode() != null) {
+            return List.of(new MigrationScheduler.TargetNode(request.targetNode(), -1));
+        }
+
+        List<MigrationScheduler.TargetNode> targets = new ArrayList<>();
+        for (Node candidate : nodeService.listNodes(ticket)) {
+            String name = candidate.getName();
+            if (name.equals(sourceNode)
+                    || (candidate.getStatus() != null && !"online".equals(candidate.getStatus()))
+                    || NodeMaintenance.isNodeInMaintenance(name)) {
+                continue;
+            }
+            long freeMemory = -1;
             try {
-                VMMigrationStatus status = future.get();
-                vmStatuses.add(status);
-                if ("completed".equals(status.status())) {
-                    completed++;
+                NodeStatus status = nodeService.getNodeStatus(name, ticket);
+                if (status != null && status.getMemory() != null) {
+                    freeMemory = status.getMemory().getFree();
                 }
             } catch (Exception e) {
-                LOG.error("Failed to get migration status", e);
+                LOG.warnf("Could not read free memory of node %s: %s", name, e.getMessage());
             }
+            targets.add(new MigrationScheduler.TargetNode(name, freeMemory));
         }
 
-        return completed;
+        if (targets.isEmpty()) {
+            LOG.error("No available target nodes for migration");
+        }
+        return targets;
     }
 
     /**
      * Migrate a single VM to another node.
      * Handles always-on and maint-ok tags appropriately.
      */
-    private VMMigrationStatus migrateVM(VMResponse vm, String sourceNode, NodeDrainRequest request, String ticket) {
+    private VMMigrationStatus migrateVM(VMResponse vm, String sourceNode, String targetNode,
+                                        NodeDrainRequest request, Integer bwlimit, String ticket) {
         try {
             boolean isAlwaysOn = vm.tags() != null && vm.tags().contains("always-on");
             boolean hasMaintOk = vm.tags() != null && vm.tags().contains("maint-ok");
 
-            LOG.infof("Migrating VM %d (%s) from %s [always-on: %s, maint-ok: %s, status: %s]",
-                     vm.vmid(), vm.name(), sourceNode, isAlwaysOn, hasMaintOk, vm.status());
-
-            // Determine target node
-            String targetNode = request.targetNode();
-            if (targetNode == null) {
-                // Auto-select target node
-                targetNode = selectBestTargetNode(sourceNode, vm, ticket);
-                if (targetNode == null) {
-                    return new VMMigrationStatus(
-                        vm.vmid(),
-                        vm.name(),
-                        "failed",
-                        null,
-                        "No suitable target node found"
-                    );
-                }
-            }
+            LOG.infof("Migrating VM %d (%s) from %s to %s [always-on: %s, maint-ok: %s, status: %s]",
+                     vm.vmid(), vm.name(), sourceNode, targetNode, isAlwaysOn, hasMaintOk, vm.status());
 
             // Determine if offline migration is allowed
             boolean allowOffline;
@@ -251,10 +280,10 @@ public class NodeMaintenanceService {
                     allowOffline,
                     true, // withLocalDisks
                     false, // force
-                    null, // bwlimit
+                    bwlimit,
                     null, // targetStorage
                     null, // migrationType
-                    null  // migrationNetwork
+                    migrationScheduler.migrationNetwork()
                 );
 
             // Execute migration
@@ -285,33 +314,6 @@ public class NodeMaintenanceService {
         }
     }
 
-    /**
-     * Select the best target node for migration.
-     */
-    private String selectBestTargetNode(String sourceNode, VMResponse vm, String ticket) {
-        // Get all available nodes from node service
-        try {
-            // Get all nodes except source
-            List<String> availableNodes = nodeService.listNodes(ticket).stream()
-                .map(node -> node.getName())
-                .filter(nodeName -> !nodeName.equals(sourceNode))
-                .filter(nodeName -> !NodeMaintenance.isNodeInMaintenance(nodeName))
-                .collect(Collectors.toList());
-
-            if (availableNodes.isEmpty()) {
-                LOG.error("No available target nodes for migration");
-                return null;
-            }
-
-            // Simple round-robin for now - could be enhanced with resource-based selection
-            return availableNodes.get(new Random().nextInt(availableNodes.size()));
-
-        } catch (Exception e) {
-            LOG.error("Failed to select target node", e);
-            return null;
-        }
-    }
-
     /**
      * Enable maintenance mode for a node.
      */
@@ -431,7 +433,8 @@ public class NodeMaintenanceService {
         final String finalTicket = ticket;
 
         // Start async undrain
-        CompletableFuture.runAsync(() -> executeUndrainOperation(finalUndrainId, finalNode, finalVmList, finalTicket));
+        CompletableFuture.runAsync(() -> executeUndrainOperation(finalUndrainId, finalNode, finalVmList, finalTicket),
+            executorService);
 
         return response;
     }
@@ -527,21 +530,24 @@ public class NodeMaintenanceService {
         maintenance.persist();
     }
 
-    private void updateDrainProgress(String drainId, int completed, int failed, List<VMMigrationStatus> statuses) {
+    private void updateDrainProgress(String drainId, DrainProgress progress, List<VMMigrationStatus> statuses) {
         NodeDrainResponse current = drainOperations.get(drainId);
         if (current != null) {
+            String eta = progress.etaSeconds() != null ? ", ETA " + progress.etaSeconds() + "s" : "";
             NodeDrainResponse updated = new NodeDrainResponse(
                 current.drainId(),
                 current.node(),
                 current.operation(),
                 "in_progress",
                 current.totalVMs(),
-                completed,
-                failed,
+                progress.completed(),
+                progress.failed(),
                 new ArrayList<>(statuses),
                 current.startedAt(),
                 null,
-                String.format("Progress: %d/%d completed", completed, current.totalVMs())
+                String.format("Progress: %d/%d completed, %d running, %d queued%s",
+                    progress.completed(), current.totalVMs(), progress.running(), progress.queued(), eta),
+                progress
             );
             drainOperations.put(drainId, updated);
         }
@@ -561,7 +567,8 @@ public class NodeMaintenanceService {
                 current.vmStatus(),
                 current.startedAt(),
                 LocalDateTime.now(),
-                "Drain failed: " + error
+                "Drain failed: " + error,
+                current.progress()
             );
             drainOperations.put(drainId, failed);
         }
@@ -657,7 +664,7 @@ public class NodeMaintenanceService {
             Thread.sleep(2000);
 
             // Check current state
-            List<VMResponse> currentVMs = vmService.listVMs(ticket);
+            List<VMResponse> currentVMs = vmService.listVMsFresh(ticket);
             VMResponse currentVM = currentVMs.stream()
                 .filter(v -> v.vmid() == vm.vmid())
                 .findFirst()
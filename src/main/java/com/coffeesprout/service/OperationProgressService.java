@@ -0,0 +1,205 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import io.quarkus.scheduler.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes per-VM results of bulk operations to live subscribers.
+ *
+ * A bulk request carries a client-chosen operation ID; the service publishes each VM's result under that
+ * ID as soon as it is known and the full response when the operation ends. Events are buffered per
+ * operation, so a subscriber that connects late (or before the request arrives) still sees every event.
+ * Finished operations are dropped after a retention period; subscriptions to an operation that never
+ * starts receive a {@code failed} event once that period has passed.
+ */
+@ApplicationScoped
+public class OperationProgressService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OperationProgressService.class);
+
+    // How long finished or never-started operations are kept for late subscribers
+    private static final Duration RETENTION = Duration.ofMinutes(10);
+    // Upper bound on buffered results per operation; the terminal event is always kept
+    private static final int MAX_BUFFERED_EVENTS = 10_000;
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Mark the start of a bulk request under an operation ID. A finished operation with the same ID is
+     * replaced, so its events are not replayed to subscribers of the new run. No-op without an operation ID.
+     */
+    public void start(String operationId) {
+        if (operationId == null) {
+            return;
+        }
+        operations.compute(operationId, (id, existing) -> {
+            if (existing == null || existing.isFinished()) {
+                existing = new Operation();
+            }
+            existing.start();
+            return existing;
+        });
+    }
+
+    /**
+     * Publish the result for one VM. No-op without an operation ID.
+     */
+    public void publishResult(String operationId, int vmId, Object result) {
+        if (operationId == null) {
+            return;
+        }
+        operation(operationId).publish(new ProgressEvent(operationId, ProgressEvent.RESULT, vmId, result));
+    }
+
+    /**
+     * Publish the final response and end the operation. No-op without an operation ID.
+     */
+    public void complete(String operationId, Object response) {
+        if (operationId == null) {
+            return;
+        }
+        Operation operation = operation(operationId);
+        operation.publish(new ProgressEvent(operationId, ProgressEvent.COMPLETED, null, response));
+        operation.finish();
+    }
+
+    /**
+     * Publish an error and end the operation. No-op without an operation ID.
+     */
+    public void fail(String operationId, String message) {
+        if (operationId == null) {
+            return;
+        }
+        Operation operation = operation(operationId);
+        operation.publish(new ProgressEvent(operationId, ProgressEvent.FAILED, null, Map.of("error", String.valueOf(message))));
+        operation.finish();
+    }
+
+    /**
+     * Receive all buffered and future events of an operation until it completes or the subscription is closed
+     */
+    public TaskWatcherService.Subscription subscribe(String operationId, ProgressListener listener) {
+        Operation operation = operation(operationId);
+        operation.subscribe(listener);
+        return () -> operation.unsubscribe(listener);
+    }
+
+    @Scheduled(every = "1m", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void expireOperations() {
+        Instant cutoff = Instant.now().minus(RETENTION);
+        operations.forEach((operationId, operation) -> {
+            if (operation.expire(operationId, cutoff)) {
+                operations.remove(operationId, operation);
+            }
+        });
+    }
+
+    private Operation operation(String operationId) {
+        return operations.computeIfAbsent(operationId, id -> new Operation());
+    }
+
+    /**
+     * Receives the progress of a bulk operation
+     */
+    public interface ProgressListener {
+        void onEvent(ProgressEvent event);
+    }
+
+    /**
+     * One progress event: a VM result, the final response or an error
+     */
+    public record ProgressEvent(String operationId, String type, Integer vmId, Object data) {
+        public static final String RESULT = "result";
+        public static final String COMPLETED = "completed";
+        public static final String FAILED = "failed";
+    }
+
+    private static final class Operation {
+        private final List<ProgressEvent> events = new ArrayList<>();
+        private final List<ProgressListener> listeners = new ArrayList<>();
+        private Instant lastActivity = Instant.now();
+        private ProgressEvent terminal;
+        private boolean started;
+
+        synchronized void start() {
+            started = true;
+            lastActivity = Instant.now();
+        }
+
+        synchronized void publish(ProgressEvent event) {
+            started = true;
+            lastActivity = Instant.now();
+            if (!ProgressEvent.RESULT.equals(event.type())) {
+                terminal = event;
+            } else if (events.size() < MAX_BUFFERED_EVENTS) {
+                events.add(event);
+            }
+            for (ProgressListener listener : List.copyOf(listeners)) {
+                deliver(listener, event);
+            }
+        }
+
+        synchronized void subscribe(ProgressListener listener) {
+            for (ProgressEvent event : events) {
+                deliver(listener, event);
+            }
+            if (terminal != null) {
+                deliver(listener, terminal);
+            } else {
+                listeners.add(listener);
+            }
+        }
+
+        synchronized void unsubscribe(ProgressListener listener) {
+            listeners.remove(listener);
+        }
+
+        synchronized void finish() {
+            listeners.clear();
+        }
+
+        synchronized boolean isFinished() {
+            return terminal != null;
+        }
+
+        /**
+         * Whether the operation can be dropped. Subscribers of an operation that never started are sent a
+         * {@code failed} event first, which ends their streams.
+         */
+        synchronized boolean expire(String operationId, Instant cutoff) {
+            if (!lastActivity.isBefore(cutoff)) {
+                return false;
+            }
+            if (!started && !listeners.isEmpty()) {
+                ProgressEvent timeout = new ProgressEvent(operationId, ProgressEvent.FAILED, null,
+                    Map.of("error", "Operation did not start within " + RETENTION.toMinutes() + " minutes"));
+                for (ProgressListener listener : List.copyOf(listeners)) {
+                    deliver(listener, timeout);
+                }
+                listeners.clear();
+                return true;
+            }
+            return terminal != null || listeners.isEmpty();
+        }
+
+        private static void deliver(ProgressListener listener, ProgressEvent event) {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                LOG.warn("Progress listener failed for operation {}: {}", event.operationId(), e.getMessage());
+            }
+        }
+    }
+}
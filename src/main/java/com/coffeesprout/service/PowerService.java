@@ -1,11 +1,6 @@
 package com.coffeesprout.service;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -13,8 +8,6 @@ import jakarta.inject.Inject;
 import com.coffeesprout.api.dto.BulkPowerRequest;
 import com.coffeesprout.api.dto.BulkPowerResponse;
 import com.coffeesprout.api.dto.VMResponse;
-import com.coffeesprout.api.exception.ProxmoxException;
-import com.coffeesprout.scheduler.service.VMSelectorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,53 +18,44 @@ public class PowerService {
     private static final Logger LOG = LoggerFactory.getLogger(PowerService.class);
 
     @Inject
-    VMService vmService;
+    OperationProgressService operationProgress;
+
+    @Inject
+    BulkOperationEngine bulkEngine;
 
     @Inject
-    VMSelectorService vmSelectorService;
+    VMService vmService;
 
     /**
-     * Perform bulk power operation on multiple VMs
+     * Start a bulk power operation as a background job and return its handle
      */
-    public BulkPowerResponse bulkPowerOperation(BulkPowerRequest request, @AuthTicket String ticket) {
+    public BulkJobHandle<BulkPowerResponse> startBulkPowerOperation(BulkPowerRequest request, String operationId,
+                                                                    @AuthTicket String ticket) {
         LOG.info("Starting bulk {} operation with {} selectors",
                 request.operation(), request.vmSelectors().size());
 
-        // Get all VMs that match the selectors
-        List<VMResponse> targetVMs = new ArrayList<>();
-        for (var selector : request.vmSelectors()) {
-            try {
-                List<VMResponse> vms = vmSelectorService.selectVMs(selector, ticket);
-                targetVMs.addAll(vms);
-            } catch (Exception e) {
-                LOG.error("Failed to select VMs with selector {}: {}", selector, e.getMessage());
-                throw ProxmoxException.internalError("select VMs with selector " + selector, e);
-            }
-        }
+        operationProgress.start(operationId);
 
-        // Remove duplicates
-        Map<Integer, VMResponse> uniqueVMs = new HashMap<>();
-        for (VMResponse vm : targetVMs) {
-            uniqueVMs.put(vm.vmid(), vm);
+        List<VMResponse> targetVMs;
+        try {
+            targetVMs = bulkEngine.selectTargets(request.vmSelectors(), ticket);
+        } catch (RuntimeException e) {
+            operationProgress.fail(operationId, e.getMessage());
+            throw e;
         }
-        targetVMs = new ArrayList<>(uniqueVMs.values());
-
-        LOG.info("Found {} unique VMs matching selectors", targetVMs.size());
 
         if (targetVMs.isEmpty()) {
-            return new BulkPowerResponse(
+            return bulkEngine.completed(operationId, new BulkPowerResponse(
                 Map.of(),
                 "No VMs found matching the provided selectors",
                 0, 0, 0, 0,
                 request.dryRun()
-            );
+            ));
         }
 
-        // Prepare results map - use concurrent map for thread safety
-        Map<Integer, BulkPowerResponse.PowerResult> results = new ConcurrentHashMap<>();
-
         // If dry run, just show what would be done
         if (request.dryRun()) {
+            Map<Integer, BulkPowerResponse.PowerResult> results = new HashMap<>();
             for (VMResponse vm : targetVMs) {
                 String targetState = getTargetState(request.operation());
                 results.put(vm.vmid(), BulkPowerResponse.PowerResult.dryRun(
@@ -79,7 +63,7 @@ public class PowerService {
                 ));
             }
 
-            return new BulkPowerResponse(
+            return bulkEngine.completed(operationId, new BulkPowerResponse(
                 results,
                 String.format("Dry run: Would perform %s on %d VMs",
                     request.operation(), targetVMs.size()),
@@ -88,87 +72,87 @@ public class PowerService {
                 0,
                 0,
                 true
-            );
+            ));
         }
 
-        // Create executor for parallel operations
-        ExecutorService executor = Executors.newFixedThreadPool(request.maxParallel());
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (VMResponse vm : targetVMs) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    // Check if we should skip this VM
-                    if (request.skipIfAlreadyInState() && isInTargetState(vm, request.operation())) {
-                        results.put(vm.vmid(), BulkPowerResponse.PowerResult.skipped(
-                            vm.status(), "Already in desired state", vm.name()
-                        ));
-                        LOG.info("Skipping VM {} ({}) - already {}",
-                            vm.vmid(), vm.name(), vm.status());
-                        return;
-                    }
-
-                    // Find the node for this VM
-                    String node = vm.node();
-                    String previousState = vm.status();
-
-                    // Perform the operation
-                    LOG.info("Performing {} on VM {} ({}) on node {}",
-                        request.operation(), vm.vmid(), vm.name(), node);
-
-                    switch (request.operation()) {
-                        case START:
-                            vmService.startVM(node, vm.vmid(), ticket);
-                            break;
-                        case STOP:
-                            vmService.stopVM(node, vm.vmid(), ticket);
-                            break;
-                        case SHUTDOWN:
-                            vmService.shutdownVM(node, vm.vmid(), ticket);
-                            break;
-                        case REBOOT:
-                            vmService.rebootVM(node, vm.vmid(), ticket);
-                            break;
-                        case SUSPEND:
-                            // TODO: Implement suspend when available
-                            throw new UnsupportedOperationException("Suspend not yet implemented");
-                        case RESUME:
-                            // TODO: Implement resume when available
-                            throw new UnsupportedOperationException("Resume not yet implemented");
-                    }
-
-                    // For now, we don't have task IDs from these operations
-                    // In a real implementation, we'd capture the task ID
-                    results.put(vm.vmid(), BulkPowerResponse.PowerResult.success(
-                        previousState, getTargetState(request.operation()),
-                        "task-" + vm.vmid(), vm.name()
-                    ));
-
-                    LOG.info("Successfully performed {} on VM {} ({})",
-                        request.operation(), vm.vmid(), vm.name());
-
-                } catch (Exception e) {
-                    LOG.error("Failed to perform {} on VM {} ({}): {}",
-                        request.operation(), vm.vmid(), vm.name(), e.getMessage());
-                    results.put(vm.vmid(), BulkPowerResponse.PowerResult.error(
-                        vm.status(), e.getMessage(), vm.name()
-                    ));
+        int total = targetVMs.size();
+        return bulkEngine.submit("power:" + request.operation(), operationId, targetVMs, request.maxParallel(),
+            new BulkOperationEngine.BulkTask<BulkPowerResponse.PowerResult>() {
+                @Override
+                public BulkPowerResponse.PowerResult execute(VMResponse vm) {
+                    return performPowerOperation(request, vm, ticket);
+                }
+
+                @Override
+                public BulkPowerResponse.PowerResult failed(VMResponse vm, Exception error) {
+                    return BulkPowerResponse.PowerResult.error(vm.status(), error.getMessage(), vm.name());
+                }
+
+                @Override
+                public BulkPowerResponse.PowerResult cancelled(VMResponse vm) {
+                    return BulkPowerResponse.PowerResult.skipped(vm.status(), "Bulk job cancelled", vm.name());
                 }
-            }, executor);
 
-            futures.add(future);
+                @Override
+                public String status(BulkPowerResponse.PowerResult result) {
+                    return result.status();
+                }
+            },
+            results -> summarizePowerResults(request, total, results));
+    }
+
+    private BulkPowerResponse.PowerResult performPowerOperation(BulkPowerRequest request, VMResponse vm, String ticket) {
+        // Check if we should skip this VM
+        if (request.skipIfAlreadyInState() && isInTargetState(vm, request.operation())) {
+            LOG.info("Skipping VM {} ({}) - already {}",
+                vm.vmid(), vm.name(), vm.status());
+            return BulkPowerResponse.PowerResult.skipped(
+                vm.status(), "Already in desired state", vm.name()
+            );
         }
 
-        // Wait for all tasks to complete
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
-            executor.shutdown();
-            executor.awaitTermination(request.timeoutSeconds(), TimeUnit.SECONDS);
-        } catch (Exception e) {
-            LOG.error("Error waiting for bulk power operation completion: {}", e.getMessage());
-            executor.shutdownNow();
+        // Find the node for this VM
+        String node = vm.node();
+        String previousState = vm.status();
+
+        // Perform the operation
+        LOG.info("Performing {} on VM {} ({}) on node {}",
+            request.operation(), vm.vmid(), vm.name(), node);
+
+        switch (request.operation()) {
+            case START:
+                vmService.startVM(node, vm.vmid(), ticket);
+                break;
+            case STOP:
+                vmService.stopVM(node, vm.vmid(), ticket);
+                break;
+            case SHUTDOWN:
+                vmService.shutdownVM(node, vm.vmid(), ticket);
+                break;
+            case REBOOT:
+                vmService.rebootVM(node, vm.vmid(), ticket);
+                break;
+            case SUSPEND:
+                // TODO: Implement suspend when available
+                throw new UnsupportedOperationException("Suspend not yet implemented");
+            case RESUME:
+                // TODO: Implement resume when available
+                throw new UnsupportedOperationException("Resume not yet implemented");
         }
 
+        LOG.info("Successfully performed {} on VM {} ({})",
+            request.operation(), vm.vmid(), vm.name());
+
+        // For now, we don't have task IDs from these operations
+        // In a real implementation, we'd capture the task ID
+        return BulkPowerResponse.PowerResult.success(
+            previousState, getTargetState(request.operation()),
+            "task-" + vm.vmid(), vm.name()
+        );
+    }
+
+    private BulkPowerResponse summarizePowerResults(BulkPowerRequest request, int total,
+                                                    Map<Integer, BulkPowerResponse.PowerResult> results) {
         // Count results
         long successCount = results.values().stream()
             .filter(r -> "success".equals(r.status()))
@@ -181,7 +165,7 @@ public class PowerService {
             .count();
 
         String summary = String.format("Performed %s on %d/%d VMs successfully",
-            request.operation(), successCount, targetVMs.size());
+            request.operation(), successCount, total);
         if (skippedCount > 0) {
             summary += String.format(" (%d skipped)", skippedCount);
         }
@@ -192,7 +176,7 @@ public class PowerService {
         return new BulkPowerResponse(
             results,
             summary,
-            targetVMs.size(),
+            total,
             (int) successCount,
             (int) failureCount,
             (int) skippedCount,
@@ -1,63 +1,129 @@
 package com.coffeesprout.service;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
-
+import jakarta.inject.Inject;
+
+import com.coffeesprout.config.CacheConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple in-memory cache service for resource data.
- * In production, this could be replaced with Caffeine or another caching library.
+ * Bounded in-memory cache for resource data.
+ *
+ * Keys are namespaced as namespace:rest, and each namespace can have its own TTLs (see {@link CacheConfig}).
+ * Entries past the refresh interval are still served while a single background reload replaces them;
+ * entries past the TTL are reloaded synchronously. Concurrent loads of the same key share one loader call.
+ * Invalidating a key while it is loading discards that load's result, so a reload started before a write
+ * cannot put the pre-write value back.
+ * When the entry count or total weight exceeds its limit, the least recently used entries are evicted.
  */
 @ApplicationScoped
 public class ResourceCacheService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ResourceCacheService.class);
 
-    // Default cache TTL of 5 minutes
-    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
-
-    private final Map<String, CacheEntry<?>> cache = new ConcurrentHashMap<>();
-    private final AtomicLong hits = new AtomicLong(0);
-    private final AtomicLong misses = new AtomicLong(0);
-    private final AtomicLong evictions = new AtomicLong(0);
+    @Inject
+    CacheConfig cacheConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    private final ConcurrentNavigableMap<String, CacheEntry> cache = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Load> loading = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong(0);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final Lock evictionLock = new ReentrantLock();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("moxxie.cache.resources.requests", hits, LongAdder::doubleValue)
+            .description("Resource cache lookups by result")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("moxxie.cache.resources.requests", misses, LongAdder::doubleValue)
+            .description("Resource cache lookups by result")
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("moxxie.cache.resources.evictions", evictions, LongAdder::doubleValue)
+            .description("Resource cache entries removed by expiry, size limits or invalidation")
+            .register(registry);
+        FunctionCounter.builder("moxxie.cache.resources.refreshes", refreshes, LongAdder::doubleValue)
+            .description("Background refresh-ahead reloads")
+            .register(registry);
+        Gauge.builder("moxxie.cache.resources.size", cache, Map::size)
+            .description("Resource cache entries")
+            .register(registry);
+        Gauge.builder("moxxie.cache.resources.weight", weight, AtomicLong::get)
+            .description("Total weight of resource cache entries")
+            .register(registry);
+    }
 
     /**
      * Get a value from cache or compute it if missing/expired
      */
     @SuppressWarnings("unchecked")
     public <T> T get(String key, Supplier<T> loader) {
-        CacheEntry<?> entry = cache.get(key);
+        if (!cacheConfig.enabled()) {
+            return loader.get();
+        }
+
+        long now = System.nanoTime();
+        CacheEntry entry = cache.get(key);
 
-        if (entry != null && !entry.isExpired()) {
-            hits.incrementAndGet();
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            entry.lastAccess = now;
+            if (entry.needsRefresh(now) && entry.refreshScheduled.compareAndSet(false, true)) {
+                refreshAhead(key, loader);
+            }
             LOG.debug("Cache hit for key: {}", key);
-            return (T) entry.getValue();
+            return (T) entry.value;
         }
 
         // Miss or expired
-        misses.incrementAndGet();
+        misses.increment();
         LOG.debug("Cache miss for key: {}", key);
 
-        // Remove expired entry
         if (entry != null) {
-            cache.remove(key);
-            evictions.incrementAndGet();
+            remove(key, entry);
         }
 
-        // Load new value
-        T value = loader.get();
-        put(key, value);
-
-        return value;
+        return (T) load(key, loader);
     }
 
     /**
@@ -65,72 +131,109 @@ public class ResourceCacheService {
      */
     @SuppressWarnings("unchecked")
     public <T> Optional<T> getIfPresent(String key) {
-        CacheEntry<?> entry = cache.get(key);
+        long now = System.nanoTime();
+        CacheEntry entry = cache.get(key);
 
-        if (entry != null && !entry.isExpired()) {
-            hits.incrementAndGet();
-            return Optional.of((T) entry.getValue());
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            entry.lastAccess = now;
+            return Optional.ofNullable((T) entry.value);
         }
 
-        misses.incrementAndGet();
+        misses.increment();
 
-        // Remove expired entry
         if (entry != null) {
-            cache.remove(key);
-            evictions.incrementAndGet();
+            remove(key, entry);
         }
 
         return Optional.empty();
     }
 
     /**
-     * Put a value in the cache with default TTL
+     * Put a value in the cache with the TTL of its namespace
      */
     public <T> void put(String key, T value) {
-        put(key, value, DEFAULT_TTL);
+        String namespace = namespaceOf(key);
+        store(key, value, ttlFor(namespace), refreshIntervalFor(namespace));
     }
 
     /**
      * Put a value in the cache with custom TTL
      */
     public <T> void put(String key, T value, Duration ttl) {
-        cache.put(key, new CacheEntry<>(value, Instant.now().plus(ttl)));
-        LOG.debug("Cached value for key: {} with TTL: {}", key, ttl);
+        store(key, value, ttl, ttl);
     }
 
     /**
      * Invalidate a specific cache entry
      */
     public void invalidate(String key) {
-        CacheEntry<?> removed = cache.remove(key);
-        if (removed != null) {
-            evictions.incrementAndGet();
+        discardLoad(key);
+        CacheEntry removed = cache.get(key);
+        if (removed != null && remove(key, removed)) {
             LOG.debug("Invalidated cache key: {}", key);
         }
     }
 
     /**
-     * Invalidate all cache entries matching a pattern
+     * Invalidate all cache entries whose key starts with a prefix
+     */
+    public void invalidatePrefix(String prefix) {
+        for (String key : loading.keySet()) {
+            if (key.startsWith(prefix)) {
+                discardLoad(key);
+            }
+        }
+        int removed = 0;
+        for (Map.Entry<String, CacheEntry> entry : cache.subMap(prefix, prefix + Character.MAX_VALUE).entrySet()) {
+            if (remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        LOG.debug("Invalidated {} cache keys with prefix: {}", removed, prefix);
+    }
+
+    /**
+     * Invalidate all cache entries matching a pattern.
+     * A single trailing * is a prefix match; other wildcards fall back to a scan.
      */
     public void invalidatePattern(String pattern) {
-        String regex = pattern.replace("*", ".*");
-        cache.entrySet().removeIf(entry -> {
-            if (entry.getKey().matches(regex)) {
-                evictions.incrementAndGet();
+        int wildcard = pattern.indexOf('*');
+        if (wildcard < 0) {
+            invalidate(pattern);
+            return;
+        }
+        if (wildcard == pattern.length() - 1) {
+            invalidatePrefix(pattern.substring(0, wildcard));
+            return;
+        }
+
+        String literalPrefix = pattern.substring(0, wildcard);
+        Pattern regex = Pattern.compile(Pattern.quote(pattern).replace("*", "\\E.*\\Q"));
+        for (String key : loading.keySet()) {
+            if (regex.matcher(key).matches()) {
+                discardLoad(key);
+            }
+        }
+        for (Map.Entry<String, CacheEntry> entry
+                : cache.subMap(literalPrefix, literalPrefix + Character.MAX_VALUE).entrySet()) {
+            if (regex.matcher(entry.getKey()).matches() && remove(entry.getKey(), entry.getValue())) {
                 LOG.debug("Invalidated cache key: {}", entry.getKey());
-                return true;
             }
-            return false;
-        });
+        }
     }
 
     /**
      * Clear all cache entries
      */
     public void clear() {
-        int size = cache.size();
-        cache.clear();
-        evictions.addAndGet(size);
+        loading.keySet().forEach(this::discardLoad);
+        int size = 0;
+        for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+            if (remove(entry.getKey(), entry.getValue())) {
+                size++;
+            }
+        }
         LOG.info("Cleared cache, removed {} entries", size);
     }
 
@@ -138,8 +241,8 @@ public class ResourceCacheService {
      * Get cache statistics
      */
     public CacheStatistics getStatistics() {
-        long totalHits = hits.get();
-        long totalMisses = misses.get();
+        long totalHits = hits.sum();
+        long totalMisses = misses.sum();
         long totalRequests = totalHits + totalMisses;
         double hitRate = totalRequests > 0 ? (double) totalHits / totalRequests : 0.0;
 
@@ -148,42 +251,218 @@ public class ResourceCacheService {
             totalHits,
             totalMisses,
             hitRate,
-            evictions.get()
+            evictions.sum()
         );
     }
 
     /**
-     * Clean up expired entries (can be called periodically)
+     * Clean up expired entries
      */
+    @Scheduled(every = "${moxxie.cache.resources.cleanup-interval:60s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
     public void cleanupExpired() {
-        cache.entrySet().removeIf(entry -> {
-            if (entry.getValue().isExpired()) {
-                evictions.incrementAndGet();
+        long now = System.nanoTime();
+        for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+            if (entry.getValue().isExpired(now) && remove(entry.getKey(), entry.getValue())) {
                 LOG.debug("Evicted expired cache key: {}", entry.getKey());
-                return true;
             }
-            return false;
+        }
+    }
+
+    private Object load(String key, Supplier<?> loader) {
+        Load mine = new Load();
+        Load existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing.result);
+        }
+
+        try {
+            Object value = loader.get();
+            synchronized (mine) {
+                if (!mine.discarded) {
+                    put(key, value);
+                } else {
+                    LOG.debug("Not caching key {}, it was invalidated while loading", key);
+                }
+            }
+            mine.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * Keep the result of an in-flight load of a key out of the cache. Callers arriving later start a new load
+     * instead of joining it.
+     */
+    private void discardLoad(String key) {
+        Load load = loading.get(key);
+        if (load != null) {
+            synchronized (load) {
+                load.discarded = true;
+            }
+            loading.remove(key, load);
+        }
+    }
+
+    private void refreshAhead(String key, Supplier<?> loader) {
+        refreshes.increment();
+        executorService.submit(() -> {
+            try {
+                load(key, loader);
+            } catch (Exception e) {
+                // Keep serving the current entry until it expires
+                LOG.warn("Background refresh failed for cache key {}: {}", key, e.getMessage());
+                CacheEntry current = cache.get(key);
+                if (current != null) {
+                    current.refreshScheduled.set(false);
+                }
+            }
         });
     }
 
+    private void store(String key, Object value, Duration ttl, Duration refreshInterval) {
+        long now = System.nanoTime();
+        CacheEntry entry = new CacheEntry(value, weigh(value), now, now + ttl.toNanos(),
+            now + Math.min(refreshInterval.toNanos(), ttl.toNanos()));
+        CacheEntry previous = cache.put(key, entry);
+        weight.addAndGet(entry.weight - (previous == null ? 0 : previous.weight));
+        LOG.debug("Cached value for key: {} with TTL: {}", key, ttl);
+
+        enforceLimits();
+    }
+
+    private boolean remove(String key, CacheEntry entry) {
+        if (cache.remove(key, entry)) {
+            weight.addAndGet(-entry.weight);
+            evictions.increment();
+            return true;
+        }
+        return false;
+    }
+
     /**
-     * Cache entry with expiration
+     * Evict expired entries, then least recently used ones, until 90% of both limits
      */
-    private static class CacheEntry<T> {
-        private final T value;
-        private final Instant expiresAt;
+    private void enforceLimits() {
+        int maxSize = cacheConfig.maxSize();
+        long maxWeight = cacheConfig.maxWeight();
+        if (cache.size() <= maxSize && weight.get() <= maxWeight) {
+            return;
+        }
+        // Another thread is already evicting
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            cleanupExpired();
+
+            int targetSize = maxSize - maxSize / 10;
+            long targetWeight = maxWeight - maxWeight / 10;
+            if (cache.size() <= maxSize && weight.get() <= maxWeight) {
+                return;
+            }
+
+            List<Map.Entry<String, CacheEntry>> byAccess = new ArrayList<>(cache.entrySet());
+            byAccess.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            int evicted = 0;
+            for (Map.Entry<String, CacheEntry> entry : byAccess) {
+                if (cache.size() <= targetSize && weight.get() <= targetWeight) {
+                    break;
+                }
+                if (remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+            LOG.debug("Evicted {} least recently used cache entries", evicted);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
 
-        public CacheEntry(T value, Instant expiresAt) {
+    private Duration ttlFor(String namespace) {
+        CacheConfig.Namespace overrides = cacheConfig.namespaces().get(namespace);
+        int seconds = overrides != null && overrides.ttlSeconds().isPresent()
+            ? overrides.ttlSeconds().get()
+            : cacheConfig.ttlSeconds();
+        return Duration.ofSeconds(seconds);
+    }
+
+    private Duration refreshIntervalFor(String namespace) {
+        CacheConfig.Namespace overrides = cacheConfig.namespaces().get(namespace);
+        int seconds = overrides != null && overrides.refreshIntervalSeconds().isPresent()
+            ? overrides.refreshIntervalSeconds().get()
+            : cacheConfig.refreshIntervalSeconds();
+        return Duration.ofSeconds(seconds);
+    }
+
+    static String namespaceOf(String key) {
+        int separator = key.indexOf(':');
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+
+    static long weigh(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return 1L + collection.size();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return 1L + map.size();
+        }
+        return 1L;
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * One loader call shared by concurrent callers; discarded when its key is invalidated while it runs
+     */
+    private static final class Load {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private boolean discarded;
+    }
+
+    /**
+     * Cache entry with expiry and refresh-ahead deadlines
+     */
+    private static final class CacheEntry {
+        private final Object value;
+        private final long weight;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+        private volatile long lastAccess;
+
+        CacheEntry(Object value, long weight, long createdAt, long expiresAt, long refreshAt) {
             this.value = value;
+            this.weight = weight;
             this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.lastAccess = createdAt;
         }
 
-        public T getValue() {
-            return value;
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
         }
 
-        public boolean isExpired() {
-            return Instant.now().isAfter(expiresAt);
+        boolean needsRefresh(long now) {
+            return refreshAt < expiresAt && now - refreshAt >= 0;
         }
     }
 
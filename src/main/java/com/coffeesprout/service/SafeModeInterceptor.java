@@ -26,6 +26,9 @@ public class SafeModeInterceptor {
     @Inject
     TagService tagService;
 
+    @Inject
+    VMInventoryService vmInventoryService;
+
     @Inject
     AuditService auditService;
 
@@ -79,9 +82,7 @@ public class SafeModeInterceptor {
     }
 
     private SafetyDecision evaluateSafety(int vmId, InvocationContext context) {
-        // Get VM tags
-        Set<String> tags = tagService.getVMTags(vmId, null);
-        boolean isMoxxieManaged = tags.contains(safetyConfig.tagName());
+        boolean isMoxxieManaged = isMoxxieManaged(vmId, isDestructiveOperation(context));
 
         // Check for manual override
         if (hasForceFlag(context) && safetyConfig.allowManualOverride()) {
@@ -114,6 +115,23 @@ public class SafeModeInterceptor {
         return SafetyDecision.allowed("VM is Moxxie-managed");
     }
 
+    /**
+     * Resolve ownership from the inventory's tag index. Destructive operations re-read the
+     * VM config from Proxmox when strict verification is enabled, as do VMs the inventory
+     * does not know (which also surfaces a not-found error for missing VMs).
+     */
+    private boolean isMoxxieManaged(int vmId, boolean destructive) {
+        if (!(destructive && safetyConfig.verifyDestructive())) {
+            Optional<Boolean> indexed = vmInventoryService.hasTag(vmId, safetyConfig.tagName(), null);
+            if (indexed.isPresent()) {
+                return indexed.get();
+            }
+        }
+
+        Set<String> tags = tagService.getVMTags(vmId, null);
+        return tags.contains(safetyConfig.tagName());
+    }
+
     private boolean hasForceFlag(InvocationContext context) {
         Object[] args = context.getParameters();
         Method method = context.getMethod();
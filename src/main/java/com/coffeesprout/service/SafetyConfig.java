@@ -24,6 +24,13 @@ public interface SafetyConfig {
     @WithDefault("true")
     boolean auditLog();
 
+    /**
+     * Re-verify ownership tags against Proxmox for destructive operations (e.g. delete).
+     * Other operations are checked against the in-memory inventory.
+     */
+    @WithDefault("true")
+    boolean verifyDestructive();
+
     enum Mode {
         STRICT,
         PERMISSIVE,
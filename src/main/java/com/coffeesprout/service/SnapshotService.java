@@ -6,10 +6,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -25,8 +22,6 @@ import com.coffeesprout.client.ProxmoxClient;
 import com.coffeesprout.client.Snapshot;
 import com.coffeesprout.client.SnapshotsResponse;
 import com.coffeesprout.client.TaskStatusResponse;
-import com.coffeesprout.scheduler.model.VMSelector;
-import com.coffeesprout.scheduler.service.VMSelectorService;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +32,9 @@ public class SnapshotService {
 
     private static final Logger LOG = LoggerFactory.getLogger(SnapshotService.class);
 
+    @Inject
+    OperationProgressService operationProgress;
+
     @Inject
     @RestClient
     ProxmoxClient proxmoxClient;
@@ -48,7 +46,7 @@ public class SnapshotService {
     TicketManager ticketManager;
 
     @Inject
-    VMSelectorService vmSelectorService;
+    BulkOperationEngine bulkEngine;
 
     /**
      * List all snapshots for a VM
@@ -260,65 +258,74 @@ public class SnapshotService {
      * Create snapshots for multiple VMs based on selectors
      */
     public BulkSnapshotResponse bulkCreateSnapshots(BulkSnapshotRequest request, @AuthTicket String ticket) {
-        LOG.info("Starting bulk snapshot creation with {} selectors", request.vmSelectors().size());
+        return bulkCreateSnapshots(request, null, ticket);
+    }
 
-        // Get all VMs that match the selectors
-        List<VMResponse> targetVMs = new ArrayList<>();
-        for (VMSelector selector : request.vmSelectors()) {
-            try {
-                List<VMResponse> vms = vmSelectorService.selectVMs(selector, ticket);
-                targetVMs.addAll(vms);
-            } catch (Exception e) {
-                LOG.error("Failed to select VMs with selector {}: {}", selector, e.getMessage());
-                throw ProxmoxException.internalError("select VMs with selector: " + selector, e);
-            }
+    /**
+     * Create snapshots for multiple VMs and wait up to {@link BulkOperationEngine#SYNC_WAIT} for all of them,
+     * publishing each VM's result to {@link OperationProgressService} under the operation ID.
+     * On timeout the job keeps running in the background.
+     */
+    public BulkSnapshotResponse bulkCreateSnapshots(BulkSnapshotRequest request, String operationId, @AuthTicket String ticket) {
+        BulkJobHandle<BulkSnapshotResponse> handle = startBulkCreateSnapshots(request, operationId, ticket);
+        try {
+            return handle.await(BulkOperationEngine.SYNC_WAIT);
+        } catch (TimeoutException e) {
+            LOG.warn("Bulk snapshot job {} still running after {}", handle.jobId(), BulkOperationEngine.SYNC_WAIT);
+            throw ProxmoxException.timeout("bulk snapshot (job " + handle.jobId() + ")",
+                (int) BulkOperationEngine.SYNC_WAIT.toSeconds());
         }
+    }
 
-        // Remove duplicates (in case multiple selectors matched the same VM)
-        Map<Integer, VMResponse> uniqueVMs = new HashMap<>();
-        for (VMResponse vm : targetVMs) {
-            uniqueVMs.put(vm.vmid(), vm);
-        }
-        targetVMs = new ArrayList<>(uniqueVMs.values());
+    /**
+     * Start bulk snapshot creation as a background job and return its handle
+     */
+    public BulkJobHandle<BulkSnapshotResponse> startBulkCreateSnapshots(BulkSnapshotRequest request, String operationId,
+                                                                        @AuthTicket String ticket) {
+        LOG.info("Starting bulk snapshot creation with {} selectors", request.vmSelectors().size());
 
-        LOG.info("Found {} unique VMs matching selectors", targetVMs.size());
+        operationProgress.start(operationId);
+
+        List<VMResponse> targetVMs;
+        try {
+            targetVMs = bulkEngine.selectTargets(request.vmSelectors(), ticket);
+        } catch (RuntimeException e) {
+            operationProgress.fail(operationId, e.getMessage());
+            throw e;
+        }
 
         if (targetVMs.isEmpty()) {
-            return new BulkSnapshotResponse(
+            return bulkEngine.completed(operationId, new BulkSnapshotResponse(
                 Map.of(),
                 "No VMs found matching the provided selectors",
                 0, 0, 0,
                 request.dryRun()
-            );
+            ));
         }
 
-        // Prepare results map
-        Map<Integer, BulkSnapshotResponse.SnapshotResult> results = new HashMap<>();
-
         // If dry run, just show what would be done
         if (request.dryRun()) {
+            Map<Integer, BulkSnapshotResponse.SnapshotResult> results = new HashMap<>();
             for (VMResponse vm : targetVMs) {
                 String snapshotName = expandSnapshotName(request.snapshotName(), vm);
                 results.put(vm.vmid(), BulkSnapshotResponse.SnapshotResult.dryRun(snapshotName, vm.name()));
             }
 
-            return new BulkSnapshotResponse(
+            return bulkEngine.completed(operationId, new BulkSnapshotResponse(
                 results,
                 String.format("Dry run: Would create snapshots for %d VMs", targetVMs.size()),
                 targetVMs.size(),
                 targetVMs.size(),
                 0,
                 true
-            );
+            ));
         }
 
-        // Create executor for parallel snapshot creation
-        ExecutorService executor = Executors.newFixedThreadPool(request.maxParallel());
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (VMResponse vm : targetVMs) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
+        int total = targetVMs.size();
+        return bulkEngine.submit("snapshot", operationId, targetVMs, request.maxParallel(),
+            new BulkOperationEngine.BulkTask<BulkSnapshotResponse.SnapshotResult>() {
+                @Override
+                public BulkSnapshotResponse.SnapshotResult execute(VMResponse vm) {
                     String snapshotName = expandSnapshotName(request.snapshotName(), vm);
 
                     // Build snapshot request
@@ -331,34 +338,30 @@ public class SnapshotService {
 
                     // Create snapshot
                     TaskResponse task = createSnapshot(vm.vmid(), snapshotRequest, ticket);
-                    results.put(vm.vmid(), BulkSnapshotResponse.SnapshotResult.success(
-                        task.taskId(), snapshotName, vm.name()
-                    ));
-
                     LOG.info("Successfully created snapshot '{}' for VM {} ({})",
                         snapshotName, vm.vmid(), vm.name());
-                } catch (Exception e) {
-                    LOG.error("Failed to create snapshot for VM {} ({}): {}",
-                        vm.vmid(), vm.name(), e.getMessage());
-                    results.put(vm.vmid(), BulkSnapshotResponse.SnapshotResult.error(
-                        e.getMessage(), vm.name()
-                    ));
+                    return BulkSnapshotResponse.SnapshotResult.success(task.taskId(), snapshotName, vm.name());
                 }
-            }, executor);
 
-            futures.add(future);
-        }
+                @Override
+                public BulkSnapshotResponse.SnapshotResult failed(VMResponse vm, Exception error) {
+                    return BulkSnapshotResponse.SnapshotResult.error(error.getMessage(), vm.name());
+                }
 
-        // Wait for all tasks to complete
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
-            executor.shutdown();
-            executor.awaitTermination(5, TimeUnit.MINUTES);
-        } catch (Exception e) {
-            LOG.error("Error waiting for bulk snapshot completion: {}", e.getMessage());
-            executor.shutdownNow();
-        }
+                @Override
+                public BulkSnapshotResponse.SnapshotResult cancelled(VMResponse vm) {
+                    return BulkSnapshotResponse.SnapshotResult.skipped("Bulk job cancelled", vm.name());
+                }
+
+                @Override
+                public String status(BulkSnapshotResponse.SnapshotResult result) {
+                    return result.status();
+                }
+            },
+            results -> summarizeSnapshotResults(total, results));
+    }
 
+    private BulkSnapshotResponse summarizeSnapshotResults(int total, Map<Integer, BulkSnapshotResponse.SnapshotResult> results) {
         // Count successes and failures
         long successCount = results.values().stream()
             .filter(r -> "success".equals(r.status()))
@@ -368,12 +371,12 @@ public class SnapshotService {
             .count();
 
         String summary = String.format("Created snapshots for %d/%d VMs successfully",
-            successCount, targetVMs.size());
+            successCount, total);
 
         return new BulkSnapshotResponse(
             results,
             summary,
-            targetVMs.size(),
+            total,
             (int) successCount,
             (int) failureCount,
             false
@@ -1,20 +1,32 @@
 package com.coffeesprout.service;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import com.coffeesprout.api.dto.VMResponse;
 import com.coffeesprout.api.exception.ProxmoxException;
 import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.config.TagConfig;
 import com.coffeesprout.util.TagUtils;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +47,16 @@ public class TagService {
     @Inject
     VMLocatorService vmLocatorService;
 
+    @Inject
+    VMInventoryService vmInventoryService;
+
+    @Inject
+    TagConfig tagConfig;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
     public Set<String> getVMTags(int vmId, @AuthTicket String ticket) {
         try {
             Optional<String> nodeOpt = vmLocatorService.findNodeForVM(vmId, ticket);
@@ -91,6 +113,7 @@ public class TagService {
                 "tags=" + encodedTags
             );
 
+            vmInventoryService.updateTags(vmId, currentTags);
             LOG.info("Added tag '{}' to VM {}", tag, vmId);
         } catch (ProxmoxException e) {
             // Re-throw ProxmoxException as-is
@@ -128,6 +151,7 @@ public class TagService {
                 "tags=" + encodedTags
             );
 
+            vmInventoryService.updateTags(vmId, currentTags);
             LOG.info("Removed tag '{}' from VM {}", tag, vmId);
         } catch (ProxmoxException e) {
             // Re-throw ProxmoxException as-is
@@ -164,6 +188,7 @@ public class TagService {
                 "tags=" + encodedTags
             );
 
+            vmInventoryService.updateTags(vmId, newTags);
             LOG.info("Updated tags for VM {} to: {}", vmId, tagsString);
         } catch (ProxmoxException e) {
             // Re-throw ProxmoxException as-is
@@ -178,24 +203,8 @@ public class TagService {
      * Get all unique tags in use across all VMs
      */
     public Set<String> getAllUniqueTags(@AuthTicket String ticket) {
-        Set<String> allTags = new HashSet<>();
         try {
-            var resources = proxmoxClient.getClusterResources(
-                ticket,
-                ticketManager.getCsrfToken(),
-                "vm"
-            );
-
-            if (resources != null && resources.has("data")) {
-                var dataArray = resources.get("data");
-                for (var resource : dataArray) {
-                    if (resource.has("tags")) {
-                        String tagsString = resource.get("tags").asText("");
-                        allTags.addAll(TagUtils.parseVMTags(tagsString));
-                    }
-                }
-            }
-            return allTags;
+            return new HashSet<>(vmInventoryService.getSnapshot(ticket).tags());
         } catch (Exception e) {
             LOG.error("Error getting all unique tags", e);
             throw ProxmoxException.internalError("get all unique tags", e);
@@ -206,116 +215,213 @@ public class TagService {
      * Get VMs by specific tag
      */
     public List<Integer> getVMsByTag(String tag, @AuthTicket String ticket) {
-        List<Integer> vmIds = new ArrayList<>();
         try {
-            var resources = proxmoxClient.getClusterResources(
-                ticket,
-                ticketManager.getCsrfToken(),
-                "vm"
-            );
-
-            if (resources != null && resources.has("data")) {
-                var dataArray = resources.get("data");
-                for (var resource : dataArray) {
-                    if (resource.has("tags") && resource.has("vmid")) {
-                        String tagsString = resource.get("tags").asText("");
-                        Set<String> tags = TagUtils.parseVMTags(tagsString);
-                        if (tags.contains(tag)) {
-                            vmIds.add(resource.get("vmid").asInt());
-                        }
-                    }
-                }
-            }
+            return new ArrayList<>(vmInventoryService.getSnapshot(ticket).idsWithTag(tag));
         } catch (Exception e) {
             LOG.error("Error getting VMs by tag: " + tag, e);
+            return new ArrayList<>();
         }
-        return vmIds;
     }
 
     /**
      * Bulk add tags to multiple VMs
      */
     public Map<Integer, String> bulkAddTags(List<Integer> vmIds, Set<String> tagsToAdd, @AuthTicket String ticket) {
-        Map<Integer, String> results = new HashMap<>();
-
-        for (Integer vmId : vmIds) {
-            try {
-                Set<String> currentTags = getVMTags(vmId, ticket);
-                currentTags.addAll(tagsToAdd);
-
-                Optional<String> nodeOpt = vmLocatorService.findNodeForVM(vmId, ticket);
-                if (nodeOpt.isEmpty()) {
-                    results.put(vmId, "error: VM not found");
-                    continue;
-                }
-                String node = nodeOpt.get();
-
-                String tagsString = TagUtils.tagsToString(currentTags);
-
-                // URL-encode the tags value to handle special characters
-                String encodedTags = java.net.URLEncoder.encode(tagsString, java.nio.charset.StandardCharsets.UTF_8);
-
-                proxmoxClient.updateVMConfig(
-                    node,
-                    vmId,
-                    ticket,
-                    ticketManager.getCsrfToken(),
-                    "tags=" + encodedTags
-                );
-
-                results.put(vmId, "success");
-                LOG.info("Added tags to VM " + vmId + ": " + tagsToAdd);
-            } catch (Exception e) {
-                results.put(vmId, "error: " + e.getMessage());
-                LOG.error("Error adding tags to VM " + vmId, e);
-            }
-        }
+        return bulkAddTags(vmIds, tagsToAdd, null, ticket);
+    }
 
-        return results;
+    /**
+     * Bulk add tags to multiple VMs, notifying the listener with each VM's result as soon as it is known
+     */
+    public Map<Integer, String> bulkAddTags(List<Integer> vmIds, Set<String> tagsToAdd,
+                                            BiConsumer<Integer, String> onResult, @AuthTicket String ticket) {
+        return bulkUpdateTags(vmIds, current -> {
+            Set<String> updated = new HashSet<>(current);
+            updated.addAll(tagsToAdd);
+            return updated;
+        }, onResult, ticket);
     }
 
     /**
      * Bulk remove tags from multiple VMs
      */
     public Map<Integer, String> bulkRemoveTags(List<Integer> vmIds, Set<String> tagsToRemove, @AuthTicket String ticket) {
-        Map<Integer, String> results = new HashMap<>();
+        return bulkRemoveTags(vmIds, tagsToRemove, null, ticket);
+    }
 
-        for (Integer vmId : vmIds) {
-            try {
-                Set<String> currentTags = getVMTags(vmId, ticket);
-                currentTags.removeAll(tagsToRemove);
-
-                Optional<String> nodeOpt = vmLocatorService.findNodeForVM(vmId, ticket);
-                if (nodeOpt.isEmpty()) {
-                    results.put(vmId, "error: VM not found");
-                    continue;
+    /**
+     * Bulk remove tags from multiple VMs, notifying the listener with each VM's result as soon as it is known
+     */
+    public Map<Integer, String> bulkRemoveTags(List<Integer> vmIds, Set<String> tagsToRemove,
+                                               BiConsumer<Integer, String> onResult, @AuthTicket String ticket) {
+        return bulkUpdateTags(vmIds, current -> {
+            Set<String> updated = new HashSet<>(current);
+            updated.removeAll(tagsToRemove);
+            return updated;
+        }, onResult, ticket);
+    }
+
+    /**
+     * Apply a tag mutation to multiple VMs.
+     *
+     * Runs as a pipeline: nodes and current tags are resolved from a single fresh inventory read,
+     * the new tag sets are computed locally and VMs whose tags would not change are skipped, and
+     * only the remaining updates are sent to Proxmox with bounded per-node concurrency.
+     *
+     * @param vmIds VMs to update
+     * @param mutation Computes the new tag set from the current one
+     * @param onResult Optional listener notified with each VM's result as soon as it is known;
+     *                 may be called from several threads concurrently
+     * @param ticket Authentication ticket
+     * @return Result per VM: "success" or "error: ..."
+     */
+    public Map<Integer, String> bulkUpdateTags(List<Integer> vmIds, UnaryOperator<Set<String>> mutation,
+                                               BiConsumer<Integer, String> onResult, @AuthTicket String ticket) {
+        Map<Integer, String> results = new ConcurrentHashMap<>();
+        BiConsumer<Integer, String> report = (vmId, result) -> {
+            results.put(vmId, result);
+            if (onResult != null) {
+                onResult.accept(vmId, result);
+            }
+        };
+
+        // Stage 1: one fresh inventory read; a stale view could overwrite tags changed outside Moxxie
+        VMInventorySnapshot snapshot;
+        try {
+            snapshot = vmInventoryService.getSnapshot(true, ticket);
+        } catch (Exception e) {
+            LOG.error("Error reading inventory for bulk tag update", e);
+            vmIds.forEach(vmId -> report.accept(vmId, "error: " + e.getMessage()));
+            return orderedResults(vmIds, results);
+        }
+
+        // Stage 2: compute tag diffs locally and drop no-op updates
+        Map<String, List<TagUpdate>> updatesByNode = new LinkedHashMap<>();
+        int skipped = 0;
+        for (Integer vmId : new LinkedHashSet<>(vmIds)) {
+            Optional<VMResponse> vm = snapshot.find(vmId);
+            if (vm.isEmpty() || vm.get().node().isEmpty()) {
+                report.accept(vmId, "error: " + ProxmoxException.notFound("VM", String.valueOf(vmId),
+                    "VM may not exist or is not accessible").getMessage());
+                continue;
+            }
+
+            Set<String> currentTags = vm.get().tags() == null ? Set.of() : new HashSet<>(vm.get().tags());
+            Set<String> newTags = mutation.apply(currentTags);
+            if (newTags.equals(currentTags)) {
+                skipped++;
+                report.accept(vmId, "success");
+                continue;
+            }
+
+            updatesByNode.computeIfAbsent(vm.get().node(), node -> new ArrayList<>())
+                .add(new TagUpdate(vmId, vm.get().node(), newTags));
+        }
+
+        int pending = updatesByNode.values().stream().mapToInt(List::size).sum();
+        LOG.info("Bulk tag update: {} VMs requested, {} updates across {} nodes, {} unchanged",
+            vmIds.size(), pending, updatesByNode.size(), skipped);
+
+        // Stage 3: fan out the remaining updates, bounded per node and overall
+        if (pending == 1) {
+            TagUpdate update = updatesByNode.values().iterator().next().get(0);
+            report.accept(update.vmId(), applyTagUpdate(update, ticket));
+        } else if (pending > 1) {
+            Semaphore globalPermits = new Semaphore(Math.max(1, tagConfig.bulkMaxConcurrency()));
+            List<Future<?>> futures = new ArrayList<>(pending);
+            // Set under its own lock once the batch is cut short; workers report nothing after that
+            AtomicBoolean cutShort = new AtomicBoolean();
+
+            updatesByNode.forEach((node, updates) -> {
+                Semaphore nodePermits = new Semaphore(Math.max(1, tagConfig.bulkNodeConcurrency()));
+                for (TagUpdate update : updates) {
+                    futures.add(executorService.submit(() -> {
+                        nodePermits.acquire();
+                        try {
+                            globalPermits.acquire();
+                            try {
+                                if (cutShort.get()) {
+                                    return null;
+                                }
+                                String result = applyTagUpdate(update, ticket);
+                                synchronized (cutShort) {
+                                    if (!cutShort.get()) {
+                                        report.accept(update.vmId(), result);
+                                    }
+                                }
+                            } finally {
+                                globalPermits.release();
+                            }
+                        } finally {
+                            nodePermits.release();
+                        }
+                        return null;
+                    }));
+                }
+            });
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    synchronized (cutShort) {
+                        cutShort.set(true);
+                    }
+                    futures.forEach(remaining -> remaining.cancel(true));
+                    break;
+                } catch (ExecutionException e) {
+                    LOG.error("Bulk tag worker failed", e.getCause());
                 }
-                String node = nodeOpt.get();
-
-                String tagsString = TagUtils.tagsToString(currentTags);
-
-                // URL-encode the tags value to handle special characters
-                String encodedTags = java.net.URLEncoder.encode(tagsString, java.nio.charset.StandardCharsets.UTF_8);
-
-                proxmoxClient.updateVMConfig(
-                    node,
-                    vmId,
-                    ticket,
-                    ticketManager.getCsrfToken(),
-                    "tags=" + encodedTags
-                );
-
-                results.put(vmId, "success");
-                LOG.info("Removed tags from VM " + vmId + ": " + tagsToRemove);
-            } catch (Exception e) {
-                results.put(vmId, "error: " + e.getMessage());
-                LOG.error("Error removing tags from VM " + vmId, e);
             }
+
+            // Anything without a result was cut short by an interrupt
+            updatesByNode.values().stream()
+                .flatMap(List::stream)
+                .filter(update -> !results.containsKey(update.vmId()))
+                .forEach(update -> report.accept(update.vmId(), "error: interrupted"));
         }
 
-        return results;
+        return orderedResults(vmIds, results);
     }
 
+    private String applyTagUpdate(TagUpdate update, String ticket) {
+        try {
+            String tagsString = TagUtils.tagsToString(update.tags());
+
+            // URL-encode the tags value to handle special characters
+            String encodedTags = java.net.URLEncoder.encode(tagsString, java.nio.charset.StandardCharsets.UTF_8);
+
+            proxmoxClient.updateVMConfig(
+                update.node(),
+                update.vmId(),
+                ticket,
+                ticketManager.getCsrfToken(),
+                "tags=" + encodedTags
+            );
+
+            vmInventoryService.updateTags(update.vmId(), update.tags());
+            LOG.debug("Updated tags for VM {} to: {}", update.vmId(), tagsString);
+            return "success";
+        } catch (Exception e) {
+            LOG.error("Error updating tags for VM " + update.vmId(), e);
+            return "error: " + e.getMessage();
+        }
+    }
+
+    private Map<Integer, String> orderedResults(List<Integer> vmIds, Map<Integer, String> results) {
+        Map<Integer, String> ordered = new LinkedHashMap<>();
+        for (Integer vmId : vmIds) {
+            String result = results.get(vmId);
+            if (result != null) {
+                ordered.put(vmId, result);
+            }
+        }
+        return ordered;
+    }
+
+    private record TagUpdate(int vmId, String node, Set<String> tags) {}
+
     /**
      * Find VMs by name pattern
      */
@@ -324,21 +430,10 @@ public class TagService {
         Pattern namePattern = Pattern.compile(pattern.replace("*", ".*"));
 
         try {
-            var resources = proxmoxClient.getClusterResources(
-                ticket,
-                ticketManager.getCsrfToken(),
-                "vm"
-            );
-
-            if (resources != null && resources.has("data")) {
-                var dataArray = resources.get("data");
-                for (var resource : dataArray) {
-                    if (resource.has("name") && resource.has("vmid")) {
-                        String name = resource.get("name").asText("");
-                        if (namePattern.matcher(name).matches()) {
-                            vmIds.add(resource.get("vmid").asInt());
-                        }
-                    }
+            for (VMResponse vm : vmInventoryService.getSnapshot(ticket).resources()) {
+                if (vm.name() != null && !vm.name().isEmpty()
+                        && namePattern.matcher(vm.name()).matches()) {
+                    vmIds.add(vm.vmid());
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,13 @@
+package com.coffeesprout.service;
+
+import com.coffeesprout.api.dto.TaskStatusDetailResponse;
+
+/**
+ * CDI event fired by {@link TaskWatcherService} when a watched Proxmox task finishes
+ */
+public record TaskCompletedEvent(TaskStatusDetailResponse status) {
+
+    public boolean successful() {
+        return "OK".equals(status.exitstatus());
+    }
+}
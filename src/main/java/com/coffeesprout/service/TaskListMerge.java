@@ -0,0 +1,96 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.coffeesprout.api.dto.TaskListResponse.TaskSummary;
+
+/**
+ * Newest-first k-way merge of the task lists of several nodes, produced on demand.
+ *
+ * Only as many tasks as the requested page reaches are merged. The merged prefix is kept, so a request
+ * for a later page of the same listing continues the merge instead of fetching and sorting again.
+ */
+final class TaskListMerge {
+
+    static final Comparator<TaskSummary> NEWEST_FIRST =
+        Comparator.comparing(TaskSummary::starttime, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final List<List<TaskSummary>> runs;
+    private final int[] positions;
+    // Runs that still have tasks, ordered by their next task
+    private final PriorityQueue<Integer> heads;
+    private final List<TaskSummary> merged = new ArrayList<>();
+    private final int total;
+    private final Instant createdAt;
+
+    /**
+     * @param runs Tasks of each node, in any order
+     */
+    TaskListMerge(List<List<TaskSummary>> runs, Instant createdAt) {
+        this.runs = new ArrayList<>(runs.size());
+        int count = 0;
+        for (List<TaskSummary> run : runs) {
+            // Proxmox lists a node's tasks newest first already; sorting a sorted run is cheap
+            List<TaskSummary> sorted = new ArrayList<>(run);
+            sorted.sort(NEWEST_FIRST);
+            this.runs.add(sorted);
+            count += sorted.size();
+        }
+        this.total = count;
+        this.createdAt = createdAt;
+        this.positions = new int[this.runs.size()];
+        this.heads = new PriorityQueue<>(Math.max(1, this.runs.size()),
+            (a, b) -> NEWEST_FIRST.compare(head(a), head(b)));
+        for (int i = 0; i < this.runs.size(); i++) {
+            if (!this.runs.get(i).isEmpty()) {
+                heads.add(i);
+            }
+        }
+    }
+
+    /**
+     * Tasks [start, start + limit) of the merged listing
+     */
+    synchronized List<TaskSummary> page(int start, int limit) {
+        long end = (long) start + limit;
+        while (merged.size() < end && !heads.isEmpty()) {
+            int run = heads.poll();
+            merged.add(head(run));
+            positions[run]++;
+            if (positions[run] < runs.get(run).size()) {
+                heads.add(run);
+            }
+        }
+        if (start >= merged.size()) {
+            return List.of();
+        }
+        return List.copyOf(merged.subList(start, (int) Math.min(end, merged.size())));
+    }
+
+    /**
+     * Number of tasks across all nodes
+     */
+    int total() {
+        return total;
+    }
+
+    /**
+     * Number of tasks merged so far
+     */
+    synchronized int mergedCount() {
+        return merged.size();
+    }
+
+    boolean isOlderThan(Duration maxAge) {
+        return createdAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    private TaskSummary head(int run) {
+        return runs.get(run).get(positions[run]);
+    }
+}
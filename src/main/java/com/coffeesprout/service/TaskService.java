@@ -1,7 +1,13 @@
 package com.coffeesprout.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -13,8 +19,11 @@ import com.coffeesprout.api.exception.ProxmoxException;
 import com.coffeesprout.client.ProxmoxClient;
 import com.coffeesprout.client.TaskListData;
 import com.coffeesprout.client.TaskStatusData;
+import com.coffeesprout.config.TaskListConfig;
 import com.coffeesprout.util.UnitConverter;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +44,19 @@ public class TaskService {
     @Inject
     TicketManager ticketManager;
 
+    @Inject
+    TaskWatcherService taskWatcherService;
+
+    @Inject
+    TaskListConfig taskListConfig;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    // Listings by listing ID, oldest first, kept so later pages of the same client continue the merge
+    private final Map<String, TaskListing> taskListings = Collections.synchronizedMap(new LinkedHashMap<>());
+
     /**
      * Get detailed status of a specific task
      */
@@ -167,79 +189,52 @@ public class TaskService {
     }
 
     /**
-     * List tasks across all nodes or filter by criteria
+     * List tasks across all nodes or filter by criteria.
+     *
+     * Nodes are queried concurrently within the node timeout and their task lists merged newest first,
+     * only as far as the requested page. Every response carries the ID of its listing; passing it back with
+     * the same filters continues that listing for the cursor TTL. Without it, or once it has expired,
+     * a new listing is started. A listing that fits on the requested page is not kept and has no ID.
+     *
+     * @param listingId ID returned with an earlier page, or null to start a new listing
      */
     public TaskListResponse listTasks(String node, String typeFilter, String statusFilter,
-                                     String userFilter, Integer vmid, Integer start,
-                                     Integer limit, String ticket) {
+                                     String userFilter, Integer vmid, String listingId, Integer start,
+                                     Integer limit, @AuthTicket String ticket) {
         LOG.debug("Listing tasks with filters - node: {}, type: {}, status: {}",
                  node, typeFilter, statusFilter);
 
         try {
-            List<TaskListResponse.TaskSummary> allTasks = new ArrayList<>();
-
-            // Determine which nodes to query
-            List<String> nodesToQuery = new ArrayList<>();
-            if (node != null && !node.isEmpty()) {
-                nodesToQuery.add(node);
-            } else {
-                // Query all nodes
-                var nodes = nodeService.listNodes(ticket);
-                nodesToQuery = nodes.stream()
-                    .map(n -> n.getName())
-                    .collect(Collectors.toList());
-            }
+            int offset = start != null ? Math.max(0, start) : 0;
+            int pageSize = limit != null ? Math.max(0, limit) : 50;
+            TaskListKey key = new TaskListKey(node, typeFilter, statusFilter, userFilter, vmid);
+            Duration cursorTtl = Duration.ofSeconds(taskListConfig.cursorTtlSeconds());
+
+            TaskListing listing = listingId != null ? taskListings.get(listingId) : null;
+            boolean kept = true;
+            if (listing == null || !listing.filters().equals(key) || listing.merge().isOlderThan(cursorTtl)) {
+                // Determine which nodes to query
+                List<String> nodesToQuery;
+                if (node != null && !node.isEmpty()) {
+                    nodesToQuery = List.of(node);
+                } else {
+                    nodesToQuery = nodeService.listNodes(ticket).stream()
+                        .map(n -> n.getName())
+                        .toList();
+                }
 
-            // Query each node
-            for (String queryNode : nodesToQuery) {
-                try {
-                    TaskListData nodeTaskData = proxmoxClient.getNodeTasks(
-                        queryNode,
-                        null,  // Let Proxmox handle pagination at node level
-                        500,   // Get more tasks per node
-                        statusFilter,
-                        typeFilter,
-                        userFilter,
-                        vmid,
-                        ticket
-                    );
-
-                    if (nodeTaskData != null && nodeTaskData.getData() != null) {
-                        for (TaskStatusData task : nodeTaskData.getData()) {
-                            allTasks.add(TaskListResponse.TaskSummary.fromTask(
-                                task.getUpid(),
-                                task.getNode(),
-                                task.getType(),
-                                task.getStatus(),
-                                task.getUser(),
-                                task.getStarttime(),
-                                task.getEndtime(),
-                                task.getExitstatus(),
-                                task.getFinished()
-                            ));
-                        }
-                    }
-                } catch (Exception e) {
-                    LOG.warn("Failed to get tasks from node {}: {}", queryNode, e.getMessage());
+                listing = new TaskListing(UUID.randomUUID().toString(), key,
+                    new TaskListMerge(fetchNodeTasks(nodesToQuery, key, ticket), Instant.now()));
+                // A listing that fits on this page has nothing to continue
+                kept = listing.merge().total() > (long) offset + pageSize;
+                if (kept) {
+                    keepListing(listing);
                 }
             }
 
-            // Sort by start time (newest first)
-            allTasks.sort((a, b) -> {
-                if (b.starttime() == null) return -1;
-                if (a.starttime() == null) return 1;
-                return b.starttime().compareTo(a.starttime());
-            });
-
-            // Apply pagination
-            int totalTasks = allTasks.size();
-            if (start == null) start = 0;
-            if (limit == null) limit = 50;
-
-            int endIndex = Math.min(start + limit, totalTasks);
-            List<TaskListResponse.TaskSummary> pagedTasks = allTasks.subList(start, endIndex);
-
-            return new TaskListResponse(pagedTasks, totalTasks, pagedTasks.size());
+            List<TaskListResponse.TaskSummary> pagedTasks = listing.merge().page(offset, pageSize);
+            return new TaskListResponse(pagedTasks, listing.merge().total(), pagedTasks.size(),
+                kept ? listing.id() : null);
 
         } catch (Exception e) {
             LOG.error("Failed to list tasks: {}", e.getMessage());
@@ -248,39 +243,115 @@ public class TaskService {
     }
 
     /**
-     * Wait for a task to complete
-     * @return true if task completed successfully, false otherwise
+     * Drop listings whose cursor TTL has passed
      */
-    public boolean waitForTask(String node, String upid, int timeoutSeconds, @AuthTicket String ticket) {
-        LOG.info("Waiting for task {} on node {} with timeout {}s", upid, node, timeoutSeconds);
-
-        long startTime = System.currentTimeMillis();
-        long timeoutMs = timeoutSeconds * UnitConverter.Time.MILLIS_PER_SECOND;
+    @Scheduled(every = "${moxxie.tasks.list.eviction-interval:60s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void evictExpiredListings() {
+        Duration cursorTtl = Duration.ofSeconds(taskListConfig.cursorTtlSeconds());
+        synchronized (taskListings) {
+            taskListings.values().removeIf(listing -> listing.merge().isOlderThan(cursorTtl));
+        }
+    }
 
-        while (System.currentTimeMillis() - startTime < timeoutMs) {
-            try {
-                TaskStatusDetailResponse status = getTaskStatus(upid, ticket);
+    /**
+     * Keep a listing for further pages, making room by dropping the oldest listings beyond the cap
+     */
+    private void keepListing(TaskListing listing) {
+        int maxListings = Math.max(1, taskListConfig.maxListings());
+        synchronized (taskListings) {
+            Iterator<String> oldest = taskListings.keySet().iterator();
+            while (taskListings.size() >= maxListings && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+            taskListings.put(listing.id(), listing);
+        }
+    }
 
-                if (status.finished()) {
-                    boolean success = "OK".equals(status.exitstatus());
-                    LOG.info("Task {} finished with status: {}", upid, status.exitstatus());
-                    return success;
-                }
+    /**
+     * Fetch the tasks of all nodes concurrently, leaving out nodes that fail or miss the node timeout
+     */
+    private List<List<TaskListResponse.TaskSummary>> fetchNodeTasks(List<String> nodes, TaskListKey filters,
+                                                                    String ticket) {
+        Map<String, CompletableFuture<List<TaskListResponse.TaskSummary>>> lookups = new LinkedHashMap<>();
+        for (String queryNode : nodes) {
+            lookups.put(queryNode, CompletableFuture.supplyAsync(() -> nodeTasks(queryNode, filters, ticket),
+                                                                 executorService));
+        }
 
-                // Wait 2 seconds before checking again
-                Thread.sleep(2000);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(taskListConfig.nodeTimeoutMs());
+        List<List<TaskListResponse.TaskSummary>> runs = new ArrayList<>(lookups.size());
+        for (Map.Entry<String, CompletableFuture<List<TaskListResponse.TaskSummary>>> lookup : lookups.entrySet()) {
+            try {
+                runs.add(lookup.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                lookup.getValue().cancel(true);
+                LOG.warn("Timed out getting tasks from node {}", lookup.getKey());
+            } catch (ExecutionException e) {
+                LOG.warn("Failed to get tasks from node {}: {}", lookup.getKey(), e.getCause().getMessage());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                LOG.error("Interrupted while waiting for task", e);
-                return false;
-            } catch (Exception e) {
-                LOG.error("Error checking task status", e);
-                // Continue waiting - task might still be running
+                throw ProxmoxException.internalError("list tasks: interrupted", e);
             }
         }
+        return runs;
+    }
 
-        LOG.warn("Task {} timed out after {} seconds", upid, timeoutSeconds);
-        return false;
+    private List<TaskListResponse.TaskSummary> nodeTasks(String node, TaskListKey filters, String ticket) {
+        TaskListData nodeTaskData = proxmoxClient.getNodeTasks(
+            node,
+            null,  // Let Proxmox handle pagination at node level
+            taskListConfig.perNodeLimit(),
+            filters.status(),
+            filters.type(),
+            filters.user(),
+            filters.vmid(),
+            ticket
+        );
+
+        if (nodeTaskData == null || nodeTaskData.getData() == null) {
+            return List.of();
+        }
+        List<TaskListResponse.TaskSummary> tasks = new ArrayList<>(nodeTaskData.getData().size());
+        for (TaskStatusData task : nodeTaskData.getData()) {
+            tasks.add(TaskListResponse.TaskSummary.fromTask(
+                task.getUpid(),
+                task.getNode(),
+                task.getType(),
+                task.getStatus(),
+                task.getUser(),
+                task.getStarttime(),
+                task.getEndtime(),
+                task.getExitstatus(),
+                task.getFinished()
+            ));
+        }
+        return tasks;
+    }
+
+    /**
+     * Wait for a task to complete
+     * @return true if task completed successfully, false otherwise
+     */
+    public boolean waitForTask(String node, String upid, int timeoutSeconds, @AuthTicket String ticket) {
+        LOG.info("Waiting for task {} on node {} with timeout {}s", upid, node, timeoutSeconds);
+
+        try {
+            TaskStatusDetailResponse status = taskWatcherService.watch(upid).get(timeoutSeconds, TimeUnit.SECONDS);
+            return "OK".equals(status.exitstatus());
+        } catch (TimeoutException e) {
+            LOG.warn("Task {} timed out after {} seconds", upid, timeoutSeconds);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while waiting for task", e);
+            return false;
+        } catch (ExecutionException e) {
+            LOG.error("Error waiting for task {}", upid, e.getCause());
+            return false;
+        }
     }
 
     /**
@@ -396,4 +467,11 @@ public class TaskService {
             this.user = user;
         }
     }
+
+    /**
+     * Filters that identify a task listing
+     */
+    private record TaskListKey(String node, String type, String status, String user, Integer vmid) {}
+
+    private record TaskListing(String id, TaskListKey filters, TaskListMerge merge) {}
 }
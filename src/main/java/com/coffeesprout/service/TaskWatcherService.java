@@ -0,0 +1,471 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.TaskLogResponse;
+import com.coffeesprout.api.dto.TaskStatusDetailResponse;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.TaskListData;
+import com.coffeesprout.client.TaskStatusData;
+import com.coffeesprout.config.TaskWatcherConfig;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Central watcher for Proxmox tasks.
+ *
+ * Callers register a UPID and get a future that completes with the final task status. Instead of one
+ * status request per task every few seconds, the watcher lists each node's tasks once per poll, which
+ * covers every task watched on that node, and only fetches the full status of tasks that have finished.
+ * Each task's poll interval grows with its age, so long migrations and backups are polled less often.
+ * Completions are delivered to waiters, as a {@link TaskCompletedEvent}, and to {@link #subscribe} listeners.
+ *
+ * With moxxie.tasks.watcher.tick=off there is no periodic poll; each watch then checks its own task's status
+ * on a virtual thread at the same adaptive interval, so waiters still complete.
+ *
+ * Tasks can also be followed ({@link #follow}): followers get state transitions and new log lines as they
+ * appear. Followed tasks are polled at the minimum interval and their log is tailed once per poll, no
+ * matter how many followers there are.
+ */
+@ApplicationScoped
+public class TaskWatcherService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaskWatcherService.class);
+
+    // Check a task's status directly every n polls when the node listing does not show it
+    private static final int DIRECT_CHECK_EVERY = 5;
+    // Give up on a task after this many consecutive failed status checks
+    private static final int MAX_CHECK_FAILURES = 5;
+    // Maximum log lines fetched per poll of a followed task
+    private static final int LOG_TAIL_LIMIT = 500;
+
+    public static final String STATE_PENDING = "pending";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_FINISHED = "finished";
+
+    @Inject
+    @RestClient
+    ProxmoxClient proxmoxClient;
+
+    @Inject
+    TaskService taskService;
+
+    @Inject
+    TicketManager ticketManager;
+
+    @Inject
+    TaskWatcherConfig config;
+
+    @Inject
+    Event<TaskCompletedEvent> taskCompleted;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+    private final List<Consumer<TaskStatusDetailResponse>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Watch a task until it finishes. Watching the same UPID twice shares one watch.
+     * @param upid The task UPID
+     * @return Future completed with the final task status
+     */
+    public CompletableFuture<TaskStatusDetailResponse> watch(String upid) {
+        String[] parts = upid == null ? new String[0] : upid.split(":", -1);
+        if (parts.length < 8 || !"UPID".equals(parts[0])) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid UPID format: " + upid));
+        }
+
+        boolean[] created = new boolean[1];
+        Watch watch = watches.computeIfAbsent(upid, id -> {
+            LOG.debug("Watching task {}", id);
+            created[0] = true;
+            return new Watch(id, parts[1], parseStartTime(parts[4]), System.currentTimeMillis(),
+                config.minPollIntervalSeconds() * 1000L);
+        });
+        if (created[0] && !isPolling()) {
+            executorService.execute(() -> pollDirectly(watch));
+        }
+        // Callers get their own future so cancelling one does not affect other waiters
+        return watch.future.copy();
+    }
+
+    /**
+     * Follow a task's state, log and completion until it finishes or the subscription is closed.
+     * Watching starts if the task is not watched yet. The listener gets exactly one onCompleted or
+     * onFailed, even if the task finishes while it is being added.
+     */
+    public Subscription follow(String upid, TaskListener listener) {
+        CompletableFuture<TaskStatusDetailResponse> completion = watch(upid);
+        Follower follower = new Follower(listener);
+
+        Watch watch = watches.get(upid);
+        if (watch != null) {
+            watch.followers.add(follower);
+            watch.nextCheckAt = Math.min(watch.nextCheckAt, System.currentTimeMillis());
+            follower.onStateChanged(upid, watch.state);
+        }
+        // The watch may have finished before the follower was added, so its own delivery can have missed it
+        completion.whenComplete((status, error) -> {
+            if (error != null) {
+                follower.onFailed(upid, error);
+            } else {
+                follower.onStateChanged(upid, STATE_FINISHED);
+                follower.onCompleted(status);
+            }
+        });
+        return () -> {
+            follower.close();
+            if (watch != null) {
+                watch.followers.remove(follower);
+            }
+        };
+    }
+
+    /**
+     * Receive every completed task until the returned subscription is closed
+     */
+    public Subscription subscribe(Consumer<TaskStatusDetailResponse> listener) {
+        subscribers.add(listener);
+        return () -> subscribers.remove(listener);
+    }
+
+    /**
+     * Number of tasks currently watched
+     */
+    public int watchedCount() {
+        return watches.size();
+    }
+
+    @Scheduled(every = "${moxxie.tasks.watcher.tick:1s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void poll() {
+        if (watches.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Set<String> dueNodes = new HashSet<>();
+        Map<String, List<Watch>> byNode = new HashMap<>();
+        for (Watch watch : watches.values()) {
+            byNode.computeIfAbsent(watch.node, node -> new ArrayList<>()).add(watch);
+            if (watch.nextCheckAt <= now) {
+                dueNodes.add(watch.node);
+            }
+        }
+        if (dueNodes.isEmpty()) {
+            return;
+        }
+
+        String ticket = ticketManager.getTicket();
+        List<CompletableFuture<Void>> polls = new ArrayList<>();
+        for (String node : dueNodes) {
+            polls.add(CompletableFuture.runAsync(() -> pollNode(node, byNode.get(node), ticket), executorService));
+        }
+        CompletableFuture.allOf(polls.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Whether the periodic poll runs; with tick=off every watch polls its own task instead
+     */
+    boolean isPolling() {
+        return !"off".equalsIgnoreCase(config.tick().trim());
+    }
+
+    /**
+     * Check one task's status at its poll interval until it finishes, for when the periodic poll is off
+     */
+    private void pollDirectly(Watch watch) {
+        try {
+            while (!watch.future.isDone()) {
+                long delay = watch.nextCheckAt - System.currentTimeMillis();
+                if (delay > 0) {
+                    // Wake up at least every second: a new follower brings the next check forward
+                    Thread.sleep(Math.min(delay, 1000));
+                    continue;
+                }
+                String ticket = ticketManager.getTicket();
+                watch.polls++;
+                tailLog(watch, ticket);
+                if (checkStatus(watch, ticket)) {
+                    return;
+                }
+                if (watch.failures == 0) {
+                    updateState(watch, STATE_RUNNING);
+                }
+                long now = System.currentTimeMillis();
+                watch.nextCheckAt = now + pollInterval(watch, now);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pollNode(String node, List<Watch> watched, String ticket) {
+        long since = watched.stream().mapToLong(watch -> watch.startTime).min().orElse(0) - 1;
+        Set<String> listed = new HashSet<>();
+        Set<String> finished = new HashSet<>();
+
+        try {
+            TaskListData tasks = proxmoxClient.getNodeTasksSince(node, since, "all", config.taskListLimit(), ticket);
+            if (tasks != null && tasks.getData() != null) {
+                for (TaskStatusData task : tasks.getData()) {
+                    listed.add(task.getUpid());
+                    if (task.getEndtime() != null) {
+                        finished.add(task.getUpid());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOG.debug("Failed to list tasks on node {}: {}", node, e.getMessage());
+        }
+
+        long now = System.currentTimeMillis();
+        for (Watch watch : watched) {
+            watch.polls++;
+            if (listed.contains(watch.upid)) {
+                updateState(watch, STATE_RUNNING);
+            }
+            tailLog(watch, ticket);
+
+            boolean check = finished.contains(watch.upid)
+                || (!listed.contains(watch.upid) && watch.polls % DIRECT_CHECK_EVERY == 0);
+            if (check && checkStatus(watch, ticket)) {
+                continue;
+            }
+            watch.nextCheckAt = now + pollInterval(watch, now);
+        }
+    }
+
+    private void updateState(Watch watch, String state) {
+        if (state.equals(watch.state)) {
+            return;
+        }
+        watch.state = state;
+        for (TaskListener follower : watch.followers) {
+            notify(watch, () -> follower.onStateChanged(watch.upid, state));
+        }
+    }
+
+    /**
+     * Fetch log lines written since the last poll, only while someone follows the task
+     */
+    private void tailLog(Watch watch, String ticket) {
+        if (watch.followers.isEmpty()) {
+            return;
+        }
+        try {
+            TaskLogResponse log = taskService.getTaskLog(watch.upid, watch.logLine, LOG_TAIL_LIMIT, ticket);
+            List<TaskLogResponse.TaskLogEntry> lines = log.lines();
+            if (lines == null || lines.isEmpty()) {
+                return;
+            }
+            watch.logLine += lines.size();
+            for (TaskListener follower : watch.followers) {
+                notify(watch, () -> follower.onLogLines(watch.upid, lines));
+            }
+        } catch (Exception e) {
+            LOG.debug("Failed to tail log of task {}: {}", watch.upid, e.getMessage());
+        }
+    }
+
+    private static void notify(Watch watch, Runnable delivery) {
+        try {
+            delivery.run();
+        } catch (Exception e) {
+            LOG.warn("Task follower failed for {}: {}", watch.upid, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetch the full status of one task and complete its watch if it has finished
+     * @return true if the watch is done
+     */
+    private boolean checkStatus(Watch watch, String ticket) {
+        try {
+            TaskStatusDetailResponse status = taskService.getTaskStatus(watch.upid, ticket);
+            watch.failures = 0;
+            if (Boolean.TRUE.equals(status.finished())) {
+                tailLog(watch, ticket);
+                complete(watch, status);
+                return true;
+            }
+        } catch (Exception e) {
+            if (++watch.failures >= MAX_CHECK_FAILURES) {
+                LOG.warn("Giving up on task {} after {} failed status checks: {}",
+                    watch.upid, watch.failures, e.getMessage());
+                watches.remove(watch.upid, watch);
+                watch.future.completeExceptionally(e);
+                for (TaskListener follower : watch.followers) {
+                    notify(watch, () -> follower.onFailed(watch.upid, e));
+                }
+                return true;
+            }
+            LOG.debug("Status check for task {} failed: {}", watch.upid, e.getMessage());
+        }
+        return false;
+    }
+
+    private void complete(Watch watch, TaskStatusDetailResponse status) {
+        watches.remove(watch.upid, watch);
+        LOG.info("Task {} finished with status: {}", watch.upid, status.exitstatus());
+        watch.future.complete(status);
+        updateState(watch, STATE_FINISHED);
+        for (TaskListener follower : watch.followers) {
+            notify(watch, () -> follower.onCompleted(status));
+        }
+
+        taskCompleted.fire(new TaskCompletedEvent(status));
+        for (Consumer<TaskStatusDetailResponse> subscriber : subscribers) {
+            try {
+                subscriber.accept(status);
+            } catch (Exception e) {
+                LOG.warn("Task completion subscriber failed for {}: {}", watch.upid, e.getMessage());
+            }
+        }
+    }
+
+    private long pollInterval(Watch watch, long now) {
+        return pollInterval(config.minPollIntervalSeconds() * 1000L, config.maxPollIntervalSeconds() * 1000L,
+            now - watch.registeredAt, !watch.followers.isEmpty());
+    }
+
+    /**
+     * Poll interval in milliseconds: a tenth of the task's age between the bounds, the minimum while followed
+     */
+    static long pollInterval(long min, long max, long ageMillis, boolean followed) {
+        if (followed) {
+            return min;
+        }
+        return Math.max(min, Math.min(max, ageMillis / 10));
+    }
+
+    private static long parseStartTime(String hex) {
+        try {
+            return Long.parseLong(hex, 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Receives the progress of a followed task. Callbacks run on the watcher's poll threads.
+     */
+    public interface TaskListener {
+
+        /**
+         * The task moved to a new state: pending (not yet seen on its node), running or finished
+         */
+        default void onStateChanged(String upid, String state) {
+        }
+
+        /**
+         * Log lines written since the previous delivery
+         */
+        default void onLogLines(String upid, List<TaskLogResponse.TaskLogEntry> lines) {
+        }
+
+        void onCompleted(TaskStatusDetailResponse status);
+
+        /**
+         * The task could not be watched (invalid UPID, or its status could not be read)
+         */
+        default void onFailed(String upid, Throwable error) {
+        }
+    }
+
+    /**
+     * A listener as added by {@link #follow}: gets nothing after its completion or failure, or once closed
+     */
+    private static final class Follower implements TaskListener {
+        private final TaskListener delegate;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Follower(TaskListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onStateChanged(String upid, String state) {
+            if (!done.get()) {
+                delegate.onStateChanged(upid, state);
+            }
+        }
+
+        @Override
+        public void onLogLines(String upid, List<TaskLogResponse.TaskLogEntry> lines) {
+            if (!done.get()) {
+                delegate.onLogLines(upid, lines);
+            }
+        }
+
+        @Override
+        public void onCompleted(TaskStatusDetailResponse status) {
+            if (done.compareAndSet(false, true)) {
+                delegate.onCompleted(status);
+            }
+        }
+
+        @Override
+        public void onFailed(String upid, Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                delegate.onFailed(upid, error);
+            }
+        }
+
+        void close() {
+            done.set(true);
+        }
+    }
+
+    /**
+     * Handle for a completion listener
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Watch {
+        final String upid;
+        final String node;
+        final long startTime;
+        final long registeredAt;
+        final CompletableFuture<TaskStatusDetailResponse> future = new CompletableFuture<>();
+        final List<TaskListener> followers = new CopyOnWriteArrayList<>();
+        volatile long nextCheckAt;
+        volatile String state = STATE_PENDING;
+        int polls;
+        int failures;
+        int logLine;
+
+        Watch(String upid, String node, long startTime, long registeredAt, long firstDelay) {
+            this.upid = upid;
+            this.node = node;
+            this.startTime = startTime;
+            this.registeredAt = registeredAt;
+            this.nextCheckAt = registeredAt + firstDelay;
+        }
+    }
+}
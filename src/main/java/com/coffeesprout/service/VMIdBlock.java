@@ -0,0 +1,68 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A block of VM IDs reserved for this instance, handed out in order without locking.
+ */
+final class VMIdBlock {
+
+    static final VMIdBlock EMPTY = new VMIdBlock(new int[0], Instant.EPOCH);
+
+    private final int[] ids;
+    private final Instant reservedAt;
+    private final AtomicInteger position = new AtomicInteger();
+
+    VMIdBlock(int[] ids, Instant reservedAt) {
+        this.ids = ids;
+        this.reservedAt = reservedAt;
+    }
+
+    /**
+     * The lowest count IDs from min up to max that are not in used
+     */
+    static int[] free(Collection<Integer> used, int min, int max, int count) {
+        int[] ids = new int[count];
+        int found = 0;
+        for (int candidate = min; candidate <= max && found < count; candidate++) {
+            if (!used.contains(candidate)) {
+                ids[found++] = candidate;
+            }
+        }
+        return found == count ? ids : Arrays.copyOf(ids, found);
+    }
+
+    /**
+     * The next ID of the block, or -1 once all are handed out
+     */
+    int next() {
+        int index = position.getAndIncrement();
+        return index < ids.length ? ids[index] : -1;
+    }
+
+    /**
+     * Whether at least half of the block is handed out, so the next one should be prepared
+     */
+    boolean isHalfUsed() {
+        return position.get() * 2 >= ids.length;
+    }
+
+    /**
+     * Whether the reservation is too old to hand out further IDs from it
+     */
+    boolean isOlderThan(Duration maxAge) {
+        return reservedAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int[] ids() {
+        return ids.clone();
+    }
+}
@@ -1,21 +1,47 @@
 package com.coffeesprout.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
 
+import com.coffeesprout.api.dto.VMResponse;
 import com.coffeesprout.client.ProxmoxClient;
 import com.coffeesprout.dto.ClusterNextIdResponse;
+import com.coffeesprout.model.VMIdReservation;
 import com.coffeesprout.util.UnitConverter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.virtual.threads.VirtualThreads;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
 /**
  * Service for managing VM ID allocation in the Proxmox cluster.
- * Provides automatic VM ID generation with fallback mechanisms.
+ *
+ * IDs are handed out without locking from blocks of IDs that were free in the inventory snapshot. Each
+ * block is reserved in the database (vm_id_reservations), so instances sharing it hand out disjoint IDs,
+ * and checked against a fresh read from Proxmox in the background. The next block is prepared once half
+ * of the current one is used, so callers do not wait for Proxmox. Only replacing a used-up block takes a
+ * lock, so concurrent callers reserve one block between them. IDs of failed creates are released and
+ * reused once Proxmox confirms no VM has them. Falls back to the Proxmox cluster API and then to generation
+ * if no block can be reserved.
  */
 @ApplicationScoped
 @AutoAuthenticate
@@ -31,63 +57,280 @@ public class VMIdService {
     // Retry configuration
     private static final int MAX_RETRIES = 3;
 
-    // Track recently allocated VM IDs to avoid conflicts
+    // Number of IDs reserved from one inventory snapshot
+    static final int BLOCK_SIZE = 64;
+    // Reservations outlive the last ID handed out from their block by at least this long
+    private static final long RESERVATION_TIMEOUT_MS = 600000; // 10 minutes
+    private static final Duration BLOCK_LIFETIME = Duration.ofMillis(RESERVATION_TIMEOUT_MS / 2);
+
+    // Track handed-out VM IDs until the inventory shows them; claiming an ID here is what makes it unique
     private final ConcurrentHashMap<Integer, Long> recentlyAllocatedIds = new ConcurrentHashMap<>();
-    private static final long ALLOCATION_TIMEOUT_MS = 60000; // 1 minute
+    private static final long ALLOCATION_TIMEOUT_MS = 300000; // 5 minutes
 
     // Last allocated VM ID for incremental allocation
     private final AtomicInteger lastAllocatedId = new AtomicInteger(0);
 
+    // IDs of failed creates that Proxmox confirmed unused, handed out before block IDs
+    private final Queue<Integer> releasedIds = new ConcurrentLinkedQueue<>();
+    // Block IDs the background check found in use outside Moxxie
+    private final Set<Integer> conflictingIds = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<VMIdBlock> currentBlock = new AtomicReference<>(VMIdBlock.EMPTY);
+    private final AtomicReference<CompletableFuture<VMIdBlock>> nextBlock = new AtomicReference<>();
+    // Held while a used-up block is replaced
+    private final ReentrantLock replaceLock = new ReentrantLock();
+
     @Inject
     @RestClient
     ProxmoxClient proxmoxClient;
 
+    @Inject
+    VMInventoryService vmInventoryService;
+
+    @Inject
+    LocationService locationService;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService executorService;
+
+    // Distinguishes processes that share a configured instance ID
+    private final String processId = UUID.randomUUID().toString().substring(0, 8);
+
     /**
-     * Get the next available VM ID using Proxmox cluster API.
-     * Falls back to random generation if the API call fails.
+     * Get the next available VM ID.
+     * Falls back to the Proxmox cluster API and then to generation if no block can be reserved.
      *
      * @return Next available VM ID
      */
-    public synchronized int getNextAvailableVmId(@AuthTicket String ticket) {
-        // Clean up old allocations
-        cleanupOldAllocations();
+    public int getNextAvailableVmId(@AuthTicket String ticket) {
+        Integer released;
+        while ((released = releasedIds.poll()) != null) {
+            if (claim(released)) {
+                LOG.infof("Allocated released VM ID: %d", released);
+                return released;
+            }
+        }
 
-        // Keep trying to get next VM ID from Proxmox until we get an unused one
-        int attempts = 0;
-        int maxAttempts = 10;
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            VMIdBlock block = currentBlock.get();
+            int vmId;
+            // Stop using a block before its reservation can expire
+            while (!block.isOlderThan(BLOCK_LIFETIME) && (vmId = block.next()) > 0) {
+                if (block.isHalfUsed()) {
+                    prepareNextBlock();
+                }
+                if (claim(vmId)) {
+                    LOG.debugf("Allocated VM ID from reserved block: %d", vmId);
+                    return vmId;
+                }
+            }
 
-        while (attempts < maxAttempts) {
+            // Block used up: move on to the prepared one, or reserve one now
             try {
-                ClusterNextIdResponse response = proxmoxClient.getNextVmId(ticket);
-                if (response != null && response.data() != null) {
-                    int vmId = response.data();
-                    if (isValidVmId(vmId) && !isRecentlyAllocated(vmId)) {
-                        // Track this allocation
-                        recentlyAllocatedIds.put(vmId, System.currentTimeMillis());
-                        lastAllocatedId.set(vmId);
-                        LOG.infof("Allocated VM ID from Proxmox cluster API: %d (attempt %d)", vmId, attempts + 1);
-                        return vmId;
+                replaceBlock(block, ticket);
+            } catch (Exception e) {
+                LOG.warnf("Failed to reserve VM IDs from the inventory: %s", e.getMessage());
+                break;
+            }
+        }
+
+        return allocateFallback(ticket);
+    }
+
+    /**
+     * Give back a VM ID whose VM could not be created. It is reused once Proxmox confirms no VM has it
+     * and its reservation is renewed.
+     */
+    public void releaseVmId(int vmId) {
+        if (recentlyAllocatedIds.remove(vmId) == null) {
+            return;
+        }
+        executorService.execute(() -> {
+            try {
+                if (vmInventoryService.findResource(vmId, null).isEmpty()) {
+                    if (renewReservation(vmId)) {
+                        releasedIds.offer(vmId);
+                        LOG.debugf("Released VM ID %d", vmId);
                     } else {
-                        LOG.debugf("VM ID %d is recently allocated or invalid, trying again", vmId);
+                        LOG.debugf("Reservation of VM ID %d expired, not reusing it", vmId);
                     }
+                } else {
+                    LOG.debugf("VM ID %d is in use after a failed create, not reusing it", vmId);
                 }
             } catch (Exception e) {
-                LOG.warnf("Failed to get next VM ID from Proxmox API (attempt %d): %s", attempts + 1, e.getMessage());
+                LOG.debugf("Could not verify released VM ID %d: %s", vmId, e.getMessage());
             }
+        });
+    }
+
+    private boolean claim(int vmId) {
+        if (conflictingIds.contains(vmId)) {
+            return false;
+        }
+        if (recentlyAllocatedIds.putIfAbsent(vmId, System.currentTimeMillis()) != null) {
+            return false;
+        }
+        lastAllocatedId.accumulateAndGet(vmId, Math::max);
+        return true;
+    }
 
-            attempts++;
+    /**
+     * Replace a used-up block unless another caller already did. Callers that find the same block used up
+     * wait for the first one instead of each reserving a block they would then discard.
+     */
+    private void replaceBlock(VMIdBlock usedUp, String ticket) {
+        replaceLock.lock();
+        try {
+            if (currentBlock.get() == usedUp) {
+                currentBlock.set(takeNextBlock(ticket));
+            }
+        } finally {
+            replaceLock.unlock();
+        }
+    }
 
-            // Small delay between attempts
+    private VMIdBlock takeNextBlock(String ticket) {
+        CompletableFuture<VMIdBlock> prepared = nextBlock.getAndSet(null);
+        if (prepared != null) {
             try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                VMIdBlock block = prepared.join();
+                if (!block.isOlderThan(BLOCK_LIFETIME)) {
+                    return block;
+                }
+            } catch (Exception e) {
+                LOG.debugf("Prepared VM ID block failed, reserving a new one: %s", e.getMessage());
+            }
+        }
+        return reserveBlock(ticket);
+    }
+
+    private void prepareNextBlock() {
+        if (nextBlock.get() != null) {
+            return;
+        }
+        CompletableFuture<VMIdBlock> prepared = new CompletableFuture<>();
+        if (nextBlock.compareAndSet(null, prepared)) {
+            executorService.execute(() -> {
+                try {
+                    prepared.complete(reserveBlock(null));
+                } catch (Exception e) {
+                    prepared.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reserve the lowest free IDs of the inventory snapshot that are not handed out or reserved by any instance
+     */
+    private VMIdBlock reserveBlock(String ticket) {
+        cleanupOldAllocations();
+        VMInventorySnapshot snapshot = vmInventoryService.getSnapshot(ticket);
+
+        Set<Integer> used = new HashSet<>();
+        for (VMResponse resource : snapshot.resources()) {
+            used.add(resource.vmid());
+        }
+        // Conflicts the inventory knows about are excluded through it from now on
+        conflictingIds.removeIf(used::contains);
+        used.addAll(conflictingIds);
+        used.addAll(recentlyAllocatedIds.keySet());
+
+        Instant reservedAt = Instant.now();
+        int[] ids = reserveIds(used, BLOCK_SIZE).stream().mapToInt(Integer::intValue).toArray();
+        VMIdBlock block = new VMIdBlock(ids, reservedAt);
+        LOG.debugf("Reserved %d VM IDs from inventory snapshot v%d", block.size(), snapshot.version());
+        verify(block);
+        return block;
+    }
+
+    /**
+     * Reserve up to count IDs outside used for this instance in the database and return the ones it got,
+     * in order. Reservations of all instances are excluded; an ID another instance reserves at the same
+     * moment is left out of the block rather than handed out twice.
+     */
+    List<Integer> reserveIds(Set<Integer> used, int count) {
+        String owner = owner();
+        Instant now = Instant.now();
+        return QuarkusTransaction.requiringNew().call(() -> {
+            EntityManager em = VMIdReservation.getEntityManager();
+            VMIdReservation.delete("reservedAt < ?1", now.minusMillis(RESERVATION_TIMEOUT_MS));
+
+            Set<Integer> excluded = new HashSet<>(used);
+            excluded.addAll(em.createQuery("SELECT r.vmId FROM VMIdReservation r", Integer.class).getResultList());
+            int[] candidates = VMIdBlock.free(excluded, MIN_VM_ID, MAX_VM_ID, count);
+            if (candidates.length == 0) {
+                return List.<Integer>of();
+            }
+
+            StringJoiner values = new StringJoiner(", ");
+            List<Integer> candidateList = new ArrayList<>(candidates.length);
+            for (int candidate : candidates) {
+                values.add("(" + candidate + ", :owner, :reservedAt)");
+                candidateList.add(candidate);
+            }
+            em.createNativeQuery("INSERT INTO vm_id_reservations (vm_id, owner, reserved_at) VALUES " + values
+                    + " ON CONFLICT (vm_id) DO NOTHING")
+                .setParameter("owner", owner)
+                .setParameter("reservedAt", now)
+                .executeUpdate();
+            return em.createQuery("SELECT r.vmId FROM VMIdReservation r WHERE r.owner = :owner "
+                    + "AND r.vmId IN :candidates ORDER BY r.vmId", Integer.class)
+                .setParameter("owner", owner)
+                .setParameter("candidates", candidateList)
+                .getResultList();
+        });
+    }
+
+    /**
+     * Extend this instance's reservation of an ID
+     * @return false if the reservation expired and the ID may be reserved by another instance
+     */
+    boolean renewReservation(int vmId) {
+        String owner = owner();
+        return QuarkusTransaction.requiringNew().call(() -> VMIdReservation.update(
+            "reservedAt = ?1 WHERE vmId = ?2 AND owner = ?3", Instant.now(), vmId, owner)) > 0;
+    }
+
+    private String owner() {
+        return locationService.getLocationInfo().instanceId() + "/" + processId;
+    }
+
+    /**
+     * Check a block against a fresh read from Proxmox in the background and skip IDs created outside Moxxie
+     */
+    private void verify(VMIdBlock block) {
+        executorService.execute(() -> {
+            try {
+                VMInventorySnapshot fresh = vmInventoryService.getSnapshot(true, null);
+                for (int vmId : block.ids()) {
+                    if (fresh.find(vmId).isPresent() && !recentlyAllocatedIds.containsKey(vmId)) {
+                        conflictingIds.add(vmId);
+                        LOG.warnf("Reserved VM ID %d is in use outside Moxxie, skipping it", vmId);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.debugf("Could not verify reserved VM IDs: %s", e.getMessage());
+            }
+        });
+    }
+
+    private int allocateFallback(String ticket) {
+        try {
+            ClusterNextIdResponse response = proxmoxClient.getNextVmId(ticket);
+            if (response != null && response.data() != null) {
+                int vmId = response.data();
+                if (isValidVmId(vmId) && claim(vmId)) {
+                    LOG.infof("Allocated VM ID from Proxmox cluster API: %d", vmId);
+                    return vmId;
+                }
             }
+        } catch (Exception e) {
+            LOG.warnf("Failed to get next VM ID from Proxmox API: %s", e.getMessage());
         }
 
-        // Fallback to generation if Proxmox API fails after all attempts
-        LOG.warnf("Failed to get unique VM ID from Proxmox after %d attempts, falling back to generation", maxAttempts);
+        // Fallback to generation if Proxmox API fails
+        LOG.warn("Failed to get unique VM ID from Proxmox, falling back to generation");
         int vmId = generateUniqueVmId(0);
 
         // Track this allocation
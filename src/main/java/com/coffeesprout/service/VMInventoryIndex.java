@@ -0,0 +1,254 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.util.TagUtils;
+
+/**
+ * Immutable lookup structures over a VM inventory snapshot.
+ * Provides O(1) lookup by VM ID and inverted indexes from node, tag, pool, client and name to VM IDs.
+ *
+ * A new index is derived from the previous one by diffing the resource lists: only VMs whose
+ * indexed attributes (node, tags, pool, name) changed touch the inverted indexes.
+ */
+final class VMInventoryIndex {
+
+    // Fall back to a full build when more than this fraction of VMs changed
+    private static final double FULL_REBUILD_RATIO = 0.5;
+
+    private final Map<Integer, VMResponse> byId;
+    private final Map<String, Set<Integer>> byNode;
+    private final Map<String, Set<Integer>> byTag;
+    private final Map<String, Set<Integer>> byPool;
+    private final Map<String, Set<Integer>> byClient;
+    private final Map<String, Set<Integer>> byName;
+
+    private VMInventoryIndex(Map<Integer, VMResponse> byId,
+                             Map<String, Set<Integer>> byNode,
+                             Map<String, Set<Integer>> byTag,
+                             Map<String, Set<Integer>> byPool,
+                             Map<String, Set<Integer>> byClient,
+                             Map<String, Set<Integer>> byName) {
+        this.byId = byId;
+        this.byNode = byNode;
+        this.byTag = byTag;
+        this.byPool = byPool;
+        this.byClient = byClient;
+        this.byName = byName;
+    }
+
+    /**
+     * Build an index from scratch
+     */
+    static VMInventoryIndex build(List<VMResponse> resources) {
+        return new VMInventoryIndex(
+            idMap(resources),
+            apply(Map.of(), List.of(), resources, VMInventoryIndex::nodeKeys),
+            apply(Map.of(), List.of(), resources, VMInventoryIndex::tagKeys),
+            apply(Map.of(), List.of(), resources, VMInventoryIndex::poolKeys),
+            apply(Map.of(), List.of(), resources, VMInventoryIndex::clientKeys),
+            apply(Map.of(), List.of(), resources, VMInventoryIndex::nameKeys)
+        );
+    }
+
+    /**
+     * Derive the index for a new resource list, updating only the buckets of changed VMs
+     */
+    VMInventoryIndex update(List<VMResponse> resources) {
+        Map<Integer, VMResponse> newById = idMap(resources);
+        List<VMResponse> removed = new ArrayList<>();
+        List<VMResponse> added = new ArrayList<>();
+
+        for (VMResponse vm : resources) {
+            VMResponse previous = byId.get(vm.vmid());
+            if (previous == null) {
+                added.add(vm);
+            } else if (!sameIndexedAttributes(previous, vm)) {
+                removed.add(previous);
+                added.add(vm);
+            }
+        }
+        for (VMResponse previous : byId.values()) {
+            if (!newById.containsKey(previous.vmid())) {
+                removed.add(previous);
+            }
+        }
+
+        if (added.size() + removed.size() > resources.size() * FULL_REBUILD_RATIO) {
+            return build(resources);
+        }
+
+        return new VMInventoryIndex(
+            newById,
+            apply(byNode, removed, added, VMInventoryIndex::nodeKeys),
+            apply(byTag, removed, added, VMInventoryIndex::tagKeys),
+            apply(byPool, removed, added, VMInventoryIndex::poolKeys),
+            apply(byClient, removed, added, VMInventoryIndex::clientKeys),
+            apply(byName, removed, added, VMInventoryIndex::nameKeys)
+        );
+    }
+
+    VMResponse get(int vmId) {
+        return byId.get(vmId);
+    }
+
+    Set<Integer> idsOnNode(String node) {
+        return byNode.getOrDefault(node, Set.of());
+    }
+
+    Set<Integer> idsWithTag(String tag) {
+        return byTag.getOrDefault(tag, Set.of());
+    }
+
+    Set<Integer> idsInPool(String pool) {
+        return byPool.getOrDefault(pool, Set.of());
+    }
+
+    Set<Integer> idsForClient(String client) {
+        return byClient.getOrDefault(client.strip().toLowerCase(Locale.ROOT), Set.of());
+    }
+
+    Set<Integer> idsNamed(String name) {
+        return byName.getOrDefault(name, Set.of());
+    }
+
+    Set<String> tags() {
+        return byTag.keySet();
+    }
+
+    Set<String> nodes() {
+        return byNode.keySet();
+    }
+
+    /**
+     * Intersect several ID sets, probing the larger sets with members of the smallest one
+     */
+    static Set<Integer> intersect(List<Set<Integer>> sets) {
+        if (sets.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Integer> smallest = sets.get(0);
+        for (Set<Integer> set : sets) {
+            if (set.size() < smallest.size()) {
+                smallest = set;
+            }
+        }
+
+        Set<Integer> result = new HashSet<>();
+        outer:
+        for (Integer id : smallest) {
+            for (Set<Integer> set : sets) {
+                if (set != smallest && !set.contains(id)) {
+                    continue outer;
+                }
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static Map<Integer, VMResponse> idMap(List<VMResponse> resources) {
+        Map<Integer, VMResponse> map = new HashMap<>(Math.max(16, resources.size() * 2));
+        for (VMResponse vm : resources) {
+            map.put(vm.vmid(), vm);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Map<String, Set<Integer>> apply(Map<String, Set<Integer>> index,
+                                                   List<VMResponse> removed,
+                                                   List<VMResponse> added,
+                                                   Function<VMResponse, Collection<String>> keys) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return index;
+        }
+
+        // Copy only the buckets that change; untouched buckets are shared with the previous index
+        Map<String, Set<Integer>> touched = new HashMap<>();
+        for (VMResponse vm : removed) {
+            for (String key : keys.apply(vm)) {
+                touched.computeIfAbsent(key, k -> new HashSet<>(index.getOrDefault(k, Set.of())))
+                    .remove(vm.vmid());
+            }
+        }
+        for (VMResponse vm : added) {
+            for (String key : keys.apply(vm)) {
+                touched.computeIfAbsent(key, k -> new HashSet<>(index.getOrDefault(k, Set.of())))
+                    .add(vm.vmid());
+            }
+        }
+
+        Map<String, Set<Integer>> result = new HashMap<>(index);
+        touched.forEach((key, ids) -> {
+            if (ids.isEmpty()) {
+                result.remove(key);
+            } else {
+                result.put(key, Set.copyOf(ids));
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static boolean sameIndexedAttributes(VMResponse a, VMResponse b) {
+        return Objects.equals(a.node(), b.node())
+            && Objects.equals(a.pool(), b.pool())
+            && Objects.equals(a.name(), b.name())
+            && sameTags(a.tags(), b.tags());
+    }
+
+    private static boolean sameTags(List<String> a, List<String> b) {
+        if (Objects.equals(a, b)) {
+            return true;
+        }
+        if (a == null || b == null || a.size() != b.size()) {
+            return false;
+        }
+        return new HashSet<>(a).equals(new HashSet<>(b));
+    }
+
+    private static Collection<String> nodeKeys(VMResponse vm) {
+        return isBlank(vm.node()) ? List.of() : List.of(vm.node());
+    }
+
+    private static Collection<String> tagKeys(VMResponse vm) {
+        return vm.tags() == null ? List.of() : vm.tags();
+    }
+
+    private static Collection<String> poolKeys(VMResponse vm) {
+        return isBlank(vm.pool()) ? List.of() : List.of(vm.pool());
+    }
+
+    private static Collection<String> clientKeys(VMResponse vm) {
+        if (vm.tags() == null) {
+            return List.of();
+        }
+        List<String> clients = new ArrayList<>(1);
+        for (String tag : vm.tags()) {
+            String client = TagUtils.clientFromTag(tag);
+            if (client != null) {
+                clients.add(client.toLowerCase(Locale.ROOT));
+            }
+        }
+        return clients;
+    }
+
+    private static Collection<String> nameKeys(VMResponse vm) {
+        return isBlank(vm.name()) ? List.of() : List.of(vm.name());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+}
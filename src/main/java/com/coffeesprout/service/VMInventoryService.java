@@ -1,9 +1,18 @@
 package com.coffeesprout.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -11,8 +20,10 @@ import jakarta.inject.Inject;
 import com.coffeesprout.api.dto.VMResponse;
 import com.coffeesprout.api.exception.ProxmoxException;
 import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.config.InventoryConfig;
 import com.coffeesprout.util.TagUtils;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.quarkus.scheduler.Scheduled;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +31,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Provides read-only access to VM inventory data pulled from Proxmox.
  * Acts as a mediator so consumers do not need to depend directly on VMService.
+ *
+ * Reads are served from a shared in-process snapshot of /cluster/resources?type=vm.
+ * The snapshot is refreshed in the background and on demand once it is older than
+ * the configured staleness bound. Moxxie's own writes patch or invalidate it so
+ * callers observe their own changes; callers that need Proxmox's current view can
+ * request a fresh read.
  */
 @ApplicationScoped
 @AutoAuthenticate
@@ -34,53 +51,295 @@ public class VMInventoryService {
     @Inject
     TicketManager ticketManager;
 
+    @Inject
+    InventoryConfig inventoryConfig;
+
+    private volatile VMInventorySnapshot snapshot;
+    private final AtomicLong versionCounter = new AtomicLong(0);
+    private final AtomicLong writeSequence = new AtomicLong(0);
+    // Serializes upstream fetches so concurrent misses share one download
+    private final Lock refreshLock = new ReentrantLock();
+    // Serializes snapshot replacement (installs and patches)
+    private final Lock installLock = new ReentrantLock();
+
     /**
      * List all VMs in the cluster irrespective of filters.
      */
     public List<VMResponse> listAll(@AuthTicket String ticket) {
+        return getSnapshot(false, ticket).qemuVMs();
+    }
+
+    /**
+     * List all VMs, bypassing the snapshot and reading the current state from Proxmox.
+     */
+    public List<VMResponse> listAllFresh(@AuthTicket String ticket) {
+        return getSnapshot(true, ticket).qemuVMs();
+    }
+
+    /**
+     * Get the current inventory snapshot, refreshing it if it is stale.
+     */
+    public VMInventorySnapshot getSnapshot(@AuthTicket String ticket) {
+        return getSnapshot(false, ticket);
+    }
+
+    /**
+     * Get the inventory snapshot.
+     *
+     * @param fresh when true the returned snapshot was fetched after this call started
+     * @param ticket Authentication ticket
+     */
+    public VMInventorySnapshot getSnapshot(boolean fresh, @AuthTicket String ticket) {
+        if (!inventoryConfig.enabled()) {
+            return fetch(ticket);
+        }
+
+        VMInventorySnapshot current = snapshot;
+        if (!fresh && isUsable(current)) {
+            return current;
+        }
+
+        Instant requestedAt = Instant.now();
+        refreshLock.lock();
         try {
-            JsonNode resources = proxmoxClient.getClusterResources(ticket, ticketManager.getCsrfToken(), "vm");
-            List<VMResponse> vms = new ArrayList<>();
-
-            if (resources != null && resources.has("data")) {
-                JsonNode dataArray = resources.get("data");
-
-                for (JsonNode resource : dataArray) {
-                    if (!"qemu".equals(resource.path("type").asText(""))) {
-                        continue;
-                    }
-
-                    String tagsString = resource.path("tags").asText("");
-                    Set<String> vmTags = tagsString.isEmpty()
-                        ? Set.of()
-                        : new HashSet<>(TagUtils.parseVMTags(tagsString));
-
-                    String pool = resource.path("pool").isMissingNode()
-                        ? null
-                        : resource.path("pool").asText(null);
-
-                    VMResponse vmResponse = new VMResponse(
-                        resource.path("vmid").asInt(),
-                        resource.path("name").asText(""),
-                        resource.path("node").asText(""),
-                        resource.path("status").asText(""),
-                        resource.path("cpus").asInt(0),
-                        resource.path("maxmem").asLong(0),
-                        resource.path("maxdisk").asLong(0),
-                        resource.path("uptime").asLong(0),
-                        resource.path("type").asText(""),
-                        new ArrayList<>(vmTags),
-                        pool,
-                        resource.path("template").asInt(0)
-                    );
-                    vms.add(vmResponse);
+            // Another caller may have refreshed while we were waiting for the lock
+            current = snapshot;
+            if (isUsable(current) && (!fresh || !current.fetchedAt().isBefore(requestedAt))) {
+                return current;
+            }
+
+            try {
+                VMInventorySnapshot fetched = fetch(ticket);
+                install(fetched);
+                return fetched;
+            } catch (RuntimeException e) {
+                if (!fresh && current != null) {
+                    LOG.warn("Inventory refresh failed, serving snapshot from {}: {}",
+                        current.fetchedAt(), e.getMessage());
+                    return current;
                 }
+                throw e;
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Find any VM-type resource (qemu or lxc) by ID.
+     * A miss on a cached snapshot is re-checked against Proxmox so newly created VMs are found.
+     */
+    public Optional<VMResponse> findResource(int vmId, @AuthTicket String ticket) {
+        VMInventorySnapshot current = getSnapshot(false, ticket);
+        Optional<VMResponse> found = current.find(vmId);
+        if (found.isPresent() || !inventoryConfig.enabled()) {
+            return found;
+        }
+
+        LOG.debug("VM {} not in inventory snapshot v{}, re-reading from Proxmox", vmId, current.version());
+        return getSnapshot(true, ticket).find(vmId);
+    }
+
+    /**
+     * Check whether a VM carries a tag without fetching its config.
+     * The answer reflects Moxxie's own tag writes immediately, since they patch the snapshot.
+     *
+     * @return the answer, or empty if the VM is not in the inventory
+     */
+    public Optional<Boolean> hasTag(int vmId, String tag, @AuthTicket String ticket) {
+        VMInventorySnapshot current = getSnapshot(false, ticket);
+        if (current.find(vmId).isEmpty() && inventoryConfig.enabled()) {
+            current = getSnapshot(true, ticket);
+        }
+        if (current.find(vmId).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(current.hasTag(vmId, tag));
+    }
+
+    /**
+     * Mark the snapshot stale so the next read fetches from Proxmox.
+     * Use after writes whose effect cannot be patched locally (create, clone, restore, migrate).
+     */
+    public void invalidate() {
+        writeSequence.incrementAndGet();
+        LOG.debug("Inventory snapshot invalidated");
+    }
+
+    /**
+     * Replace the tags of a VM in the snapshot after Moxxie updated them in Proxmox.
+     */
+    public void updateTags(int vmId, Collection<String> tags) {
+        List<String> newTags = tags == null ? List.of() : new ArrayList<>(new HashSet<>(tags));
+        installLock.lock();
+        try {
+            long sequence = writeSequence.incrementAndGet();
+            VMInventorySnapshot current = snapshot;
+            if (current != null && current.writeSequence() == sequence - 1) {
+                snapshot = current.patch(vmId, vm -> withTags(vm, newTags),
+                    versionCounter.incrementAndGet(), sequence);
+            }
+        } finally {
+            installLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a VM from the snapshot after Moxxie deleted it.
+     */
+    public void removeVM(int vmId) {
+        installLock.lock();
+        try {
+            long sequence = writeSequence.incrementAndGet();
+            VMInventorySnapshot current = snapshot;
+            if (current != null && current.writeSequence() == sequence - 1) {
+                snapshot = current.without(vmId, versionCounter.incrementAndGet(), sequence);
+            }
+        } finally {
+            installLock.unlock();
+        }
+    }
+
+    /**
+     * Keep the snapshot warm so request threads rarely pay for a full inventory download.
+     */
+    @Scheduled(every = "${moxxie.inventory.refresh-interval:15s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+               executeWith = Scheduled.SIMPLE)
+    void refreshInBackground() {
+        if (!inventoryConfig.enabled()) {
+            return;
+        }
+
+        try {
+            VMInventorySnapshot refreshed = getSnapshot(true, ticketManager.getTicket());
+            LOG.debug("Background inventory refresh: v{} with {} resources",
+                refreshed.version(), refreshed.resources().size());
+        } catch (Exception e) {
+            LOG.warn("Background inventory refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isUsable(VMInventorySnapshot candidate) {
+        return candidate != null
+            && candidate.writeSequence() == writeSequence.get()
+            && !candidate.isOlderThan(Duration.ofSeconds(inventoryConfig.maxStalenessSeconds()));
+    }
+
+    private void install(VMInventorySnapshot fetched) {
+        installLock.lock();
+        try {
+            VMInventorySnapshot current = snapshot;
+            // Never replace a patched snapshot with data that predates the patch
+            if (current == null || fetched.writeSequence() >= current.writeSequence()) {
+                snapshot = fetched;
             }
+        } finally {
+            installLock.unlock();
+        }
+    }
 
-            return vms;
+    private VMInventorySnapshot fetch(String ticket) {
+        long sequence = writeSequence.get();
+        Instant requestedAt = Instant.now();
+        try {
+            JsonNode resources = proxmoxClient.getClusterResources(ticket, ticketManager.getCsrfToken(), "vm");
+            List<VMResponse> vms = parseResources(resources);
+            VMInventorySnapshot previous = snapshot;
+            // Unchanged data keeps its version so caches keyed on it stay valid across refreshes
+            long version = previous != null && sameResources(previous.resources(), vms)
+                ? previous.version()
+                : versionCounter.incrementAndGet();
+            // Derive the index from the current snapshot so only changed VMs are re-indexed
+            VMInventorySnapshot fetched = new VMInventorySnapshot(version, sequence, requestedAt, vms, previous);
+            LOG.debug("Fetched inventory snapshot v{} with {} resources", fetched.version(), vms.size());
+            return fetched;
         } catch (Exception e) {
             LOG.error("Error listing VMs from inventory", e);
             throw ProxmoxException.internalError("list VMs", e);
         }
     }
+
+    private List<VMResponse> parseResources(JsonNode resources) {
+        List<VMResponse> vms = new ArrayList<>();
+
+        if (resources != null && resources.has("data")) {
+            JsonNode dataArray = resources.get("data");
+
+            for (JsonNode resource : dataArray) {
+                if (!resource.has("vmid")) {
+                    continue;
+                }
+
+                String tagsString = resource.path("tags").asText("");
+                Set<String> vmTags = tagsString.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(TagUtils.parseVMTags(tagsString));
+
+                String pool = resource.path("pool").isMissingNode()
+                    ? null
+                    : resource.path("pool").asText(null);
+
+                VMResponse vmResponse = new VMResponse(
+                    resource.path("vmid").asInt(),
+                    resource.path("name").asText(""),
+                    resource.path("node").asText(""),
+                    resource.path("status").asText(""),
+                    resource.path("cpus").asInt(0),
+                    resource.path("maxmem").asLong(0),
+                    resource.path("maxdisk").asLong(0),
+                    resource.path("uptime").asLong(0),
+                    resource.path("type").asText(""),
+                    new ArrayList<>(vmTags),
+                    pool,
+                    resource.path("template").asInt(0)
+                );
+                vms.add(vmResponse);
+            }
+        }
+
+        return vms;
+    }
+
+    /**
+     * Whether fetched resources match a snapshot's resources (ordered by VM ID).
+     * Uptime is ignored: it moves on every read without changing anything else.
+     */
+    static boolean sameResources(List<VMResponse> current, List<VMResponse> fetched) {
+        if (current.size() != fetched.size()) {
+            return false;
+        }
+        List<VMResponse> sorted = fetched.stream()
+            .sorted(Comparator.comparingInt(VMResponse::vmid))
+            .toList();
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sameResource(current.get(i), sorted.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameResource(VMResponse a, VMResponse b) {
+        return a.vmid() == b.vmid()
+            && Objects.equals(a.name(), b.name())
+            && Objects.equals(a.node(), b.node())
+            && Objects.equals(a.status(), b.status())
+            && a.cpus() == b.cpus()
+            && a.maxmem() == b.maxmem()
+            && a.maxdisk() == b.maxdisk()
+            && Objects.equals(a.type(), b.type())
+            && tagSet(a).equals(tagSet(b))
+            && Objects.equals(a.pool(), b.pool())
+            && a.template() == b.template();
+    }
+
+    private static Set<String> tagSet(VMResponse vm) {
+        return vm.tags() == null ? Set.of() : new HashSet<>(vm.tags());
+    }
+
+    private static VMResponse withTags(VMResponse vm, List<String> tags) {
+        return new VMResponse(vm.vmid(), vm.name(), vm.node(), vm.status(), vm.cpus(), vm.maxmem(),
+            vm.maxdisk(), vm.uptime(), vm.type(), tags, vm.pool(), vm.template());
+    }
 }
@@ -0,0 +1,203 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import com.coffeesprout.api.dto.VMResponse;
+
+/**
+ * Immutable point-in-time view of the cluster VM inventory.
+ * Holds every VM-type resource returned by /cluster/resources (qemu and lxc), ordered by VM ID,
+ * together with a {@link VMInventoryIndex} for keyed lookups.
+ * Patches produce a new snapshot with a higher version; the original is never modified. A refresh that
+ * returns the same data (apart from uptime) keeps the previous version.
+ */
+public final class VMInventorySnapshot {
+
+    private final long version;
+    private final long writeSequence;
+    private final Instant fetchedAt;
+    private final List<VMResponse> resources;
+    private final List<VMResponse> qemuVMs;
+    private final VMInventoryIndex index;
+
+    VMInventorySnapshot(long version, long writeSequence, Instant fetchedAt, List<VMResponse> resources) {
+        this(version, writeSequence, fetchedAt, resources, null);
+    }
+
+    /**
+     * Create a snapshot whose index is derived incrementally from a previous snapshot
+     */
+    VMInventorySnapshot(long version, long writeSequence, Instant fetchedAt, List<VMResponse> resources,
+                        VMInventorySnapshot previous) {
+        this.version = version;
+        this.writeSequence = writeSequence;
+        this.fetchedAt = fetchedAt;
+        this.resources = resources.stream()
+            .sorted(Comparator.comparingInt(VMResponse::vmid))
+            .toList();
+        this.qemuVMs = this.resources.stream()
+            .filter(VMInventorySnapshot::isQemu)
+            .toList();
+        this.index = previous == null
+            ? VMInventoryIndex.build(this.resources)
+            : previous.index.update(this.resources);
+    }
+
+    /**
+     * Monotonically increasing version, bumped on every patch and on every refresh that changed the data
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Time the underlying data was requested from Proxmox
+     */
+    public Instant fetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * All VM-type resources (qemu and lxc)
+     */
+    public List<VMResponse> resources() {
+        return resources;
+    }
+
+    /**
+     * Only QEMU virtual machines
+     */
+    public List<VMResponse> qemuVMs() {
+        return qemuVMs;
+    }
+
+    /**
+     * Find a resource by VM ID
+     */
+    public Optional<VMResponse> find(int vmId) {
+        return Optional.ofNullable(index.get(vmId));
+    }
+
+    /**
+     * Find a QEMU VM by ID
+     */
+    public Optional<VMResponse> findVM(int vmId) {
+        return find(vmId).filter(VMInventorySnapshot::isQemu);
+    }
+
+    /**
+     * Check whether a resource carries a tag, answered from the tag index
+     */
+    public boolean hasTag(int vmId, String tag) {
+        return index.idsWithTag(tag).contains(vmId);
+    }
+
+    /**
+     * IDs of all resources (qemu and lxc) carrying the given tag, in ascending order
+     */
+    public List<Integer> idsWithTag(String tag) {
+        return index.idsWithTag(tag).stream().sorted().toList();
+    }
+
+    /**
+     * IDs of all resources (qemu and lxc) in the given pool, in ascending order
+     */
+    public List<Integer> idsInPool(String pool) {
+        return index.idsInPool(pool).stream().sorted().toList();
+    }
+
+    /**
+     * IDs of all resources (qemu and lxc) with exactly the given name, in ascending order
+     */
+    public List<Integer> idsNamed(String name) {
+        return index.idsNamed(name).stream().sorted().toList();
+    }
+
+    /**
+     * All distinct tags in use
+     */
+    public Set<String> tags() {
+        return index.tags();
+    }
+
+    /**
+     * All nodes hosting at least one resource
+     */
+    public Set<String> nodes() {
+        return index.nodes();
+    }
+
+    /**
+     * Select QEMU VMs matching all given filters. Tag, client and node filters are answered by
+     * intersecting the inverted indexes; status changes too often to index and is checked per VM.
+     *
+     * @param tags Required tags (AND logic), null or empty for no tag filter
+     * @param client Client name (matches the client-&lt;name&gt; tag), null or empty for no filter
+     * @param node Node name, null or empty for no filter
+     * @param status VM status, null or empty for no filter
+     */
+    public List<VMResponse> select(Collection<String> tags, String client, String node, String status) {
+        List<Set<Integer>> constraints = new ArrayList<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                constraints.add(index.idsWithTag(tag));
+            }
+        }
+        if (client != null && !client.isEmpty()) {
+            constraints.add(index.idsForClient(client));
+        }
+        if (node != null && !node.isEmpty()) {
+            constraints.add(index.idsOnNode(node));
+        }
+
+        List<VMResponse> candidates = constraints.isEmpty()
+            ? qemuVMs
+            : VMInventoryIndex.intersect(constraints).stream()
+                .sorted()
+                .map(index::get)
+                .filter(VMInventorySnapshot::isQemu)
+                .toList();
+
+        if (status == null || status.isEmpty()) {
+            return candidates;
+        }
+        return candidates.stream()
+            .filter(vm -> status.equals(vm.status()))
+            .toList();
+    }
+
+    public boolean isOlderThan(Duration maxAge) {
+        return fetchedAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    long writeSequence() {
+        return writeSequence;
+    }
+
+    VMInventorySnapshot patch(int vmId, UnaryOperator<VMResponse> patch, long newVersion, long newWriteSequence) {
+        List<VMResponse> patched = new ArrayList<>(resources.size());
+        for (VMResponse vm : resources) {
+            patched.add(vm.vmid() == vmId ? patch.apply(vm) : vm);
+        }
+        return new VMInventorySnapshot(newVersion, newWriteSequence, fetchedAt, patched, this);
+    }
+
+    VMInventorySnapshot without(int vmId, long newVersion, long newWriteSequence) {
+        List<VMResponse> remaining = resources.stream()
+            .filter(vm -> vm.vmid() != vmId)
+            .toList();
+        return new VMInventorySnapshot(newVersion, newWriteSequence, fetchedAt, remaining, this);
+    }
+
+    private static boolean isQemu(VMResponse vm) {
+        return "qemu".equals(vm.type());
+    }
+}
@@ -41,36 +41,14 @@ public class VMLocatorService {
      */
     public Optional<String> findNodeForVM(int vmId, @AuthTicket String ticket) {
         try {
-            // First, try using cluster resources API (most efficient)
-            var resources = proxmoxClient.getClusterResources(
-                ticket,
-                ticketManager.getCsrfToken(),
-                "vm"
-            );
-
-            if (resources != null && resources.has("data")) {
-                var dataArray = resources.get("data");
-                for (var resource : dataArray) {
-                    if (resource.has("vmid") && resource.get("vmid").asInt() == vmId
-                            && resource.has("node")) {
-                        String node = resource.get("node").asText();
-                        LOG.debug("Found VM {} on node {} via cluster resources", vmId, node);
-                        return Optional.of(node);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            LOG.warn("Error finding VM {} via cluster resources: {}", vmId, e.getMessage());
-        }
-
-        // Fallback: try using VM service (less efficient but more reliable)
-        try {
-            return vmInventoryService.listAll(ticket).stream()
-                .filter(vm -> vm.vmid() == vmId)
+            // Served from the shared inventory snapshot; a miss is re-checked against Proxmox
+            Optional<String> node = vmInventoryService.findResource(vmId, ticket)
                 .map(VMResponse::node)
-                .findFirst();
+                .filter(n -> !n.isEmpty());
+            node.ifPresent(n -> LOG.debug("Found VM {} on node {} via inventory", vmId, n));
+            return node;
         } catch (Exception e) {
-            LOG.error("Error finding VM {} via VM service: {}", vmId, e.getMessage());
+            LOG.error("Error finding VM {} via inventory: {}", vmId, e.getMessage());
             return Optional.empty();
         }
     }
@@ -84,9 +62,8 @@ public class VMLocatorService {
      */
     public Optional<VMResponse> findVM(int vmId, @AuthTicket String ticket) {
         try {
-            return vmInventoryService.listAll(ticket).stream()
-                .filter(vm -> vm.vmid() == vmId)
-                .findFirst();
+            return vmInventoryService.findResource(vmId, ticket)
+                .filter(vm -> "qemu".equals(vm.type()));
         } catch (Exception e) {
             LOG.error("Error finding VM {}: {}", vmId, e.getMessage());
             return Optional.empty();
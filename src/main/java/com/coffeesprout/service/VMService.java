@@ -54,17 +54,31 @@ public class VMService {
         return listVMsWithFilters(null, null, null, null, ticket);
     }
 
+    /**
+     * List all VMs bypassing the shared inventory snapshot.
+     * Use when the caller must observe changes made outside Moxxie (e.g. verifying a migration).
+     */
+    @SafeMode(false)  // Read operation
+    public List<VMResponse> listVMsFresh(@AuthTicket String ticket) {
+        return vmInventoryService.listAllFresh(ticket);
+    }
+
     @SafeMode(false)  // Read operation
     public List<VMResponse> listVMsWithFilters(List<String> tags, String client, String node, String status, @AuthTicket String ticket) {
+        return listVMsWithFilters(tags, client, node, status, false, ticket);
+    }
+
+    /**
+     * List VMs matching the filters.
+     *
+     * @param fresh when true the filters are applied to a snapshot fetched from Proxmox by this call
+     */
+    @SafeMode(false)  // Read operation
+    public List<VMResponse> listVMsWithFilters(List<String> tags, String client, String node, String status,
+                                               boolean fresh, @AuthTicket String ticket) {
         try {
-            List<VMResponse> allVms = vmInventoryService.listAll(ticket);
-
-            return allVms.stream()
-                .filter(vm -> filterByTags(vm, tags))
-                .filter(vm -> filterByClient(vm, client))
-                .filter(vm -> filterByNode(vm, node))
-                .filter(vm -> filterByStatus(vm, status))
-                .collect(Collectors.toList());
+            // Tag, client and node filters are answered from the snapshot's inverted indexes
+            return vmInventoryService.getSnapshot(fresh, ticket).select(tags, client, node, status);
         } catch (Exception e) {
             LOG.error("Error listing VMs with filters", e);
             throw ProxmoxException.internalError("list VMs", e);
@@ -80,10 +94,7 @@ public class VMService {
      * @return VMResponse if found, null otherwise
      */
     public VMResponse findVmById(int vmId, @AuthTicket String ticket) {
-        return listVMs(ticket).stream()
-            .filter(vm -> vm.vmid() == vmId)
-            .findFirst()
-            .orElse(null);
+        return vmInventoryService.getSnapshot(ticket).findVM(vmId).orElse(null);
     }
 
     /**
@@ -124,6 +135,7 @@ public class VMService {
     public CreateVMResponse createVM(String node, CreateVMRequest request, @AuthTicket String ticket) {
         // Create the VM
         CreateVMResponse response = proxmoxClient.createVM(node, ticket, ticketManager.getCsrfToken(), request);
+        vmInventoryService.invalidate();
 
         // Set the VM ID and status in the response
         // Proxmox returns a task UPID in the data field, not the VM details
@@ -177,37 +189,6 @@ public class VMService {
         }
     }
 
-    private boolean filterByTags(VMResponse vm, List<String> requiredTags) {
-        if (requiredTags == null || requiredTags.isEmpty()) {
-            return true;
-        }
-        List<String> vmTags = vm.tags();
-        if (vmTags == null || vmTags.isEmpty()) {
-            return false;
-        }
-        Set<String> normalized = Set.copyOf(vmTags);
-        return requiredTags.stream().allMatch(normalized::contains);
-    }
-
-    private boolean filterByClient(VMResponse vm, String client) {
-        if (client == null || client.isEmpty()) {
-            return true;
-        }
-        List<String> vmTags = vm.tags();
-        if (vmTags == null || vmTags.isEmpty()) {
-            return false;
-        }
-        return vmTags.contains(TagUtils.client(client));
-    }
-
-    private boolean filterByNode(VMResponse vm, String node) {
-        return node == null || node.isEmpty() || node.equals(vm.node());
-    }
-
-    private boolean filterByStatus(VMResponse vm, String status) {
-        return status == null || status.isEmpty() || status.equals(vm.status());
-    }
-
     @SafeMode(operation = SafeMode.Operation.WRITE)
     public void stopVM(String node, int vmid, @AuthTicket String ticket) {
         LOG.info("Stopping VM {} on node {}", vmid, node);
@@ -221,6 +202,7 @@ public class VMService {
     public void deleteVM(String node, int vmid, @AuthTicket String ticket) {
         LOG.info("Deleting VM {} on node {}", vmid, node);
         proxmoxClient.deleteVM(node, vmid, ticket, ticketManager.getCsrfToken());
+        vmInventoryService.removeVM(vmid);
     }
 
     @SafeMode(operation = SafeMode.Operation.WRITE)
@@ -275,6 +257,10 @@ public class VMService {
         String formData = buildFormData(config);
 
         proxmoxClient.updateVMConfig(node, vmId, ticket, ticketManager.getCsrfToken(), formData);
+
+        if (config.getTags() != null) {
+            vmInventoryService.updateTags(vmId, TagUtils.parseVMTags(config.getTags()));
+        }
     }
 
     private String buildFormData(CreateVMRequest config) {
@@ -398,7 +384,7 @@ public class VMService {
         try {
             LOG.info("Cloning VM {} to new VM {} on node {}", templateId, newVmId, targetNode != null ? targetNode : node);
 
-            return proxmoxClient.cloneVM(
+            TaskStatusResponse response = proxmoxClient.cloneVM(
                 node,
                 templateId,
                 newVmId,
@@ -412,6 +398,8 @@ public class VMService {
                 ticket,
                 ticketManager.getCsrfToken()
             );
+            vmInventoryService.invalidate();
+            return response;
 
         } catch (Exception e) {
             LOG.error("Failed to clone VM {} to {}", templateId, newVmId, e);
@@ -429,11 +417,7 @@ public class VMService {
      * @throws RuntimeException if VM not found
      */
     public boolean isTemplate(int vmId, @AuthTicket String ticket) {
-        List<VMResponse> vms = listVMs(ticket);
-
-        VMResponse vm = vms.stream()
-            .filter(v -> v.vmid() == vmId)
-            .findFirst()
+        VMResponse vm = vmInventoryService.getSnapshot(ticket).findVM(vmId)
             .orElseThrow(() -> ProxmoxException.notFound("VM", String.valueOf(vmId)));
 
         return vm.template() == 1;
@@ -586,7 +570,15 @@ public class VMService {
 
         // Create the VM without main disk
         LOG.info("Creating VM {} without main disk", vmId);
-        CreateVMResponse response = createVM(creationNode, clientRequest, ticket);
+        CreateVMResponse response;
+        try {
+            response = createVM(creationNode, clientRequest, ticket);
+        } catch (RuntimeException e) {
+            if (request.vmid() == null) {
+                vmIdService.releaseVmId(vmId);
+            }
+            throw e;
+        }
 
         // Now import and attach the disk as scsi0
         try {
@@ -622,6 +614,10 @@ public class VMService {
             } catch (Exception cleanupEx) {
                 LOG.error("Failed to clean up VM {} after disk import failure", vmId, cleanupEx);
             }
+            // Only reused if the VM is really gone
+            if (request.vmid() == null) {
+                vmIdService.releaseVmId(vmId);
+            }
             throw ProxmoxException.internalError("import disk for VM " + vmId, e);
         }
 
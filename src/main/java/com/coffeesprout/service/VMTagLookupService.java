@@ -7,6 +7,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.scheduler.tag.TagBitmaps;
 
 /**
  * Mediator providing consolidated access to VM inventory data and tag lookups.
@@ -21,6 +22,8 @@ public class VMTagLookupService {
     @Inject
     TagService tagService;
 
+    private volatile TagBitmaps tagBitmaps;
+
     public List<VMResponse> listVMs(@AuthTicket String ticket) {
         return vmInventoryService.listAll(ticket);
     }
@@ -32,4 +35,21 @@ public class VMTagLookupService {
     public List<Integer> getVMsByTag(String tag, @AuthTicket String ticket) {
         return tagService.getVMsByTag(tag, ticket);
     }
+
+    /**
+     * Per-tag VM bitmaps for the current inventory version.
+     * Rebuilt only when the inventory snapshot changes, so memoized tag expression results
+     * survive across scheduler firings until the inventory does.
+     */
+    public TagBitmaps getTagBitmaps(@AuthTicket String ticket) {
+        VMInventorySnapshot snapshot = vmInventoryService.getSnapshot(ticket);
+        TagBitmaps current = tagBitmaps;
+        if (current != null && current.version() == snapshot.version()) {
+            return current;
+        }
+
+        TagBitmaps built = TagBitmaps.of(snapshot.qemuVMs(), snapshot.version());
+        tagBitmaps = built;
+        return built;
+    }
 }
@@ -95,6 +95,16 @@ public final class TagUtils {
         return String.join(";", tags);
     }
 
+    /**
+     * Extract the client name from a client tag (client-<name>), or null if the tag is not a client tag
+     */
+    public static String clientFromTag(String tag) {
+        if (tag == null || !tag.startsWith(CLIENT_PREFIX) || tag.length() == CLIENT_PREFIX.length()) {
+            return null;
+        }
+        return tag.substring(CLIENT_PREFIX.length());
+    }
+
     /**
      * Validate tag value and convert to lowercase
      */
@@ -0,0 +1,39 @@
+-- Bulk operation jobs
+-- One row per bulk request plus one row per targeted VM, so progress and outcomes
+-- survive the HTTP request that started them
+
+CREATE SEQUENCE bulk_jobs_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE bulk_jobs (
+    id BIGINT PRIMARY KEY,
+    operation VARCHAR(100) NOT NULL, -- e.g. 'power:START', 'snapshot', 'backup'
+    operation_id VARCHAR(255) NOT NULL, -- key for /api/v1/operations/{operationId}/events
+    status VARCHAR(50) NOT NULL, -- 'running', 'completed', 'cancelled', 'interrupted'
+    total INTEGER NOT NULL,
+    succeeded INTEGER NOT NULL DEFAULT 0,
+    failed INTEGER NOT NULL DEFAULT 0,
+    skipped INTEGER NOT NULL DEFAULT 0,
+    summary TEXT,
+    response JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_bulk_jobs_created_at ON bulk_jobs(created_at DESC);
+CREATE INDEX idx_bulk_jobs_status ON bulk_jobs(status);
+
+CREATE SEQUENCE bulk_job_items_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE bulk_job_items (
+    id BIGINT PRIMARY KEY,
+    job_id BIGINT NOT NULL REFERENCES bulk_jobs(id) ON DELETE CASCADE,
+    vm_id INTEGER NOT NULL,
+    vm_name VARCHAR(255),
+    node_name VARCHAR(100),
+    status VARCHAR(50) NOT NULL, -- 'success', 'error', 'skipped', 'cancelled'
+    result JSONB,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_bulk_job_items_job ON bulk_job_items(job_id, vm_id);
@@ -0,0 +1,35 @@
+-- Backup history
+-- Every backup the catalog has seen, including ones since deleted, plus daily aggregates
+-- per cluster, storage, client and VM for trend and growth queries
+
+CREATE SEQUENCE backup_records_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE backup_records (
+    id BIGINT PRIMARY KEY,
+    volid VARCHAR(512) NOT NULL UNIQUE,
+    vm_id INTEGER,
+    storage VARCHAR(100) NOT NULL,
+    node VARCHAR(100),
+    client VARCHAR(255) NOT NULL DEFAULT 'no-client', -- client tag of the VM when first seen
+    size_bytes BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    first_seen_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted_at TIMESTAMP -- set once the backup is no longer in the catalog
+);
+
+CREATE INDEX idx_backup_records_created_at ON backup_records(created_at);
+CREATE INDEX idx_backup_records_deleted_at ON backup_records(deleted_at);
+CREATE INDEX idx_backup_records_present ON backup_records(volid) WHERE deleted_at IS NULL;
+
+CREATE TABLE backup_daily_stats (
+    scope VARCHAR(20) NOT NULL, -- 'cluster', 'storage', 'client', 'vm'
+    scope_key VARCHAR(255) NOT NULL, -- '*' for cluster, else storage ID, client tag or VM ID
+    day DATE NOT NULL,
+    backup_count INTEGER NOT NULL, -- backups present at the end of the day
+    total_bytes BIGINT NOT NULL,
+    added_count INTEGER NOT NULL, -- backups created during the day
+    added_bytes BIGINT NOT NULL,
+    removed_count INTEGER NOT NULL, -- backups deleted during the day
+    removed_bytes BIGINT NOT NULL,
+    PRIMARY KEY (scope, scope_key, day)
+);
@@ -0,0 +1,25 @@
+-- Job execution shards
+-- A large scheduled job run is split into shards of VMs that any scheduler instance can claim;
+-- a shard whose owner stops sending heartbeats is claimed again by another instance
+
+CREATE SEQUENCE job_execution_shards_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE job_execution_shards (
+    id BIGINT PRIMARY KEY,
+    execution_id BIGINT NOT NULL REFERENCES job_executions(id) ON DELETE CASCADE,
+    shard_index INTEGER NOT NULL,
+    vm_ids TEXT NOT NULL, -- comma-separated VM IDs in selection order
+    status VARCHAR(50) NOT NULL, -- 'pending', 'running', 'completed'
+    owner VARCHAR(200), -- scheduler instance that claimed the shard last
+    attempts INTEGER NOT NULL DEFAULT 0,
+    claimed_at TIMESTAMP,
+    heartbeat_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    processed_vms INTEGER NOT NULL DEFAULT 0,
+    successful_vms INTEGER NOT NULL DEFAULT 0,
+    failed_vms INTEGER NOT NULL DEFAULT 0,
+    errors JSONB,
+    UNIQUE (execution_id, shard_index)
+);
+
+CREATE INDEX idx_job_execution_shards_claimable ON job_execution_shards(status, heartbeat_at);
@@ -0,0 +1,21 @@
+-- Safety audit log
+-- One row per safety decision, written in batches from an in-memory buffer and queried
+-- newest first by time, user, VM and decision
+
+CREATE SEQUENCE audit_log_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE audit_log (
+    id BIGINT PRIMARY KEY,
+    recorded_at TIMESTAMP NOT NULL,
+    operation VARCHAR(255) NOT NULL, -- e.g. 'DELETE VMResource.deleteVM'
+    decision VARCHAR(20) NOT NULL, -- 'ALLOWED', 'BLOCKED'
+    reason TEXT,
+    vm_id INTEGER,
+    username VARCHAR(255),
+    client_ip VARCHAR(64)
+);
+
+CREATE INDEX idx_audit_log_recorded_at ON audit_log(recorded_at DESC, id DESC);
+CREATE INDEX idx_audit_log_user ON audit_log(username, recorded_at DESC, id DESC);
+CREATE INDEX idx_audit_log_vm ON audit_log(vm_id, recorded_at DESC, id DESC);
+CREATE INDEX idx_audit_log_decision ON audit_log(decision, recorded_at DESC, id DESC);
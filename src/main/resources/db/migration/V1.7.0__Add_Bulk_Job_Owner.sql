@@ -0,0 +1,8 @@
+-- Bulk job ownership
+-- Each running bulk job belongs to the instance that started it and is kept alive with heartbeats,
+-- so an instance only marks jobs interrupted whose owner stopped sending them
+
+ALTER TABLE bulk_jobs ADD COLUMN owner VARCHAR(200); -- instance running the job
+ALTER TABLE bulk_jobs ADD COLUMN heartbeat_at TIMESTAMP;
+
+CREATE INDEX idx_bulk_jobs_owner ON bulk_jobs(status, owner);
@@ -0,0 +1,12 @@
+-- VM ID reservations
+-- Every instance reserves the blocks of VM IDs it hands out here, so instances sharing the
+-- database never hand out the same ID; reservations expire a fixed time after they were made
+-- (10 minutes, enforced when the next block is reserved)
+
+CREATE TABLE vm_id_reservations (
+    vm_id INTEGER PRIMARY KEY,
+    owner VARCHAR(200) NOT NULL, -- instance that reserved the ID
+    reserved_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_vm_id_reservations_reserved_at ON vm_id_reservations(reserved_at);
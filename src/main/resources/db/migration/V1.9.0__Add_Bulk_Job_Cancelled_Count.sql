@@ -0,0 +1,4 @@
+-- Cancelled VMs of a bulk job
+-- VMs a cancellation stopped before they started are counted apart from VMs skipped by the operation itself
+
+ALTER TABLE bulk_jobs ADD COLUMN cancelled INTEGER NOT NULL DEFAULT 0;
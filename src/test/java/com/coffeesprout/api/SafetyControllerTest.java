@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -201,6 +202,49 @@ class SafetyControllerTest {
             .body("entries", hasSize(3));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/safety/audit/history should pass filters and return the next cursor")
+    void testGetAuditHistory() {
+        // Given
+        AuditService.AuditPage page = new AuditService.AuditPage(
+            List.of(createAuditEntry(1), createAuditEntry(2)),
+            "2024-01-15T10:30:00Z_42"
+        );
+        when(auditService.queryAuditEntries(Instant.parse("2024-01-15T00:00:00Z"), null, "admin", 101, "BLOCKED",
+                                            null, 2)).thenReturn(page);
+
+        // When & Then
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("from", "2024-01-15T00:00:00Z")
+            .queryParam("user", "admin")
+            .queryParam("vmId", 101)
+            .queryParam("decision", "BLOCKED")
+            .queryParam("limit", 2)
+        .when()
+            .get("/api/v1/safety/audit/history")
+        .then()
+            .statusCode(200)
+            .body("entries", hasSize(2))
+            .body("entries[0].operation", is("Operation 1"))
+            .body("nextCursor", is("2024-01-15T10:30:00Z_42"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/safety/audit/history with invalid decision should return 400")
+    void testGetAuditHistoryWithInvalidDecision() {
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("decision", "MAYBE")
+        .when()
+            .get("/api/v1/safety/audit/history")
+        .then()
+            .statusCode(400)
+            .body("error", containsString("Invalid decision"));
+
+        verify(auditService, never()).queryAuditEntries(any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
     @Test
     @DisplayName("GET /api/v1/safety/status when safe mode is disabled")
     void testGetSafetyStatusWhenDisabled() {
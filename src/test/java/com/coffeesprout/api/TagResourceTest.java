@@ -1,10 +1,15 @@
 package com.coffeesprout.api;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+
+import jakarta.inject.Inject;
 
 import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.service.OperationProgressService;
 import com.coffeesprout.service.TagService;
 import com.coffeesprout.service.VMService;
 import io.quarkus.test.InjectMock;
@@ -16,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +34,9 @@ class TagResourceTest {
     @InjectMock
     VMService vmService;
 
+    @Inject
+    OperationProgressService operationProgress;
+
     @BeforeEach
     void setUp() {
         reset(tagService, vmService);
@@ -93,7 +102,7 @@ class TagResourceTest {
             103, "error: VM not found"
         );
 
-        when(tagService.bulkAddTags(eq(List.of(101, 102, 103)), any(), any()))
+        when(tagService.bulkAddTags(eq(List.of(101, 102, 103)), any(), any(), any()))
             .thenReturn(mockResults);
 
         String requestBody = """
@@ -126,7 +135,7 @@ class TagResourceTest {
             102, "success"
         );
 
-        when(tagService.bulkAddTags(eq(List.of(101, 102)), any(), any()))
+        when(tagService.bulkAddTags(eq(List.of(101, 102)), any(), any(), any()))
             .thenReturn(mockResults);
 
         String requestBody = """
@@ -147,6 +156,39 @@ class TagResourceTest {
             .body("message", containsString("Added 1 tags to 2/2 VMs successfully"));
     }
 
+    @Test
+    void testBulkTagResultsArePublishedUnderOperationId() {
+        when(tagService.bulkAddTags(eq(List.of(101, 102)), any(), any(), any())).thenAnswer(invocation -> {
+            BiConsumer<Integer, String> onResult = invocation.getArgument(2);
+            onResult.accept(101, "success");
+            onResult.accept(102, "error: VM not found");
+            return Map.of(101, "success", 102, "error: VM not found");
+        });
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("vmIds", "101,102")
+            .queryParam("operationId", "tag-progress-test")
+            .body("""
+                {
+                    "action": "ADD",
+                    "tags": ["env-test"]
+                }
+                """)
+            .when()
+            .post("/tags/bulk")
+            .then()
+            .statusCode(200);
+
+        List<OperationProgressService.ProgressEvent> events = new ArrayList<>();
+        operationProgress.subscribe("tag-progress-test", events::add).close();
+
+        assertEquals(List.of("result", "result", "completed"),
+            events.stream().map(OperationProgressService.ProgressEvent::type).toList());
+        assertEquals(101, events.get(0).vmId());
+        assertEquals("error: VM not found", events.get(1).data());
+    }
+
     @Test
     void testBulkRemoveTags() {
         Map<Integer, String> mockResults = Map.of(
@@ -154,7 +196,7 @@ class TagResourceTest {
             102, "success"
         );
 
-        when(tagService.bulkRemoveTags(eq(List.of(101, 102)), any(), any()))
+        when(tagService.bulkRemoveTags(eq(List.of(101, 102)), any(), any(), any()))
             .thenReturn(mockResults);
 
         String requestBody = """
@@ -0,0 +1,127 @@
+package com.coffeesprout.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for Proxmox endpoint routing
+ */
+class ProxmoxEndpointsTest {
+
+    private ProxmoxEndpoints endpoints;
+
+    @BeforeEach
+    void setUp() {
+        endpoints = new ProxmoxEndpoints();
+        endpoints.configure("https://10.0.0.10:8006/api2/json/", List.of(
+            "pve1=https://10.0.0.10:8006/api2/json",
+            "pve2=https://10.0.0.11:8006/api2/json",
+            "https://10.0.0.12:8006/api2/json"), null);
+    }
+
+    @Test
+    void testPrimaryIsMergedWithItsNodeEntry() {
+        List<ProxmoxEndpoints.EndpointStatus> status = endpoints.status();
+
+        assertEquals(3, status.size());
+        assertEquals("pve1", status.get(0).name());
+        assertEquals("10.0.0.12:8006", status.get(2).name());
+        assertEquals(2, endpoints.quorum());
+    }
+
+    @Test
+    void testNodeRequestsGoToTheOwningNode() {
+        assertEquals("pve2", endpoints.select("/nodes/pve2/storage/local/content").name);
+        assertEquals("pve1", endpoints.select("/nodes/pve1/qemu?full=1").name);
+    }
+
+    @Test
+    void testOtherRequestsGoToTheLeastLoadedEndpoint() {
+        endpoints.select("/nodes/pve1/qemu").inFlight.put(1L, System.nanoTime());
+        endpoints.select("/nodes/pve2/qemu").inFlight.put(2L, System.nanoTime());
+
+        assertEquals("10.0.0.12:8006", endpoints.select("/cluster/resources").name);
+    }
+
+    @Test
+    void testUnhealthyEndpointsAreSkipped() {
+        ProxmoxEndpoints.Endpoint pve2 = endpoints.select("/nodes/pve2/qemu");
+        pve2.healthy = false;
+
+        assertNotSame(pve2, endpoints.select("/nodes/pve2/qemu"));
+        assertTrue(endpoints.hasQuorum());
+
+        endpoints.select("/nodes/pve1/qemu").healthy = false;
+        assertFalse(endpoints.hasQuorum());
+    }
+
+    @Test
+    void testConnectionFailureMarksEndpointDownAndReleasesRequest() {
+        ProxmoxEndpoints.Endpoint pve2 = endpoints.select("/nodes/pve2/qemu");
+        endpoints.beforeCall();
+        endpoints.beforeRequest(request("/nodes/pve2/qemu"));
+        assertEquals(1, pve2.inFlight.size());
+
+        endpoints.transportFailed(new ProcessingException(new ConnectException("Connection refused")));
+        endpoints.afterCall();
+
+        assertEquals(0, pve2.inFlight.size());
+        assertFalse(pve2.healthy);
+        assertNotSame(pve2, endpoints.select("/nodes/pve2/qemu"));
+    }
+
+    @Test
+    void testTimeoutReleasesRequestWithoutMarkingDown() {
+        ProxmoxEndpoints.Endpoint pve2 = endpoints.select("/nodes/pve2/qemu");
+        endpoints.beforeCall();
+        endpoints.beforeRequest(request("/nodes/pve2/qemu"));
+
+        endpoints.transportFailed(new ProcessingException(new TimeoutException("read timed out")));
+        endpoints.afterCall();
+
+        assertEquals(0, pve2.inFlight.size());
+        assertTrue(pve2.healthy);
+    }
+
+    @Test
+    void testFailureReadingResponseKeepsEndpointUp() {
+        ProxmoxEndpoints.Endpoint pve2 = endpoints.select("/nodes/pve2/qemu");
+        ClientRequestContext context = request("/nodes/pve2/qemu");
+        endpoints.beforeCall();
+        endpoints.beforeRequest(context);
+        endpoints.afterResponse(context);
+
+        endpoints.transportFailed(new ProcessingException(new IOException("unexpected end of body")));
+        endpoints.afterCall();
+
+        assertEquals(0, pve2.inFlight.size());
+        assertTrue(pve2.healthy);
+    }
+
+    private static ClientRequestContext request(String path) {
+        ClientRequestContext context = mock(ClientRequestContext.class);
+        Map<String, Object> properties = new HashMap<>();
+        when(context.getUri()).thenReturn(URI.create("https://10.0.0.10:8006/api2/json" + path));
+        when(context.getHeaders()).thenReturn(new MultivaluedHashMap<>());
+        doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(context).setProperty(anyString(), any());
+        when(context.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.getArgument(0)));
+        return context;
+    }
+}
@@ -0,0 +1,141 @@
+package com.coffeesprout.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-flight coalescing of Proxmox reads
+ */
+class ProxmoxRequestCoalescerTest {
+
+    private final ProxmoxRequestCoalescer coalescer = new ProxmoxRequestCoalescer();
+
+    @BeforeEach
+    void setUp() {
+        coalescer.objectMapper = new ObjectMapper();
+    }
+
+    @Test
+    void testConcurrentIdenticalCallsShareOneUpstreamCall() throws Exception {
+        ProxmoxRequestCoalescer.Key key = key("ticket-a");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        NodesResponse shared = nodes("pve1", "pve2");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> first = executor.submit(() -> coalescer.execute(key, () -> {
+                calls.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return shared;
+            }));
+            while (coalescer.upstreamCount() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<Object> second = executor.submit(() -> coalescer.execute(key, () -> {
+                calls.incrementAndGet();
+                return new Object();
+            }));
+            while (coalescer.coalescedCount() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertSame(shared, first.get());
+            assertEquals(List.of("pve1", "pve2"), names((NodesResponse) second.get()));
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testJoinedCallersGetTheirOwnCopy() throws Exception {
+        ProxmoxRequestCoalescer.Key key = key("ticket-a");
+        CountDownLatch release = new CountDownLatch(1);
+        NodesResponse shared = nodes("pve1", "pve2");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> first = executor.submit(() -> coalescer.execute(key, () -> {
+                release.await(5, TimeUnit.SECONDS);
+                return shared;
+            }));
+            while (coalescer.upstreamCount() == 0) {
+                Thread.onSpinWait();
+            }
+            List<Future<Object>> joined = List.of(
+                executor.submit(() -> coalescer.execute(key, () -> nodes())),
+                executor.submit(() -> coalescer.execute(key, () -> nodes())));
+            while (coalescer.coalescedCount() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            NodesResponse copy = (NodesResponse) joined.get(0).get();
+            NodesResponse other = (NodesResponse) joined.get(1).get();
+            assertSame(shared, first.get());
+            assertNotSame(shared, copy);
+            assertNotSame(copy, other);
+
+            copy.getData().get(0).setName("changed");
+            copy.getData().remove(1);
+            assertEquals(List.of("pve1", "pve2"), names(shared));
+            assertEquals(List.of("pve1", "pve2"), names(other));
+        }
+    }
+
+    @Test
+    void testDifferentArgumentsAreNotCoalesced() throws Exception {
+        assertEquals("a", coalescer.execute(key("ticket-a"), () -> "a"));
+        assertEquals("b", coalescer.execute(key("ticket-b"), () -> "b"));
+        assertEquals(2, coalescer.upstreamCount());
+        assertEquals(0, coalescer.coalescedCount());
+    }
+
+    @Test
+    void testCompletedCallsAreNotCached() throws Exception {
+        coalescer.execute(key("ticket-a"), () -> "first");
+
+        assertEquals("second", coalescer.execute(key("ticket-a"), () -> "second"));
+    }
+
+    @Test
+    void testFailuresPropagate() {
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+            () -> coalescer.execute(key("ticket-a"), () -> {
+                throw failure;
+            })));
+    }
+
+    private static ProxmoxRequestCoalescer.Key key(String ticket) throws NoSuchMethodException {
+        return new ProxmoxRequestCoalescer.Key(
+            ProxmoxClient.class.getMethod("getNodes", String.class), List.of(ticket));
+    }
+
+    private static NodesResponse nodes(String... names) {
+        List<Node> nodes = new ArrayList<>();
+        for (String name : names) {
+            Node node = new Node();
+            node.setName(name);
+            nodes.add(node);
+        }
+        NodesResponse response = new NodesResponse();
+        response.setData(nodes);
+        return response;
+    }
+
+    private static List<String> names(NodesResponse response) {
+        return response.getData().stream().map(Node::getName).toList();
+    }
+}
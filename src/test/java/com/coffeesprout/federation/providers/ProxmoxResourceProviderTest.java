@@ -0,0 +1,123 @@
+package com.coffeesprout.federation.providers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.coffeesprout.client.Node;
+import com.coffeesprout.client.NodeStatus;
+import com.coffeesprout.client.StoragePool;
+import com.coffeesprout.client.VM;
+import com.coffeesprout.federation.NodeInfo;
+import com.coffeesprout.service.NodeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the per-cycle node snapshot of ProxmoxResourceProvider: partial results and call timeouts
+ */
+class ProxmoxResourceProviderTest {
+
+    private ProxmoxResourceProvider provider;
+    private NodeService nodeService;
+
+    @BeforeEach
+    void setUp() {
+        nodeService = mock(NodeService.class);
+        provider = new ProxmoxResourceProvider();
+        provider.nodeService = nodeService;
+        provider.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        provider.callTimeoutMs = 300;
+        provider.snapshotTtlSeconds = 60;
+
+        when(nodeService.listNodes(any())).thenReturn(List.of(node("pve1"), node("pve2")));
+        when(nodeService.getNodeStatus(anyString(), any())).thenReturn(status(8));
+        when(nodeService.getNodeStorage(anyString(), any())).thenReturn(List.of(new StoragePool()));
+        when(nodeService.getNodeVMs(anyString(), any())).thenReturn(List.of(vm(100), vm(101)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.executorService.shutdownNow();
+    }
+
+    @Test
+    void testFailedPartKeepsRestOfNode() throws Exception {
+        when(nodeService.getNodeVMs(eq("pve2"), any())).thenThrow(new IllegalStateException("boom"));
+
+        List<NodeInfo> nodes = provider.getNodes().get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, nodes.size());
+        NodeInfo pve1 = nodes.stream().filter(n -> "pve1".equals(n.getNodeName())).findFirst().orElseThrow();
+        NodeInfo pve2 = nodes.stream().filter(n -> "pve2".equals(n.getNodeName())).findFirst().orElseThrow();
+        assertEquals(2, pve1.getTotalVMs());
+        assertEquals(8, pve2.getCpuCores());
+        assertEquals(0, pve2.getTotalVMs());
+    }
+
+    @Test
+    void testSlowCallTimesOutAndIsInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(nodeService.getNodeStatus(eq("pve2"), any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return status(8);
+        });
+
+        long start = System.nanoTime();
+        List<NodeInfo> nodes = provider.getNodes().get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 5000, "took " + elapsedMs + " ms");
+        NodeInfo pve2 = nodes.stream().filter(n -> "pve2".equals(n.getNodeName())).findFirst().orElseThrow();
+        assertEquals(0, pve2.getCpuCores());
+        assertEquals(2, pve2.getTotalVMs());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "timed out call was not interrupted");
+    }
+
+    @Test
+    void testConcurrentReadersShareOneCollection() throws Exception {
+        when(nodeService.getNodeStatus(anyString(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return status(8);
+        });
+
+        CompletableFuture<List<NodeInfo>> first = provider.getNodes();
+        CompletableFuture<List<NodeInfo>> second = provider.getNodes();
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).size());
+        verify(nodeService, times(1)).listNodes(any());
+    }
+
+    private static Node node(String name) {
+        Node node = new Node();
+        node.setName(name);
+        return node;
+    }
+
+    private static NodeStatus status(int cpus) {
+        NodeStatus.CpuInfo cpuInfo = new NodeStatus.CpuInfo();
+        cpuInfo.setCpus(cpus);
+        NodeStatus status = new NodeStatus();
+        status.setCpuInfo(cpuInfo);
+        return status;
+    }
+
+    private static VM vm(int vmid) {
+        VM vm = new VM();
+        vm.setVmid(vmid);
+        vm.setStatus("running");
+        return vm;
+    }
+}
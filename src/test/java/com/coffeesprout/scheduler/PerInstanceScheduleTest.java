@@ -0,0 +1,53 @@
+package com.coffeesprout.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import com.coffeesprout.client.ProxmoxEndpoints;
+import com.coffeesprout.scheduler.service.JobShardService;
+import com.coffeesprout.service.AuditService;
+import com.coffeesprout.service.BackupCatalogService;
+import com.coffeesprout.service.BulkOperationEngine;
+import com.coffeesprout.service.OperationProgressService;
+import com.coffeesprout.service.ResourceCacheService;
+import com.coffeesprout.service.TaskService;
+import com.coffeesprout.service.TaskWatcherService;
+import com.coffeesprout.service.VMInventoryService;
+import io.quarkus.scheduler.Scheduled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loops that act on one instance's own state must run on every instance. Quartz fires a trigger on only
+ * one node of the cluster, so these must not be scheduled through it.
+ */
+class PerInstanceScheduleTest {
+
+    private record Loop(Class<?> type, String method) {
+    }
+
+    private static final List<Loop> PER_INSTANCE = List.of(
+        new Loop(JobShardService.class, "claimShards"),
+        new Loop(JobShardService.class, "heartbeat"),
+        new Loop(BulkOperationEngine.class, "heartbeat"),
+        new Loop(TaskWatcherService.class, "poll"),
+        new Loop(AuditService.class, "flush"),
+        new Loop(VMInventoryService.class, "refreshInBackground"),
+        new Loop(BackupCatalogService.class, "refreshInBackground"),
+        new Loop(ResourceCacheService.class, "cleanupExpired"),
+        new Loop(OperationProgressService.class, "expireOperations"),
+        new Loop(TaskService.class, "evictExpiredListings"),
+        new Loop(ProxmoxEndpoints.class, "checkInBackground"));
+
+    @Test
+    void testPerInstanceLoopsAreNotClustered() throws Exception {
+        for (Loop loop : PER_INSTANCE) {
+            Method method = loop.type().getDeclaredMethod(loop.method());
+            Scheduled scheduled = method.getAnnotation(Scheduled.class);
+            String name = loop.type().getSimpleName() + "." + loop.method();
+            assertNotNull(scheduled, name + " is not scheduled");
+            assertEquals(Scheduled.SIMPLE, scheduled.executeWith(), name + " must run on every instance");
+        }
+    }
+}
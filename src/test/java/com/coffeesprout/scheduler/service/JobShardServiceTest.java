@@ -0,0 +1,198 @@
+package com.coffeesprout.scheduler.service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.scheduler.entity.*;
+import com.coffeesprout.scheduler.task.AbstractVMTask;
+import com.coffeesprout.scheduler.task.TaskContext;
+import com.coffeesprout.scheduler.task.TaskResult;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Shard claiming, re-claiming and aggregation against the test database (shard size 100)
+ */
+@QuarkusTest
+class JobShardServiceTest {
+
+    @Inject
+    JobShardService shardService;
+
+    private TaskContext context;
+    private Long executionId;
+
+    @BeforeEach
+    void setUp() {
+        context = QuarkusTransaction.requiringNew().call(() -> {
+            TaskType taskType = TaskType.findByName("test");
+            if (taskType == null) {
+                taskType = new TaskType();
+                taskType.name = "test";
+                taskType.displayName = "Test Task";
+                taskType.description = "Test task for unit tests";
+                taskType.taskClass = "com.coffeesprout.scheduler.tasks.TestTask";
+                taskType.persist();
+            }
+
+            ScheduledJob job = new ScheduledJob();
+            job.name = "shard-test-" + UUID.randomUUID();
+            job.taskType = taskType;
+            job.cronExpression = "0 0 12 * * ?";
+            job.persist();
+
+            JobExecution execution = new JobExecution();
+            execution.job = job;
+            execution.executionId = "shard-test-" + UUID.randomUUID();
+            execution.status = JobExecution.Status.RUNNING.getValue();
+            execution.startedAt = Instant.now();
+            execution.persist();
+
+            TaskContext taskContext = new TaskContext();
+            taskContext.setJob(job);
+            taskContext.setExecution(execution);
+            return taskContext;
+        });
+        executionId = context.getExecution().id;
+    }
+
+    @Test
+    void testRunsEveryShardOnceAndAggregates() {
+        RecordingTask task = new RecordingTask();
+        task.failing = Set.of(150, 250);
+
+        TaskResult result = shardService.runSharded(context, task, vms(250));
+
+        assertEquals(250, task.seen.size());
+        assertEquals(250, new HashSet<>(task.seen).size());
+        assertEquals(250, result.getProcessedCount());
+        assertEquals(248, result.getSuccessCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(3, result.getDetails().get("shards"));
+        assertEquals(List.of("VM 150 (vm-150): boom", "VM 250 (vm-250): boom"), result.getDetails().get("errors"));
+    }
+
+    @Test
+    void testReclaimsShardAfterStaleHeartbeatAndSkipsRecordedVMs() {
+        shardService.createShards(executionId, vms(150));
+        Long shardId = shardService.claim(executionId).orElseThrow();
+
+        // The owner died after recording its first 10 VMs, one of them failed
+        QuarkusTransaction.requiringNew().run(() -> {
+            JobExecutionShard shard = JobExecutionShard.findById(shardId);
+            shard.owner = "gone/1";
+            shard.heartbeatAt = Instant.now().minusSeconds(3600);
+            JobExecution execution = JobExecution.findById(executionId);
+            for (int vmId = 1; vmId <= 10; vmId++) {
+                JobVMExecution record = new JobVMExecution();
+                record.execution = execution;
+                record.vmId = vmId;
+                record.vmName = "vm-" + vmId;
+                record.startedAt = Instant.now();
+                record.status = vmId == 5 ? JobVMExecution.Status.FAILED.getValue()
+                    : JobVMExecution.Status.SUCCESS.getValue();
+                record.errorMessage = vmId == 5 ? "earlier" : null;
+                record.persist();
+            }
+        });
+
+        // The abandoned shard comes before the pending one
+        assertEquals(shardId, shardService.claim(executionId).orElseThrow());
+
+        RecordingTask task = new RecordingTask();
+        shardService.runShard(context, task, shardId);
+
+        assertEquals(90, task.seen.size());
+        assertFalse(task.seen.contains(5));
+        JobExecutionShard shard = QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.findById(shardId));
+        assertEquals(JobExecutionShard.Status.COMPLETED.getValue(), shard.status);
+        assertEquals(2, shard.attempts);
+        assertEquals(shardService.owner(), shard.owner);
+        assertEquals(100, shard.processedVMs);
+        assertEquals(99, shard.successfulVMs);
+        assertEquals(1, shard.failedVMs);
+        assertEquals(List.of("VM 5 (vm-5): earlier"), shard.errors);
+    }
+
+    @Test
+    void testDoesNotClaimShardsWithFreshHeartbeat() {
+        shardService.createShards(executionId, vms(150));
+        QuarkusTransaction.requiringNew().run(() -> JobExecutionShard.update(
+            "status = ?1, owner = ?2, heartbeatAt = ?3 WHERE execution.id = ?4",
+            JobExecutionShard.Status.RUNNING.getValue(), "other/1", Instant.now(), executionId));
+
+        assertTrue(shardService.claim(executionId).isEmpty());
+    }
+
+    @Test
+    void testDiscardsResultOfShardClaimedByAnotherInstance() {
+        shardService.createShards(executionId, vms(50));
+        Long shardId = shardService.claim(executionId).orElseThrow();
+
+        RecordingTask task = new RecordingTask();
+        // Another instance claims the shard while this one is running it
+        task.onShard = () -> QuarkusTransaction.requiringNew().run(() -> JobExecutionShard.update(
+            "owner = ?1 WHERE id = ?2", "other/1", shardId));
+        shardService.runShard(context, task, shardId);
+
+        JobExecutionShard shard = QuarkusTransaction.requiringNew().call(() -> JobExecutionShard.findById(shardId));
+        assertEquals(JobExecutionShard.Status.RUNNING.getValue(), shard.status);
+        assertEquals("other/1", shard.owner);
+    }
+
+    private static List<VMResponse> vms(int count) {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int vmId = 1; vmId <= count; vmId++) {
+            vms.add(new VMResponse(vmId, "vm-" + vmId, "pve1", "running", 2, 0L, 0L, 0L, "qemu", List.of(), null, 0));
+        }
+        return vms;
+    }
+
+    /**
+     * Records the VMs of each shard it is given instead of processing them
+     */
+    static class RecordingTask extends AbstractVMTask {
+
+        final List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        Set<Integer> failing = Set.of();
+        Runnable onShard = () -> { };
+
+        @Override
+        public TaskResult processShard(TaskContext context, List<Integer> vmIds, BooleanSupplier leaseHeld) {
+            onShard.run();
+            seen.addAll(vmIds);
+            List<String> errors = new ArrayList<>();
+            for (Integer vmId : vmIds) {
+                if (failing.contains(vmId)) {
+                    errors.add(String.format("VM %d (vm-%d): boom", vmId, vmId));
+                }
+            }
+            return TaskResult.success()
+                .withCounts(vmIds.size(), vmIds.size() - errors.size(), errors.size())
+                .withDetail("errors", errors);
+        }
+
+        @Override
+        protected Map<String, Object> processVM(TaskContext context, VMResponse vm) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void validateConfiguration(TaskContext context) {
+            // No validation needed for test
+        }
+
+        @Override
+        public String getTaskType() {
+            return "test";
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.coffeesprout.scheduler.tag;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.VMResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagBitmapsTest {
+
+    private final List<VMResponse> vms = List.of(
+        vm(103, "env-prod", "client-beta", "always-on"),
+        vm(101, "env-prod", "client-alpha"),
+        vm(102, "env-staging", "client-alpha"),
+        vm(104),
+        vm(105, "env-dev", "always-on")
+    );
+
+    private final TagBitmaps bitmaps = TagBitmaps.of(vms);
+
+    @Test
+    void testSimpleTag() {
+        assertEquals(Set.of(101, 103), select("env-prod"));
+        assertEquals(Set.of(), select("env-missing"));
+    }
+
+    @Test
+    void testBooleanOperators() {
+        assertEquals(Set.of(101), select("env-prod AND client-alpha"));
+        assertEquals(Set.of(101, 102, 103), select("env-prod OR env-staging"));
+        assertEquals(Set.of(101, 102, 104), select("NOT always-on"));
+        assertEquals(Set.of(101, 102), select("(env-prod OR env-staging) AND NOT always-on"));
+    }
+
+    @Test
+    void testWildcards() {
+        assertEquals(Set.of(101, 102, 103), select("client-*"));
+        assertEquals(Set.of(101, 103), select("client-* AND env-prod"));
+        assertEquals(Set.of(104, 105), select("NOT client-*"));
+    }
+
+    @Test
+    void testMatchesPerVMEvaluation() {
+        for (String expression : List.of("env-prod", "NOT env-prod", "client-* AND NOT always-on",
+                "(env-dev OR client-beta) AND always-on", "NOT (env-prod OR env-staging OR env-dev)")) {
+            TagExpression expr = TagExpressionParser.parse(expression);
+
+            Set<Integer> expected = new HashSet<>();
+            for (VMResponse vm : vms) {
+                if (expr.evaluate(new HashSet<>(vm.tags()))) {
+                    expected.add(vm.vmid());
+                }
+            }
+
+            assertEquals(expected, bitmaps.select(expr), expression);
+        }
+    }
+
+    @Test
+    void testInfixAndSuffixWildcards() {
+        assertEquals(Set.of(101, 102), select("client-a*a"));
+        assertEquals(Set.of(101, 103), select("*-prod"));
+        assertEquals(Set.of(103, 105), select("always*"));
+    }
+
+    @Test
+    void testResultsAreMemoizedPerInstance() {
+        Set<Integer> first = select("env-prod AND NOT always-on");
+
+        assertSame(first, select("env-prod AND NOT always-on"));
+        assertEquals(first, TagBitmaps.of(vms).select(TagExpressionParser.parse("env-prod AND NOT always-on")));
+    }
+
+    @Test
+    void testParsedExpressionsAreCached() {
+        assertSame(TagExpressionParser.parse("client-* OR env-dev"), TagExpressionParser.parse("client-* OR env-dev"));
+    }
+
+    @Test
+    void testEmptyInventory() {
+        TagBitmaps empty = TagBitmaps.of(List.of());
+
+        assertEquals(0, empty.size());
+        assertTrue(empty.select(TagExpressionParser.parse("NOT env-prod")).isEmpty());
+    }
+
+    private Set<Integer> select(String expression) {
+        return bitmaps.select(TagExpressionParser.parse(expression));
+    }
+
+    private static VMResponse vm(int vmid, String... tags) {
+        return new VMResponse(vmid, "vm" + vmid, "node1", "running", 2, 1024L, 10240L, 3600L,
+            "qemu", List.of(tags), null, 0);
+    }
+}
@@ -126,6 +126,11 @@ class TagExpressionWithAbstractVMTaskTest {
                 .orElseGet(HashSet::new);
         }
 
+        @Override
+        public TagBitmaps getTagBitmaps(String ticket) {
+            return TagBitmaps.of(vms);
+        }
+
         @Override
         public List<Integer> getVMsByTag(String tag, String ticket) {
             return vms.stream()
@@ -0,0 +1,367 @@
+package com.coffeesprout.scheduler.task;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.BulkConfig;
+import com.coffeesprout.config.JobExecutionConfig;
+import com.coffeesprout.scheduler.entity.JobExecution;
+import com.coffeesprout.scheduler.entity.JobVMExecution;
+import com.coffeesprout.scheduler.service.JobShardService;
+import com.coffeesprout.service.VMTagLookupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for concurrent per-VM execution in AbstractVMTask
+ */
+class AbstractVMTaskTest {
+
+    private final TestVMTask task = new TestVMTask();
+
+    @AfterEach
+    void tearDown() {
+        task.executorService.shutdownNow();
+    }
+
+    @Test
+    void testRecordsEveryVM() {
+        task.vms = List.of(vm(103, "pve1"), vm(101, "pve2"), vm(102, "pve1"), vm(104, "pve2"));
+        task.failing = Set.of(101);
+
+        TaskResult result = task.execute(context());
+
+        assertEquals(Set.of(101, 102, 103, 104), recordedVMs());
+        JobVMExecution failedRecord = recorded(101);
+        assertEquals(JobVMExecution.Status.FAILED.getValue(), failedRecord.status);
+        assertEquals("boom", failedRecord.errorMessage);
+        assertEquals(JobVMExecution.Status.SUCCESS.getValue(), recorded(103).status);
+        assertEquals(4, result.getProcessedCount());
+        assertEquals(3, result.getSuccessCount());
+        assertEquals(1, result.getFailedCount());
+        assertEquals(List.of("VM 101 (vm-101): boom"), result.getDetails().get("errors"));
+    }
+
+    @Test
+    void testWritesRecordsInBatches() {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            vms.add(vm(100 + i, "pve1"));
+        }
+        task.vms = vms;
+
+        task.execute(context());
+
+        // Flush size 2: two full batches and the remainder at the end of the run
+        assertEquals(List.of(2, 2, 1), task.batches);
+        assertEquals(5, task.recorded.size());
+    }
+
+    @Test
+    void testPerNodeLimit() {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            vms.add(vm(100 + i, i % 2 == 0 ? "pve1" : "pve2"));
+        }
+        task.vms = vms;
+        TaskContext context = context();
+        context.addParameter(AbstractVMTask.PARAM_MAX_PARALLEL_PER_NODE, "1");
+
+        TaskResult result = task.execute(context);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, task.maxRunningPerNode.get("pve1").get());
+        assertEquals(1, task.maxRunningPerNode.get("pve2").get());
+    }
+
+    @Test
+    void testJobLimit() {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            vms.add(vm(100 + i, "pve" + i));
+        }
+        task.vms = vms;
+        TaskContext context = context();
+        context.addParameter(AbstractVMTask.PARAM_MAX_PARALLEL, "2");
+
+        task.execute(context);
+
+        assertTrue(task.maxRunning.get() <= 2);
+        assertEquals(8, task.recorded.size());
+    }
+
+    @Test
+    void testPerStorageLimit() {
+        task.vms = List.of(vm(100, "pve1"), vm(101, "pve2"), vm(102, "pve3"));
+        TaskContext context = context();
+        context.addParameter(AbstractVMTask.PARAM_MAX_PARALLEL_PER_STORAGE, "1");
+
+        task.execute(context);
+
+        // All VMs share one storage, so they ran one at a time despite being on different nodes
+        assertEquals(1, task.maxRunning.get());
+    }
+
+    @Test
+    void testStopsShardOnceLeaseIsLost() {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            vms.add(vm(100 + i, "pve" + i));
+        }
+        task.vms = vms;
+        AtomicBoolean leaseHeld = new AtomicBoolean(true);
+        // Another instance claims the shard while the first VM runs
+        task.onProcess = vm -> leaseHeld.set(false);
+        TaskContext context = context();
+        context.addParameter(AbstractVMTask.PARAM_MAX_PARALLEL, "1");
+
+        TaskResult result = task.processShard(context, List.of(100, 101, 102, 103, 104, 105), leaseHeld::get);
+
+        // Only the VM already running finished, and nothing was recorded for the new owner to miss
+        assertEquals(1, result.getProcessedCount());
+        assertTrue(task.recorded.isEmpty());
+    }
+
+    @Test
+    void testProcessesShardInOrder() {
+        task.vms = List.of(vm(100, "pve1"), vm(101, "pve1"), vm(102, "pve2"));
+
+        TaskResult result = task.processShard(context(), List.of(102, 100, 999), () -> true);
+
+        // VM 999 no longer exists
+        assertEquals(2, result.getProcessedCount());
+        assertEquals(Set.of(102, 100), recordedVMs());
+    }
+
+    @Test
+    void testSlowVMDoesNotHoldBackRecordsOfOthers() throws Exception {
+        task.vms = List.of(vm(100, "pve1"), vm(101, "pve2"), vm(102, "pve3"));
+        CountDownLatch release = new CountDownLatch(1);
+        task.onProcess = vm -> {
+            if (vm.vmid() == 100) {
+                awaitQuietly(release);
+            }
+        };
+
+        CompletableFuture<TaskResult> run = CompletableFuture.supplyAsync(() -> task.execute(context()));
+
+        // Flush size 2: the two fast VMs are written while the first one is still running
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recordedVMs().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Set.of(101, 102), recordedVMs());
+        assertFalse(run.isDone());
+
+        release.countDown();
+        assertEquals(3, run.get(5, TimeUnit.SECONDS).getProcessedCount());
+        assertEquals(Set.of(100, 101, 102), recordedVMs());
+    }
+
+    @Test
+    void testInterruptedRunRecordsUnfinishedVMsAsSkipped() throws Exception {
+        task.vms = List.of(vm(100, "pve1"), vm(101, "pve2"), vm(102, "pve3"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        task.onProcess = vm -> {
+            started.countDown();
+            awaitQuietly(release);
+        };
+        TaskContext context = context();
+        context.addParameter(AbstractVMTask.PARAM_MAX_PARALLEL, "1");
+        AtomicReference<TaskResult> result = new AtomicReference<>();
+
+        Thread run = new Thread(() -> result.set(task.execute(context)));
+        run.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        run.interrupt();
+        run.join(5000);
+        assertFalse(run.isAlive());
+        release.countDown();
+
+        assertFalse(result.get().isSuccess());
+        assertEquals(3, result.get().getDetails().get("unprocessed"));
+        assertEquals(Set.of(100, 101, 102), recordedVMs());
+        assertTrue(task.recorded.stream()
+            .allMatch(record -> JobVMExecution.Status.SKIPPED.getValue().equals(record.status)));
+    }
+
+    @Test
+    void testRunWithoutExecutionIsNotRecorded() {
+        task.vms = List.of(vm(100, "pve1"), vm(101, "pve2"));
+
+        TaskResult result = task.execute(new TaskContext());
+
+        assertEquals(2, result.getProcessedCount());
+        assertTrue(task.recorded.isEmpty());
+    }
+
+    private TaskContext context() {
+        JobExecution execution = new JobExecution();
+        execution.id = 1L;
+        TaskContext context = new TaskContext();
+        context.setExecution(execution);
+        return context;
+    }
+
+    private Set<Integer> recordedVMs() {
+        synchronized (task.recorded) {
+            return task.recorded.stream().map(record -> record.vmId).collect(Collectors.toSet());
+        }
+    }
+
+    private JobVMExecution recorded(int vmId) {
+        return task.recorded.stream().filter(record -> record.vmId == vmId).findFirst().orElseThrow();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static VMResponse vm(int vmId, String node) {
+        return new VMResponse(vmId, "vm-" + vmId, node, "running", 2, 0L, 0L, 0L, "qemu", List.of(), null, 0);
+    }
+
+    static class TestVMTask extends AbstractVMTask {
+
+        List<VMResponse> vms = List.of();
+        Set<Integer> failing = Set.of();
+        final List<JobVMExecution> recorded = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<String, AtomicInteger> runningPerNode = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxRunningPerNode = new ConcurrentHashMap<>();
+        Consumer<VMResponse> onProcess = vm -> { };
+
+        TestVMTask() {
+            this.executorService = Executors.newVirtualThreadPerTaskExecutor();
+            this.vmTagLookupService = new VMTagLookupService() {
+                @Override
+                public List<VMResponse> listVMs(String ticket) {
+                    return vms;
+                }
+            };
+            this.bulkConfig = new TestBulkConfig();
+            this.executionConfig = new TestJobExecutionConfig();
+            this.shardService = new JobShardService() {
+                @Override
+                public boolean shouldShard(int vmCount) {
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        protected List<VMResponse> selectVMs(TaskContext context) {
+            return vms;
+        }
+
+        @Override
+        protected Set<String> storages(TaskContext context, VMResponse vm) {
+            return Set.of("local-zfs");
+        }
+
+        @Override
+        protected void writeVMExecutions(Long executionId, List<JobVMExecution> vmExecutions) {
+            batches.add(vmExecutions.size());
+            recorded.addAll(vmExecutions);
+        }
+
+        @Override
+        protected Map<String, Object> processVM(TaskContext context, VMResponse vm) throws Exception {
+            onProcess.accept(vm);
+            AtomicInteger onNode = runningPerNode.computeIfAbsent(vm.node(), node -> new AtomicInteger());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            maxRunningPerNode.computeIfAbsent(vm.node(), node -> new AtomicInteger())
+                .accumulateAndGet(onNode.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (failing.contains(vm.vmid())) {
+                    throw new IllegalStateException("boom");
+                }
+                return Map.of("vmId", vm.vmid());
+            } finally {
+                onNode.decrementAndGet();
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void validateConfiguration(TaskContext context) {
+            // No validation needed for test
+        }
+
+        @Override
+        public String getTaskType() {
+            return "test-vm-task";
+        }
+    }
+
+    static class TestBulkConfig implements BulkConfig {
+
+        @Override
+        public int maxConcurrency() {
+            return 32;
+        }
+
+        @Override
+        public int perNodeConcurrency() {
+            return 4;
+        }
+
+        @Override
+        public int perStorageConcurrency() {
+            return 2;
+        }
+
+        @Override
+        public int leaseSeconds() {
+            return 120;
+        }
+
+        @Override
+        public String heartbeatInterval() {
+            return "30s";
+        }
+
+        @Override
+        public int jobRetentionDays() {
+            return 7;
+        }
+
+        @Override
+        public String cleanupInterval() {
+            return "1h";
+        }
+    }
+
+    static class TestJobExecutionConfig implements JobExecutionConfig {
+
+        @Override
+        public int flushSize() {
+            return 2;
+        }
+
+        @Override
+        public int flushIntervalMs() {
+            return 60000;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.coffeesprout.scheduler.entity.JobExecution;
 import com.coffeesprout.scheduler.entity.JobVMSelector;
 import com.coffeesprout.scheduler.entity.ScheduledJob;
 import com.coffeesprout.scheduler.entity.TaskType;
+import com.coffeesprout.scheduler.tag.TagBitmaps;
 import com.coffeesprout.service.SnapshotService;
 import com.coffeesprout.service.VMTagLookupService;
 import io.quarkus.test.InjectMock;
@@ -151,8 +152,9 @@ class CreateSnapshotTaskTest {
     void testExecute_NoVmsMatchingTag() {
         // Mock VM service
         VMResponse vm = new VMResponse(8200, "test-vm", "node1", "running", 1, 1024L,
-            2048L, 3600L, "qemu", List.of("env-test"), null, 0);
+            2048L, 3600L, "qemu", List.of("env-prod"), null, 0);
         when(vmTagLookupService.listVMs(null)).thenReturn(List.of(vm));
+        when(vmTagLookupService.getTagBitmaps(null)).thenReturn(TagBitmaps.of(List.of(vm)));
 
         // Mock tag service - VM doesn't have the required tag
         when(vmTagLookupService.getVMTags(8200, null)).thenReturn(Set.of("env-prod"));
@@ -0,0 +1,100 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free audit ring buffer
+ */
+class AuditRingBufferTest {
+
+    @Test
+    void testDrainsInOrder() {
+        AuditRingBuffer buffer = new AuditRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(entry(i));
+        }
+
+        assertEquals(5, buffer.pending());
+        assertEquals(List.of(0, 1, 2), vmIds(buffer.drain(3)));
+        assertEquals(List.of(3, 4), vmIds(buffer.drain(10)));
+        assertEquals(0, buffer.pending());
+        assertTrue(buffer.drain(10).isEmpty());
+    }
+
+    @Test
+    void testOverwritesOldestWhenFull() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(entry(i));
+        }
+
+        assertEquals(List.of(6, 7, 8, 9), vmIds(buffer.drain(10)));
+        assertEquals(6, buffer.dropped());
+    }
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        AuditRingBuffer buffer = new AuditRingBuffer(5);
+        for (int i = 0; i < 8; i++) {
+            buffer.add(entry(i));
+        }
+
+        assertEquals(8, buffer.drain(10).size());
+        assertEquals(0, buffer.dropped());
+    }
+
+    @Test
+    void testConcurrentWritersLoseNothingWithinCapacity() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(4096);
+        int writers = 8;
+        int perWriter = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            for (int w = 0; w < writers; w++) {
+                int base = w * perWriter;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perWriter; i++) {
+                        buffer.add(entry(base + i));
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Integer> drained = vmIds(buffer.drain(writers * perWriter));
+        assertEquals(writers * perWriter, drained.size());
+        assertEquals(writers * perWriter, drained.stream().distinct().count());
+        assertEquals(0, buffer.dropped());
+    }
+
+    private static List<Integer> vmIds(List<AuditService.AuditEntry> entries) {
+        List<Integer> ids = new ArrayList<>();
+        entries.forEach(entry -> ids.add(entry.vmId()));
+        return ids;
+    }
+
+    private static AuditService.AuditEntry entry(int vmId) {
+        return new AuditService.AuditEntry(Instant.now(), "DELETE VMResource.deleteVM", "ALLOWED", "test", vmId,
+                                           "admin", "unknown");
+    }
+}
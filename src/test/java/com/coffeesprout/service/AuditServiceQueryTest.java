@@ -0,0 +1,124 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import jakarta.inject.Inject;
+
+import com.coffeesprout.model.AuditRecord;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset paging and filters of the audit history against the test database
+ */
+@QuarkusTest
+class AuditServiceQueryTest {
+
+    // A window of its own, so entries other tests log do not show up
+    private static final Instant FROM = Instant.parse("2020-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2020-01-02T00:00:00Z");
+    private static final Instant FIRST = FROM.plusSeconds(3600);
+    private static final Instant SECOND = FIRST.plusSeconds(1);
+
+    @Inject
+    AuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.basePath = "/api/v1";
+        QuarkusTransaction.requiringNew().run(() -> {
+            AuditRecord.delete("recordedAt >= ?1 AND recordedAt < ?2", FROM, TO);
+            // Two timestamps shared by five entries each; the reason identifies an entry
+            for (int i = 0; i < 10; i++) {
+                AuditRecord record = new AuditRecord();
+                record.recordedAt = i < 5 ? FIRST : SECOND;
+                record.operation = "DELETE VMResource.deleteVM";
+                record.decision = i % 3 == 0 ? "BLOCKED" : "ALLOWED";
+                record.reason = "entry-" + i;
+                record.vmId = 100 + i % 2;
+                record.username = i % 2 == 0 ? "alice" : "bob";
+                record.clientIp = "unknown";
+                record.persist();
+            }
+        });
+    }
+
+    @Test
+    void testPagesThroughSharedTimestampsWithoutGapsOrDuplicates() {
+        List<String> expected = QuarkusTransaction.requiringNew().call(() -> AuditRecord.<AuditRecord>list(
+                "recordedAt >= ?1 AND recordedAt < ?2 ORDER BY recordedAt DESC, id DESC", FROM, TO).stream()
+            .map(record -> record.reason)
+            .toList());
+        assertEquals(10, expected.size());
+
+        List<String> paged = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            AuditService.AuditPage page = auditService.queryAuditEntries(FROM, TO, null, null, null, cursor, 3);
+            pageSizes.add(page.entries().size());
+            page.entries().forEach(entry -> paged.add(entry.reason()));
+            cursor = page.nextCursor();
+        } while (cursor != null && pageSizes.size() < 10);
+
+        assertEquals(List.of(3, 3, 3, 1), pageSizes);
+        assertEquals(10, new HashSet<>(paged).size());
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void testLastFullPageHasNoNextCursor() {
+        AuditService.AuditPage page = auditService.queryAuditEntries(FROM, TO, null, null, null, null, 10);
+
+        assertEquals(10, page.entries().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testFilters() {
+        assertEquals(5, query(null, "alice", null, null).size());
+        assertTrue(query(null, "alice", null, null).stream().allMatch(entry -> "alice".equals(entry.user())));
+
+        assertEquals(5, query(null, null, 101, null).size());
+        assertTrue(query(null, null, 101, null).stream().allMatch(entry -> entry.vmId() == 101));
+
+        // Entries 0, 3, 6 and 9 are blocked
+        assertEquals(4, query(null, null, null, "BLOCKED").size());
+        assertEquals(6, query(null, null, null, "ALLOWED").size());
+
+        // Entries 0, 6 are blocked for alice on VM 100
+        assertEquals(2, query(null, "alice", 100, "BLOCKED").size());
+
+        // to is exclusive: only the entries of the first timestamp
+        assertEquals(5, query(SECOND, null, null, null).size());
+        assertTrue(query(SECOND, null, null, null).stream().allMatch(entry -> FIRST.equals(entry.timestamp())));
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        for (String cursor : List.of("not-a-cursor", "2020-01-01T01:00:00Z_abc", "yesterday_12")) {
+            given()
+                .queryParam("from", FROM.toString())
+                .queryParam("cursor", cursor)
+                .when()
+                .get("/safety/audit/history")
+                .then()
+                .statusCode(400)
+                .body("error", containsString("Invalid cursor"));
+        }
+    }
+
+    private List<AuditService.AuditEntry> query(Instant to, String user, Integer vmId, String decision) {
+        return auditService.queryAuditEntries(FROM, to != null ? to : TO, user, vmId, decision, null, 100).entries();
+    }
+}
@@ -0,0 +1,90 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.interceptor.InvocationContext;
+
+import com.coffeesprout.config.AuditConfig;
+import com.coffeesprout.model.AuditRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for writing buffered audit entries
+ */
+class AuditServiceTest {
+
+    private FailingAuditService service;
+
+    @BeforeEach
+    void setUp() {
+        AuditConfig config = mock(AuditConfig.class);
+        when(config.bufferSize()).thenReturn(64);
+        when(config.flushSize()).thenReturn(1000);
+        when(config.maxPageSize()).thenReturn(3);
+        SafetyConfig safetyConfig = mock(SafetyConfig.class);
+        when(safetyConfig.auditLog()).thenReturn(true);
+
+        service = new FailingAuditService();
+        service.config = config;
+        service.safetyConfig = safetyConfig;
+        service.init();
+    }
+
+    @Test
+    void testFailedBatchIsWrittenOnNextFlush() throws Exception {
+        for (int vmId = 1; vmId <= 5; vmId++) {
+            service.logAllowed(context(vmId), SafetyDecision.allowed("test"));
+        }
+
+        service.failures = 1;
+        service.flush();
+        assertTrue(service.written.isEmpty());
+
+        service.flush();
+        assertEquals(List.of(1, 2, 3, 4, 5), service.written.stream().map(record -> record.vmId).toList());
+    }
+
+    @Test
+    void testNewEntriesWaitBehindFailedBatch() throws Exception {
+        service.logAllowed(context(1), SafetyDecision.allowed("test"));
+        service.failures = 2;
+        service.flush();
+
+        service.logAllowed(context(2), SafetyDecision.allowed("test"));
+        service.flush();
+        assertTrue(service.written.isEmpty());
+
+        service.flush();
+        assertEquals(List.of(1, 2), service.written.stream().map(record -> record.vmId).toList());
+    }
+
+    private static InvocationContext context(int vmId) throws Exception {
+        InvocationContext context = mock(InvocationContext.class);
+        when(context.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(context.getTarget()).thenReturn(new Object());
+        when(context.getParameters()).thenReturn(new Object[] {"pve1", vmId});
+        return context;
+    }
+
+    /**
+     * Keeps written records in memory and fails the configured number of writes
+     */
+    private static class FailingAuditService extends AuditService {
+        final List<AuditRecord> written = new ArrayList<>();
+        int failures;
+
+        @Override
+        void persist(List<AuditRecord> records) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("database unavailable");
+            }
+            written.addAll(records);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import com.coffeesprout.api.dto.BackupHealth;
+import com.coffeesprout.api.dto.BackupResponse;
+import com.coffeesprout.api.dto.ClientStorageUsage;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.api.dto.VMStorageUsage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-pass backup usage and health aggregation
+ */
+class BackupAggregateTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private static final List<VMResponse> VMS = List.of(
+        vm(100, "web", List.of("client-acme", "prod")),
+        vm(101, "db", List.of("client-acme")),
+        vm(102, "scratch", List.of()));
+
+    private static final List<BackupResponse> BACKUPS = List.of(
+        backup("pbs", 100, 1000, 0.5),
+        backup("local", 100, 500, 3),
+        backup("pbs", 101, 2000, 10),
+        backup("pbs", 999, 100, 100));
+
+    @Test
+    void testVMUsage() {
+        BackupAggregate aggregate = BackupAggregate.compute(1, 1, BACKUPS, VMS);
+
+        List<VMStorageUsage> usage = aggregate.vmUsage();
+        assertEquals(List.of(101, 100, 999), usage.stream().map(VMStorageUsage::vmId).toList());
+
+        VMStorageUsage web = usage.get(1);
+        assertEquals(1500, web.totalSize());
+        assertEquals(2, web.backupCount());
+        assertEquals(Map.of("pbs", 1000L, "local", 500L), web.sizeByStorage());
+        assertEquals(NOW.minusSeconds(3 * 86400), web.oldestBackup());
+        assertEquals(NOW.minusSeconds(43200), web.newestBackup());
+        assertEquals("Unknown VM 999", usage.get(2).vmName());
+    }
+
+    @Test
+    void testClientAndStorageUsageRollUp() {
+        BackupAggregate aggregate = BackupAggregate.compute(1, 1, BACKUPS, VMS);
+
+        ClientStorageUsage acme = aggregate.clientUsage().get(0);
+        assertEquals("client-acme", acme.clientTag());
+        assertEquals(3500, acme.totalSize());
+        assertEquals(2, acme.vmCount());
+        assertEquals(3, acme.backupCount());
+        assertEquals(Map.of("pbs", 3000L, "local", 500L), acme.sizeByStorage());
+        assertEquals("no-client", aggregate.clientUsage().get(1).clientTag());
+
+        assertEquals("pbs", aggregate.storageUsage().get(0).storage());
+        assertEquals(3100, aggregate.storageUsage().get(0).totalSize());
+        assertEquals(3, aggregate.storageUsage().get(0).backupCount());
+    }
+
+    @Test
+    void testHealth() {
+        BackupHealth health = BackupAggregate.compute(1, 1, BACKUPS, VMS).health(7, 7, NOW);
+
+        assertEquals(3, health.totalVMs());
+        assertEquals(1, health.vmsWithRecentBackup());
+        assertEquals(1, health.vmsWithoutBackup());
+        // VM 101 is overdue, VM 102 has no backup and is not counted as overdue
+        assertEquals(1, health.vmsOverdue());
+        assertEquals("NO_BACKUP", health.coverage().get(2).lastBackupStatus());
+        assertEquals("Last backup 10 days ago (threshold: 7 days)", health.coverage().get(1).overdueReason());
+    }
+
+    @Test
+    void testAgeBuckets() {
+        Map<String, Integer> byAge = BackupAggregate.compute(1, 1, List.of(
+            backup("pbs", 100, 1, 0.5),
+            backup("pbs", 100, 1, 1),
+            backup("pbs", 100, 1, 7.5),
+            backup("pbs", 100, 1, 8),
+            backup("pbs", 100, 1, 90.5),
+            backup("pbs", 100, 1, 91)), VMS).health(1, 1, NOW).backupsByAge();
+
+        assertEquals(Map.of("< 1 day", 1, "1-7 days", 2, "7-30 days", 1, "30-90 days", 1, "> 90 days", 1), byAge);
+        assertEquals(List.of("< 1 day", "1-7 days", "7-30 days", "30-90 days", "> 90 days"), List.copyOf(byAge.keySet()));
+    }
+
+    @Test
+    void testVersionMatch() {
+        BackupAggregate aggregate = BackupAggregate.compute(3, 7, List.of(), List.of());
+
+        assertTrue(aggregate.isFor(3, 7));
+        assertFalse(aggregate.isFor(3, 8));
+        assertFalse(aggregate.isFor(4, 7));
+    }
+
+    private static VMResponse vm(int vmId, String name, List<String> tags) {
+        return new VMResponse(vmId, name, "pve1", "running", 2, 0L, 0L, 0L, "qemu", tags, null, 0);
+    }
+
+    private static BackupResponse backup(String storage, int vmId, long size, double daysAgo) {
+        Instant createdAt = NOW.minusSeconds(Math.round(daysAgo * 86400));
+        return new BackupResponse(storage + ":backup/vm-" + vmId + "-" + createdAt.getEpochSecond(), "vm-" + vmId, size,
+                                  createdAt, null, false, vmId, "pve1", "zstd", false, "none", storage, "");
+    }
+}
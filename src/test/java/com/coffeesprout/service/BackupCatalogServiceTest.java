@@ -0,0 +1,120 @@
+package com.coffeesprout.service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import com.coffeesprout.api.exception.ProxmoxException;
+import com.coffeesprout.client.Node;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.StorageContent;
+import com.coffeesprout.client.StorageContentResponse;
+import com.coffeesprout.client.StoragePool;
+import com.coffeesprout.client.StorageResponse;
+import com.coffeesprout.config.BackupCatalogConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for backup catalog scans against a mocked Proxmox client
+ */
+class BackupCatalogServiceTest {
+
+    private BackupCatalogService service;
+    private ProxmoxClient proxmoxClient;
+    private NodeService nodeService;
+
+    @BeforeEach
+    void setUp() {
+        proxmoxClient = mock(ProxmoxClient.class);
+        nodeService = mock(NodeService.class);
+        BackupCatalogConfig config = mock(BackupCatalogConfig.class);
+        when(config.enabled()).thenReturn(true);
+        when(config.maxStalenessSeconds()).thenReturn(300);
+        when(config.scanConcurrency()).thenReturn(2);
+
+        service = new BackupCatalogService();
+        service.proxmoxClient = proxmoxClient;
+        service.nodeService = nodeService;
+        service.catalogConfig = config;
+        service.executorService = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.executorService.shutdownNow();
+    }
+
+    @Test
+    void testFailedStorageListingOnOnlyNodeKeepsSharedStorage() {
+        when(nodeService.listNodes(any())).thenReturn(List.of(node("pve1")));
+        when(proxmoxClient.getNodeStorage(eq("pve1"), any())).thenReturn(storages(pool("pbs", 1)));
+        when(proxmoxClient.listStorageContent(eq("pve1"), eq("pbs"), eq("backup"), isNull(), any()))
+            .thenReturn(contents(backup("pbs", 100), backup("pbs", 101)));
+        assertEquals(2, service.getCatalog(true, null).size());
+
+        // The shared storage was only reported by pve1, so nothing could be read this time
+        when(proxmoxClient.getNodeStorage(eq("pve1"), any())).thenThrow(new IllegalStateException("timeout"));
+        assertThrows(ProxmoxException.class, () -> service.getCatalog(true, null));
+        assertEquals(2, service.getCatalog(null).size());
+    }
+
+    @Test
+    void testSharedStorageOfFailedNodeIsNotTreatedAsRemoved() {
+        when(nodeService.listNodes(any())).thenReturn(List.of(node("pve1"), node("pve2")));
+        when(proxmoxClient.getNodeStorage(eq("pve1"), any())).thenReturn(storages(pool("nfs", 1)));
+        when(proxmoxClient.getNodeStorage(eq("pve2"), any())).thenReturn(storages(pool("local", 0)));
+        when(proxmoxClient.listStorageContent(eq("pve1"), eq("nfs"), eq("backup"), isNull(), any()))
+            .thenReturn(contents(backup("nfs", 100)));
+        when(proxmoxClient.listStorageContent(eq("pve2"), eq("local"), eq("backup"), isNull(), any()))
+            .thenReturn(contents(backup("local", 200)));
+        BackupCatalog first = service.getCatalog(true, null);
+        assertEquals(2, first.size());
+
+        when(proxmoxClient.getNodeStorage(eq("pve1"), any())).thenThrow(new IllegalStateException("timeout"));
+        BackupCatalog second = service.getCatalog(true, null);
+
+        assertEquals(2, second.size());
+        assertTrue(second.removed().isEmpty());
+    }
+
+    private static Node node(String name) {
+        Node node = new Node();
+        node.setName(name);
+        return node;
+    }
+
+    private static StoragePool pool(String name, int shared) {
+        StoragePool pool = new StoragePool();
+        pool.setStorage(name);
+        pool.setContent("backup,iso");
+        pool.setShared(shared);
+        return pool;
+    }
+
+    private static StorageResponse storages(StoragePool... pools) {
+        StorageResponse response = new StorageResponse();
+        response.setData(List.of(pools));
+        return response;
+    }
+
+    private static StorageContent backup(String storage, int vmId) {
+        StorageContent content = new StorageContent();
+        content.setVolid(storage + ":backup/vzdump-qemu-" + vmId + "-2025_01_01-00_00_00.vma.zst");
+        content.setContent("backup");
+        content.setSize(1024L);
+        content.setCtime(1735689600L);
+        content.setVmid(vmId);
+        return content;
+    }
+
+    private static StorageContentResponse contents(StorageContent... items) {
+        StorageContentResponse response = new StorageContentResponse();
+        response.setData(List.of(items));
+        return response;
+    }
+}
@@ -0,0 +1,136 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.BackupResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for backup catalog diffing and indexes
+ */
+class BackupCatalogTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void testFirstScanIndexesEverything() {
+        BackupCatalog catalog = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1), backup("pbs", 101, 2)),
+            "pve1/local", List.of(backup("local", 100, 3))), Set.of());
+
+        assertEquals(1, catalog.version());
+        assertEquals(3, catalog.size());
+        assertEquals(3, catalog.added().size());
+        assertEquals(List.of("local:backup/vm-100-3", "pbs:backup/vm-100-1"),
+                     catalog.forVm(100).stream().map(BackupResponse::volid).toList());
+        assertEquals(2, catalog.forStorage("pbs").size());
+        assertTrue(catalog.find("pbs:backup/vm-101-2").isPresent());
+    }
+
+    @Test
+    void testUnchangedRescanKeepsVersion() {
+        Map<String, List<BackupResponse>> scan = Map.of("pbs", List.of(backup("pbs", 100, 1), backup("pbs", 101, 2)));
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, scan, Set.of());
+
+        Instant later = T0.plusSeconds(60);
+        BackupCatalog second = first.update(2, later, Map.of("pbs", List.of(backup("pbs", 101, 2), backup("pbs", 100, 1))), Set.of());
+
+        assertEquals(1, second.version());
+        assertEquals(later, second.fetchedAt());
+        assertTrue(second.added().isEmpty());
+        assertSame(first.backups(), second.backups());
+    }
+
+    @Test
+    void testSharedStorageListedFromAnotherNodeKeepsVersion() {
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1), backup("pbs", 101, 2))), Set.of());
+
+        BackupCatalog second = first.update(2, T0.plusSeconds(60), Map.of(
+            "pbs", List.of(onNode(backup("pbs", 100, 1), "pve2"), onNode(backup("pbs", 101, 2), "pve2"))), Set.of());
+
+        assertEquals(1, second.version());
+        assertSame(first.backups(), second.backups());
+    }
+
+    @Test
+    void testRescanDetectsChangedBackupDetails() {
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, Map.of("pbs", List.of(backup("pbs", 100, 1))), Set.of());
+        BackupResponse grown = backup("pbs", 100, 1);
+        grown = new BackupResponse(grown.volid(), grown.filename(), 2048L, grown.createdAt(), grown.notes(),
+                                   grown.isProtected(), grown.vmId(), grown.node(), grown.compression(),
+                                   grown.encrypted(), grown.verifyState(), grown.storage(), "2.0 KB");
+
+        BackupCatalog second = first.update(2, T0, Map.of("pbs", List.of(grown)), Set.of());
+
+        assertEquals(2, second.version());
+        assertEquals(2048L, second.find("pbs:backup/vm-100-1").orElseThrow().size());
+    }
+
+    @Test
+    void testRescanReportsAddedAndRemoved() {
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1), backup("pbs", 101, 2))), Set.of());
+
+        BackupCatalog second = first.update(2, T0, Map.of(
+            "pbs", List.of(backup("pbs", 101, 2), backup("pbs", 102, 4))), Set.of());
+
+        assertEquals(2, second.version());
+        assertEquals(List.of("pbs:backup/vm-102-4"), second.added().stream().map(BackupResponse::volid).toList());
+        assertEquals(List.of("pbs:backup/vm-100-1"), second.removed().stream().map(BackupResponse::volid).toList());
+        assertTrue(second.forVm(100).isEmpty());
+    }
+
+    @Test
+    void testUnreadableStorageKeepsPreviousContent() {
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1)),
+            "pve1/local", List.of(backup("local", 101, 2))), Set.of());
+
+        BackupCatalog second = first.update(2, T0, Map.of("pbs", List.of(backup("pbs", 100, 1))), Set.of("pve1/local"));
+
+        assertEquals(1, second.version());
+        assertEquals(1, second.forVm(101).size());
+    }
+
+    @Test
+    void testRemovedStorageDropsItsBackups() {
+        BackupCatalog first = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1)),
+            "pve1/local", List.of(backup("local", 101, 2))), Set.of());
+
+        BackupCatalog second = first.update(2, T0, Map.of("pbs", List.of(backup("pbs", 100, 1))), Set.of());
+
+        assertEquals(2, second.version());
+        assertEquals(1, second.removed().size());
+        assertTrue(second.forStorage("local").isEmpty());
+    }
+
+    @Test
+    void testCreatedBetweenUsesHalfOpenRange() {
+        BackupCatalog catalog = BackupCatalog.empty().update(1, T0, Map.of(
+            "pbs", List.of(backup("pbs", 100, 1), backup("pbs", 100, 2), backup("pbs", 100, 3), backup("pbs", 100, 5))), Set.of());
+
+        List<BackupResponse> range = catalog.createdBetween(T0.plusSeconds(2 * 3600), T0.plusSeconds(5 * 3600));
+
+        assertEquals(List.of("pbs:backup/vm-100-2", "pbs:backup/vm-100-3"), range.stream().map(BackupResponse::volid).toList());
+        assertTrue(catalog.createdBetween(T0.plusSeconds(6 * 3600), T0.plusSeconds(9 * 3600)).isEmpty());
+    }
+
+    private static BackupResponse onNode(BackupResponse backup, String node) {
+        return new BackupResponse(backup.volid(), backup.filename(), backup.size(), backup.createdAt(), backup.notes(),
+                                  backup.isProtected(), backup.vmId(), node, backup.compression(), backup.encrypted(),
+                                  backup.verifyState(), backup.storage(), backup.sizeHuman());
+    }
+
+    private static BackupResponse backup(String storage, int vmId, int hour) {
+        return new BackupResponse(storage + ":backup/vm-" + vmId + "-" + hour, "vm-" + vmId + "-" + hour, 1024L,
+                                  T0.plusSeconds(hour * 3600L), null, false, vmId, "pve1", "zstd", false, "none",
+                                  storage, "1.0 KB");
+    }
+}
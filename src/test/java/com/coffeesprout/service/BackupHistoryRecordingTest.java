@@ -0,0 +1,197 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.BackupGrowth;
+import com.coffeesprout.api.dto.BackupResponse;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.model.BackupDailyStat;
+import com.coffeesprout.model.BackupRecord;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reconciling catalog versions into backup_records and the daily stats computed from them, against the
+ * test database
+ */
+@QuarkusTest
+class BackupHistoryRecordingTest {
+
+    // Catalog versions must differ between record() calls, also across tests
+    private static final AtomicLong VERSIONS = new AtomicLong(1000);
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+    private static final Instant TODAY_START = TODAY.atStartOfDay(ZoneOffset.UTC).toInstant();
+    private static final Instant YESTERDAY_NOON = TODAY_START.minusSeconds(12 * 3600);
+
+    // vm 100 belongs to client-acme, vm 101 has no client tag
+    private static final BackupResponse A = backup("pbs", 100, 1000, YESTERDAY_NOON);
+    private static final BackupResponse B = backup("pbs", 101, 2000, YESTERDAY_NOON);
+    private static final BackupResponse C = backup("local", 100, 500, TODAY_START);
+    private static final BackupResponse D = backup("pbs", 100, 4000, TODAY_START);
+
+    @Inject
+    BackupHistoryService historyService;
+
+    @InjectMock
+    BackupCatalogService backupCatalogService;
+
+    @InjectMock
+    VMService vmService;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            BackupDailyStat.deleteAll();
+            BackupRecord.deleteAll();
+        });
+        reset(backupCatalogService, vmService);
+        when(vmService.listVMs(any())).thenReturn(List.of(
+            vm(100, List.of("moxxie", "client-acme")), vm(101, List.of("moxxie"))));
+    }
+
+    @Test
+    void testReconcileTracksAddedRemovedAndRelistedBackups() {
+        record(A, B, C);
+        assertEquals(3, present().size());
+
+        // D is added and B is gone
+        record(A, C, D);
+        BackupRecord removed = find(B);
+        assertNotNull(removed.deletedAt);
+        assertNull(find(D).deletedAt);
+        assertEquals("client-acme", find(D).client);
+        assertEquals(Set.of(A.volid(), C.volid(), D.volid()), present());
+
+        // B is listed again, e.g. after its storage was unreachable
+        record(A, B, C, D);
+        assertNull(find(B).deletedAt);
+        assertEquals(removed.id, find(B).id);
+        assertEquals(4, present().size());
+    }
+
+    @Test
+    void testSkipsRecordingWhileVMsCannotBeListed() {
+        when(vmService.listVMs(any())).thenThrow(new IllegalStateException("cluster unreachable"));
+        record(A, D);
+        assertTrue(present().isEmpty());
+
+        // Once the VMs can be listed again the backups are recorded with their client
+        reset(vmService);
+        when(vmService.listVMs(any())).thenReturn(List.of(vm(100, List.of("moxxie", "client-acme"))));
+        record(A, D);
+        assertEquals("client-acme", find(A).client);
+        assertEquals("client-acme", find(D).client);
+    }
+
+    @Test
+    void testDailyStatsPerStorageAndClient() {
+        record(A, B, C);
+        record(A, C, D);
+
+        // pbs: A and B at the end of yesterday; today D is added and B removed
+        assertStat(stat(BackupDailyStat.SCOPE_STORAGE, "pbs", YESTERDAY), 2, 3000, 2, 3000, 0, 0);
+        assertStat(stat(BackupDailyStat.SCOPE_STORAGE, "pbs", TODAY), 2, 5000, 1, 4000, 1, 2000);
+        assertStat(stat(BackupDailyStat.SCOPE_STORAGE, "local", TODAY), 1, 500, 1, 500, 0, 0);
+        assertNull(stat(BackupDailyStat.SCOPE_STORAGE, "local", YESTERDAY));
+
+        // client-acme owns A, C and D; B belongs to no client
+        assertStat(stat(BackupDailyStat.SCOPE_CLIENT, "client-acme", YESTERDAY), 1, 1000, 1, 1000, 0, 0);
+        assertStat(stat(BackupDailyStat.SCOPE_CLIENT, "client-acme", TODAY), 3, 5500, 2, 4500, 0, 0);
+        assertStat(stat(BackupDailyStat.SCOPE_CLIENT, "no-client", TODAY), 0, 0, 0, 0, 1, 2000);
+
+        // Re-listing B recomputes today without the removal
+        record(A, B, C, D);
+        assertStat(stat(BackupDailyStat.SCOPE_STORAGE, "pbs", TODAY), 3, 7000, 1, 4000, 0, 0);
+        assertStat(stat(BackupDailyStat.SCOPE_CLIENT, "no-client", TODAY), 1, 2000, 0, 0, 0, 0);
+    }
+
+    @Test
+    void testGrowthOverDailyStats() {
+        record(A, B, C);
+        record(A, C, D);
+
+        List<BackupGrowth> growth = QuarkusTransaction.requiringNew()
+            .call(() -> historyService.growth(BackupDailyStat.SCOPE_STORAGE, 2));
+
+        assertEquals(List.of("pbs", "local"), growth.stream().map(BackupGrowth::key).toList());
+        BackupGrowth pbs = growth.get(0);
+        assertEquals(YESTERDAY, pbs.from());
+        assertEquals(TODAY, pbs.to());
+        assertEquals(0, pbs.startSize());
+        assertEquals(5000, pbs.endSize());
+        assertEquals(5000, pbs.growth());
+        assertEquals(3, pbs.addedCount());
+        assertEquals(7000, pbs.sizeAdded());
+        assertEquals(1, pbs.removedCount());
+        assertEquals(2000, pbs.sizeRemoved());
+        assertEquals(500, growth.get(1).growth());
+    }
+
+    private void record(BackupResponse... backups) {
+        Map<String, List<BackupResponse>> segments = new HashMap<>();
+        for (BackupResponse backup : backups) {
+            segments.computeIfAbsent(backup.storage(), key -> new ArrayList<>()).add(backup);
+        }
+        BackupCatalog catalog = BackupCatalog.empty()
+            .update(VERSIONS.incrementAndGet(), Instant.now(), segments, Set.of());
+        when(backupCatalogService.getCatalog(any())).thenReturn(catalog);
+        historyService.record();
+    }
+
+    private static Set<String> present() {
+        return QuarkusTransaction.requiringNew().call(() -> BackupRecord.findPresent().stream()
+            .map(record -> record.volid)
+            .collect(Collectors.toSet()));
+    }
+
+    private static BackupRecord find(BackupResponse backup) {
+        return QuarkusTransaction.requiringNew().call(() -> BackupRecord.findByVolid(backup.volid()));
+    }
+
+    private static BackupDailyStat stat(String scope, String key, LocalDate day) {
+        return QuarkusTransaction.requiringNew().call(() -> BackupDailyStat.findRange(scope, key, day, day).stream()
+            .findFirst()
+            .orElse(null));
+    }
+
+    private static void assertStat(BackupDailyStat stat, int count, long bytes, int addedCount, long addedBytes,
+                                   int removedCount, long removedBytes) {
+        assertNotNull(stat);
+        assertEquals(count, stat.backupCount, "backup count on " + stat.day);
+        assertEquals(bytes, stat.totalBytes, "total bytes on " + stat.day);
+        assertEquals(addedCount, stat.addedCount, "added count on " + stat.day);
+        assertEquals(addedBytes, stat.addedBytes, "added bytes on " + stat.day);
+        assertEquals(removedCount, stat.removedCount, "removed count on " + stat.day);
+        assertEquals(removedBytes, stat.removedBytes, "removed bytes on " + stat.day);
+    }
+
+    private static BackupResponse backup(String storage, int vmId, long size, Instant createdAt) {
+        String name = "vzdump-qemu-" + vmId + "-" + createdAt.getEpochSecond() + "-" + size + ".vma.zst";
+        return new BackupResponse(storage + ":backup/" + name, name, size, createdAt, null, false, vmId, "pve1",
+                                  "zstd", false, "none", storage, size + " B");
+    }
+
+    private static VMResponse vm(int vmid, List<String> tags) {
+        return new VMResponse(vmid, "vm-" + vmid, "pve1", "running", 2, 2048L, 10L, 0L, "qemu", tags, null, 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.coffeesprout.api.dto.TrendPoint;
+import com.coffeesprout.model.BackupDailyStat;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for turning daily backup stats into trend points
+ */
+class BackupHistoryServiceTest {
+
+    private static final LocalDate START = LocalDate.parse("2025-03-01");
+
+    @Test
+    void testDaysWithoutRowsCarryTotalsForward() {
+        List<TrendPoint> points = BackupHistoryService.buckets(
+            List.of(stat(START.plusDays(1), 3, 300, 100, 0)), stat(START.minusDays(5), 2, 200, 0, 0),
+            START, START.plusDays(2), 1);
+
+        assertEquals(3, points.size());
+        assertEquals(List.of(200L, 300L, 300L), points.stream().map(TrendPoint::totalSize).toList());
+        assertEquals(List.of(0L, 100L, 0L), points.stream().map(TrendPoint::sizeAdded).toList());
+        assertEquals(Instant.parse("2025-03-02T00:00:00Z"), points.get(0).timestamp());
+    }
+
+    @Test
+    void testBucketSumsChangesAndEndsWithLastDay() {
+        List<TrendPoint> points = BackupHistoryService.buckets(List.of(
+            stat(START, 2, 200, 200, 0),
+            stat(START.plusDays(3), 3, 250, 100, 50),
+            stat(START.plusDays(8), 1, 100, 0, 150)), null, START, START.plusDays(13), 7);
+
+        assertEquals(2, points.size());
+        assertEquals(250, points.get(0).totalSize());
+        assertEquals(3, points.get(0).backupCount());
+        assertEquals(300, points.get(0).sizeAdded());
+        assertEquals(50, points.get(0).sizeRemoved());
+        assertEquals(100, points.get(1).totalSize());
+        assertEquals(150, points.get(1).sizeRemoved());
+    }
+
+    @Test
+    void testNoHistoryStartsFromZero() {
+        List<TrendPoint> points = BackupHistoryService.buckets(List.of(), null, START, START, 1);
+
+        assertEquals(1, points.size());
+        assertEquals(0, points.get(0).totalSize());
+    }
+
+    @Test
+    void testTrendWindows() {
+        assertEquals(START.minusDays(29), BackupHistoryService.TrendWindow.of("daily").start(START));
+        assertEquals(7, BackupHistoryService.TrendWindow.of("Weekly").intervalDays());
+        assertThrows(IllegalArgumentException.class, () -> BackupHistoryService.TrendWindow.of("hourly"));
+    }
+
+    private static BackupDailyStat stat(LocalDate day, int count, long total, long added, long removed) {
+        BackupDailyStat stat = new BackupDailyStat();
+        stat.scope = BackupDailyStat.SCOPE_CLUSTER;
+        stat.scopeKey = BackupDailyStat.CLUSTER_KEY;
+        stat.day = day;
+        stat.backupCount = count;
+        stat.totalBytes = total;
+        stat.addedBytes = added;
+        stat.removedBytes = removed;
+        return stat;
+    }
+}
@@ -0,0 +1,278 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import jakarta.inject.Inject;
+
+import com.coffeesprout.api.dto.BulkJobItemResponse;
+import com.coffeesprout.api.dto.BulkJobResponse;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.model.BulkJob;
+import com.coffeesprout.scheduler.service.VMSelectorService;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Permit limits, cancellation and recorded outcomes of bulk jobs against the test database
+ * (per-node concurrency 4, per-storage concurrency 2)
+ */
+@QuarkusTest
+class BulkOperationEngineTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(30);
+
+    @Inject
+    BulkOperationEngine engine;
+
+    @InjectMock
+    VMSelectorService vmSelectorService;
+
+    @InjectMock
+    VMService vmService;
+
+    @BeforeEach
+    void setUp() {
+        reset(vmSelectorService, vmService);
+        RestAssured.basePath = "/api/v1";
+    }
+
+    @Test
+    void testJobNeverExceedsMaxParallel() throws Exception {
+        ConcurrencyTask task = new ConcurrencyTask(Set.of());
+
+        engine.submit("test", null, vms(12, i -> "node" + i), 3, task, Function.identity()).await(WAIT);
+
+        assertEquals(12, task.calls.get());
+        assertTrue(task.maxRunning.get() <= 3, "ran " + task.maxRunning.get() + " VMs at once");
+    }
+
+    @Test
+    void testNodeAndStoragePermitsLimitConcurrency() throws Exception {
+        ConcurrencyTask sameNode = new ConcurrencyTask(Set.of());
+        engine.submit("test", null, vms(12, i -> "pve1"), 20, sameNode, Function.identity()).await(WAIT);
+        assertTrue(sameNode.maxRunning.get() <= 4, "ran " + sameNode.maxRunning.get() + " VMs on one node");
+
+        ConcurrencyTask sameStorage = new ConcurrencyTask(Set.of("local-zfs"));
+        engine.submit("test", null, vms(12, i -> "node" + i), 20, sameStorage, Function.identity()).await(WAIT);
+        assertTrue(sameStorage.maxRunning.get() <= 2, "ran " + sameStorage.maxRunning.get() + " VMs on one storage");
+    }
+
+    @Test
+    void testJobsListingStoragesInOppositeOrderDoNotDeadlock() throws Exception {
+        // Storages are acquired in sorted order regardless of how the task lists them
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ConcurrencyTask forward = new ConcurrencyTask(new LinkedHashSet<>(List.of("a", "b")), running, maxRunning);
+        ConcurrencyTask backward = new ConcurrencyTask(new LinkedHashSet<>(List.of("b", "a")), running, maxRunning);
+
+        BulkJobHandle<Map<Integer, String>> first =
+            engine.submit("test", null, vms(10, i -> "node" + i), 10, forward, Function.identity());
+        BulkJobHandle<Map<Integer, String>> second =
+            engine.submit("test", null, vms(10, i -> "node" + i), 10, backward, Function.identity());
+
+        assertEquals(10, first.await(WAIT).size());
+        assertEquals(10, second.await(WAIT).size());
+        // Both jobs share storages a and b, so together they never run more VMs than one storage allows
+        assertTrue(maxRunning.get() <= 2, "ran " + maxRunning.get() + " VMs on storages a and b");
+    }
+
+    @Test
+    void testRecordsEachOutcomeAndCountsThemSeparately() throws Exception {
+        StatusTask task = new StatusTask(Map.of(2, "skipped", 3, "skipped"), Set.of(4));
+
+        BulkJobHandle<Map<Integer, String>> handle =
+            engine.submit("test", null, vms(5, i -> "pve1"), 5, task, Function.identity());
+        Map<Integer, String> results = handle.await(WAIT);
+
+        assertEquals(Map.of(1, "success", 2, "skipped", 3, "skipped", 4, "error", 5, "success"), results);
+
+        BulkJobResponse job = engine.getJob(handle.jobId()).orElseThrow();
+        assertEquals(BulkJob.STATUS_COMPLETED, job.status());
+        assertEquals(5, job.processed());
+        assertEquals(2, job.succeeded());
+        assertEquals(1, job.failed());
+        assertEquals(2, job.skipped());
+        assertEquals(0, job.cancelled());
+
+        List<BulkJobItemResponse> items = engine.listItems(handle.jobId(), null);
+        assertEquals(List.of(1, 2, 3, 4, 5), items.stream().map(BulkJobItemResponse::vmId).toList());
+        assertEquals(List.of("success", "skipped", "skipped", "error", "success"),
+            items.stream().map(BulkJobItemResponse::status).toList());
+        assertEquals(List.of(4), engine.listItems(handle.jobId(), "error").stream()
+            .map(BulkJobItemResponse::vmId).toList());
+    }
+
+    @Test
+    void testCancelStopsVMsThatHaveNotStarted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StatusTask task = new StatusTask(Map.of(), Set.of()) {
+            @Override
+            public String execute(VMResponse vm) throws Exception {
+                started.countDown();
+                assertTrue(release.await(30, TimeUnit.SECONDS));
+                return super.execute(vm);
+            }
+        };
+
+        BulkJobHandle<Map<Integer, String>> handle =
+            engine.submit("test", null, vms(5, i -> "pve1"), 1, task, Function.identity());
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        assertTrue(engine.cancel(handle.jobId()));
+        release.countDown();
+
+        Map<Integer, String> results = handle.await(WAIT);
+        assertEquals(1, results.values().stream().filter("success"::equals).count());
+        assertEquals(4, results.values().stream().filter("cancelled"::equals).count());
+        assertFalse(engine.isRunning(handle.jobId()));
+        assertFalse(engine.cancel(handle.jobId()));
+
+        BulkJobResponse job = engine.getJob(handle.jobId()).orElseThrow();
+        assertEquals(BulkJob.STATUS_CANCELLED, job.status());
+        assertEquals(1, job.succeeded());
+        assertEquals(0, job.skipped());
+        assertEquals(4, job.cancelled());
+        assertEquals(4, engine.listItems(handle.jobId(), "cancelled").size());
+    }
+
+    @Test
+    void testAsyncBulkPowerReturnsRunningJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(vmSelectorService.selectVMs(any(), any())).thenReturn(List.of(
+            vm(8200, "pve1", "stopped"), vm(8201, "pve2", "stopped")));
+        doAnswer(invocation -> {
+            assertTrue(release.await(30, TimeUnit.SECONDS));
+            return null;
+        }).when(vmService).startVM(anyString(), anyInt(), any());
+
+        int jobId = given()
+            .contentType(ContentType.JSON)
+            .body("""
+                {"vmSelectors": [{"type": "VM_IDS", "value": "8200,8201"}], "operation": "START"}
+                """)
+            .queryParam("async", true)
+            .when()
+            .post("/vms/power/bulk")
+            .then()
+            .statusCode(202)
+            .body("id", notNullValue())
+            .body("operation", is("power:START"))
+            .body("status", is("running"))
+            .body("total", is(2))
+            .extract().path("id");
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + WAIT.toMillis();
+        while (engine.isRunning(jobId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        BulkJobResponse job = engine.getJob(jobId).orElseThrow();
+        assertEquals(BulkJob.STATUS_COMPLETED, job.status());
+        assertEquals(2, job.succeeded());
+        verify(vmService).startVM(eq("pve1"), eq(8200), any());
+        verify(vmService).startVM(eq("pve2"), eq(8201), any());
+    }
+
+    private static List<VMResponse> vms(int count, Function<Integer, String> node) {
+        List<VMResponse> vms = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            vms.add(vm(i, node.apply(i), "running"));
+        }
+        return vms;
+    }
+
+    private static VMResponse vm(int vmid, String node, String status) {
+        return new VMResponse(vmid, "vm-" + vmid, node, status, 2, 2048L, 10L, 0L, "qemu",
+            List.of("moxxie"), null, 0);
+    }
+
+    /**
+     * Returns the configured status per VM, throwing for failing VMs
+     */
+    private static class StatusTask implements BulkOperationEngine.BulkTask<String> {
+        private final Map<Integer, String> statuses;
+        private final Set<Integer> failing;
+
+        StatusTask(Map<Integer, String> statuses, Set<Integer> failing) {
+            this.statuses = statuses;
+            this.failing = failing;
+        }
+
+        @Override
+        public String execute(VMResponse vm) throws Exception {
+            if (failing.contains(vm.vmid())) {
+                throw new IllegalStateException("boom");
+            }
+            return statuses.getOrDefault(vm.vmid(), "success");
+        }
+
+        @Override
+        public String failed(VMResponse vm, Exception error) {
+            return "error";
+        }
+
+        @Override
+        public String cancelled(VMResponse vm) {
+            return "cancelled";
+        }
+
+        @Override
+        public String status(String result) {
+            return result;
+        }
+    }
+
+    /**
+     * Records how many VMs run at once, optionally in counters shared with other tasks
+     */
+    private static class ConcurrencyTask extends StatusTask {
+        final AtomicInteger running;
+        final AtomicInteger maxRunning;
+        final AtomicInteger calls = new AtomicInteger();
+        private final Set<String> storages;
+
+        ConcurrencyTask(Set<String> storages) {
+            this(storages, new AtomicInteger(), new AtomicInteger());
+        }
+
+        ConcurrencyTask(Set<String> storages, AtomicInteger running, AtomicInteger maxRunning) {
+            super(Map.of(), Set.of());
+            this.storages = storages;
+            this.running = running;
+            this.maxRunning = maxRunning;
+        }
+
+        @Override
+        public String execute(VMResponse vm) throws Exception {
+            calls.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(30);
+                return super.execute(vm);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Set<String> storages(VMResponse vm) {
+            return storages;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.coffeesprout.service;
+
+import java.util.List;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.DrainPlanResponse;
+import com.coffeesprout.api.dto.DrainPlanResponse.PlannedVM;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.config.MigrationConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the drain migration cost model
+ */
+class MigrationPlannerTest {
+
+    // 1 Gbit/s link: 125,000,000 bytes per second
+    private static final long LINK = 125_000_000L;
+
+    private final MigrationPlanner planner = new MigrationPlanner();
+
+    @Test
+    void testOnlineMemoryIncludesResentPages() {
+        configure(1000, 200, true);
+        // 200 Mbit/s dirty rate against a full 1 Gbit/s link resends a fifth of each round: factor 1.25
+        MigrationPlanner.MigrationEstimate estimate = planner.estimate(vm(101, "running", 8_000_000_000L, 0), false, null);
+
+        DrainPlanResponse plan = planner.plan("pve1", List.of(estimate), 1, 0);
+
+        assertEquals(10_000_000_000L, plan.totalBytes());
+        assertEquals(80, plan.predictedMakespanSeconds());
+    }
+
+    @Test
+    void testStoppedVMMovesOnlyLocalDisks() {
+        configure(1000, 200, true);
+
+        MigrationPlanner.MigrationEstimate copied = planner.estimate(vm(101, "stopped", 4_000_000_000L, 50_000_000_000L), true, Set.of("local-zfs"));
+        MigrationPlanner.MigrationEstimate shared = planner.estimate(vm(102, "stopped", 4_000_000_000L, 50_000_000_000L), false, null);
+
+        assertEquals(50_000_000_000L, copied.dataBytes());
+        assertEquals(0, shared.dataBytes());
+        assertFalse(copied.online());
+    }
+
+    @Test
+    void testLinkIsSharedEvenly() {
+        configure(1000, 200, true);
+
+        assertEquals((int) (LINK / 4 / 1024), planner.bwlimit(4));
+        assertEquals((int) (LINK / 1024), planner.bwlimit(1));
+    }
+
+    @Test
+    void testNoBwlimitWhenDisabled() {
+        configure(1000, 200, false);
+
+        DrainPlanResponse plan = planner.plan("pve1", List.of(planner.estimate(vm(101, "stopped", 0, 1_000_000), true, null)), 2, 0);
+
+        assertNull(plan.bwlimit());
+    }
+
+    @Test
+    void testMakespanFollowsLargestFirstOrder() {
+        configure(1000, 200, true);
+        // Two slots of 62.5 MB/s each; 625 MB takes 10 seconds
+        long tenSeconds = 625_000_000L;
+
+        DrainPlanResponse plan = planner.plan("pve1", List.of(
+            planner.estimate(vm(101, "stopped", 0, tenSeconds), true, null),
+            planner.estimate(vm(102, "stopped", 0, 3 * tenSeconds), true, null),
+            planner.estimate(vm(103, "stopped", 0, tenSeconds), true, null),
+            planner.estimate(vm(104, "stopped", 0, 2 * tenSeconds), true, null)), 2, 0);
+
+        assertEquals(List.of(102, 104, 101, 103), plan.migrations().stream().map(PlannedVM::vmid).toList());
+        assertEquals(List.of(0L, 0L, 20L, 30L), plan.migrations().stream().map(PlannedVM::predictedStartSeconds).toList());
+        assertEquals(40, plan.predictedMakespanSeconds());
+    }
+
+    @Test
+    void testObservedThroughputCapsRate() {
+        configure(1000, 200, true);
+
+        DrainPlanResponse plan = planner.plan("pve1",
+            List.of(planner.estimate(vm(101, "stopped", 0, 100_000_000L), true, null)), 1, 10_000_000L);
+
+        assertEquals(10_000_000L, plan.observedBytesPerSecond());
+        assertEquals(10, plan.predictedMakespanSeconds());
+    }
+
+    @Test
+    void testMedian() {
+        assertEquals(0, MigrationPlanner.median(List.of()));
+        assertEquals(5, MigrationPlanner.median(List.of(9L, 1L, 5L)));
+        assertEquals(4, MigrationPlanner.median(List.of(2L, 6L, 1L, 9L)));
+    }
+
+    private static VMResponse vm(int vmId, String status, long memory, long disk) {
+        return new VMResponse(vmId, "vm-" + vmId, "pve1", status, 2, memory, disk, 0L, "qemu", List.of(), null, 0);
+    }
+
+    private void configure(int linkMbps, int dirtyRateMbps, boolean autoBwlimit) {
+        MigrationConfig.Planner planning = mock(MigrationConfig.Planner.class);
+        when(planning.linkBandwidthMbps()).thenReturn(linkMbps);
+        when(planning.memoryDirtyRateMbps()).thenReturn(dirtyRateMbps);
+        when(planning.historySize()).thenReturn(20);
+        when(planning.autoBwlimit()).thenReturn(autoBwlimit);
+        planner.migrationConfig = mock(MigrationConfig.class);
+        when(planner.migrationConfig.planner()).thenReturn(planning);
+    }
+}
@@ -0,0 +1,295 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.coffeesprout.api.dto.NodeDrainResponse.DrainProgress;
+import com.coffeesprout.api.dto.NodeDrainResponse.VMMigrationStatus;
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.api.exception.ProxmoxException;
+import com.coffeesprout.config.MigrationConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for drain migration admission and placement
+ */
+class MigrationSchedulerTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    private final MigrationScheduler scheduler = new MigrationScheduler();
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler.executorService != null) {
+            scheduler.executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLargestVMsStartFirst() {
+        configure(1, 1, 1, 1);
+        List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+
+        scheduler.run("pve1",
+            List.of(planned(101, 2), planned(102, 16), planned(103, 8)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1)),
+            (vm, target) -> {
+                started.add(vm.vmid());
+                return completed(vm, target);
+            },
+            (progress, statuses) -> { });
+
+        assertEquals(List.of(102, 103, 101), started);
+    }
+
+    @Test
+    void testPerTargetLimitIsNeverExceeded() {
+        configure(10, 1, 10, 10);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<String, Integer> peak = new ConcurrentHashMap<>();
+
+        List<VMMigrationStatus> statuses = scheduler.run("pve1",
+            List.of(planned(101, 4), planned(102, 4), planned(103, 4), planned(104, 4)),
+            10,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1), new MigrationScheduler.TargetNode("pve3", -1)),
+            (vm, target) -> {
+                int now = running.computeIfAbsent(target, t -> new AtomicInteger()).incrementAndGet();
+                peak.merge(target, now, Math::max);
+                sleep(50);
+                running.get(target).decrementAndGet();
+                return completed(vm, target);
+            },
+            (progress, statuses2) -> { });
+
+        assertEquals(4, statuses.size());
+        assertTrue(statuses.stream().allMatch(s -> "completed".equals(s.status())));
+        assertEquals(1, peak.get("pve2"));
+        assertEquals(1, peak.get("pve3"));
+    }
+
+    @Test
+    void testPlacementPrefersTargetWithMostFreeMemory() {
+        configure(1, 1, 1, 1);
+
+        List<VMMigrationStatus> statuses = scheduler.run("pve1",
+            List.of(planned(101, 4), planned(102, 4)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", 10 * GB),
+                          new MigrationScheduler.TargetNode("pve3", 8 * GB)),
+            this::completed,
+            (progress, statuses2) -> { });
+
+        // The first VM leaves 6 GB on pve2, so the second goes to pve3 with 8 GB
+        assertEquals(List.of("pve2", "pve3"), statuses.stream().map(VMMigrationStatus::targetNode).toList());
+    }
+
+    @Test
+    void testVMThatFitsNowhereFailsWithoutBlockingOthers() {
+        configure(1, 1, 1, 1);
+
+        List<VMMigrationStatus> statuses = scheduler.run("pve1",
+            List.of(planned(101, 64), planned(102, 2)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", 8 * GB)),
+            this::completed,
+            (progress, statuses2) -> { });
+
+        VMMigrationStatus tooLarge = statuses.stream().filter(s -> s.vmid() == 101).findFirst().orElseThrow();
+        VMMigrationStatus fits = statuses.stream().filter(s -> s.vmid() == 102).findFirst().orElseThrow();
+        assertEquals("failed", tooLarge.status());
+        assertEquals("completed", fits.status());
+    }
+
+    @Test
+    void testProgressReportsThroughputAndFinalCounts() {
+        configure(2, 2, 2, 2);
+        List<DrainProgress> reports = Collections.synchronizedList(new ArrayList<>());
+
+        scheduler.run("pve1",
+            List.of(planned(101, 2), planned(102, 2), planned(103, 2)),
+            2,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1), new MigrationScheduler.TargetNode("pve3", -1)),
+            (vm, target) -> vm.vmid() == 103
+                ? new VMMigrationStatus(vm.vmid(), vm.name(), "failed", target, "boom")
+                : completed(vm, target),
+            (progress, statuses) -> reports.add(progress));
+
+        DrainProgress last = reports.get(reports.size() - 1);
+        assertEquals(3, reports.size());
+        assertEquals(2, last.completed());
+        assertEquals(1, last.failed());
+        assertEquals(0, last.running());
+        assertEquals(0, last.queued());
+        assertEquals(4 * GB, last.bytesMigrated());
+        assertEquals(6 * GB, last.bytesTotal());
+    }
+
+    @Test
+    void testInterruptedDrainCollectsRunningMigrationsAndSkipsQueued() throws Exception {
+        configure(1, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<VMMigrationStatus> result = Collections.synchronizedList(new ArrayList<>());
+
+        Thread drain = new Thread(() -> result.addAll(scheduler.run("pve1",
+            List.of(planned(101, 2), planned(102, 2)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1)),
+            (vm, target) -> {
+                started.countDown();
+                awaitQuietly(release);
+                return completed(vm, target);
+            },
+            (progress, statuses) -> { })));
+        drain.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        drain.interrupt();
+
+        // The dispatcher keeps waiting for the running migration instead of returning without it
+        drain.join(200);
+        assertTrue(drain.isAlive());
+        release.countDown();
+        drain.join(5000);
+        assertFalse(drain.isAlive());
+
+        assertEquals(2, result.size());
+        assertEquals("completed", result.stream().filter(s -> s.vmid() == 101).findFirst().orElseThrow().status());
+        assertEquals("skipped", result.stream().filter(s -> s.vmid() == 102).findFirst().orElseThrow().status());
+
+        // The interrupted drain's migration freed the shared source slot
+        List<VMMigrationStatus> statuses = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> scheduler.run("pve1",
+            List.of(planned(103, 2)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1)),
+            this::completed,
+            (progress, statuses2) -> { }));
+        assertEquals("completed", statuses.get(0).status());
+    }
+
+    @Test
+    void testMigrationStillRunningAfterInterruptIsReportedInProgress() throws Exception {
+        configure(1, 1, 1, 1);
+        scheduler.interruptedWaitMs = 100;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<VMMigrationStatus> result = Collections.synchronizedList(new ArrayList<>());
+
+        Thread drain = new Thread(() -> result.addAll(scheduler.run("pve1",
+            List.of(planned(101, 2)),
+            1,
+            () -> List.of(new MigrationScheduler.TargetNode("pve2", -1)),
+            (vm, target) -> {
+                started.countDown();
+                awaitQuietly(release);
+                return completed(vm, target);
+            },
+            (progress, statuses) -> { })));
+        drain.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        drain.interrupt();
+        drain.join(5000);
+        assertFalse(drain.isAlive());
+        release.countDown();
+
+        assertEquals(1, result.size());
+        assertEquals("in-progress", result.get(0).status());
+        assertEquals("pve2", result.get(0).targetNode());
+    }
+
+    @Test
+    void testFailedFirstTargetReadIsRetried() {
+        configure(1, 1, 1, 1);
+        AtomicInteger reads = new AtomicInteger();
+
+        List<VMMigrationStatus> statuses = scheduler.run("pve1",
+            List.of(planned(101, 2)),
+            1,
+            () -> {
+                if (reads.incrementAndGet() == 1) {
+                    throw new IllegalStateException("node list unavailable");
+                }
+                return List.of(new MigrationScheduler.TargetNode("pve2", -1));
+            },
+            this::completed,
+            (progress, statuses2) -> { });
+
+        assertEquals(2, reads.get());
+        assertEquals("completed", statuses.get(0).status());
+    }
+
+    @Test
+    void testDrainFailsWhenTargetsCannotBeRead() {
+        configure(1, 1, 1, 1);
+        AtomicInteger migrations = new AtomicInteger();
+
+        ProxmoxException error = assertThrows(ProxmoxException.class, () -> scheduler.run("pve1",
+            List.of(planned(101, 2)),
+            1,
+            () -> {
+                throw new IllegalStateException("node list unavailable");
+            },
+            (vm, target) -> {
+                migrations.incrementAndGet();
+                return completed(vm, target);
+            },
+            (progress, statuses) -> { }));
+
+        assertTrue(error.getMessage().contains("node list unavailable"));
+        assertEquals(0, migrations.get());
+    }
+
+    private VMMigrationStatus completed(VMResponse vm, String target) {
+        return new VMMigrationStatus(vm.vmid(), vm.name(), "completed", target, null);
+    }
+
+    private static MigrationScheduler.PlannedMigration planned(int vmId, long memoryGb) {
+        VMResponse vm = new VMResponse(vmId, "vm-" + vmId, "pve1", "running", 2, memoryGb * GB,
+                                       0L, 0L, "qemu", List.of(), null, 0);
+        return new MigrationScheduler.PlannedMigration(vm, memoryGb * GB, Set.of());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void configure(int perSource, int perTarget, int perStorage, int perNetwork) {
+        scheduler.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        MigrationConfig.Scheduler limits = mock(MigrationConfig.Scheduler.class);
+        when(limits.perSourceNode()).thenReturn(perSource);
+        when(limits.perTargetNode()).thenReturn(perTarget);
+        when(limits.perStorage()).thenReturn(perStorage);
+        when(limits.perNetwork()).thenReturn(perNetwork);
+        when(limits.network()).thenReturn(Optional.empty());
+        when(limits.targetRefreshSeconds()).thenReturn(30);
+        scheduler.migrationConfig = mock(MigrationConfig.class);
+        when(scheduler.migrationConfig.scheduler()).thenReturn(limits);
+    }
+}
@@ -0,0 +1,65 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for buffering and replay of bulk operation progress
+ */
+class OperationProgressServiceTest {
+
+    private final OperationProgressService service = new OperationProgressService();
+
+    @Test
+    void testLateSubscriberGetsTerminalEventAfterResultBufferIsFull() {
+        service.start("op");
+        for (int vmId = 0; vmId < 10_050; vmId++) {
+            service.publishResult("op", vmId, "success");
+        }
+        service.complete("op", "done");
+
+        List<OperationProgressService.ProgressEvent> received = new ArrayList<>();
+        service.subscribe("op", received::add);
+
+        assertEquals(10_001, received.size());
+        OperationProgressService.ProgressEvent last = received.get(received.size() - 1);
+        assertEquals(OperationProgressService.ProgressEvent.COMPLETED, last.type());
+        assertEquals("done", last.data());
+    }
+
+    @Test
+    void testStartReplacesFinishedOperationWithSameId() {
+        service.start("op");
+        service.publishResult("op", 100, "success");
+        service.complete("op", "first");
+
+        service.start("op");
+        List<OperationProgressService.ProgressEvent> received = new ArrayList<>();
+        service.subscribe("op", received::add);
+        assertTrue(received.isEmpty(), "Events of the finished run must not be replayed");
+
+        service.publishResult("op", 101, "success");
+        service.complete("op", "second");
+
+        assertEquals(2, received.size());
+        assertEquals(101, received.get(0).vmId());
+        assertEquals("second", received.get(1).data());
+    }
+
+    @Test
+    void testSubscriberAddedBeforeStartKeepsReceivingEvents() {
+        List<OperationProgressService.ProgressEvent> received = new ArrayList<>();
+        service.subscribe("op", received::add);
+
+        service.start("op");
+        service.publishResult("op", 100, "success");
+        service.complete("op", "done");
+
+        assertEquals(2, received.size());
+        assertEquals(OperationProgressService.ProgressEvent.COMPLETED, received.get(1).type());
+    }
+}
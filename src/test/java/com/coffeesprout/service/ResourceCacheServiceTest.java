@@ -0,0 +1,225 @@
+package com.coffeesprout.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.coffeesprout.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bounded resource cache
+ */
+class ResourceCacheServiceTest {
+
+    private final ResourceCacheService cache = new ResourceCacheService();
+
+    @AfterEach
+    void tearDown() {
+        if (cache.executorService != null) {
+            cache.executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLoadsOnceAndServesHits() {
+        configure(60, 60, 100, Map.of());
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("value", cache.get("ns:key", () -> {
+            loads.incrementAndGet();
+            return "value";
+        }));
+        assertEquals("value", cache.get("ns:key", () -> "other"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStatistics().getHits());
+        assertEquals(1, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        configure(60, 60, 100, Map.of());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> cache.<String>get("ns:slow", () -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(release);
+                return "loaded";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.<String>get("ns:slow", () -> {
+                loads.incrementAndGet();
+                return "duplicate";
+            }));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals("loaded", first.get());
+            assertEquals("loaded", second.get());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidationDuringLoadDiscardsLoadedValue() throws Exception {
+        configure(60, 60, 100, Map.of());
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> stale = executor.submit(() -> cache.<String>get("ns:key", () -> {
+                loaderStarted.countDown();
+                await(release);
+                return "before-write";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // A write invalidates the key while the load that read the old state is still running
+            cache.invalidatePrefix("ns:");
+            release.countDown();
+
+            assertEquals("before-write", stale.get());
+        }
+        assertEquals(Optional.empty(), cache.getIfPresent("ns:key"));
+        assertEquals("after-write", cache.get("ns:key", () -> "after-write"));
+    }
+
+    @Test
+    void testRefreshAheadServesStaleWhileReloading() throws Exception {
+        configure(60, 0, 100, Map.of());
+        CountDownLatch reloaded = new CountDownLatch(1);
+        cache.get("ns:key", () -> "v1");
+
+        assertEquals("v1", cache.get("ns:key", () -> {
+            reloaded.countDown();
+            return "v2";
+        }));
+
+        assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && !"v2".equals(cache.getIfPresent("ns:key").orElse(null)); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Optional.of("v2"), cache.getIfPresent("ns:key"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedAtMaxSize() throws Exception {
+        configure(60, 60, 10, Map.of());
+        for (int i = 0; i < 10; i++) {
+            cache.put("ns:" + i, i);
+            Thread.sleep(1);
+        }
+        cache.getIfPresent("ns:0");
+
+        cache.put("ns:10", 10);
+
+        assertTrue(cache.getStatistics().getSize() <= 10);
+        assertTrue(cache.getIfPresent("ns:0").isPresent());
+        assertTrue(cache.getIfPresent("ns:1").isEmpty());
+    }
+
+    @Test
+    void testPrefixAndPatternInvalidation() {
+        configure(60, 60, 100, Map.of());
+        cache.put("node-resources:pve1", 1);
+        cache.put("node-resources:pve2", 2);
+        cache.put("cluster-resources:true-false", 3);
+        cache.put("cluster-resources:false-false", 4);
+
+        cache.invalidatePattern("node-resources:*");
+        cache.invalidatePattern("cluster-resources:*-false*");
+
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+
+    @Test
+    void testNamespaceTtlOverride() {
+        configure(60, 60, 100, Map.of("short", namespace(0)));
+        cache.put("short:key", "value");
+        cache.put("long:key", "value");
+
+        assertTrue(cache.getIfPresent("short:key").isEmpty());
+        assertTrue(cache.getIfPresent("long:key").isPresent());
+    }
+
+    @Test
+    void testCollectionsWeighByElementCount() {
+        assertEquals(4, ResourceCacheService.weigh(List.of(1, 2, 3)));
+        assertEquals(1, ResourceCacheService.weigh("value"));
+        assertEquals("node-resources", ResourceCacheService.namespaceOf("node-resources:pve1"));
+    }
+
+    private void configure(int ttlSeconds, int refreshSeconds, int maxSize, Map<String, CacheConfig.Namespace> namespaces) {
+        cache.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        cache.cacheConfig = new CacheConfig() {
+            @Override
+            public boolean enabled() {
+                return true;
+            }
+
+            @Override
+            public int ttlSeconds() {
+                return ttlSeconds;
+            }
+
+            @Override
+            public int refreshIntervalSeconds() {
+                return refreshSeconds;
+            }
+
+            @Override
+            public int maxSize() {
+                return maxSize;
+            }
+
+            @Override
+            public long maxWeight() {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public String cleanupInterval() {
+                return "60s";
+            }
+
+            @Override
+            public Map<String, Namespace> namespaces() {
+                return namespaces;
+            }
+        };
+    }
+
+    private static CacheConfig.Namespace namespace(int ttlSeconds) {
+        return new CacheConfig.Namespace() {
+            @Override
+            public Optional<Integer> ttlSeconds() {
+                return Optional.of(ttlSeconds);
+            }
+
+            @Override
+            public Optional<Integer> refreshIntervalSeconds() {
+                return Optional.empty();
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
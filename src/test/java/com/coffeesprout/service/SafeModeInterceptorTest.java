@@ -0,0 +1,122 @@
+package com.coffeesprout.service;
+
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.PathParam;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for how the safe-mode interceptor resolves VM ownership in strict mode
+ */
+class SafeModeInterceptorTest {
+
+    private SafeModeInterceptor interceptor;
+    private SafetyConfig safetyConfig;
+    private TagService tagService;
+    private VMInventoryService vmInventoryService;
+    private AuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        safetyConfig = mock(SafetyConfig.class);
+        tagService = mock(TagService.class);
+        vmInventoryService = mock(VMInventoryService.class);
+        auditService = mock(AuditService.class);
+        when(safetyConfig.enabled()).thenReturn(true);
+        when(safetyConfig.mode()).thenReturn(SafetyConfig.Mode.STRICT);
+        when(safetyConfig.tagName()).thenReturn("moxxie");
+        when(safetyConfig.verifyDestructive()).thenReturn(true);
+
+        interceptor = new SafeModeInterceptor();
+        interceptor.safetyConfig = safetyConfig;
+        interceptor.tagService = tagService;
+        interceptor.vmInventoryService = vmInventoryService;
+        interceptor.auditService = auditService;
+    }
+
+    @Test
+    void testIndexedOwnershipAllowsWithoutProxmoxRead() throws Exception {
+        when(vmInventoryService.hasTag(eq(100), eq("moxxie"), any())).thenReturn(Optional.of(true));
+        InvocationContext context = context("startVM", 100);
+
+        assertEquals("result", interceptor.checkSafeMode(context));
+
+        verify(context).proceed();
+        verify(auditService).logAllowed(eq(context), any(SafetyDecision.class));
+        verifyNoInteractions(tagService);
+    }
+
+    @Test
+    void testIndexedUntaggedVMIsBlockedWithoutProxmoxRead() throws Exception {
+        when(vmInventoryService.hasTag(eq(100), eq("moxxie"), any())).thenReturn(Optional.of(false));
+        InvocationContext context = context("startVM", 100);
+
+        assertThrows(SafeModeViolationException.class, () -> interceptor.checkSafeMode(context));
+
+        verify(context, never()).proceed();
+        verify(auditService).logBlocked(eq(context), any(SafetyDecision.class));
+        verifyNoInteractions(tagService);
+    }
+
+    @Test
+    void testIndexMissFallsBackToProxmoxTags() throws Exception {
+        when(vmInventoryService.hasTag(eq(100), eq("moxxie"), any())).thenReturn(Optional.empty());
+        when(tagService.getVMTags(eq(100), any())).thenReturn(Set.of("moxxie", "env-prod"));
+        InvocationContext context = context("startVM", 100);
+
+        assertEquals("result", interceptor.checkSafeMode(context));
+
+        verify(vmInventoryService).hasTag(eq(100), eq("moxxie"), any());
+        verify(tagService).getVMTags(eq(100), any());
+        verify(context).proceed();
+    }
+
+    @Test
+    void testDestructiveOperationReVerifiesAgainstProxmox() throws Exception {
+        // The index still lists the tag, but it was removed in Proxmox since the last refresh
+        when(vmInventoryService.hasTag(eq(100), eq("moxxie"), any())).thenReturn(Optional.of(true));
+        when(tagService.getVMTags(eq(100), any())).thenReturn(Set.of("env-prod"));
+        InvocationContext context = context("deleteVM", 100);
+
+        assertThrows(SafeModeViolationException.class, () -> interceptor.checkSafeMode(context));
+
+        verify(tagService).getVMTags(eq(100), any());
+        verify(vmInventoryService, never()).hasTag(anyInt(), anyString(), any());
+        verify(context, never()).proceed();
+    }
+
+    @Test
+    void testDestructiveOperationUsesIndexWhenVerificationIsOff() throws Exception {
+        when(safetyConfig.verifyDestructive()).thenReturn(false);
+        when(vmInventoryService.hasTag(eq(100), eq("moxxie"), any())).thenReturn(Optional.of(true));
+        InvocationContext context = context("deleteVM", 100);
+
+        assertEquals("result", interceptor.checkSafeMode(context));
+
+        verifyNoInteractions(tagService);
+    }
+
+    private static InvocationContext context(String method, int vmId) throws Exception {
+        InvocationContext context = mock(InvocationContext.class);
+        when(context.getMethod()).thenReturn(TestResource.class.getMethod(method, Integer.class));
+        when(context.getParameters()).thenReturn(new Object[] {vmId});
+        when(context.proceed()).thenReturn("result");
+        return context;
+    }
+
+    public static class TestResource {
+        @SafeMode(operation = SafeMode.Operation.WRITE)
+        public void startVM(@PathParam("vmId") Integer vmId) {}
+
+        @SafeMode(operation = SafeMode.Operation.DELETE)
+        public void deleteVM(@PathParam("vmId") Integer vmId) {}
+    }
+}
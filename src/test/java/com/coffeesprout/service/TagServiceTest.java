@@ -2,10 +2,15 @@ package com.coffeesprout.service;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jakarta.enterprise.util.AnnotationLiteral;
 
@@ -295,6 +300,48 @@ class TagServiceTest {
             anyString(), anyString(), anyString());
     }
 
+    @Test
+    void testBulkAddTagsSkipsUnchangedVMs() {
+        setupBulkTestMocks();
+
+        // Only VM 101 lacks client-acme, so only VM 101 is updated
+        Map<Integer, String> results = tagService.bulkAddTags(List.of(101, 102), Set.of("client-acme"), null);
+
+        assertEquals("success", results.get(101));
+        assertEquals("success", results.get(102));
+        verify(proxmoxClient, times(1)).updateVMConfig(eq("pve1"), eq(101), anyString(), anyString(), anyString());
+        verify(proxmoxClient, never()).updateVMConfig(anyString(), eq(102), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testInterruptedBulkUpdateReportsNothingAfterwards() throws Exception {
+        setupBulkTestMocks();
+        CountDownLatch updating = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(proxmoxClient.updateVMConfig(anyString(), anyInt(), anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> {
+                updating.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return null;
+            });
+        List<String> reported = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Map<Integer, String>> results = new AtomicReference<>();
+
+        Thread caller = new Thread(() -> results.set(tagService.bulkAddTags(List.of(101, 102), Set.of("bulk-tag"),
+            (vmId, result) -> reported.add(vmId + "=" + result), null)));
+        caller.start();
+        assertTrue(updating.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        release.countDown();
+        Thread.sleep(100);
+
+        assertEquals(Map.of(101, "error: interrupted", 102, "error: interrupted"), results.get());
+        assertEquals(Set.of("101=error: interrupted", "102=error: interrupted"), Set.copyOf(reported));
+        assertEquals(2, reported.size());
+    }
+
     @Test
     void testFindVMsByNamePattern() {
         // Create VMs with various names
@@ -337,6 +384,7 @@ class TagServiceTest {
         ObjectNode vm1 = objectMapper.createObjectNode();
         vm1.put("vmid", 101);
         vm1.put("node", "pve1");
+        vm1.put("tags", "moxxie");
 
         ObjectNode vm1Config = objectMapper.createObjectNode();
         vm1Config.put("tags", "moxxie");
@@ -347,6 +395,7 @@ class TagServiceTest {
         ObjectNode vm2 = objectMapper.createObjectNode();
         vm2.put("vmid", 102);
         vm2.put("node", "pve1");
+        vm2.put("tags", "moxxie;client-acme");
 
         ObjectNode vm2Config = objectMapper.createObjectNode();
         vm2Config.put("tags", "moxxie;client-acme");
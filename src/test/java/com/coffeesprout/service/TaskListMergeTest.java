@@ -0,0 +1,82 @@
+package com.coffeesprout.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.coffeesprout.api.dto.TaskListResponse.TaskSummary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the incremental newest-first merge of node task lists
+ */
+class TaskListMergeTest {
+
+    @Test
+    void testMergesNewestFirstAcrossNodes() {
+        TaskListMerge merge = new TaskListMerge(List.of(
+            List.of(task("pve1", 50L), task("pve1", 20L), task("pve1", 10L)),
+            List.of(task("pve2", 40L), task("pve2", 30L)),
+            List.of()), Instant.now());
+
+        assertEquals(List.of(50L, 40L, 30L, 20L, 10L), starts(merge.page(0, 10)));
+        assertEquals(5, merge.total());
+    }
+
+    @Test
+    void testOnlyMergesUpToThePage() {
+        TaskListMerge merge = new TaskListMerge(List.of(
+            List.of(task("pve1", 6L), task("pve1", 4L), task("pve1", 2L)),
+            List.of(task("pve2", 5L), task("pve2", 3L), task("pve2", 1L))), Instant.now());
+
+        assertEquals(List.of(6L, 5L), starts(merge.page(0, 2)));
+        assertEquals(2, merge.mergedCount());
+
+        // The next page continues where the first stopped
+        assertEquals(List.of(4L, 3L), starts(merge.page(2, 2)));
+        assertEquals(4, merge.mergedCount());
+
+        // Earlier pages are served from the merged prefix
+        assertEquals(List.of(5L, 4L), starts(merge.page(1, 2)));
+        assertEquals(4, merge.mergedCount());
+    }
+
+    @Test
+    void testUnsortedRunsAndMissingStartTimes() {
+        TaskListMerge merge = new TaskListMerge(List.of(
+            List.of(task("pve1", null), task("pve1", 1L), task("pve1", 3L)),
+            List.of(task("pve2", 2L))), Instant.now());
+
+        List<TaskSummary> page = merge.page(0, 4);
+
+        assertEquals(List.of(3L, 2L, 1L), starts(page.subList(0, 3)));
+        assertNull(page.get(3).starttime());
+    }
+
+    @Test
+    void testPageBeyondEnd() {
+        TaskListMerge merge = new TaskListMerge(List.of(List.of(task("pve1", 1L))), Instant.now());
+
+        assertTrue(merge.page(5, 10).isEmpty());
+        assertEquals(1, merge.page(0, 10).size());
+    }
+
+    @Test
+    void testExpiry() {
+        TaskListMerge merge = new TaskListMerge(List.of(), Instant.now().minusSeconds(60));
+
+        assertTrue(merge.isOlderThan(Duration.ofSeconds(30)));
+        assertFalse(merge.isOlderThan(Duration.ofSeconds(120)));
+    }
+
+    private static List<Long> starts(List<TaskSummary> tasks) {
+        return tasks.stream().map(task -> task.starttime().getEpochSecond()).toList();
+    }
+
+    private static TaskSummary task(String node, Long starttime) {
+        return TaskSummary.fromTask("UPID:" + node + ":" + starttime, node, "qmstart", "OK", "root@pam",
+                                    starttime, null, "OK", 1);
+    }
+}
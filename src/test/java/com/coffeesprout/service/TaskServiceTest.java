@@ -0,0 +1,147 @@
+package com.coffeesprout.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.coffeesprout.api.dto.TaskListResponse;
+import com.coffeesprout.client.Node;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.TaskListData;
+import com.coffeesprout.client.TaskStatusData;
+import com.coffeesprout.config.TaskListConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for cluster task listings and their listing IDs
+ */
+class TaskServiceTest {
+
+    // Start time of the newest task on the mocked nodes; later listings see newer tasks
+    private final AtomicLong newest = new AtomicLong(100);
+
+    private TaskService service;
+    private ProxmoxClient proxmoxClient;
+    private TaskListConfig config;
+
+    @BeforeEach
+    void setUp() {
+        proxmoxClient = mock(ProxmoxClient.class);
+        NodeService nodeService = mock(NodeService.class);
+        config = mock(TaskListConfig.class);
+        when(config.perNodeLimit()).thenReturn(500);
+        when(config.nodeTimeoutMs()).thenReturn(5000);
+        when(config.cursorTtlSeconds()).thenReturn(30);
+        when(config.maxListings()).thenReturn(100);
+        when(nodeService.listNodes(any())).thenReturn(List.of(node("pve1"), node("pve2")));
+
+        service = new TaskService();
+        service.proxmoxClient = proxmoxClient;
+        service.nodeService = nodeService;
+        service.taskListConfig = config;
+        service.executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+        when(proxmoxClient.getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> tasks(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.executorService.shutdownNow();
+    }
+
+    @Test
+    void testListingIdContinuesListingWithoutRefetch() {
+        TaskListResponse first = service.listTasks(null, null, null, null, null, null, 0, 4, "ticket");
+        TaskListResponse second = service.listTasks(null, null, null, null, null, first.listingId(), 4, 4, "ticket");
+
+        assertNotNull(first.listingId());
+        assertEquals(first.listingId(), second.listingId());
+        assertEquals(List.of(100L, 100L, 99L, 99L), starts(first));
+        assertEquals(List.of(98L, 98L, 97L, 97L), starts(second));
+        verify(proxmoxClient, times(2)).getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testClientsWithSameFiltersKeepTheirOwnListing() {
+        TaskListResponse clientA = service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+        newest.set(200);
+        TaskListResponse clientB = service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+
+        assertNotEquals(clientA.listingId(), clientB.listingId());
+        assertEquals(List.of(200L, 200L), starts(clientB));
+        // Client A's next page continues its own listing, not the one client B started
+        TaskListResponse nextA = service.listTasks(null, null, null, null, null, clientA.listingId(), 2, 2, "ticket");
+        assertEquals(List.of(99L, 99L), starts(nextA));
+    }
+
+    @Test
+    void testListingIdWithOtherFiltersStartsNewListing() {
+        TaskListResponse all = service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+        TaskListResponse pve1 = service.listTasks("pve1", null, null, null, null, all.listingId(), 2, 2, "ticket");
+        TaskListResponse withoutId = service.listTasks(null, null, null, null, null, null, 2, 2, "ticket");
+
+        assertNotEquals(all.listingId(), pve1.listingId());
+        assertTrue(pve1.tasks().stream().allMatch(task -> "pve1".equals(task.node())));
+        assertNotEquals(all.listingId(), withoutId.listingId());
+        verify(proxmoxClient, times(5)).getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testListingThatFitsOnOnePageIsNotKept() {
+        TaskListResponse all = service.listTasks(null, null, null, null, null, null, 0, 50, "ticket");
+
+        assertEquals(20, all.tasks().size());
+        assertNull(all.listingId());
+    }
+
+    @Test
+    void testOldestListingIsDroppedBeyondCap() {
+        when(config.maxListings()).thenReturn(2);
+        TaskListResponse first = service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+        TaskListResponse second = service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+        service.listTasks(null, null, null, null, null, null, 0, 2, "ticket");
+        verify(proxmoxClient, times(6)).getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any());
+
+        // The second listing is still kept, the first was dropped for the third
+        assertEquals(second.listingId(),
+            service.listTasks(null, null, null, null, null, second.listingId(), 2, 2, "ticket").listingId());
+        verify(proxmoxClient, times(6)).getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any());
+        assertNotEquals(first.listingId(),
+            service.listTasks(null, null, null, null, null, first.listingId(), 2, 2, "ticket").listingId());
+        verify(proxmoxClient, times(8)).getNodeTasks(anyString(), any(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    private TaskListData tasks(String node) {
+        List<TaskStatusData> tasks = new ArrayList<>();
+        for (long start = newest.get(); start > newest.get() - 10; start--) {
+            TaskStatusData task = new TaskStatusData();
+            task.setUpid("UPID:" + node + ":" + start);
+            task.setNode(node);
+            task.setType("qmstart");
+            task.setStatus("OK");
+            task.setStarttime(start);
+            tasks.add(task);
+        }
+        TaskListData data = new TaskListData();
+        data.setData(tasks);
+        return data;
+    }
+
+    private static List<Long> starts(TaskListResponse response) {
+        return response.tasks().stream().map(task -> task.starttime().getEpochSecond()).toList();
+    }
+
+    private static Node node(String name) {
+        Node node = new Node();
+        node.setName(name);
+        return node;
+    }
+}
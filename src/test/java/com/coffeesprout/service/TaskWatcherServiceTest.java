@@ -0,0 +1,250 @@
+package com.coffeesprout.service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.enterprise.event.Event;
+
+import com.coffeesprout.api.dto.TaskStatusDetailResponse;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.client.TaskListData;
+import com.coffeesprout.client.TaskStatusData;
+import com.coffeesprout.config.TaskWatcherConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the central task watcher against a mocked Proxmox client
+ */
+class TaskWatcherServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Tasks the mocked nodes list as finished
+    private final Set<String> finished = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private TaskWatcherService service;
+    private ProxmoxClient proxmoxClient;
+    private TaskWatcherConfig config;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        proxmoxClient = mock(ProxmoxClient.class);
+        TicketManager ticketManager = mock(TicketManager.class);
+        config = mock(TaskWatcherConfig.class);
+        when(ticketManager.getTicket()).thenReturn("ticket");
+        when(config.tick()).thenReturn("1s");
+        when(config.minPollIntervalSeconds()).thenReturn(0);
+        when(config.maxPollIntervalSeconds()).thenReturn(30);
+        when(config.taskListLimit()).thenReturn(1000);
+
+        TaskService taskService = new TaskService();
+        taskService.proxmoxClient = proxmoxClient;
+
+        service = new TaskWatcherService();
+        service.proxmoxClient = proxmoxClient;
+        service.taskService = taskService;
+        service.ticketManager = ticketManager;
+        service.config = config;
+        service.taskCompleted = mock(Event.class);
+        service.executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+        when(proxmoxClient.getNodeTasksSince(anyString(), anyLong(), anyString(), anyInt(), anyString()))
+            .thenAnswer(invocation -> listing(invocation.getArgument(0)));
+        when(proxmoxClient.getTaskStatus(anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> status(invocation.getArgument(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.executorService.shutdownNow();
+    }
+
+    @Test
+    void testFollowerGetsCompletionOnceWhenTaskFinishesWhileFollowing() {
+        String upid = upid("pve1");
+        finished.add(upid);
+        RecordingListener listener = new RecordingListener();
+        // The task finishes while follow() is still adding the listener
+        listener.onFirstState = service::poll;
+
+        service.follow(upid, listener);
+
+        assertEquals(1, listener.completed.get());
+        assertEquals(List.of("state:pending", "state:running", "state:finished", "completed"), listener.events);
+    }
+
+    @Test
+    void testFollowersRacingCompletionGetCompletionExactlyOnce() throws Exception {
+        List<RecordingListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String upid = upid("pve1");
+            service.watch(upid);
+            finished.add(upid);
+
+            RecordingListener listener = new RecordingListener();
+            listeners.add(listener);
+            CompletableFuture<Void> poll = CompletableFuture.runAsync(service::poll, service.executorService);
+            service.follow(upid, listener);
+            poll.join();
+        }
+        // Followers that arrived after their watch finished started a new one
+        for (int i = 0; i < 5 && service.watchedCount() > 0; i++) {
+            service.poll();
+        }
+
+        for (RecordingListener listener : listeners) {
+            assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, listener.completed.get());
+        }
+    }
+
+    @Test
+    void testClosedFollowerGetsNothing() {
+        String upid = upid("pve1");
+        RecordingListener listener = new RecordingListener();
+        TaskWatcherService.Subscription subscription = service.follow(upid, listener);
+
+        subscription.close();
+        finished.add(upid);
+        service.poll();
+
+        assertEquals(0, listener.completed.get());
+        assertEquals(List.of("state:pending"), listener.events);
+    }
+
+    @Test
+    void testPollIntervalGrowsWithAge() {
+        assertEquals(2000, TaskWatcherService.pollInterval(2000, 30000, 0, false));
+        assertEquals(10000, TaskWatcherService.pollInterval(2000, 30000, 100000, false));
+        assertEquals(30000, TaskWatcherService.pollInterval(2000, 30000, 3600000, false));
+        // Followed tasks stay at the minimum
+        assertEquals(2000, TaskWatcherService.pollInterval(2000, 30000, 3600000, true));
+    }
+
+    @Test
+    void testListsEachNodeOncePerPoll() {
+        for (int i = 0; i < 3; i++) {
+            service.watch(upid("pve1"));
+        }
+        for (int i = 0; i < 2; i++) {
+            service.watch(upid("pve2"));
+        }
+
+        service.poll();
+
+        verify(proxmoxClient, times(1)).getNodeTasksSince(eq("pve1"), anyLong(), anyString(), anyInt(), anyString());
+        verify(proxmoxClient, times(1)).getNodeTasksSince(eq("pve2"), anyLong(), anyString(), anyInt(), anyString());
+        // None of them finished, so no task status was fetched
+        verify(proxmoxClient, never()).getTaskStatus(anyString(), anyString(), anyString());
+        assertEquals(5, service.watchedCount());
+    }
+
+    @Test
+    void testDeliversCompletionToWaitersAndSubscribers() throws Exception {
+        String done = upid("pve1");
+        String running = upid("pve1");
+        CompletableFuture<TaskStatusDetailResponse> doneFuture = service.watch(done);
+        CompletableFuture<TaskStatusDetailResponse> runningFuture = service.watch(running);
+        // Watching a task twice shares the watch
+        CompletableFuture<TaskStatusDetailResponse> secondWaiter = service.watch(done);
+        List<TaskStatusDetailResponse> received = new CopyOnWriteArrayList<>();
+        service.subscribe(received::add);
+        finished.add(done);
+
+        service.poll();
+
+        assertEquals("OK", doneFuture.get(1, TimeUnit.SECONDS).exitstatus());
+        assertEquals("OK", secondWaiter.get(1, TimeUnit.SECONDS).exitstatus());
+        assertFalse(runningFuture.isDone());
+        assertEquals(List.of(done), received.stream().map(TaskStatusDetailResponse::upid).toList());
+        assertEquals(1, service.watchedCount());
+        verify(proxmoxClient, times(1)).getTaskStatus(eq("pve1"), eq(done), anyString());
+        verify(service.taskCompleted).fire(any(TaskCompletedEvent.class));
+    }
+
+    @Test
+    void testChecksTasksDirectlyWhenPollingIsOff() throws Exception {
+        when(config.tick()).thenReturn("off");
+        String upid = upid("pve1");
+        finished.add(upid);
+
+        // No poll() runs; the watch checks its task on its own
+        TaskStatusDetailResponse status = service.watch(upid).get(5, TimeUnit.SECONDS);
+
+        assertEquals("OK", status.exitstatus());
+        verify(proxmoxClient, never()).getNodeTasksSince(anyString(), anyLong(), anyString(), anyInt(), anyString());
+    }
+
+    private String upid(String node) {
+        int n = sequence.incrementAndGet();
+        long startTime = System.currentTimeMillis() / 1000;
+        return String.format("UPID:%s:%08X:%08X:%08X:qmstart:%d:root@pam:", node, 1000 + n, 1, startTime, 100 + n);
+    }
+
+    private TaskListData listing(String node) {
+        List<TaskStatusData> tasks = new ArrayList<>();
+        for (String upid : finished) {
+            if (upid.startsWith("UPID:" + node + ":")) {
+                TaskStatusData task = new TaskStatusData();
+                task.setUpid(upid);
+                task.setEndtime(System.currentTimeMillis() / 1000);
+                tasks.add(task);
+            }
+        }
+        TaskListData data = new TaskListData();
+        data.setData(tasks);
+        return data;
+    }
+
+    private ObjectNode status(String upid) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode data = response.putObject("data");
+        if (finished.contains(upid)) {
+            data.put("status", "stopped");
+            data.put("exitstatus", "OK");
+        } else {
+            data.put("status", "running");
+        }
+        return response;
+    }
+
+    static class RecordingListener implements TaskWatcherService.TaskListener {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        Runnable onFirstState;
+
+        @Override
+        public void onStateChanged(String upid, String state) {
+            events.add("state:" + state);
+            Runnable first = onFirstState;
+            onFirstState = null;
+            if (first != null) {
+                first.run();
+            }
+        }
+
+        @Override
+        public void onCompleted(TaskStatusDetailResponse status) {
+            events.add("completed");
+            completed.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void onFailed(String upid, Throwable error) {
+            events.add("failed");
+            done.countDown();
+        }
+    }
+}
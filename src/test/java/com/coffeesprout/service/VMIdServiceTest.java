@@ -0,0 +1,246 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.coffeesprout.api.dto.VMResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for lock-free VM ID allocation from inventory-reserved blocks
+ */
+class VMIdServiceTest {
+
+    private final FakeInventory inventory = new FakeInventory();
+    // The vm_id_reservations table shared by all instances: VM ID to owner
+    private final Map<Integer, String> reservations = new ConcurrentHashMap<>();
+    private VMIdService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TestVMIdService("instance-a");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.executorService.shutdownNow();
+    }
+
+    @Test
+    void testSkipsIdsInUse() {
+        inventory.vmIds.addAll(Set.of(100, 101, 103));
+
+        assertEquals(102, service.getNextAvailableVmId(null));
+        assertEquals(104, service.getNextAvailableVmId(null));
+        assertEquals(105, service.getNextAvailableVmId(null));
+    }
+
+    @Test
+    void testConcurrentAllocationsAreUnique() throws Exception {
+        inventory.vmIds.addAll(Set.of(100, 150, 200));
+        int requests = 50;
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return service.getNextAvailableVmId(null);
+                }));
+            }
+            start.countDown();
+
+            Set<Integer> allocated = new HashSet<>();
+            for (Future<Integer> future : futures) {
+                allocated.add(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(requests, allocated.size());
+            assertFalse(allocated.contains(100));
+            assertFalse(allocated.contains(150));
+            assertFalse(allocated.contains(200));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentCallersReserveOneBlockBetweenThem() throws Exception {
+        int requests = 50;
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return service.getNextAvailableVmId(null);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            awaitBackground();
+
+            // The first block, plus the next one prepared once it is half used
+            assertTrue(reservations.size() <= 2 * VMIdService.BLOCK_SIZE,
+                reservations.size() + " IDs reserved for " + requests + " allocations");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInstancesHandOutDisjointIds() throws Exception {
+        VMIdService other = new TestVMIdService("instance-b");
+        int requests = 50;
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                VMIdService instance = i % 2 == 0 ? service : other;
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return instance.getNextAvailableVmId(null);
+                }));
+            }
+            start.countDown();
+
+            Set<Integer> allocated = new HashSet<>();
+            for (Future<Integer> future : futures) {
+                allocated.add(future.get(5, TimeUnit.SECONDS));
+            }
+            // Both saw the same inventory, but reserved different blocks
+            assertEquals(requests, allocated.size());
+        } finally {
+            callers.shutdownNow();
+            other.executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAllocatesAcrossBlocks() {
+        Set<Integer> allocated = new HashSet<>();
+        for (int i = 0; i < VMIdService.BLOCK_SIZE * 3; i++) {
+            assertTrue(allocated.add(service.getNextAvailableVmId(null)));
+        }
+        assertEquals(VMIdService.BLOCK_SIZE * 3, allocated.size());
+    }
+
+    @Test
+    void testReleasedIdIsReused() throws Exception {
+        int vmId = service.getNextAvailableVmId(null);
+
+        service.releaseVmId(vmId);
+        awaitBackground();
+
+        assertEquals(vmId, service.getNextAvailableVmId(null));
+    }
+
+    @Test
+    void testReleasedIdInUseIsNotReused() throws Exception {
+        int vmId = service.getNextAvailableVmId(null);
+        // The create failed after Proxmox made the VM
+        inventory.vmIds.add(vmId);
+
+        service.releaseVmId(vmId);
+        awaitBackground();
+
+        assertNotEquals(vmId, service.getNextAvailableVmId(null));
+    }
+
+    @Test
+    void testSkipsIdsTakenOutsideMoxxie() throws Exception {
+        // A VM appears on Proxmox with an ID of the reserved block before Moxxie hands it out
+        inventory.hidden.add(102);
+
+        assertEquals(100, service.getNextAvailableVmId(null));
+        awaitBackground();
+
+        assertEquals(101, service.getNextAvailableVmId(null));
+        assertEquals(103, service.getNextAvailableVmId(null));
+    }
+
+    @Test
+    void testReleasedIdWithExpiredReservationIsNotReused() throws Exception {
+        int vmId = service.getNextAvailableVmId(null);
+        // The reservation expired and another instance reserved the ID
+        reservations.put(vmId, "instance-b");
+
+        service.releaseVmId(vmId);
+        awaitBackground();
+
+        assertNotEquals(vmId, service.getNextAvailableVmId(null));
+    }
+
+    private void awaitBackground() throws Exception {
+        service.executorService.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static VMResponse vm(int vmId) {
+        return new VMResponse(vmId, "vm-" + vmId, "pve1", "running", 2, 0L, 0L, 0L, "qemu", List.of(), null, 0);
+    }
+
+    /**
+     * Reserves IDs in the shared in-memory table instead of the database
+     */
+    class TestVMIdService extends VMIdService {
+
+        private final String owner;
+
+        TestVMIdService(String owner) {
+            this.owner = owner;
+            this.vmInventoryService = inventory;
+            // One background thread, so awaiting a no-op task awaits everything queued before it
+            this.executorService = Executors.newSingleThreadExecutor();
+        }
+
+        @Override
+        List<Integer> reserveIds(Set<Integer> used, int count) {
+            synchronized (reservations) {
+                Set<Integer> excluded = new HashSet<>(used);
+                excluded.addAll(reservations.keySet());
+                List<Integer> reserved = new ArrayList<>();
+                for (int vmId : VMIdBlock.free(excluded, 100, Integer.MAX_VALUE, count)) {
+                    reservations.put(vmId, owner);
+                    reserved.add(vmId);
+                }
+                return reserved;
+            }
+        }
+
+        @Override
+        boolean renewReservation(int vmId) {
+            return owner.equals(reservations.get(vmId));
+        }
+    }
+
+    static class FakeInventory extends VMInventoryService {
+
+        final Set<Integer> vmIds = ConcurrentHashMap.newKeySet();
+        // Only visible to fresh reads, like a VM the cached snapshot does not know yet
+        final Set<Integer> hidden = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public VMInventorySnapshot getSnapshot(boolean fresh, String ticket) {
+            List<VMResponse> resources = new ArrayList<>();
+            vmIds.forEach(vmId -> resources.add(vm(vmId)));
+            if (fresh) {
+                hidden.forEach(vmId -> resources.add(vm(vmId)));
+            }
+            return new VMInventorySnapshot(1, 0, Instant.now(), resources);
+        }
+
+        @Override
+        public Optional<VMResponse> findResource(int vmId, String ticket) {
+            return vmIds.contains(vmId) ? Optional.of(vm(vmId)) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.coffeesprout.service;
+
+import java.util.List;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.VMResponse;
+import com.coffeesprout.client.ProxmoxClient;
+import com.coffeesprout.config.InventoryConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the shared inventory snapshot in VMInventoryService
+ */
+class VMInventoryServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private VMInventoryService service;
+    private ProxmoxClient proxmoxClient;
+
+    @BeforeEach
+    void setUp() {
+        proxmoxClient = mock(ProxmoxClient.class);
+        TicketManager ticketManager = mock(TicketManager.class);
+        InventoryConfig config = mock(InventoryConfig.class);
+        when(ticketManager.getCsrfToken()).thenReturn("test-csrf");
+        when(config.enabled()).thenReturn(true);
+        when(config.maxStalenessSeconds()).thenReturn(60);
+
+        service = new VMInventoryService();
+        service.proxmoxClient = proxmoxClient;
+        service.ticketManager = ticketManager;
+        service.inventoryConfig = config;
+
+        when(proxmoxClient.getClusterResources(anyString(), anyString(), eq("vm")))
+            .thenReturn(clusterResources());
+    }
+
+    @Test
+    void testRepeatedReadsShareOneFetch() {
+        List<VMResponse> first = service.listAll("ticket");
+        List<VMResponse> second = service.listAll("ticket");
+
+        assertEquals(2, first.size());
+        assertEquals(first, second);
+        verify(proxmoxClient, times(1)).getClusterResources(anyString(), anyString(), eq("vm"));
+    }
+
+    @Test
+    void testFreshReadBypassesSnapshot() {
+        service.listAll("ticket");
+        service.listAllFresh("ticket");
+
+        verify(proxmoxClient, times(2)).getClusterResources(anyString(), anyString(), eq("vm"));
+    }
+
+    @Test
+    void testInvalidateForcesRefetch() {
+        long version = service.getSnapshot("ticket").version();
+        ObjectNode changed = clusterResources();
+        ((ObjectNode) changed.get("data").get(0)).put("node", "pve2");
+        when(proxmoxClient.getClusterResources(anyString(), anyString(), eq("vm"))).thenReturn(changed);
+        service.invalidate();
+
+        VMInventorySnapshot refreshed = service.getSnapshot("ticket");
+
+        assertTrue(refreshed.version() > version);
+        assertEquals("pve2", refreshed.find(100).orElseThrow().node());
+        verify(proxmoxClient, times(2)).getClusterResources(anyString(), anyString(), eq("vm"));
+    }
+
+    @Test
+    void testUnchangedRefreshKeepsVersion() {
+        VMInventorySnapshot first = service.getSnapshot("ticket");
+        ObjectNode later = clusterResources();
+        for (var resource : later.get("data")) {
+            ((ObjectNode) resource).put("uptime", 3600);
+        }
+        when(proxmoxClient.getClusterResources(anyString(), anyString(), eq("vm"))).thenReturn(later);
+
+        VMInventorySnapshot refreshed = service.getSnapshot(true, "ticket");
+
+        assertEquals(first.version(), refreshed.version());
+        assertEquals(3600, refreshed.find(100).orElseThrow().uptime());
+        verify(proxmoxClient, times(2)).getClusterResources(anyString(), anyString(), eq("vm"));
+    }
+
+    @Test
+    void testTagPatchIsVisibleWithoutRefetch() {
+        service.listAll("ticket");
+        service.updateTags(100, Set.of("moxxie", "env-prod"));
+
+        VMResponse vm = service.findResource(100, "ticket").orElseThrow();
+
+        assertEquals(Set.of("moxxie", "env-prod"), Set.copyOf(vm.tags()));
+        verify(proxmoxClient, times(1)).getClusterResources(anyString(), anyString(), eq("vm"));
+    }
+
+    @Test
+    void testRemovedVMIsNotListed() {
+        service.listAll("ticket");
+        service.removeVM(101);
+
+        assertEquals(List.of(100), service.listAll("ticket").stream().map(VMResponse::vmid).toList());
+    }
+
+    @Test
+    void testLxcIsFoundButNotListedAsVM() {
+        assertTrue(service.findResource(200, "ticket").isPresent());
+        assertTrue(service.listAll("ticket").stream().noneMatch(vm -> vm.vmid() == 200));
+    }
+
+    private ObjectNode clusterResources() {
+        ArrayNode data = objectMapper.createArrayNode();
+        data.add(resource(100, "web-01", "qemu", "moxxie"));
+        data.add(resource(101, "db-01", "qemu", "moxxie;env-prod"));
+        data.add(resource(200, "ct-01", "lxc", ""));
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.set("data", data);
+        return response;
+    }
+
+    private ObjectNode resource(int vmid, String name, String type, String tags) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("vmid", vmid);
+        node.put("name", name);
+        node.put("node", "pve1");
+        node.put("type", type);
+        node.put("status", "running");
+        node.put("tags", tags);
+        return node;
+    }
+}
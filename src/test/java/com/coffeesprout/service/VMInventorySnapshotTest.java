@@ -0,0 +1,86 @@
+package com.coffeesprout.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import com.coffeesprout.api.dto.VMResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the inventory snapshot indexes
+ */
+class VMInventorySnapshotTest {
+
+    private final VMInventorySnapshot snapshot = new VMInventorySnapshot(1, 0, Instant.now(), List.of(
+        vm(103, "acme-web-01", "pve2", "running", "qemu", List.of("moxxie", "client-acme", "env-prod"), null),
+        vm(101, "nixz-web-01", "pve1", "running", "qemu", List.of("moxxie", "client-nixz", "env-prod"), "web"),
+        vm(102, "nixz-db-01", "pve1", "stopped", "qemu", List.of("moxxie", "client-nixz", "env-dev"), null),
+        vm(200, "nixz-ct-01", "pve1", "running", "lxc", List.of("client-nixz"), null)
+    ));
+
+    @Test
+    void testLookupById() {
+        assertEquals("nixz-db-01", snapshot.find(102).orElseThrow().name());
+        assertTrue(snapshot.find(200).isPresent());
+        assertTrue(snapshot.findVM(200).isEmpty());
+        assertTrue(snapshot.find(999).isEmpty());
+    }
+
+    @Test
+    void testSelectIntersectsIndexes() {
+        assertEquals(List.of(101), ids(snapshot.select(List.of("env-prod"), null, "pve1", null)));
+        assertEquals(List.of(101, 102), ids(snapshot.select(null, "nixz", null, null)));
+        assertEquals(List.of(102), ids(snapshot.select(List.of("moxxie"), "NIXZ", "pve1", "stopped")));
+        assertEquals(List.of(101, 102, 103), ids(snapshot.select(null, null, null, null)));
+        assertTrue(snapshot.select(List.of("env-prod", "env-dev"), null, null, null).isEmpty());
+    }
+
+    @Test
+    void testTagAndPoolIndexesIncludeContainers() {
+        assertEquals(List.of(101, 102, 200), snapshot.idsWithTag("client-nixz"));
+        assertEquals(List.of(101), snapshot.idsInPool("web"));
+        assertEquals(Set.of("pve1", "pve2"), snapshot.nodes());
+    }
+
+    @Test
+    void testHasTag() {
+        assertTrue(snapshot.hasTag(101, "moxxie"));
+        assertFalse(snapshot.hasTag(200, "moxxie"));
+        assertFalse(snapshot.hasTag(999, "moxxie"));
+    }
+
+    @Test
+    void testPatchUpdatesIndexesIncrementally() {
+        VMInventorySnapshot patched = snapshot.patch(102,
+            vm -> vm(102, vm.name(), "pve2", vm.status(), vm.type(), List.of("moxxie", "env-prod"), null), 2, 1);
+
+        assertEquals(List.of(101, 102, 103), patched.idsWithTag("env-prod"));
+        assertFalse(patched.tags().contains("env-dev"));
+        assertEquals(List.of(102, 103), ids(patched.select(null, null, "pve2", null)));
+        assertEquals(List.of(101), ids(patched.select(null, "nixz", null, null)));
+
+        // The original snapshot is unchanged
+        assertEquals(List.of(102), snapshot.idsWithTag("env-dev"));
+    }
+
+    @Test
+    void testWithoutRemovesFromIndexes() {
+        VMInventorySnapshot remaining = snapshot.without(101, 2, 1);
+
+        assertTrue(remaining.find(101).isEmpty());
+        assertEquals(List.of(103), remaining.idsWithTag("env-prod"));
+        assertTrue(remaining.idsInPool("web").isEmpty());
+    }
+
+    private static List<Integer> ids(List<VMResponse> vms) {
+        return vms.stream().map(VMResponse::vmid).toList();
+    }
+
+    private static VMResponse vm(int vmid, String name, String node, String status, String type,
+                                 List<String> tags, String pool) {
+        return new VMResponse(vmid, name, node, status, 2, 0L, 0L, 0L, type, tags, pool, 0);
+    }
+}
@@ -21,6 +21,7 @@ public class TestSafetyConfig implements SafetyConfig {
     private boolean allowUntaggedRead = true;
     private boolean allowManualOverride = true;
     private boolean auditLog = true;
+    private boolean verifyDestructive = true;
 
     public void reset() {
         enabled = true;
@@ -29,6 +30,7 @@ public class TestSafetyConfig implements SafetyConfig {
         allowUntaggedRead = true;
         allowManualOverride = true;
         auditLog = true;
+        verifyDestructive = true;
     }
 
     public void setEnabled(boolean enabled) {
@@ -55,6 +57,10 @@ public class TestSafetyConfig implements SafetyConfig {
         this.auditLog = auditLog;
     }
 
+    public void setVerifyDestructive(boolean verifyDestructive) {
+        this.verifyDestructive = verifyDestructive;
+    }
+
     @Override
     public boolean enabled() {
         return enabled;
@@ -84,4 +90,9 @@ public class TestSafetyConfig implements SafetyConfig {
     public boolean auditLog() {
         return auditLog;
     }
+
+    @Override
+    public boolean verifyDestructive() {
+        return verifyDestructive;
+    }
 }